@@ -566,12 +566,27 @@ struct ScheduledTask {
 
 struct ScheduleStatusResult {
   1: list<ScheduledTask> tasks
+  /**
+   * Set when more tasks match the query than were returned. Pass it as the continuationToken of
+   * the same query to fetch the next page of tasks.
+   */
+  2: optional string continuationToken
 }
 
 struct GetJobsResult {
   1: set<JobConfiguration> configs
 }
 
+/** Fields of a ScheduledTask that may be omitted from task query results. */
+enum ScheduledTaskField {
+  /** ScheduledTask.taskEvents */
+  TASK_EVENTS    = 1,
+  /** AssignedTask.assignedPorts */
+  ASSIGNED_PORTS = 2,
+  /** TaskConfig.resources */
+  RESOURCES      = 3
+}
+
 /**
  * Contains a set of restrictions on matching tasks where all restrictions must be met
  * (terms are AND'ed together).
@@ -585,8 +600,20 @@ struct TaskQuery {
   7: optional set<i32> instanceIds
   10: optional set<string> slaveHosts
   11: optional set<JobKey> jobKeys
+  /**
+   * Number of matching tasks to skip. When offset, limit or continuationToken is set, tasks are
+   * returned in order of task ID.
+   */
   12: optional i32 offset
+  /** Maximum number of tasks to return. */
   13: optional i32 limit
+  /**
+   * Token returned by a previous query, to return only tasks following the ones it returned. The
+   * offset is applied after the token.
+   */
+  15: optional string continuationToken
+  /** Fields to leave unset in the returned tasks. */
+  16: optional set<ScheduledTaskField> omittedFields
 }
 
 struct HostStatus {
@@ -0,0 +1,149 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.Clock;
+import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.preemptor.BiCache;
+import org.apache.aurora.scheduler.preemptor.BiCache.BiCacheSettings;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Performance benchmarks for concurrent access to a {@link BiCache}.
+ */
+public class BiCacheBenchmarks {
+
+  /**
+   * Tests scheduling rounds looking up agent reservations and preemption passes checking for
+   * cached slots, running concurrently with reservations being made and released.
+   */
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 10, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Group)
+  public static class ConcurrentReservationBenchmark {
+    private static final int NUM_GROUPS = 100;
+
+    @Param({"1000", "10000"})
+    public int numAgents;
+
+    private BiCache<String, TaskGroupKey> reservations;
+    private String[] agents;
+    private TaskGroupKey[] groups;
+
+    /**
+     * Runs once to setup up benchmark state.
+     */
+    @Setup(Level.Trial)
+    public void setUpBenchmark() {
+      reservations = new BiCache<>(
+          new FakeStatsProvider(),
+          new BiCacheSettings(Amount.of(3L, Time.MINUTES), "reservation"),
+          Clock.SYSTEM_CLOCK);
+
+      agents = new String[numAgents];
+      for (int i = 0; i < numAgents; i++) {
+        agents[i] = "agent-" + i;
+      }
+      groups = new TaskGroupKey[NUM_GROUPS];
+      for (int i = 0; i < NUM_GROUPS; i++) {
+        groups[i] = TaskGroupKey.from(ITaskConfig.build(
+            new TaskConfig().setJob(new JobKey("role", "env", "job-" + i))));
+      }
+
+      // Start with a tenth of the agents reserved.
+      for (int i = 0; i < numAgents / 10; i++) {
+        reservations.put(randomAgent(), randomGroup());
+      }
+    }
+
+    private String randomAgent() {
+      return agents[ThreadLocalRandom.current().nextInt(agents.length)];
+    }
+
+    private TaskGroupKey randomGroup() {
+      return groups[ThreadLocalRandom.current().nextInt(groups.length)];
+    }
+
+    /**
+     * Simulates a scheduling round checking offers against agent reservations.
+     *
+     * @return The number of reserved agents seen.
+     */
+    @Benchmark
+    @Group("reservations")
+    @GroupThreads(4)
+    public int schedule() {
+      int reserved = 0;
+      for (int i = 0; i < 10; i++) {
+        if (reservations.view().get(randomAgent()) != null) {
+          reserved++;
+        }
+      }
+      return reserved;
+    }
+
+    /**
+     * Simulates a preemption pass checking whether a pending task group holds a slot.
+     *
+     * @return Whether the group holds a slot.
+     */
+    @Benchmark
+    @Group("reservations")
+    @GroupThreads(2)
+    public boolean checkCachedSlot() {
+      return !reservations.getByValue(randomGroup()).isEmpty();
+    }
+
+    /**
+     * Simulates a reservation being released as its task is scheduled, and a new one being made.
+     *
+     * @return The reserved agent.
+     */
+    @Benchmark
+    @Group("reservations")
+    @GroupThreads(1)
+    public String reserve() {
+      String agent = randomAgent();
+      TaskGroupKey group = randomGroup();
+      reservations.remove(randomAgent(), group);
+      reservations.put(agent, group);
+      return agent;
+    }
+  }
+}
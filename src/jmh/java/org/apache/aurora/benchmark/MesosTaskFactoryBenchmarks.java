@@ -0,0 +1,130 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.gen.Container;
+import org.apache.aurora.gen.MesosContainer;
+import org.apache.aurora.gen.ServerInfo;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.config.CommandLine;
+import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
+import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
+import org.apache.aurora.scheduler.mesos.MesosTaskFactory.MesosTaskFactoryImpl;
+import org.apache.aurora.scheduler.mesos.TestExecutorSettings;
+import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
+import org.apache.aurora.scheduler.storage.entities.IServerInfo;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.mesos.v1.Protos;
+import org.apache.mesos.v1.Protos.TaskInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.apache.aurora.scheduler.resources.ResourceManager.bagFromResources;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosRange;
+import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosScalarFromBag;
+import static org.apache.aurora.scheduler.resources.ResourceType.PORTS;
+
+/**
+ * Performance benchmarks for building the Mesos tasks of a job being launched.
+ */
+public class MesosTaskFactoryBenchmarks {
+
+  /**
+   * Tests creating a {@link TaskInfo} for every instance of a job. Allocation per operation is
+   * reported by the gc profiler.
+   */
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class LaunchJobBenchmark {
+    private static final int PORT = 31000;
+
+    @Param({"10", "1000"})
+    public int numInstances;
+
+    private MesosTaskFactory taskFactory;
+    private IAssignedTask[] tasks;
+    private Protos.Offer offer;
+
+    /**
+     * Runs once to setup up benchmark state.
+     */
+    @Setup(Level.Trial)
+    public void setUpBenchmark() {
+      CommandLine.initializeForTest();
+      taskFactory = Guice.createInjector(new AbstractModule() {
+        @Override
+        protected void configure() {
+          bind(ExecutorSettings.class).toInstance(TestExecutorSettings.THERMOS_EXECUTOR);
+          bind(IServerInfo.class).toInstance(IServerInfo.build(new ServerInfo("jmh", "")));
+          bind(MesosTaskFactory.class).to(MesosTaskFactoryImpl.class);
+        }
+      }).getInstance(MesosTaskFactory.class);
+
+      ITaskConfig config = ITaskConfig.build(TaskTestUtil.makeConfig(TaskTestUtil.JOB)
+          .newBuilder()
+          .setContainer(Container.mesos(new MesosContainer())));
+      tasks = new IAssignedTask[numInstances];
+      for (int i = 0; i < numInstances; i++) {
+        // Instances are built separately, as they are when loaded from storage.
+        tasks[i] = IAssignedTask.build(new AssignedTask()
+            .setInstanceId(i)
+            .setTaskId("task-" + i)
+            .setSlaveId("slave-id")
+            .setAssignedPorts(ImmutableMap.of("http", PORT))
+            .setTask(config.newBuilder()));
+      }
+      offer = Protos.Offer.newBuilder()
+          .setId(Protos.OfferID.newBuilder().setValue("offer-id"))
+          .setFrameworkId(Protos.FrameworkID.newBuilder().setValue("framework-id"))
+          .setAgentId(Protos.AgentID.newBuilder().setValue("slave-id"))
+          .setHostname("slave-hostname")
+          .addAllResources(mesosScalarFromBag(bagFromResources(config.getResources())
+              .add(TestExecutorSettings.THERMOS_EXECUTOR.getExecutorOverhead(config))))
+          .addResources(mesosRange(PORTS, PORT))
+          .build();
+    }
+
+    /**
+     * Creates the tasks for all instances of the job.
+     */
+    @Benchmark
+    public void launchJob(Blackhole blackhole) {
+      for (IAssignedTask task : tasks) {
+        blackhole.consume(taskFactory.createFrom(task, offer, false));
+      }
+    }
+  }
+}
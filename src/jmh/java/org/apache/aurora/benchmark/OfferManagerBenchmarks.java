@@ -0,0 +1,188 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.benchmark;
+
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.benchmark.fakes.FakeDriver;
+import org.apache.aurora.benchmark.fakes.FakeEventSink;
+import org.apache.aurora.benchmark.fakes.FakeStatsProvider;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.common.util.testing.FakeTicker;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
+import org.apache.aurora.scheduler.filter.SchedulingFilterImpl;
+import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.aurora.scheduler.offers.Deferment;
+import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.offers.OfferDecliner;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.offers.OfferManager.LaunchException;
+import org.apache.aurora.scheduler.offers.OfferManagerImpl;
+import org.apache.aurora.scheduler.offers.OfferOrder;
+import org.apache.aurora.scheduler.offers.OfferOrderBuilder;
+import org.apache.aurora.scheduler.offers.OfferSetImpl;
+import org.apache.aurora.scheduler.offers.OfferSettings;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.mesos.v1.Protos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Performance benchmarks for concurrent access to the {@link OfferManager}.
+ */
+public class OfferManagerBenchmarks {
+
+  /**
+   * Tests offer churn (rescinds and new offers) running concurrently with scheduling rounds that
+   * match and launch against offers, and preemption passes that snapshot all offers.
+   */
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 10, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Group)
+  public static class ConcurrentOfferChurnBenchmark {
+    private static final Amount<Long, Time> NO_DELAY = Amount.of(1L, Time.MILLISECONDS);
+
+    @Param({"1000", "10000"})
+    public int numOffers;
+
+    private OfferManager offerManager;
+    private HostOffer[] offers;
+    private TaskGroupKey groupKey;
+    private ResourceRequest resourceRequest;
+
+    /**
+     * Runs once to setup up benchmark state.
+     */
+    @Setup(Level.Trial)
+    public void setUpBenchmark() {
+      Driver driver = new FakeDriver();
+      OfferSettings settings = new OfferSettings(
+          NO_DELAY,
+          NO_DELAY,
+          Amount.of(0L, Time.MILLISECONDS),
+          new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
+          Amount.of(Long.MAX_VALUE, Time.SECONDS),
+          Long.MAX_VALUE,
+          new FakeTicker());
+      offerManager = new OfferManagerImpl(
+          driver,
+          settings,
+          new FakeStatsProvider(),
+          new Deferment.Noop(),
+          new OfferDecliner(
+              driver,
+              settings,
+              Executors.newSingleThreadScheduledExecutor(),
+              new FakeStatsProvider()),
+          new SchedulingFilterImpl(Amount.of(1L, Time.MINUTES), new FakeClock()),
+          new FakeEventSink());
+
+      offers = Iterables.toArray(
+          new Offers.Builder().build(new Hosts.Builder().setNumHostsPerRack(2).build(numOffers)),
+          HostOffer.class);
+      Offers.addOffers(offerManager, ImmutableList.copyOf(offers));
+
+      IScheduledTask task = Iterables.getOnlyElement(new Tasks.Builder()
+          .setTier(TaskTestUtil.PROD_TIER_NAME)
+          .build(1));
+      groupKey = TaskGroupKey.from(task.getAssignedTask().getTask());
+      resourceRequest = TaskTestUtil.toResourceRequest(task.getAssignedTask().getTask());
+    }
+
+    private HostOffer randomOffer() {
+      return offers[ThreadLocalRandom.current().nextInt(offers.length)];
+    }
+
+    /**
+     * Simulates an offer being rescinded and re-offered by the master.
+     *
+     * @return Whether the offer was present when rescinded.
+     */
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(2)
+    public boolean rescindAndReoffer() {
+      HostOffer offer = randomOffer();
+      boolean cancelled = offerManager.cancel(offer.getOffer().getId());
+      if (cancelled) {
+        offerManager.add(offer);
+      }
+      return cancelled;
+    }
+
+    /**
+     * Simulates a scheduling round matching a task against offers and launching it. The
+     * launched offer is re-added to keep the offer pool size stable.
+     *
+     * @return Whether a task was launched.
+     */
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(4)
+    public boolean scheduleAndLaunch() {
+      Iterator<HostOffer> matching =
+          offerManager.getAllMatching(groupKey, resourceRequest).iterator();
+      if (!matching.hasNext()) {
+        return false;
+      }
+
+      HostOffer offer = matching.next();
+      try {
+        offerManager.launchTask(offer.getOffer().getId(), Protos.TaskInfo.getDefaultInstance());
+      } catch (LaunchException e) {
+        // Lost a race against a rescind or another scheduling thread.
+        return false;
+      }
+      offerManager.add(offer);
+      return true;
+    }
+
+    /**
+     * Simulates a preemption pass snapshotting all offers.
+     *
+     * @return The number of offers in the snapshot.
+     */
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(1)
+    public int snapshotAll() {
+      return Iterables.size(offerManager.getAll());
+    }
+  }
+}
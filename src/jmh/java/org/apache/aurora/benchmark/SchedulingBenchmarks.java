@@ -61,6 +61,7 @@ import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.mesos.TestExecutorSettings;
 import org.apache.aurora.scheduler.offers.Deferment;
 import org.apache.aurora.scheduler.offers.HostOffer;
+import org.apache.aurora.scheduler.offers.OfferDecliner;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.offers.OfferManagerImpl;
 import org.apache.aurora.scheduler.offers.OfferManagerModule;
@@ -136,6 +137,7 @@ public class SchedulingBenchmarks {
       options.preemptor.preemptionDelay = NO_DELAY;
       options.preemptor.preemptionSlotSearchInterval = NO_DELAY;
       options.preemptor.reservationMaxBatchSize = BATCH_SIZE;
+      configure(options);
 
       // TODO(maxim): Find a way to DRY it and reuse existing modules instead.
       Injector injector = Guice.createInjector(
@@ -151,10 +153,13 @@ public class SchedulingBenchmarks {
               bind(ScheduledExecutorService.class).annotatedWith(AsyncModule.AsyncExecutor.class)
                   .toInstance(new NoopExecutor());
               bind(Deferment.class).to(Deferment.Noop.class);
+              bind(OfferDecliner.class).in(Singleton.class);
               bind(OfferManager.class).to(OfferManagerImpl.class);
               bind(OfferManagerImpl.class).in(Singleton.class);
               bind(OfferSettings.class).toInstance(
                   new OfferSettings(NO_DELAY,
+                      NO_DELAY,
+                      NO_DELAY,
                       new OfferSetImpl(
                           OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
                       Amount.of(Long.MAX_VALUE, Time.SECONDS),
@@ -210,6 +215,10 @@ public class SchedulingBenchmarks {
       saveTasks(settings.getTasks());
     }
 
+    protected void configure(CliOptions options) {
+      // No-op by default.  Subclasses may use this to override scheduler options for their test.
+    }
+
     protected void withInjector(Injector injector) {
       // No-op by default.  Subclasses may use this to retrieve bindings from the injector for use
       // in their test.
@@ -366,14 +375,23 @@ public class SchedulingBenchmarks {
   }
 
   /**
-   * Tests preemptor searching for a preemption slot in a completely filled up cluster.
+   * Tests preemptor searching for a preemption slot in a completely filled up cluster of 10k
+   * agents, with agents evaluated sequentially or in parallel.
    */
   public static class PreemptorSlotSearchBenchmark extends AbstractBase {
     @Param({"1", "10", "100", "1000"})
     public int numPendingTasks;
 
+    @Param({"1", "4", "16"})
+    public int slotSearchParallelism;
+
     private Runnable pendingTaskProcessor;
 
+    @Override
+    protected void configure(CliOptions options) {
+      options.preemptor.slotSearchParallelism = slotSearchParallelism;
+    }
+
     @Override
     protected void withInjector(Injector injector) {
       pendingTaskProcessor =
@@ -219,7 +219,7 @@ public class StatusUpdateBenchmark {
             bind(ExecutorSettings.class).toInstance(TestExecutorSettings.THERMOS_EXECUTOR);
             bind(StatsProvider.class).toInstance(new FakeStatsProvider());
             bind(EventSink.class).toInstance(eventBus::post);
-            bind(new TypeLiteral<BlockingQueue<Protos.TaskStatus>>() { })
+            bind(new TypeLiteral<BlockingQueue<TaskStatusHandlerImpl.QueuedStatus>>() { })
                 .annotatedWith(TaskStatusHandlerImpl.StatusUpdateQueue.class)
                 .toInstance(new LinkedBlockingQueue<>());
             bind(new TypeLiteral<Integer>() { })
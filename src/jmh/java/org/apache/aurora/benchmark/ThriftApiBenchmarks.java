@@ -13,11 +13,19 @@
  */
 package org.apache.aurora.benchmark;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.util.concurrent.TimeUnit;
 
+import javax.ws.rs.core.MediaType;
+
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -34,6 +42,7 @@ import org.apache.aurora.scheduler.async.AsyncModule;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.configuration.ConfigurationManager;
 import org.apache.aurora.scheduler.cron.CronPredictor;
+import org.apache.aurora.scheduler.http.api.GsonMessageBodyHandler;
 import org.apache.aurora.scheduler.quota.QuotaManager;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
@@ -126,6 +135,65 @@ public class ThriftApiBenchmarks {
     }
   }
 
+  /**
+   * Tests writing and reading the JSON of a response with all tasks, as done for the HTTP API.
+   * Allocation per operation is reported by the gc profiler.
+   */
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  @Warmup(iterations = 1, time = 10, timeUnit = TimeUnit.SECONDS)
+  @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+  @Fork(1)
+  @State(Scope.Thread)
+  public static class GetAllTasksJsonBenchmark {
+    private GsonMessageBodyHandler handler;
+    private Response response;
+    private byte[] json;
+
+    @Param({
+        "{\"instances\": 10}",
+        "{\"instances\": 1000}",
+        "{\"instances\": 10000}"})
+    private String testConfiguration;
+
+    @Setup
+    public void setUp() throws Exception {
+      handler = new GsonMessageBodyHandler();
+      response = createPopulatedApi(testConfiguration).getTasksStatus(new TaskQuery());
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      writeResponse(out);
+      json = out.toByteArray();
+    }
+
+    private void writeResponse(OutputStream out) throws IOException {
+      handler.writeTo(
+          response,
+          Response.class,
+          Response.class,
+          new Annotation[0],
+          MediaType.APPLICATION_JSON_TYPE,
+          null,
+          out);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+      writeResponse(ByteStreams.nullOutputStream());
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object read() throws IOException {
+      return handler.readFrom(
+          (Class<Object>) (Class<?>) Response.class,
+          Response.class,
+          new Annotation[0],
+          MediaType.APPLICATION_JSON_TYPE,
+          null,
+          new ByteArrayInputStream(json));
+    }
+  }
+
   private static ReadOnlyScheduler.Iface createPopulatedApi(String testConfiguration) {
     TestConfiguration config = new Gson().fromJson(testConfiguration, TestConfiguration.class);
 
@@ -153,7 +221,7 @@ public class ThriftApiBenchmarks {
         },
         new AsyncModule(new AsyncModule.Options()),
         new MemStorageModule(),
-        new ThriftModule.ReadOnly());
+        new ThriftModule.ReadOnly(new ThriftModule.Options()));
   }
 
   private static void bulkLoadTasks(Storage storage, final TestConfiguration config) {
@@ -42,6 +42,11 @@ public class FakeDriver extends AbstractIdleService implements Driver {
     // no-op
   }
 
+  @Override
+  public void declineOffers(Collection<Protos.OfferID> offerIds, Protos.Filters filters) {
+    // no-op
+  }
+
   @Override
   public void killTask(String taskId) {
     // no-op
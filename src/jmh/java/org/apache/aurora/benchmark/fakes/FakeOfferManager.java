@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.benchmark.fakes;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.google.common.collect.ImmutableList;
@@ -45,6 +46,30 @@ public class FakeOfferManager implements OfferManager {
     // no-op
   }
 
+  @Override
+  public void launchTasks(Protos.OfferID offerId, List<Protos.TaskInfo> taskInfos)
+      throws LaunchException {
+
+    // no-op
+  }
+
+  @Override
+  public void claim(Protos.OfferID offerId) throws LaunchException {
+    // no-op
+  }
+
+  @Override
+  public void acceptClaimed(Protos.OfferID offerId, List<Protos.TaskInfo> taskInfos)
+      throws LaunchException {
+
+    // no-op
+  }
+
+  @Override
+  public void releaseClaimed(Protos.OfferID offerId) {
+    // no-op
+  }
+
   @Override
   public void hostAttributesChanged(PubsubEvent.HostAttributesChanged change) {
     // no-op
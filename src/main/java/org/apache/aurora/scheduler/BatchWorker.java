@@ -26,12 +26,16 @@ import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.BackoffStrategy;
 import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.apache.aurora.scheduler.stats.WindowedPercentiles;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import org.slf4j.Logger;
@@ -44,6 +48,11 @@ import static com.google.common.base.Preconditions.checkState;
 /**
  * Generic helper that allows bundling multiple work items into a single {@link Storage}
  * transaction aiming to reduce the write lock contention.
+ * <p>
+ * Batches are capped at a fixed maximum size by default. Optionally, the cap can be adapted to a
+ * target lock hold duration: the locked time per item is tracked across recent batches, and the
+ * cap is set to the number of items expected to fit within the target, never exceeding the
+ * configured maximum.
  *
  * @param <T> Expected result type.
  */
@@ -59,8 +68,17 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
   public static final NoResult NO_RESULT = new NoResult() { };
 
   private static final Logger LOG = LoggerFactory.getLogger(BatchWorker.class);
+
+  // Weight of the most recent batch in the smoothed per-item lock hold time.
+  private static final double LOCKED_NANOS_SMOOTHING = 0.2;
+
   private final Storage storage;
   private final int maxBatchSize;
+  private final Optional<Long> lockHoldTargetNanos;
+  private final AtomicInteger batchSizeLimit;
+  private final WindowedPercentiles batchSizes;
+  // Only accessed by the worker thread.
+  private double itemLockedNanos = -1;
   private final SlidingStats batchUnlocked;
   private final SlidingStats batchLocked;
   private final BlockingQueue<WorkItem<T>> workQueue = new LinkedBlockingQueue<>();
@@ -133,14 +151,40 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
       StatsProvider statsProvider,
       int maxBatchSize) {
 
+    this(storage, statsProvider, maxBatchSize, Optional.empty());
+  }
+
+  /**
+   * Creates a batch worker, optionally adapting the batch size to a lock hold target.
+   *
+   * @param storage Storage to write batches to.
+   * @param statsProvider Stats provider.
+   * @param maxBatchSize Maximum number of items in a batch.
+   * @param lockHoldTarget Target duration to hold the storage lock for in a batch, if batch size
+   *     should be adaptive.
+   */
+  protected BatchWorker(
+      Storage storage,
+      StatsProvider statsProvider,
+      int maxBatchSize,
+      Optional<Amount<Long, Time>> lockHoldTarget) {
+
     this.storage = requireNonNull(storage);
     this.maxBatchSize = maxBatchSize;
+    this.lockHoldTargetNanos = lockHoldTarget.map(target -> target.as(Time.NANOSECONDS));
+    this.batchSizeLimit = new AtomicInteger(maxBatchSize);
 
     scheduledExecutor = AsyncUtil.singleThreadLoggingScheduledExecutor(serviceName() + "-%d", LOG);
     statsProvider.makeGauge(serviceName() + "_queue_size", () -> workQueue.size());
     statsProvider.makeGauge(
         serviceName() + "_last_processed_batch_size",
         () -> lastBatchSize.intValue());
+    statsProvider.makeGauge(serviceName() + "_batch_size_limit", () -> batchSizeLimit.intValue());
+    batchSizes = new WindowedPercentiles(
+        statsProvider,
+        serviceName() + "_batch_size",
+        WindowedPercentiles.DEFAULT_WINDOW_SIZE,
+        50, 90, 99);
     batchUnlocked = new SlidingStats(serviceName() + "_batch_unlocked", "nanos");
     batchLocked = new SlidingStats(serviceName() + "_batch_locked", "nanos");
     itemsProcessed = statsProvider.makeCounter(serviceName() + "_items_processed");
@@ -195,43 +239,95 @@ public class BatchWorker<T> extends AbstractExecutionThreadService {
       Optional<WorkItem<T>> head = Optional.ofNullable(workQueue.poll(3, TimeUnit.SECONDS));
       if (head.isPresent()) {
         workQueue.add(head.get());
-        workQueue.drainTo(batch, maxBatchSize - batch.size());
+        workQueue.drainTo(batch, batchSizeLimit.get() - batch.size());
         processBatch(batch);
       }
     }
   }
 
+  /**
+   * Invoked on the worker thread before the storage transaction of a batch is opened.
+   */
+  protected void beforeBatch() {
+    // No-op by default.
+  }
+
+  /**
+   * Invoked on the worker thread after the storage transaction of a batch is closed.
+   *
+   * @param committed Whether the transaction was committed.
+   */
+  protected void afterBatch(boolean committed) {
+    // No-op by default.
+  }
+
   private void processBatch(List<WorkItem<T>> batch) {
     if (!batch.isEmpty()) {
-      long unlockedStart = System.nanoTime();
-      storage.write((Storage.MutateWork.NoResult.Quiet) storeProvider -> {
-        long lockedStart = System.nanoTime();
-        for (WorkItem<T> item : batch) {
-          Result<T> itemResult = item.work.apply(storeProvider);
-          if (itemResult.isCompleted) {
-            item.result.complete(itemResult.value);
-          } else {
-            // Work not finished yet - re-queue for a followup later.
-            long backoffMsec = backoffFor(item);
-            scheduledExecutor.schedule(
-                () -> workQueue.add(new WorkItem<>(
-                    item.work,
-                    item.result,
-                    item.backoffStrategy,
-                    Optional.of(backoffMsec))),
-                backoffMsec,
-                TimeUnit.MILLISECONDS);
-          }
-        }
-        batchLocked.accumulate(System.nanoTime() - lockedStart);
-      });
-      batchUnlocked.accumulate(System.nanoTime() - unlockedStart);
+      beforeBatch();
+      boolean committed = false;
+      long lockedNanos;
+      try {
+        lockedNanos = writeBatch(batch);
+        committed = true;
+      } finally {
+        afterBatch(committed);
+      }
       batchesProcessed.incrementAndGet();
       lastBatchSize.set(batch.size());
       itemsProcessed.addAndGet(batch.size());
+      batchSizes.record(batch.size());
+      if (lockHoldTargetNanos.isPresent()) {
+        adaptBatchSize(batch.size(), lockedNanos);
+      }
     }
   }
 
+  private void adaptBatchSize(int batchSize, long lockedNanos) {
+    double sample = (double) lockedNanos / batchSize;
+    itemLockedNanos = itemLockedNanos < 0
+        ? sample
+        : LOCKED_NANOS_SMOOTHING * sample + (1 - LOCKED_NANOS_SMOOTHING) * itemLockedNanos;
+
+    long fitting = itemLockedNanos > 0
+        ? (long) (lockHoldTargetNanos.get() / itemLockedNanos)
+        : maxBatchSize;
+    batchSizeLimit.set((int) Math.max(1, Math.min(maxBatchSize, fitting)));
+  }
+
+  private long writeBatch(List<WorkItem<T>> batch) {
+    long unlockedStart = System.nanoTime();
+    long lockedNanos = storage.write((Storage.MutateWork.Quiet<Long>) storeProvider -> {
+      long lockedStart = System.nanoTime();
+      for (WorkItem<T> item : batch) {
+        Result<T> itemResult = item.work.apply(storeProvider);
+        if (itemResult.isCompleted) {
+          item.result.complete(itemResult.value);
+        } else {
+          // Work not finished yet - re-queue for a followup later.
+          long backoffMsec = backoffFor(item);
+          scheduledExecutor.schedule(
+              () -> workQueue.add(new WorkItem<>(
+                  item.work,
+                  item.result,
+                  item.backoffStrategy,
+                  Optional.of(backoffMsec))),
+              backoffMsec,
+              TimeUnit.MILLISECONDS);
+        }
+      }
+      long locked = System.nanoTime() - lockedStart;
+      batchLocked.accumulate(locked);
+      return locked;
+    });
+    batchUnlocked.accumulate(System.nanoTime() - unlockedStart);
+    return lockedNanos;
+  }
+
+  @VisibleForTesting
+  int getBatchSizeLimit() {
+    return batchSizeLimit.get();
+  }
+
   private long backoffFor(WorkItem<T> item) {
     checkState(item.backoffStrategy.isPresent());
     checkState(item.lastBackoffMsec.isPresent());
@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler;
 
+import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
@@ -26,6 +27,7 @@ import com.google.inject.AbstractModule;
 import com.google.inject.PrivateModule;
 import com.google.inject.TypeLiteral;
 
+import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.scheduler.BatchWorker.NoResult;
@@ -37,7 +39,6 @@ import org.apache.aurora.scheduler.config.types.TimeAmount;
 import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.storage.Storage;
-import org.apache.mesos.v1.Protos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,6 +71,29 @@ public class SchedulerModule extends AbstractModule {
         description =
             "The maximum number of task state change events that can be processed in a batch.")
     public int maxTaskEventBatchSize = 300;
+
+    @Parameter(names = "-enable_adaptive_batch_sizing",
+        description = "Adapt the size of storage write batches to -batch_lock_hold_target, up to"
+            + " the configured maximum batch size.",
+        arity = 1)
+    public boolean enableAdaptiveBatchSizing = false;
+
+    @Parameter(names = "-batch_lock_hold_target",
+        description = "Target duration to hold the storage write lock for in a single batch, when"
+            + " adaptive batch sizing is enabled.")
+    public TimeAmount batchLockHoldTarget = new TimeAmount(50, Time.MILLISECONDS);
+  }
+
+  /**
+   * Gets the lock hold target batch workers should adapt their batch size to, if enabled.
+   *
+   * @param options Command line options.
+   * @return The lock hold target, or empty if batch sizes are fixed.
+   */
+  public static Optional<Amount<Long, Time>> batchLockHoldTarget(CliOptions options) {
+    return options.scheduler.enableAdaptiveBatchSizing
+        ? Optional.of(options.scheduler.batchLockHoldTarget)
+        : Optional.empty();
   }
 
   private final Options options;
@@ -102,7 +126,7 @@ public class SchedulerModule extends AbstractModule {
     PubsubEventModule.bindSubscriber(binder(), TaskVars.class);
     addSchedulerActiveServiceBinding(binder()).to(TaskVars.class);
 
-    bind(new TypeLiteral<BlockingQueue<Protos.TaskStatus>>() { })
+    bind(new TypeLiteral<BlockingQueue<TaskStatusHandlerImpl.QueuedStatus>>() { })
         .annotatedWith(TaskStatusHandlerImpl.StatusUpdateQueue.class)
         .toInstance(new LinkedBlockingQueue<>());
     bind(new TypeLiteral<Integer>() { })
@@ -120,7 +144,11 @@ public class SchedulerModule extends AbstractModule {
   public static class TaskEventBatchWorker extends BatchWorker<NoResult> {
     @Inject
     TaskEventBatchWorker(CliOptions options, Storage storage, StatsProvider statsProvider) {
-      super(storage, statsProvider, options.scheduler.maxTaskEventBatchSize);
+      super(
+          storage,
+          statsProvider,
+          options.scheduler.maxTaskEventBatchSize,
+          batchLockHoldTarget(options));
     }
 
     @Override
@@ -15,10 +15,16 @@ package org.apache.aurora.scheduler;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.inject.Inject;
@@ -26,15 +32,19 @@ import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
 
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.Conversions;
+import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.state.StateChangeResult;
 import org.apache.aurora.scheduler.state.StateManager;
 import org.apache.aurora.scheduler.stats.CachedCounters;
+import org.apache.aurora.scheduler.stats.WindowedPercentiles;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.mesos.v1.Protos.TaskStatus;
@@ -49,6 +59,13 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * A {@link TaskStatusHandler} implementation.
+ * <p>
+ * Status updates are applied in batches. Updates for the same task within a batch are coalesced
+ * so that only the latest one is applied, except that once a task has a terminal update in the
+ * batch, that first terminal update is applied and later updates for the task are ignored.
+ * Batches are persisted on a dedicated thread, while the next batch is gathered from the queue.
+ * All received updates are acknowledged asynchronously once their batch has been persisted,
+ * including those that were coalesced away.
  */
 @VisibleForTesting
 public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
@@ -62,12 +79,19 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
   @VisibleForTesting
   static final String DISK_LIMIT_DISPLAY = "Task used more disk than requested.";
 
+  @VisibleForTesting
+  static final String COALESCED_STAT_NAME = "status_updates_coalesced";
+
   private final Storage storage;
   private final StateManager stateManager;
   private final Driver driver;
-  private final BlockingQueue<TaskStatus> pendingUpdates;
+  private final BlockingQueue<QueuedStatus> pendingUpdates;
   private final int maxBatchSize;
   private final CachedCounters counters;
+  private final WindowedPercentiles batchSizes;
+  private final WindowedPercentiles queueLatencies;
+  private final ExecutorService writer;
+  private final ExecutorService acknowledger;
 
   private final AtomicReference<Thread> threadReference = new AtomicReference<>();
 
@@ -93,7 +117,7 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
       StateManager stateManager,
       StatsProvider statsProvider,
       final Driver driver,
-      @StatusUpdateQueue BlockingQueue<TaskStatus> pendingUpdates,
+      @StatusUpdateQueue BlockingQueue<QueuedStatus> pendingUpdates,
       @MaxBatchSize Integer maxBatchSize,
       CachedCounters counters) {
 
@@ -106,6 +130,28 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
     requireNonNull(statsProvider);
 
     statsProvider.exportSize("status_updates_queue_size", this.pendingUpdates);
+    this.batchSizes = new WindowedPercentiles(
+        statsProvider,
+        "status_updates_batch_size",
+        WindowedPercentiles.DEFAULT_WINDOW_SIZE,
+        50, 90, 99);
+    this.queueLatencies = new WindowedPercentiles(
+        statsProvider,
+        "status_updates_queue_latency_nanos",
+        WindowedPercentiles.DEFAULT_WINDOW_SIZE,
+        50, 90, 99);
+    this.writer = AsyncUtil.loggingExecutor(
+        1,
+        1,
+        new LinkedBlockingQueue<>(),
+        "TaskStatusHandler-Writer-%d",
+        LOG);
+    this.acknowledger = AsyncUtil.loggingExecutor(
+        1,
+        1,
+        new LinkedBlockingQueue<>(),
+        "TaskStatusHandler-Ack-%d",
+        LOG);
 
     addListener(
         new Listener() {
@@ -120,7 +166,7 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
 
   @Override
   public void statusUpdate(TaskStatus status) {
-    pendingUpdates.add(status);
+    pendingUpdates.add(new QueuedStatus(status, System.nanoTime()));
   }
 
   @Override
@@ -133,46 +179,110 @@ public class TaskStatusHandlerImpl extends AbstractExecutionThreadService
   }
 
   @Override
-  protected void run() {
+  protected void shutDown() {
+    writer.shutdown();
+    acknowledger.shutdown();
+  }
+
+  @Override
+  protected void run() throws ExecutionException {
     threadReference.set(Thread.currentThread());
 
+    Future<?> inFlight = Futures.immediateFuture(null);
     while (isRunning()) {
-      final Queue<TaskStatus> updates = new ArrayDeque<>();
+      Batch batch = new Batch();
 
       try {
-        updates.add(pendingUpdates.take());
+        batch.add(pendingUpdates.take());
       } catch (InterruptedException e) {
         Thread.currentThread().interrupt();
         break;
       }
 
-      // Process all other available updates, up to the limit on batch size.
-      // TODO(bmahler): Expose histogram metrics of the batch sizes.
-      pendingUpdates.drainTo(updates, maxBatchSize - updates.size());
-
+      // Gather all other available updates while the previous batch is persisted, then top the
+      // batch up with updates that arrived in the meantime, up to the limit on batch size.
+      drainTo(batch);
       try {
-        storage.write((NoResult.Quiet) storeProvider -> {
-          for (TaskStatus status : updates) {
-            ScheduleStatus translatedState = Conversions.convertProtoState(status.getState());
-
-            StateChangeResult result = stateManager.changeState(
-                storeProvider,
-                status.getTaskId().getValue(),
-                Optional.empty(),
-                translatedState,
-                formatMessage(status));
-
-            if (status.hasReason()) {
-              counters.get(statName(status, result)).incrementAndGet();
-            }
-          }
-        });
+        inFlight.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      drainTo(batch);
+
+      batchSizes.record(batch.received.size());
+      inFlight = writer.submit(() -> persist(batch));
+    }
+  }
+
+  private void drainTo(Batch batch) {
+    List<QueuedStatus> drained = new ArrayList<>();
+    pendingUpdates.drainTo(drained, maxBatchSize - batch.received.size());
+    drained.forEach(batch::add);
+  }
 
-        for (TaskStatus status : updates) {
-          driver.acknowledgeStatusUpdate(status);
+  private void persist(Batch batch) {
+    try {
+      storage.write((NoResult.Quiet) storeProvider -> {
+        for (TaskStatus status : batch.latest.values()) {
+          ScheduleStatus translatedState = Conversions.convertProtoState(status.getState());
+
+          StateChangeResult result = stateManager.changeState(
+              storeProvider,
+              status.getTaskId().getValue(),
+              Optional.empty(),
+              translatedState,
+              formatMessage(status));
+
+          if (status.hasReason()) {
+            counters.get(statName(status, result)).incrementAndGet();
+          }
         }
-      } catch (RuntimeException e) {
-        LOG.error("Failed to process status update batch " + updates, e);
+      });
+    } catch (RuntimeException e) {
+      LOG.error("Failed to process status update batch " + batch.received, e);
+      return;
+    }
+
+    int coalesced = batch.received.size() - batch.latest.size();
+    if (coalesced > 0) {
+      counters.get(COALESCED_STAT_NAME).addAndGet(coalesced);
+    }
+    acknowledger.execute(() -> batch.received.forEach(driver::acknowledgeStatusUpdate));
+  }
+
+  private static boolean isTerminal(TaskStatus status) {
+    return Tasks.isTerminated(Conversions.convertProtoState(status.getState()));
+  }
+
+  /**
+   * A status update waiting to be processed.
+   */
+  public static final class QueuedStatus {
+    private final TaskStatus status;
+    private final long enqueuedNanos;
+
+    QueuedStatus(TaskStatus status, long enqueuedNanos) {
+      this.status = requireNonNull(status);
+      this.enqueuedNanos = enqueuedNanos;
+    }
+  }
+
+  /**
+   * Status updates drained from the queue, with the update to apply for each task.
+   */
+  private final class Batch {
+    private final List<TaskStatus> received = new ArrayList<>();
+    private final Map<String, TaskStatus> latest = new LinkedHashMap<>();
+
+    void add(QueuedStatus queued) {
+      queueLatencies.record(System.nanoTime() - queued.enqueuedNanos);
+
+      TaskStatus status = queued.status;
+      received.add(status);
+      TaskStatus previous = latest.get(status.getTaskId().getValue());
+      if (previous == null || !isTerminal(previous)) {
+        latest.put(status.getTaskId().getValue(), status);
       }
     }
   }
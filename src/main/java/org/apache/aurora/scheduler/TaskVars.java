@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler;
 
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -37,8 +38,10 @@ import com.google.common.util.concurrent.AbstractIdleService;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.events.EventDispatcher.Partitioned;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
@@ -55,6 +58,7 @@ import static java.util.Objects.requireNonNull;
 /**
  * A container that tracks and exports stat counters for tasks.
  */
+@Partitioned
 public class TaskVars extends AbstractIdleService implements EventSubscriber {
   private static final Logger LOG = LoggerFactory.getLogger(TaskVars.class);
   private static final ImmutableSet<ScheduleStatus> TRACKED_JOB_STATES =
@@ -212,6 +216,29 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
     }
     incrementCount(task.getStatus());
 
+    updateTaskCounters(task);
+  }
+
+  @Subscribe
+  public void taskChangedStates(TaskStateChanges stateChanges) {
+    // Net out the status counts first, a bulk change typically moves many tasks between the same
+    // two states.
+    Map<ScheduleStatus, Long> deltas = new EnumMap<>(ScheduleStatus.class);
+    for (TaskStateChange stateChange : stateChanges.getChanges()) {
+      IScheduledTask task = stateChange.getTask();
+      Optional<ScheduleStatus> previousState = stateChange.getOldState();
+
+      if (stateChange.isTransition() && !previousState.equals(Optional.of(ScheduleStatus.INIT))) {
+        deltas.merge(previousState.get(), -1L, Long::sum);
+      }
+      deltas.merge(task.getStatus(), 1L, Long::sum);
+
+      updateTaskCounters(task);
+    }
+    deltas.forEach((status, delta) -> getCounter(status).add(delta));
+  }
+
+  private void updateTaskCounters(IScheduledTask task) {
     updateRackCounters(task, task.getStatus());
     updateJobCounters(task, task.getStatus());
     updateDedicatedCounters(task, task.getStatus());
@@ -289,5 +316,9 @@ public class TaskVars extends AbstractIdleService implements EventSubscriber {
     private void decrement() {
       value.decrementAndGet();
     }
+
+    private void add(long delta) {
+      value.addAndGet(delta);
+    }
   }
 }
@@ -177,7 +177,7 @@ public class AppModule extends AbstractModule {
         .to(SchedulingFilterImpl.class);
     bind(SchedulingFilterImpl.class).in(Singleton.class);
 
-    install(new PubsubEventModule());
+    install(new PubsubEventModule(options.events));
     install(new AsyncModule(options.async));
     install(new OfferManagerModule(options));
     install(new PruningModule(options.pruning));
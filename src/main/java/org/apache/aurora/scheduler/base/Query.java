@@ -29,6 +29,8 @@ import org.apache.aurora.scheduler.storage.entities.ITaskQuery;
 
 import static java.util.Objects.requireNonNull;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * A utility class to construct storage queries.
  * TODO(Sathya): Add some basic unit tests for isJobScoped and isOnlyJobScoped.
@@ -370,5 +372,17 @@ public final class Query {
     public Builder terminal() {
       return byStatus(Tasks.TERMINAL_STATES);
     }
+
+    /**
+     * Returns a new Builder that matches at most {@code limit} tasks, in order of task ID.
+     *
+     * @param limit Maximum number of tasks to match.
+     * @return A new Builder limited to the given number of tasks.
+     */
+    public Builder limit(int limit) {
+      checkArgument(limit > 0);
+
+      return new Builder(query.deepCopy().setLimit(limit));
+    }
   }
 }
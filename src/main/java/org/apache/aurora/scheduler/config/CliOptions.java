@@ -28,6 +28,7 @@ import org.apache.aurora.scheduler.async.AsyncModule;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorModule;
 import org.apache.aurora.scheduler.cron.quartz.CronModule;
 import org.apache.aurora.scheduler.discovery.FlaggedZooKeeperConfig;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.events.WebhookModule;
 import org.apache.aurora.scheduler.http.JettyServerModule;
 import org.apache.aurora.scheduler.http.api.ApiModule;
@@ -50,6 +51,7 @@ import org.apache.aurora.scheduler.stats.StatsModule;
 import org.apache.aurora.scheduler.storage.backup.BackupModule;
 import org.apache.aurora.scheduler.storage.log.LogPersistenceModule;
 import org.apache.aurora.scheduler.storage.log.SnapshotModule;
+import org.apache.aurora.scheduler.thrift.ThriftModule;
 import org.apache.aurora.scheduler.thrift.aop.AopModule;
 import org.apache.aurora.scheduler.updater.UpdaterModule;
 
@@ -62,12 +64,14 @@ public class CliOptions {
   public final SchedulerMain.Options main = new SchedulerMain.Options();
   public final SchedulingModule.Options scheduling = new SchedulingModule.Options();
   public final AsyncModule.Options async = new AsyncModule.Options();
+  public final PubsubEventModule.Options events = new PubsubEventModule.Options();
   public final FlaggedZooKeeperConfig.Options zk = new FlaggedZooKeeperConfig.Options();
   public final UpdaterModule.Options updater = new UpdaterModule.Options();
   public final StateModule.Options state = new StateModule.Options();
   public final LogPersistenceModule.Options logPersistence = new LogPersistenceModule.Options();
   public final SnapshotModule.Options snapshot = new SnapshotModule.Options();
   public final BackupModule.Options backup = new BackupModule.Options();
+  public final ThriftModule.Options thrift = new ThriftModule.Options();
   public final AopModule.Options aop = new AopModule.Options();
   public final PruningModule.Options pruning = new PruningModule.Options();
   public final CommandLineDriverSettingsModule.Options driver =
@@ -35,9 +35,11 @@ import org.apache.aurora.common.util.BackoffHelper;
 import org.apache.aurora.gen.CronCollisionPolicy;
 import org.apache.aurora.scheduler.BatchWorker;
 import org.apache.aurora.scheduler.BatchWorker.NoResult;
+import org.apache.aurora.scheduler.SchedulerModule;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.config.CliOptions;
 import org.apache.aurora.scheduler.configuration.SanitizedConfiguration;
 import org.apache.aurora.scheduler.cron.CronException;
 import org.apache.aurora.scheduler.cron.SanitizedCronJob;
@@ -107,9 +109,14 @@ class AuroraCronJob implements Job, EventSubscriber {
     CronBatchWorker(
         Storage storage,
         StatsProvider statsProvider,
-        @CronMaxBatchSize int maxBatchSize) {
-
-      super(storage, statsProvider, maxBatchSize);
+        @CronMaxBatchSize int maxBatchSize,
+        CliOptions options) {
+
+      super(
+          storage,
+          statsProvider,
+          maxBatchSize,
+          SchedulerModule.batchLockHoldTarget(options));
     }
 
     @Override
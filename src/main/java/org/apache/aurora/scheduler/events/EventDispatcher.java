@@ -0,0 +1,514 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.events;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimaps;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.reflect.TypeToken;
+
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent.JobUpdateStatusChanged;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Dispatches events to subscriber methods annotated with {@link Subscribe}.
+ * <p>
+ * Each subscriber has its own queue, drained on the dispatch executor, so that a slow subscriber
+ * only delays its own events. Events are delivered to a subscriber in the order they were posted.
+ * Subscribers annotated with {@link Partitioned} have several queues instead, keyed by job, and
+ * only events for the same job are delivered in order.
+ * <p>
+ * Queues are unbounded, as subscribers tracking scheduler state must not miss events. Only
+ * subscribers annotated with {@link LossTolerant} have bounded queues, which apply the configured
+ * {@link Backpressure} when full.
+ * <p>
+ * A {@link TaskStateChanges} event is delivered as a whole to subscribers that declare a handler
+ * for it, and as its individual {@link TaskStateChange}s to other subscribers. Either way it takes
+ * a single queue slot per subscriber, or per job for partitioned subscribers.
+ * <p>
+ * Handler methods are resolved once per subscriber and event type, and invoked through method
+ * handles. Queue depth, lag and delivery time are exported per subscriber.
+ */
+public class EventDispatcher {
+
+  /**
+   * Marks a subscriber that may receive events for different jobs concurrently. Events without a
+   * job, such as deletions spanning several jobs, may be reordered relative to keyed events.
+   */
+  @Target(TYPE)
+  @Retention(RUNTIME)
+  public @interface Partitioned { }
+
+  /**
+   * Marks a subscriber that tolerates missing events, such as one forwarding events to external
+   * consumers. Its queue is bounded, and events posted while it is full may be dropped.
+   */
+  @Target(TYPE)
+  @Retention(RUNTIME)
+  public @interface LossTolerant { }
+
+  /**
+   * What to do when posting an event to a {@link LossTolerant} subscriber whose queue is full.
+   */
+  public enum Backpressure {
+    /**
+     * Block the posting thread until the subscriber catches up. Threads delivering events are
+     * never blocked, to avoid deadlocking subscribers that post events. Events are often posted
+     * from within storage transactions, so a slow subscriber may stall storage writes.
+     */
+    BLOCK,
+
+    /**
+     * Drop the event for that subscriber, counting it in the subscriber's dropped events stat.
+     * Subscribers that are not {@link LossTolerant} never drop events.
+     */
+    DROP
+  }
+
+  /**
+   * Settings for dispatching events to subscribers.
+   */
+  public static class DispatchSettings {
+    private final int queueCapacity;
+    private final Backpressure backpressure;
+    private final int partitions;
+
+    public DispatchSettings(int queueCapacity, Backpressure backpressure, int partitions) {
+      this.queueCapacity = queueCapacity;
+      this.backpressure = requireNonNull(backpressure);
+      this.partitions = partitions;
+    }
+  }
+
+  /**
+   * Handles exceptions thrown by subscribers.
+   */
+  @FunctionalInterface
+  public interface ExceptionHandler {
+    void handleException(Throwable exception, Object event, Method subscriberMethod);
+  }
+
+  // Maximum number of events delivered by a single drain task, to share the executor fairly.
+  private static final int MAX_DRAIN = 128;
+
+  private static final ThreadLocal<Boolean> DISPATCHING = ThreadLocal.withInitial(() -> false);
+
+  private final String name;
+  private final Executor executor;
+  private final DispatchSettings settings;
+  private final StatsProvider statsProvider;
+  private final ExceptionHandler exceptionHandler;
+  private final Ticker ticker;
+
+  private final List<SubscriberQueue> subscribers = new CopyOnWriteArrayList<>();
+  private volatile Map<Class<?>, List<Route>> routes = Maps.newConcurrentMap();
+
+  public EventDispatcher(
+      String name,
+      Executor executor,
+      DispatchSettings settings,
+      StatsProvider statsProvider,
+      ExceptionHandler exceptionHandler) {
+
+    this(name, executor, settings, statsProvider, exceptionHandler, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  EventDispatcher(
+      String name,
+      Executor executor,
+      DispatchSettings settings,
+      StatsProvider statsProvider,
+      ExceptionHandler exceptionHandler,
+      Ticker ticker) {
+
+    this.name = requireNonNull(name);
+    this.executor = requireNonNull(executor);
+    this.settings = requireNonNull(settings);
+    this.statsProvider = requireNonNull(statsProvider);
+    this.exceptionHandler = requireNonNull(exceptionHandler);
+    this.ticker = requireNonNull(ticker);
+  }
+
+  /**
+   * Registers all {@link Subscribe} methods of a subscriber, including those declared by its
+   * supertypes. Each method must accept a single event argument.
+   *
+   * @param subscriber Subscriber to register.
+   */
+  public synchronized void register(Object subscriber) {
+    requireNonNull(subscriber);
+    Map<String, Handler> handlers = Maps.newLinkedHashMap();
+    for (Class<?> type : TypeToken.of(subscriber.getClass()).getTypes().rawTypes()) {
+      for (Method method : type.getDeclaredMethods()) {
+        if (!method.isAnnotationPresent(Subscribe.class) || method.isBridge()) {
+          continue;
+        }
+        if (method.getParameterCount() != 1) {
+          throw new IllegalArgumentException(
+              "Subscriber method must accept a single argument: " + method);
+        }
+        // Overriding methods are invoked virtually, register each signature once.
+        String signature = method.getName() + method.getParameterTypes()[0].getName();
+        if (!handlers.containsKey(signature)) {
+          handlers.put(signature, new Handler(method, subscriber));
+        }
+      }
+    }
+
+    subscribers.add(new SubscriberQueue(
+        subscriber,
+        ImmutableList.copyOf(handlers.values()),
+        isAnnotated(subscriber, Partitioned.class) ? settings.partitions : 1,
+        isAnnotated(subscriber, LossTolerant.class)));
+    // Routes are resolved lazily per event type, start over to include this subscriber.
+    routes = Maps.newConcurrentMap();
+  }
+
+  /**
+   * Posts an event to all subscribers accepting it. If no subscriber accepts the event, it is
+   * posted wrapped in a {@link DeadEvent}.
+   *
+   * @param event Event to post.
+   */
+  public void post(Object event) {
+    requireNonNull(event);
+    List<Route> eventRoutes = routes.computeIfAbsent(event.getClass(), this::resolve);
+    if (eventRoutes.isEmpty()) {
+      if (!(event instanceof DeadEvent)) {
+        post(new DeadEvent(this, event));
+      }
+      return;
+    }
+
+    Optional<Object> key = partitionKey(event);
+    long now = ticker.read();
+    for (Route route : eventRoutes) {
+      if (event instanceof TaskStateChanges && route.queue.lanes.length > 1 && !key.isPresent()) {
+        // Split changes spanning several jobs so that each job keeps its partition.
+        for (Collection<TaskStateChange> changes : Multimaps.index(
+            ((TaskStateChanges) event).getChanges(),
+            change -> Tasks.getJob(change.getTask())).asMap().values()) {
+
+          TaskStateChange first = changes.iterator().next();
+          route.queue.enqueue(
+              new Delivery(new TaskStateChanges(ImmutableList.copyOf(changes)), route, now),
+              partitionKey(first));
+        }
+      } else {
+        route.queue.enqueue(new Delivery(event, route, now), key);
+      }
+    }
+  }
+
+  private static boolean isAnnotated(Object subscriber, Class<? extends Annotation> annotation) {
+    for (Class<?> type = subscriber.getClass(); type != null; type = type.getSuperclass()) {
+      if (type.isAnnotationPresent(annotation)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<Route> resolve(Class<?> eventClass) {
+    ImmutableList.Builder<Route> eventRoutes = ImmutableList.builder();
+    for (SubscriberQueue queue : subscribers) {
+      List<Handler> handlers = queue.handlersFor(eventClass);
+      if (eventClass == TaskStateChanges.class && !queue.handlesExactly(eventClass)) {
+        // The subscriber did not opt in to bulk changes, deliver them one at a time.
+        List<Handler> changeHandlers = queue.handlersFor(TaskStateChange.class);
+        if (!changeHandlers.isEmpty()) {
+          eventRoutes.add(new Route(queue, changeHandlers, true));
+        }
+      } else if (!handlers.isEmpty()) {
+        eventRoutes.add(new Route(queue, handlers, false));
+      }
+    }
+    return eventRoutes.build();
+  }
+
+  /**
+   * Gets the key that events must be ordered by, if any.
+   *
+   * @param event Event to get the key for.
+   * @return Job of the event, or empty if the event does not belong to a single job.
+   */
+  @VisibleForTesting
+  static Optional<Object> partitionKey(Object event) {
+    if (event instanceof TaskStateChange) {
+      return Optional.of(Tasks.getJob(((TaskStateChange) event).getTask()));
+    } else if (event instanceof TaskStateChanges) {
+      return singleJob(((TaskStateChanges) event).getChanges().stream()
+          .map(change -> Tasks.getJob(change.getTask())));
+    } else if (event instanceof TasksDeleted) {
+      return singleJob(((TasksDeleted) event).getTasks().stream().map(Tasks::getJob));
+    } else if (event instanceof JobUpdateStatusChanged) {
+      return Optional.of(((JobUpdateStatusChanged) event).getKey().getJob());
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<Object> singleJob(Stream<IJobKey> jobs) {
+    List<IJobKey> distinct = jobs.distinct().limit(2).collect(ImmutableList.toImmutableList());
+    return distinct.size() == 1
+        ? Optional.of(Iterables.getOnlyElement(distinct))
+        : Optional.empty();
+  }
+
+  private static String statPrefix(String dispatcherName, Object subscriber) {
+    String className = subscriber.getClass().getSimpleName();
+    // Strip suffixes of generated subclasses, such as those created for method interception.
+    int generated = className.indexOf("$$");
+    if (generated > 0) {
+      className = className.substring(0, generated);
+    }
+    return (dispatcherName + "_" + className).replaceAll("[^A-Za-z0-9_]", "_");
+  }
+
+  private static final class Handler {
+    private final Method method;
+    private final Class<?> eventType;
+    private final MethodHandle invoker;
+
+    Handler(Method method, Object subscriber) {
+      this.method = method;
+      this.eventType = TypeToken.of(method.getParameterTypes()[0]).wrap().getRawType();
+      method.setAccessible(true);
+      try {
+        this.invoker = MethodHandles.lookup().unreflect(method).bindTo(subscriber);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Subscriber method is not accessible: " + method, e);
+      }
+    }
+  }
+
+  private static final class Route {
+    private final SubscriberQueue queue;
+    private final List<Handler> handlers;
+    // Whether TaskStateChanges events are unpacked into individual changes for the handlers.
+    private final boolean unpack;
+
+    Route(SubscriberQueue queue, List<Handler> handlers, boolean unpack) {
+      this.queue = queue;
+      this.handlers = handlers;
+      this.unpack = unpack;
+    }
+  }
+
+  private static final class Delivery {
+    private final Object event;
+    private final Route route;
+    private final long postedNanos;
+    private boolean permitted;
+
+    Delivery(Object event, Route route, long postedNanos) {
+      this.event = event;
+      this.route = route;
+      this.postedNanos = postedNanos;
+    }
+  }
+
+  /**
+   * Queues of events for a single subscriber.
+   */
+  private final class SubscriberQueue {
+    private final List<Handler> handlers;
+    private final Lane[] lanes;
+    // Bounds the queue of loss tolerant subscribers, absent for other subscribers.
+    private final Optional<Semaphore> capacity;
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicLong dropped;
+    private final AtomicLong delivered;
+    private final AtomicLong deliveryNanos;
+
+    SubscriberQueue(
+        Object subscriber,
+        List<Handler> handlers,
+        int partitions,
+        boolean lossTolerant) {
+
+      this.handlers = handlers;
+      this.lanes = new Lane[partitions];
+      for (int i = 0; i < partitions; i++) {
+        lanes[i] = new Lane(this);
+      }
+      this.capacity = lossTolerant
+          ? Optional.of(new Semaphore(settings.queueCapacity))
+          : Optional.empty();
+
+      String prefix = statPrefix(name, subscriber);
+      statsProvider.makeGauge(prefix + "_queue_depth", depth::get);
+      statsProvider.makeGauge(prefix + "_lag_nanos", this::lagNanos);
+      dropped = statsProvider.makeCounter(prefix + "_events_dropped");
+      delivered = statsProvider.makeCounter(prefix + "_events_delivered");
+      deliveryNanos = statsProvider.makeCounter(prefix + "_delivery_nanos_total");
+    }
+
+    boolean handlesExactly(Class<?> eventClass) {
+      return handlers.stream().anyMatch(handler -> handler.eventType == eventClass);
+    }
+
+    List<Handler> handlersFor(Class<?> eventClass) {
+      ImmutableList.Builder<Handler> matching = ImmutableList.builder();
+      for (Handler handler : handlers) {
+        if (handler.eventType.isAssignableFrom(eventClass)) {
+          matching.add(handler);
+        }
+      }
+      return matching.build();
+    }
+
+    void enqueue(Delivery delivery, Optional<Object> key) {
+      if (capacity.isPresent()) {
+        Semaphore permits = capacity.get();
+        if (permits.tryAcquire()) {
+          delivery.permitted = true;
+        } else if (settings.backpressure == Backpressure.DROP) {
+          dropped.incrementAndGet();
+          return;
+        } else if (!DISPATCHING.get()) {
+          permits.acquireUninterruptibly();
+          delivery.permitted = true;
+        }
+        // Otherwise the event is delivered without a permit, exceeding capacity rather than
+        // blocking a thread that the subscriber may need to catch up.
+      }
+
+      int lane = key.map(k -> Math.floorMod(k.hashCode(), lanes.length)).orElse(0);
+      depth.incrementAndGet();
+      lanes[lane].add(delivery);
+    }
+
+    void delivered(Delivery delivery) {
+      depth.decrementAndGet();
+      if (delivery.permitted) {
+        capacity.get().release();
+      }
+      delivered.incrementAndGet();
+      deliveryNanos.addAndGet(ticker.read() - delivery.postedNanos);
+    }
+
+    long lagNanos() {
+      long now = ticker.read();
+      long lag = 0;
+      for (Lane lane : lanes) {
+        Delivery head = lane.deliveries.peek();
+        if (head != null) {
+          lag = Math.max(lag, now - head.postedNanos);
+        }
+      }
+      return lag;
+    }
+  }
+
+  /**
+   * A queue of events delivered in order, drained by at most one task at a time.
+   */
+  private final class Lane implements Runnable {
+    private final SubscriberQueue owner;
+    private final Queue<Delivery> deliveries = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    Lane(SubscriberQueue owner) {
+      this.owner = owner;
+    }
+
+    void add(Delivery delivery) {
+      deliveries.add(delivery);
+      if (scheduled.compareAndSet(false, true)) {
+        executor.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      boolean wasDispatching = DISPATCHING.get();
+      DISPATCHING.set(true);
+      try {
+        for (int i = 0; i < MAX_DRAIN; i++) {
+          Delivery delivery = deliveries.poll();
+          if (delivery == null) {
+            break;
+          }
+          deliver(delivery);
+        }
+      } finally {
+        DISPATCHING.set(wasDispatching);
+        scheduled.set(false);
+      }
+
+      if (!deliveries.isEmpty() && scheduled.compareAndSet(false, true)) {
+        executor.execute(this);
+      }
+    }
+
+    private void deliver(Delivery delivery) {
+      try {
+        if (delivery.route.unpack) {
+          for (TaskStateChange change : ((TaskStateChanges) delivery.event).getChanges()) {
+            invoke(delivery.route.handlers, change);
+          }
+        } else {
+          invoke(delivery.route.handlers, delivery.event);
+        }
+      } finally {
+        owner.delivered(delivery);
+      }
+    }
+
+    private void invoke(List<Handler> handlers, Object event) {
+      for (Handler handler : handlers) {
+        try {
+          handler.invoker.invoke(event);
+        } catch (Throwable e) {
+          exceptionHandler.handleException(e, event, handler.method);
+        }
+      }
+    }
+  }
+}
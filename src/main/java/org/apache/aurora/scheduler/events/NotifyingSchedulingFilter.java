@@ -25,6 +25,7 @@ import org.apache.aurora.scheduler.TaskVars;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.metadata.NearestFit;
+import org.apache.aurora.scheduler.scheduling.SchedulingTracer;
 
 import static java.lang.annotation.ElementType.FIELD;
 import static java.lang.annotation.ElementType.METHOD;
@@ -48,22 +49,27 @@ public class NotifyingSchedulingFilter implements SchedulingFilter {
   private final SchedulingFilter delegate;
   private final NearestFit nearestFit;
   private final TaskVars taskVars;
+  private final SchedulingTracer tracer;
 
   @Inject
   NotifyingSchedulingFilter(
       @NotifyDelegate SchedulingFilter delegate,
       NearestFit nearestFit,
-      TaskVars taskVars) {
+      TaskVars taskVars,
+      SchedulingTracer tracer) {
 
     this.delegate = requireNonNull(delegate);
     this.nearestFit = requireNonNull(nearestFit);
     this.taskVars = requireNonNull(taskVars);
+    this.tracer = requireNonNull(tracer);
   }
 
   @Timed("notifying_scheduling_filter")
   @Override
   public Set<Veto> filter(UnusedResource resource, ResourceRequest request) {
+    long start = tracer.read();
     Set<Veto> vetoes = delegate.filter(resource, request);
+    tracer.recordVetoEvaluation(tracer.read() - start);
     if (!vetoes.isEmpty()) {
       nearestFit.vetoed(TaskGroupKey.from(request.getTask()), vetoes);
       taskVars.taskVetoed(vetoes);
@@ -13,16 +13,20 @@
  */
 package org.apache.aurora.scheduler.events;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
 
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.mesos.v1.Protos;
 import org.apache.mesos.v1.Protos.TaskStatus;
@@ -163,6 +167,95 @@ public interface PubsubEvent {
 
   }
 
+  /**
+   * Event sent when several tasks changed state together, such as when instances of a job are
+   * created or killed. Subscribers that declare a handler for this event receive it as a whole,
+   * others receive each contained {@link TaskStateChange} individually.
+   */
+  final class TaskStateChanges implements PubsubEvent {
+    private final List<TaskStateChange> changes;
+
+    public TaskStateChanges(List<TaskStateChange> changes) {
+      this.changes = ImmutableList.copyOf(changes);
+    }
+
+    /**
+     * Gets the state changes, in the order they were made.
+     *
+     * @return State changes.
+     */
+    public List<TaskStateChange> getChanges() {
+      return changes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof TaskStateChanges)) {
+        return false;
+      }
+
+      TaskStateChanges other = (TaskStateChanges) o;
+      return Objects.equals(changes, other.changes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(changes);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("changes", changes)
+          .toString();
+    }
+  }
+
+  /**
+   * Event sent when a job update changed status.
+   */
+  class JobUpdateStatusChanged implements PubsubEvent {
+    private final IJobUpdateKey key;
+    private final IJobUpdateEvent event;
+
+    public JobUpdateStatusChanged(IJobUpdateKey key, IJobUpdateEvent event) {
+      this.key = requireNonNull(key);
+      this.event = requireNonNull(event);
+    }
+
+    public IJobUpdateKey getKey() {
+      return key;
+    }
+
+    public IJobUpdateEvent getEvent() {
+      return event;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof JobUpdateStatusChanged)) {
+        return false;
+      }
+
+      JobUpdateStatusChanged other = (JobUpdateStatusChanged) o;
+      return Objects.equals(key, other.key)
+          && Objects.equals(event, other.event);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(key, event);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("key", key)
+          .add("status", event.getStatus())
+          .toString();
+    }
+  }
+
   /**
    * Event sent when a host's attributes change.
    */
@@ -276,4 +369,41 @@ public interface PubsubEvent {
       return Objects.hash(state, source, reason, epochTimestampMicros);
     }
   }
+
+  /**
+   * Event sent when a resource offer becomes available for scheduling.
+   */
+  class OfferAvailable implements PubsubEvent {
+    private final Protos.Offer offer;
+
+    public OfferAvailable(Protos.Offer offer) {
+      this.offer = requireNonNull(offer);
+    }
+
+    public Protos.Offer getOffer() {
+      return offer;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof OfferAvailable)) {
+        return false;
+      }
+
+      OfferAvailable other = (OfferAvailable) o;
+      return Objects.equals(offer, other.offer);
+    }
+
+    @Override
+    public int hashCode() {
+      return offer.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("offer", offer.getId().getValue())
+          .toString();
+    }
+  }
 }
@@ -23,12 +23,11 @@ import javax.inject.Inject;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.DeadEvent;
-import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
-import com.google.common.eventbus.SubscriberExceptionHandler;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Binder;
@@ -39,6 +38,10 @@ import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
+import org.apache.aurora.scheduler.events.EventDispatcher.Backpressure;
+import org.apache.aurora.scheduler.events.EventDispatcher.DispatchSettings;
+import org.apache.aurora.scheduler.events.EventDispatcher.ExceptionHandler;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +57,29 @@ import static java.util.Objects.requireNonNull;
  */
 public final class PubsubEventModule extends AbstractModule {
 
+  @Parameters(separators = "=")
+  public static class Options {
+    @Parameter(names = "-event_subscriber_queue_capacity",
+        validateValueWith = PositiveNumber.class,
+        description = "Maximum number of events queued for each event subscriber that tolerates "
+            + "missing events, such as webhooks and the event feed. Queues of other subscribers "
+            + "are unbounded.")
+    public int eventSubscriberQueueCapacity = 10000;
+
+    @Parameter(names = "-event_subscriber_backpressure",
+        description = "What to do when posting an event to a subscriber that tolerates missing "
+            + "events and has a full queue. BLOCK waits for the subscriber to catch up, which may "
+            + "stall storage writes that post events. DROP discards and counts the event for that "
+            + "subscriber.")
+    public Backpressure eventSubscriberBackpressure = Backpressure.BLOCK;
+
+    @Parameter(names = "-event_dispatch_partitions",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of queues for event subscribers that may process events for "
+            + "different jobs in parallel.")
+    public int eventDispatchPartitions = 4;
+  }
+
   @Qualifier
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   private @interface DeadEventHandler { }
@@ -64,6 +90,7 @@ public final class PubsubEventModule extends AbstractModule {
 
   private final Logger log;
   private final Executor registeredExecutor;
+  private final DispatchSettings dispatchSettings;
 
   @VisibleForTesting
   static final String EXCEPTIONS_STAT = "event_bus_exceptions";
@@ -71,19 +98,32 @@ public final class PubsubEventModule extends AbstractModule {
   static final String EVENT_BUS_DEAD_EVENTS = "event_bus_dead_events";
 
   public PubsubEventModule() {
-    this(LoggerFactory.getLogger(PubsubEventModule.class));
+    this(new Options());
   }
 
-  private PubsubEventModule(Logger log) {
-    this.log = requireNonNull(log);
-    this.registeredExecutor = AsyncUtil.singleThreadLoggingScheduledExecutor("RegisteredEventSink",
-        log);
+  public PubsubEventModule(Options options) {
+    this(LoggerFactory.getLogger(PubsubEventModule.class), options);
+  }
+
+  private PubsubEventModule(Logger log, Options options) {
+    this(
+        log,
+        AsyncUtil.singleThreadLoggingScheduledExecutor("RegisteredEventSink", log),
+        options);
   }
 
   @VisibleForTesting
   PubsubEventModule(Logger log, Executor registeredExecutor) {
+    this(log, registeredExecutor, new Options());
+  }
+
+  private PubsubEventModule(Logger log, Executor registeredExecutor, Options options) {
     this.log = requireNonNull(log);
     this.registeredExecutor = requireNonNull(registeredExecutor);
+    this.dispatchSettings = new DispatchSettings(
+        options.eventSubscriberQueueCapacity,
+        options.eventSubscriberBackpressure,
+        options.eventDispatchPartitions);
   }
 
   @VisibleForTesting
@@ -101,12 +141,12 @@ public final class PubsubEventModule extends AbstractModule {
 
   @Provides
   @Singleton
-  SubscriberExceptionHandler provideSubscriberExceptionHandler(StatsProvider statsProvider) {
+  ExceptionHandler provideExceptionHandler(StatsProvider statsProvider) {
     final AtomicLong subscriberExceptions = statsProvider.makeCounter(EXCEPTIONS_STAT);
-    return (exception, context) -> {
+    return (exception, event, subscriberMethod) -> {
       subscriberExceptions.incrementAndGet();
       log.error(
-          "Failed to dispatch event to " + context.getSubscriberMethod() + ": " + exception,
+          "Failed to dispatch event to " + subscriberMethod + ": " + exception,
           exception);
     };
   }
@@ -127,61 +167,75 @@ public final class PubsubEventModule extends AbstractModule {
 
   @Provides
   @Singleton
-  EventBus provideEventBus(@AsyncExecutor Executor executor,
-                           SubscriberExceptionHandler subscriberExceptionHandler,
-                           @DeadEventHandler Object deadEventHandler) {
-
-    EventBus eventBus = new AsyncEventBus(executor, subscriberExceptionHandler);
-    eventBus.register(deadEventHandler);
-    return eventBus;
+  EventDispatcher provideEventDispatcher(
+      @AsyncExecutor Executor executor,
+      StatsProvider statsProvider,
+      ExceptionHandler exceptionHandler,
+      @DeadEventHandler Object deadEventHandler) {
+
+    EventDispatcher dispatcher = new EventDispatcher(
+        "event_bus",
+        executor,
+        dispatchSettings,
+        statsProvider,
+        exceptionHandler);
+    dispatcher.register(deadEventHandler);
+    return dispatcher;
   }
 
   @Provides
   @Singleton
-  EventSink provideEventSink(EventBus eventBus) {
-    return eventBus::post;
+  EventSink provideEventSink(EventDispatcher dispatcher) {
+    return dispatcher::post;
   }
 
   @Provides
   @RegisteredEvents
   @Singleton
-  EventBus provideRegisteredEventBus(SubscriberExceptionHandler subscriberExceptionHandler,
-                                     @DeadEventHandler Object deadEventHandler) {
-
-    EventBus eventBus = new AsyncEventBus(registeredExecutor, subscriberExceptionHandler);
-    eventBus.register(deadEventHandler);
-    return eventBus;
+  EventDispatcher provideRegisteredEventDispatcher(
+      StatsProvider statsProvider,
+      ExceptionHandler exceptionHandler,
+      @DeadEventHandler Object deadEventHandler) {
+
+    EventDispatcher dispatcher = new EventDispatcher(
+        "registered_event_bus",
+        registeredExecutor,
+        dispatchSettings,
+        statsProvider,
+        exceptionHandler);
+    dispatcher.register(deadEventHandler);
+    return dispatcher;
   }
 
   @Provides
   @RegisteredEvents
   @Singleton
-  EventSink provideRegisteredEventSink(@RegisteredEvents EventBus eventBus) {
-    return eventBus::post;
+  EventSink provideRegisteredEventSink(@RegisteredEvents EventDispatcher dispatcher) {
+    return dispatcher::post;
   }
 
   static class RegisterSubscribers extends AbstractIdleService {
-    private final EventBus eventBus;
-    private final EventBus registeredEventBus;
+    private final EventDispatcher dispatcher;
+    private final EventDispatcher registeredDispatcher;
     private final Set<EventSubscriber> subscribers;
     private final Set<EventSubscriber> registeredSubscribers;
 
     @Inject
-    RegisterSubscribers(EventBus eventBus,
-                        @RegisteredEvents EventBus registeredEventBus,
+    RegisterSubscribers(EventDispatcher dispatcher,
+                        @RegisteredEvents EventDispatcher registeredDispatcher,
                         Set<EventSubscriber> subscribers,
                         @RegisteredEvents Set<EventSubscriber> registeredSubscribers) {
 
-      this.eventBus = requireNonNull(eventBus);
-      this.registeredEventBus = requireNonNull(registeredEventBus);
+      this.dispatcher = requireNonNull(dispatcher);
+      this.registeredDispatcher = requireNonNull(registeredDispatcher);
       this.subscribers = requireNonNull(subscribers);
       this.registeredSubscribers = requireNonNull(registeredSubscribers);
     }
 
     @Override
     protected void startUp() {
-      subscribers.forEach(eventBus::register);
-      registeredSubscribers.forEach(registeredEventBus::register);
+      subscribers.forEach(dispatcher::register);
+      registeredSubscribers.forEach(registeredDispatcher::register);
     }
 
     @Override
@@ -14,24 +14,43 @@
 package org.apache.aurora.scheduler.events;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.Subscribe;
-
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
+import org.apache.aurora.scheduler.base.AsyncUtil;
+import org.apache.aurora.scheduler.events.EventDispatcher.LossTolerant;
+import org.apache.aurora.scheduler.events.EventDispatcher.Partitioned;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
-import org.asynchttpclient.AsyncCompletionHandler;
+import org.apache.aurora.scheduler.stats.WindowedPercentiles;
+import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseHeaders;
 import org.asynchttpclient.HttpResponseStatus;
-import org.asynchttpclient.Response;
 import org.asynchttpclient.util.HttpConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +59,14 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Watches TaskStateChanges and send events to configured endpoint.
+ * <p>
+ * Events are queued and gathered into batches by a single thread, which sends each batch without
+ * waiting for the response, up to a limit on requests in flight. Requests may therefore complete
+ * out of order. When the queue is full, events are dropped. Deliveries that fail with a connection
+ * error or a server error are retried with exponential backoff, scheduled on the async executor.
  */
+@LossTolerant
+@Partitioned
 public class Webhook extends AbstractIdleService implements EventSubscriber {
   @VisibleForTesting
   static final String ATTEMPTS_STAT_NAME = "webhooks_attempts";
@@ -50,40 +76,108 @@ public class Webhook extends AbstractIdleService implements EventSubscriber {
   static final String ERRORS_STAT_NAME = "webhooks_errors";
   @VisibleForTesting
   static final String USER_ERRORS_STAT_NAME = "webhooks_user_errors";
+  @VisibleForTesting
+  static final String DROPPED_STAT_NAME = "webhooks_dropped";
+  @VisibleForTesting
+  static final String RETRIES_STAT_NAME = "webhooks_retries";
+  @VisibleForTesting
+  static final String REQUESTS_STAT_NAME = "webhooks_requests";
+  @VisibleForTesting
+  static final String QUEUE_SIZE_STAT_NAME = "webhooks_queue_size";
+  @VisibleForTesting
+  static final String DELIVERY_LATENCY_STAT_NAME = "webhooks_delivery_latency_ms";
 
   private static final Logger LOG = LoggerFactory.getLogger(Webhook.class);
 
+  /**
+   * Settings for queueing and delivering events.
+   */
+  public static class DeliverySettings {
+    private final int queueCapacity;
+    private final int batchSize;
+    private final Amount<Long, Time> batchWindow;
+    private final int maxRequestsInFlight;
+    private final int maxRetries;
+    private final Amount<Long, Time> retryBackoff;
+
+    public DeliverySettings(
+        int queueCapacity,
+        int batchSize,
+        Amount<Long, Time> batchWindow,
+        int maxRequestsInFlight,
+        int maxRetries,
+        Amount<Long, Time> retryBackoff) {
+
+      this.queueCapacity = queueCapacity;
+      this.batchSize = batchSize;
+      this.batchWindow = requireNonNull(batchWindow);
+      this.maxRequestsInFlight = maxRequestsInFlight;
+      this.maxRetries = maxRetries;
+      this.retryBackoff = requireNonNull(retryBackoff);
+    }
+  }
+
   private final WebhookInfo webhookInfo;
   private final AsyncHttpClient httpClient;
+  private final DeliverySettings settings;
   private final Predicate<ScheduleStatus> isWhitelisted;
+  private final BlockingQueue<QueuedEvent> queue;
+  private final Semaphore requestsInFlight;
+  private final ScheduledExecutorService retryExecutor;
 
   private final AtomicLong attemptsCounter;
   private final AtomicLong successCounter;
   private final AtomicLong errorsCounter;
   private final AtomicLong userErrorsCounter;
+  private final AtomicLong droppedCounter;
+  private final AtomicLong retriesCounter;
+  private final AtomicLong requestsCounter;
+  private final WindowedPercentiles deliveryLatencies;
+
+  private ExecutorService deliveryExecutor;
 
   @Inject
-  Webhook(AsyncHttpClient httpClient, WebhookInfo webhookInfo, StatsProvider statsProvider) {
+  Webhook(
+      AsyncHttpClient httpClient,
+      WebhookInfo webhookInfo,
+      DeliverySettings settings,
+      StatsProvider statsProvider,
+      @AsyncExecutor ScheduledExecutorService retryExecutor) {
+
     this.webhookInfo = requireNonNull(webhookInfo);
     this.httpClient = requireNonNull(httpClient);
+    this.settings = requireNonNull(settings);
+    this.retryExecutor = requireNonNull(retryExecutor);
+    this.queue = new LinkedBlockingQueue<>(settings.queueCapacity);
+    this.requestsInFlight = new Semaphore(settings.maxRequestsInFlight);
     this.attemptsCounter = statsProvider.makeCounter(ATTEMPTS_STAT_NAME);
     this.successCounter = statsProvider.makeCounter(SUCCESS_STAT_NAME);
     this.errorsCounter = statsProvider.makeCounter(ERRORS_STAT_NAME);
     this.userErrorsCounter = statsProvider.makeCounter(USER_ERRORS_STAT_NAME);
+    this.droppedCounter = statsProvider.makeCounter(DROPPED_STAT_NAME);
+    this.retriesCounter = statsProvider.makeCounter(RETRIES_STAT_NAME);
+    this.requestsCounter = statsProvider.makeCounter(REQUESTS_STAT_NAME);
+    statsProvider.makeGauge(QUEUE_SIZE_STAT_NAME, queue::size);
+    this.deliveryLatencies = new WindowedPercentiles(
+        statsProvider,
+        DELIVERY_LATENCY_STAT_NAME,
+        WindowedPercentiles.DEFAULT_WINDOW_SIZE,
+        50, 90, 99);
     this.isWhitelisted = status -> !webhookInfo.getWhitelistedStatuses().isPresent()
         || webhookInfo.getWhitelistedStatuses().get().contains(status);
     LOG.info("Webhook enabled with info" + this.webhookInfo);
   }
 
-  private BoundRequestBuilder createRequest(TaskStateChange stateChange) {
+  private BoundRequestBuilder createRequest(String body) {
     return httpClient.preparePost(webhookInfo.getTargetURI().toString())
-        .setBody(stateChange.toJson())
+        .setBody(body)
         .setSingleHeaders(webhookInfo.getHeaders())
         .addHeader("Timestamp", Long.toString(Instant.now().toEpochMilli()));
   }
 
   /**
-   * Watches all TaskStateChanges and send them best effort to a configured endpoint.
+   * Watches all TaskStateChanges and queues them for best effort delivery to a configured
+   * endpoint.
    * <p>
    * This is used to expose an external event bus.
    *
@@ -96,49 +190,202 @@ public class Webhook extends AbstractIdleService implements EventSubscriber {
     // first initializes. In that case we do not want to resend the entire state. This check also
     // ensures that only whitelisted statuses will be sent to the configured endpoint.
     if (stateChange.isTransition() && isWhitelisted.apply(stateChange.getNewState())) {
-      attemptsCounter.incrementAndGet();
-      try {
-        // We don't care about the response body, so only listen for the HTTP status code.
-        createRequest(stateChange).execute(new AsyncCompletionHandler<Integer>() {
-          @Override
-          public void onThrowable(Throwable t) {
-            errorsCounter.incrementAndGet();
-            LOG.error("Error sending a Webhook event", t);
-          }
-
-          @Override
-          public State onStatusReceived(HttpResponseStatus status) throws Exception {
-            if (status.getStatusCode() == HttpConstants.ResponseStatusCodes.OK_200) {
-              successCounter.incrementAndGet();
-            } else {
-              userErrorsCounter.incrementAndGet();
-            }
-
-            // Abort after we get the status because that is all we use for processing.
-            return State.ABORT;
-          }
-
-          @Override
-          public Integer onCompleted(Response response) throws Exception {
-            // We do not care about the full response.
-            return 0;
-          }
-        });
-      } catch (Exception e) {
-        LOG.error("Error making Webhook request", e);
-        errorsCounter.incrementAndGet();
+      if (!queue.offer(new QueuedEvent(stateChange, System.nanoTime()))) {
+        droppedCounter.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Delivers all queued events one batch at a time, waiting for each delivery to complete.
+   */
+  @VisibleForTesting
+  void flush() {
+    List<QueuedEvent> batch = new ArrayList<>(settings.batchSize);
+    while (queue.drainTo(batch, settings.batchSize) > 0) {
+      deliver(ImmutableList.copyOf(batch)).join();
+      batch.clear();
+    }
+  }
+
+  private void deliverQueued() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        List<QueuedEvent> batch = nextBatch();
+        requestsInFlight.acquire();
+        deliver(batch).whenComplete((result, error) -> requestsInFlight.release());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for the next batch of events. The batch is sent once it is full, or once the batch
+   * window has passed since its first event was taken from the queue.
+   */
+  private List<QueuedEvent> nextBatch() throws InterruptedException {
+    List<QueuedEvent> batch = new ArrayList<>(settings.batchSize);
+    batch.add(queue.take());
+    long deadline = System.nanoTime() + settings.batchWindow.as(Time.NANOSECONDS);
+    while (batch.size() < settings.batchSize) {
+      queue.drainTo(batch, settings.batchSize - batch.size());
+      long remaining = deadline - System.nanoTime();
+      if (batch.size() == settings.batchSize || remaining <= 0) {
+        break;
+      }
+
+      QueuedEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+      if (next == null) {
+        break;
+      }
+      batch.add(next);
+    }
+    return batch;
+  }
+
+  private String payload(List<QueuedEvent> batch) {
+    // Without batching, each request carries a single event object, as it always has. With
+    // batching, requests always carry an array of events, even if only one event was queued.
+    if (settings.batchSize == 1) {
+      return batch.get(0).stateChange.toJson();
+    }
+    return batch.stream()
+        .map(event -> event.stateChange.toJson())
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  /**
+   * Sends a batch of events, retrying as configured.
+   *
+   * @param batch Events to send.
+   * @return A future that completes once the batch was delivered or given up on.
+   */
+  private CompletableFuture<Void> deliver(List<QueuedEvent> batch) {
+    attemptsCounter.addAndGet(batch.size());
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    send(batch, payload(batch), 0, settings.retryBackoff.as(Time.MILLISECONDS), done);
+    return done;
+  }
+
+  private void send(
+      List<QueuedEvent> batch,
+      String body,
+      int attempt,
+      long backoffMs,
+      CompletableFuture<Void> done) {
+
+    requestsCounter.incrementAndGet();
+    CompletableFuture<Integer> response;
+    try {
+      // We don't care about the response body, so only listen for the HTTP status code.
+      response = createRequest(body).execute(new StatusCodeHandler()).toCompletableFuture();
+    } catch (RuntimeException e) {
+      response = new CompletableFuture<>();
+      response.completeExceptionally(e);
+    }
+
+    response.whenComplete((status, error) -> {
+      if (error != null) {
+        LOG.error("Error sending a Webhook event", error);
+      }
+
+      boolean retryable = status == null
+          || status >= HttpConstants.ResponseStatusCodes.INTERNAL_SERVER_ERROR_500;
+      if (retryable && attempt < settings.maxRetries) {
+        retriesCounter.incrementAndGet();
+        try {
+          retryExecutor.schedule(
+              () -> send(batch, body, attempt + 1, backoffMs * 2, done),
+              backoffMs,
+              TimeUnit.MILLISECONDS);
+          return;
+        } catch (RejectedExecutionException e) {
+          LOG.warn("Not retrying Webhook event, the executor was shut down.");
+        }
       }
+
+      completed(batch, status);
+      done.complete(null);
+    });
+  }
+
+  private void completed(List<QueuedEvent> batch, Integer status) {
+    if (status == null) {
+      errorsCounter.addAndGet(batch.size());
+    } else if (status == HttpConstants.ResponseStatusCodes.OK_200) {
+      successCounter.addAndGet(batch.size());
+    } else {
+      userErrorsCounter.addAndGet(batch.size());
+    }
+
+    long now = System.nanoTime();
+    for (QueuedEvent event : batch) {
+      deliveryLatencies.record(TimeUnit.NANOSECONDS.toMillis(now - event.enqueuedNanos));
     }
   }
 
   @Override
   protected void startUp() throws Exception {
-    // No-op
+    deliveryExecutor = AsyncUtil.loggingExecutor(
+        1,
+        1,
+        new LinkedBlockingQueue<>(),
+        "Webhook-%d",
+        LOG);
+    deliveryExecutor.execute(this::deliverQueued);
   }
 
   @Override
   protected void shutDown() throws Exception {
     LOG.info("Shutting down async Webhook client.");
+    if (deliveryExecutor != null) {
+      deliveryExecutor.shutdownNow();
+    }
     httpClient.close();
   }
+
+  private static final class QueuedEvent {
+    private final TaskStateChange stateChange;
+    private final long enqueuedNanos;
+
+    QueuedEvent(TaskStateChange stateChange, long enqueuedNanos) {
+      this.stateChange = stateChange;
+      this.enqueuedNanos = enqueuedNanos;
+    }
+  }
+
+  /**
+   * Completes with the HTTP status code of the response, aborting before the body is read.
+   */
+  private static final class StatusCodeHandler implements AsyncHandler<Integer> {
+    private volatile int statusCode;
+
+    @Override
+    public void onThrowable(Throwable t) {
+      // Surfaced through the future.
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+      return State.CONTINUE;
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) {
+      statusCode = responseStatus.getStatusCode();
+      // Abort after we get the status because that is all we use for processing.
+      return State.ABORT;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpResponseHeaders headers) {
+      return State.CONTINUE;
+    }
+
+    @Override
+    public Integer onCompleted() {
+      return statusCode;
+    }
+  }
 }
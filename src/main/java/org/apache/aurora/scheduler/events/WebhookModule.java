@@ -26,8 +26,15 @@ import com.google.common.io.Files;
 import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
 
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
+import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.NotNegativeAmount;
+import org.apache.aurora.scheduler.config.validators.NotNegativeNumber;
+import org.apache.aurora.scheduler.config.validators.PositiveAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
 import org.apache.aurora.scheduler.config.validators.ReadableFile;
+import org.apache.aurora.scheduler.events.Webhook.DeliverySettings;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
 import org.asynchttpclient.channel.DefaultKeepAliveStrategy;
@@ -55,9 +62,43 @@ public class WebhookModule extends AbstractModule {
         validateValueWith = ReadableFile.class,
         description = "Path to webhook configuration file.")
     public File webhookConfigFile = null;
+
+    @Parameter(names = "-webhook_queue_capacity",
+        validateValueWith = PositiveNumber.class,
+        description = "Maximum number of events waiting to be sent to the webhook endpoint. Events "
+            + "are dropped while the queue is full.")
+    public int webhookQueueCapacity = 10000;
+
+    @Parameter(names = "-webhook_batch_size",
+        validateValueWith = PositiveNumber.class,
+        description = "Maximum number of events sent to the webhook endpoint in a single request. "
+            + "When greater than 1, requests carry a JSON array of events.")
+    public int webhookBatchSize = 1;
+
+    @Parameter(names = "-webhook_batch_window",
+        validateValueWith = NotNegativeAmount.class,
+        description = "Time to wait for more events to fill a webhook batch before sending it.")
+    public TimeAmount webhookBatchWindow = new TimeAmount(0, Time.MILLISECONDS);
+
+    @Parameter(names = "-webhook_max_requests_in_flight",
+        validateValueWith = PositiveNumber.class,
+        description = "Maximum number of requests to the webhook endpoint awaiting a response.")
+    public int webhookMaxRequestsInFlight = 16;
+
+    @Parameter(names = "-webhook_max_retries",
+        validateValueWith = NotNegativeNumber.class,
+        description = "Number of times to retry sending events to the webhook endpoint after a "
+            + "connection failure or server error.")
+    public int webhookMaxRetries = 3;
+
+    @Parameter(names = "-webhook_retry_backoff",
+        validateValueWith = PositiveAmount.class,
+        description = "Time to wait before the first webhook retry, doubled for each later retry.")
+    public TimeAmount webhookRetryBackoff = new TimeAmount(100, Time.MILLISECONDS);
   }
 
   private final Optional<String> webhookConfig;
+  private final DeliverySettings deliverySettings;
 
   public WebhookModule(Options options) {
     this.webhookConfig = Optional.ofNullable(options.webhookConfigFile)
@@ -68,11 +109,23 @@ public class WebhookModule extends AbstractModule {
             throw new RuntimeException(e);
           }
         });
+    this.deliverySettings = deliverySettings(options);
   }
 
   @VisibleForTesting
   WebhookModule(Optional<String> webhookConfig) {
     this.webhookConfig = webhookConfig;
+    this.deliverySettings = deliverySettings(new Options());
+  }
+
+  private static DeliverySettings deliverySettings(Options options) {
+    return new DeliverySettings(
+        options.webhookQueueCapacity,
+        options.webhookBatchSize,
+        options.webhookBatchWindow,
+        options.webhookMaxRequestsInFlight,
+        options.webhookMaxRetries,
+        options.webhookRetryBackoff);
   }
 
   @Override
@@ -92,6 +145,7 @@ public class WebhookModule extends AbstractModule {
 
       bind(WebhookInfo.class).toInstance(webhookInfo);
       bind(AsyncHttpClient.class).toInstance(httpClient);
+      bind(DeliverySettings.class).toInstance(deliverySettings);
       PubsubEventModule.bindSubscriber(binder(), Webhook.class);
       bind(Webhook.class).in(Singleton.class);
 
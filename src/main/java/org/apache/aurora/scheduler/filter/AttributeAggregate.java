@@ -18,6 +18,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multiset;
 
@@ -124,6 +125,27 @@ public final class AttributeAggregate {
     );
   }
 
+  /**
+   * Reverts a previous {@link #updateAttributeAggregate(IHostAttributes)} with the same
+   * attributes, such as when a task matched to a host could not be launched there.
+   *
+   * @param attributes Attributes of the host the task was matched to.
+   */
+  public void revertAttributeAggregate(IHostAttributes attributes) {
+    final Supplier<Multiset<Pair<String, String>>> previous = aggregate;
+    aggregate = Suppliers.memoize(
+        () -> {
+          Multiset<Pair<String, String>> reverted = HashMultiset.create(previous.get());
+          for (IAttribute attribute : attributes.getAttributes()) {
+            for (String value : attribute.getValues()) {
+              reverted.remove(Pair.of(attribute.getName(), value));
+            }
+          }
+          return ImmutableMultiset.copyOf(reverted);
+        }
+    );
+  }
+
   @VisibleForTesting
   public static AttributeAggregate empty() {
     return new AttributeAggregate(Suppliers.ofInstance(ImmutableMultiset.of()));
@@ -0,0 +1,62 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns host attribute names and (name, value) pairs into dense integer ids.
+ * <p>
+ * Ids are assigned once and never reclaimed. The number of distinct ids is bounded by the
+ * attribute names and values present in the cluster and in task constraints, which is small
+ * relative to the number of scheduling evaluations that benefit from comparing ids rather than
+ * strings.
+ */
+final class AttributeIds {
+  private AttributeIds() {
+    // Utility class.
+  }
+
+  private static final AtomicInteger NEXT_NAME_ID = new AtomicInteger();
+  private static final AtomicInteger NEXT_VALUE_ID = new AtomicInteger();
+
+  private static final ConcurrentMap<String, Integer> NAME_IDS = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, ConcurrentMap<String, Integer>> VALUE_IDS =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Gets the id of an attribute name, assigning a new one if the name has not been seen before.
+   *
+   * @param name Attribute name.
+   * @return Id of the attribute name.
+   */
+  static int nameId(String name) {
+    return NAME_IDS.computeIfAbsent(name, n -> NEXT_NAME_ID.getAndIncrement());
+  }
+
+  /**
+   * Gets the id of an attribute name and value combination, assigning a new one if the
+   * combination has not been seen before.
+   *
+   * @param name Attribute name.
+   * @param value Attribute value.
+   * @return Id of the attribute name and value combination.
+   */
+  static int valueId(String name, String value) {
+    return VALUE_IDS.computeIfAbsent(name, n -> new ConcurrentHashMap<>())
+        .computeIfAbsent(value, v -> NEXT_VALUE_ID.getAndIncrement());
+  }
+}
@@ -13,98 +13,154 @@
  */
 package org.apache.aurora.scheduler.filter;
 
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
-import com.google.common.base.Function;
-import com.google.common.base.Predicate;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
-import org.apache.aurora.gen.Attribute;
 import org.apache.aurora.scheduler.base.SchedulerException;
+import org.apache.aurora.scheduler.configuration.ConfigurationManager;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
-import org.apache.aurora.scheduler.storage.entities.IAttribute;
 import org.apache.aurora.scheduler.storage.entities.IConstraint;
 import org.apache.aurora.scheduler.storage.entities.ITaskConstraint;
+import org.apache.aurora.scheduler.storage.entities.IValueConstraint;
 
 /**
  * Filter that determines whether a task's constraints are satisfied.
+ * <p>
+ * Constraints are compiled once into matchers over interned attribute ids, so that evaluating
+ * them against a {@link HostAttributeIndex} does not walk or copy host attributes. Value
+ * constraints are evaluated before limit constraints, as they are cheaper and do not depend on
+ * job state.
  */
 final class ConstraintMatcher {
-  private ConstraintMatcher() {
-    // Utility class.
-  }
+  private final Matcher[] matchers;
+  private final boolean dedicated;
 
-  private static final Function<IAttribute, Set<String>> GET_VALUES =
-      IAttribute::getValues;
+  private ConstraintMatcher(Matcher[] matchers, boolean dedicated) {
+    this.matchers = matchers;
+    this.dedicated = dedicated;
+  }
 
   /**
-   * Gets the veto (if any) for a scheduling constraint based on the {@link AttributeAggregate} this
-   * filter was created with.
+   * Compiles task constraints into a matcher.
    *
-   * @param constraint Scheduling filter to check.
-   * @return A veto if the constraint is not satisfied based on the existing state of the job.
+   * @param constraints Task constraints to compile.
+   * @return A matcher evaluating all of the constraints.
    */
-  static Optional<Veto> getVeto(
-      AttributeAggregate cachedjobState,
-      Iterable<IAttribute> hostAttributes,
-      IConstraint constraint) {
-
-    Iterable<IAttribute> sameNameAttributes =
-        Iterables.filter(hostAttributes, new NameFilter(constraint.getName()));
-    Optional<IAttribute> attribute;
-    if (Iterables.isEmpty(sameNameAttributes)) {
-      attribute = Optional.empty();
-    } else {
-      Set<String> attributeValues = ImmutableSet.copyOf(
-          Iterables.concat(Iterables.transform(sameNameAttributes, GET_VALUES)));
-      attribute =
-          Optional.of(IAttribute.build(new Attribute(constraint.getName(), attributeValues)));
-    }
+  static ConstraintMatcher compile(Iterable<IConstraint> constraints) {
+    List<Matcher> valueMatchers = Lists.newArrayList();
+    List<Matcher> limitMatchers = Lists.newArrayList();
+    for (IConstraint constraint : constraints) {
+      ITaskConstraint taskConstraint = constraint.getConstraint();
+      switch (taskConstraint.getSetField()) {
+        case VALUE:
+          valueMatchers.add(new ValueMatcher(constraint.getName(), taskConstraint.getValue()));
+          break;
 
-    ITaskConstraint taskConstraint = constraint.getConstraint();
-    switch (taskConstraint.getSetField()) {
-      case VALUE:
-        boolean matches = AttributeFilter.matches(
-            attribute.map(GET_VALUES).orElse(ImmutableSet.of()),
-            taskConstraint.getValue());
-        return matches
-            ? Optional.empty()
-            : Optional.of(Veto.constraintMismatch(constraint.getName()));
-
-      case LIMIT:
-        if (!attribute.isPresent()) {
-          return Optional.of(Veto.constraintMismatch(constraint.getName()));
-        }
+        case LIMIT:
+          limitMatchers.add(
+              new LimitMatcher(constraint.getName(), taskConstraint.getLimit().getLimit()));
+          break;
 
-        boolean satisfied = AttributeFilter.matches(
-            attribute.get(),
-            taskConstraint.getLimit().getLimit(),
-            cachedjobState);
-        return satisfied
-            ? Optional.empty()
-            : Optional.of(Veto.unsatisfiedLimit(constraint.getName()));
-
-      default:
-        throw new SchedulerException("Failed to recognize the constraint type: "
-            + taskConstraint.getSetField());
+        default:
+          throw new SchedulerException("Failed to recognize the constraint type: "
+              + taskConstraint.getSetField());
+      }
     }
+
+    valueMatchers.addAll(limitMatchers);
+    return new ConstraintMatcher(
+        valueMatchers.toArray(new Matcher[0]),
+        ConfigurationManager.isDedicated(constraints));
+  }
+
+  /**
+   * Checks whether the compiled constraints include a dedicated constraint.
+   *
+   * @return {@code true} if the task is dedicated, {@code false} otherwise.
+   */
+  boolean isDedicated() {
+    return dedicated;
   }
 
   /**
-   * A filter to find attributes matching a name.
+   * Gets the veto (if any) for the compiled constraints based on the provided job state.
+   *
+   * @param host Indexed attributes of the host to evaluate.
+   * @param jobState Cached state of the job being filtered.
+   * @return A veto for the first constraint that is not satisfied, if any.
    */
-  static class NameFilter implements Predicate<IAttribute> {
-    private final String attributeName;
+  Optional<Veto> getVeto(HostAttributeIndex host, AttributeAggregate jobState) {
+    for (Matcher matcher : matchers) {
+      Optional<Veto> veto = matcher.getVeto(host, jobState);
+      if (veto.isPresent()) {
+        // Break early to avoid potentially-expensive operations to satisfy other constraints.
+        return veto;
+      }
+    }
+
+    return Optional.empty();
+  }
 
-    NameFilter(String attributeName) {
-      this.attributeName = attributeName;
+  private interface Matcher {
+    Optional<Veto> getVeto(HostAttributeIndex host, AttributeAggregate jobState);
+  }
+
+  private static final class ValueMatcher implements Matcher {
+    private final int[] valueIds;
+    private final boolean negated;
+    private final Optional<Veto> veto;
+
+    ValueMatcher(String name, IValueConstraint constraint) {
+      this.valueIds = constraint.getValues().stream()
+          .mapToInt(value -> AttributeIds.valueId(name, value))
+          .toArray();
+      this.negated = constraint.isNegated();
+      this.veto = Optional.of(Veto.constraintMismatch(name));
+    }
+
+    @Override
+    public Optional<Veto> getVeto(HostAttributeIndex host, AttributeAggregate jobState) {
+      boolean match = false;
+      for (int valueId : valueIds) {
+        if (host.hasValue(valueId)) {
+          match = true;
+          break;
+        }
+      }
+      return negated ^ match ? Optional.empty() : veto;
+    }
+  }
+
+  private static final class LimitMatcher implements Matcher {
+    private final String name;
+    private final int nameId;
+    private final int limit;
+    private final Optional<Veto> mismatchVeto;
+    private final Optional<Veto> limitVeto;
+
+    LimitMatcher(String name, int limit) {
+      this.name = name;
+      this.nameId = AttributeIds.nameId(name);
+      this.limit = limit;
+      this.mismatchVeto = Optional.of(Veto.constraintMismatch(name));
+      this.limitVeto = Optional.of(Veto.unsatisfiedLimit(name));
     }
 
     @Override
-    public boolean apply(IAttribute attribute) {
-      return attributeName.equals(attribute.getName());
+    public Optional<Veto> getVeto(HostAttributeIndex host, AttributeAggregate jobState) {
+      if (!host.hasName(nameId)) {
+        return mismatchVeto;
+      }
+
+      for (String value : host.getValues(nameId)) {
+        if (limit <= jobState.getNumTasksWithAttribute(name, value)) {
+          return limitVeto;
+        }
+      }
+
+      return Optional.empty();
     }
   }
 }
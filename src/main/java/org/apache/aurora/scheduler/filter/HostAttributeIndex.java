@@ -0,0 +1,135 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.apache.aurora.scheduler.storage.entities.IAttribute;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+
+import static org.apache.aurora.scheduler.configuration.ConfigurationManager.DEDICATED_ATTRIBUTE;
+
+/**
+ * A host's attributes pre-indexed into interned ids, allowing constraints to be evaluated with
+ * allocation-free lookups.
+ * <p>
+ * Attributes sharing the same name are merged, matching the semantics of constraint evaluation
+ * where a constraint applies to the union of all values of the attribute it names.
+ */
+public final class HostAttributeIndex {
+  private static final String[] NO_VALUES = new String[0];
+
+  // Sorted ids of all (name, value) combinations present on the host.
+  private final int[] valueIds;
+  // Sorted ids of all attribute names present on the host.
+  private final int[] nameIds;
+  // Merged attribute values, positionally aligned with nameIds.
+  private final String[][] valuesByName;
+  private final boolean dedicated;
+
+  private HostAttributeIndex(
+      int[] valueIds,
+      int[] nameIds,
+      String[][] valuesByName,
+      boolean dedicated) {
+
+    this.valueIds = valueIds;
+    this.nameIds = nameIds;
+    this.valuesByName = valuesByName;
+    this.dedicated = dedicated;
+  }
+
+  /**
+   * Builds an index of the attributes of a host.
+   *
+   * @param attributes Host attributes to index.
+   * @return An index of the host attributes.
+   */
+  public static HostAttributeIndex from(IHostAttributes attributes) {
+    SortedMap<Integer, Set<String>> valuesByNameId = Maps.newTreeMap();
+    Set<Integer> valueIds = Sets.newHashSet();
+    for (IAttribute attribute : attributes.getAttributes()) {
+      Set<String> values = valuesByNameId.computeIfAbsent(
+          AttributeIds.nameId(attribute.getName()),
+          id -> Sets.newLinkedHashSet());
+      for (String value : attribute.getValues()) {
+        values.add(value);
+        valueIds.add(AttributeIds.valueId(attribute.getName(), value));
+      }
+    }
+
+    int[] nameIds = new int[valuesByNameId.size()];
+    String[][] valuesByName = new String[valuesByNameId.size()][];
+    int i = 0;
+    for (Map.Entry<Integer, Set<String>> entry : valuesByNameId.entrySet()) {
+      nameIds[i] = entry.getKey();
+      valuesByName[i] = entry.getValue().toArray(NO_VALUES);
+      i++;
+    }
+
+    int[] sortedValueIds = valueIds.stream().mapToInt(Integer::intValue).sorted().toArray();
+    return new HostAttributeIndex(
+        sortedValueIds,
+        nameIds,
+        valuesByName,
+        Arrays.binarySearch(nameIds, AttributeIds.nameId(DEDICATED_ATTRIBUTE)) >= 0);
+  }
+
+  /**
+   * Checks whether the host has an attribute with the given interned name.
+   *
+   * @param nameId Interned attribute name.
+   * @return {@code true} if the host has the attribute, {@code false} otherwise.
+   */
+  boolean hasName(int nameId) {
+    return Arrays.binarySearch(nameIds, nameId) >= 0;
+  }
+
+  /**
+   * Checks whether the host has the given interned attribute name and value combination.
+   *
+   * @param valueId Interned attribute name and value.
+   * @return {@code true} if the host has the attribute value, {@code false} otherwise.
+   */
+  boolean hasValue(int valueId) {
+    return Arrays.binarySearch(valueIds, valueId) >= 0;
+  }
+
+  /**
+   * Gets all values of the attribute with the given interned name. The returned array must not
+   * be modified.
+   *
+   * @param nameId Interned attribute name.
+   * @return Values of the attribute, or an empty array if the host does not have the attribute.
+   */
+  String[] getValues(int nameId) {
+    int index = Arrays.binarySearch(nameIds, nameId);
+    return index >= 0 ? valuesByName[index] : NO_VALUES;
+  }
+
+  /**
+   * Checks whether the host has the dedicated attribute.
+   *
+   * @return {@code true} if the host is dedicated, {@code false} otherwise.
+   */
+  public boolean isDedicated() {
+    return dedicated;
+  }
+}
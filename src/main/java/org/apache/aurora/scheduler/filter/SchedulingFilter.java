@@ -257,6 +257,7 @@ public interface SchedulingFilter {
   class UnusedResource {
     private final ResourceBag offer;
     private final IHostAttributes attributes;
+    private final HostAttributeIndex attributeIndex;
     private final Optional<Instant> unavailabilityStart;
 
     @VisibleForTesting
@@ -265,12 +266,26 @@ public interface SchedulingFilter {
     }
 
     public UnusedResource(HostOffer offer, boolean revocable) {
-      this(offer.getResourceBag(revocable), offer.getAttributes(), offer.getUnavailabilityStart());
+      this(
+          offer.getResourceBag(revocable),
+          offer.getAttributes(),
+          offer.getAttributeIndex(),
+          offer.getUnavailabilityStart());
     }
 
     public UnusedResource(ResourceBag offer, IHostAttributes attributes, Optional<Instant> start) {
+      this(offer, attributes, HostAttributeIndex.from(attributes), start);
+    }
+
+    public UnusedResource(
+        ResourceBag offer,
+        IHostAttributes attributes,
+        HostAttributeIndex attributeIndex,
+        Optional<Instant> start) {
+
       this.offer = offer;
       this.attributes = attributes;
+      this.attributeIndex = requireNonNull(attributeIndex);
       this.unavailabilityStart = start;
     }
 
@@ -282,6 +297,10 @@ public interface SchedulingFilter {
       return attributes;
     }
 
+    public HostAttributeIndex getAttributeIndex() {
+      return attributeIndex;
+    }
+
     public Optional<Instant> getUnavailabilityStart() {
       return unavailabilityStart;
     }
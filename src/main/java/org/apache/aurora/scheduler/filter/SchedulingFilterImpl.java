@@ -14,7 +14,6 @@
 package org.apache.aurora.scheduler.filter;
 
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.Optional;
 import java.util.Set;
@@ -22,42 +21,54 @@ import java.util.Set;
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Ordering;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.gen.MaintenanceMode;
-import org.apache.aurora.gen.TaskConstraint;
-import org.apache.aurora.scheduler.configuration.ConfigurationManager;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.offers.OfferManagerModule.UnavailabilityThreshold;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceType;
-import org.apache.aurora.scheduler.storage.entities.IAttribute;
-import org.apache.aurora.scheduler.storage.entities.IConstraint;
-import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 
 import static java.util.Objects.requireNonNull;
 
 import static org.apache.aurora.gen.MaintenanceMode.DRAINED;
 import static org.apache.aurora.gen.MaintenanceMode.DRAINING;
-import static org.apache.aurora.scheduler.configuration.ConfigurationManager.DEDICATED_ATTRIBUTE;
 
 /**
  * Implementation of the scheduling filter that ensures resource requirements of tasks are
  * fulfilled, and that tasks are allowed to run on the given machine.
  */
 public class SchedulingFilterImpl implements SchedulingFilter {
+  private static final Amount<Long, Time> CONSTRAINTS_EXPIRATION = Amount.of(10L, Time.MINUTES);
+
   private final Amount<Long, Time> unavailabilityThreshold;
   private final Clock clock;
 
+  // Task constraints compiled once per task group, to avoid re-evaluating constraint structure
+  // for every offer considered.
+  private final LoadingCache<TaskGroupKey, ConstraintMatcher> constraintsByGroup;
+
   @Inject
   public SchedulingFilterImpl(@UnavailabilityThreshold Amount<Long, Time> threshold, Clock clock) {
     this.unavailabilityThreshold = requireNonNull(threshold);
     this.clock = requireNonNull(clock);
+    this.constraintsByGroup = CacheBuilder.newBuilder()
+        .expireAfterAccess(
+            CONSTRAINTS_EXPIRATION.getValue(),
+            CONSTRAINTS_EXPIRATION.getUnit().getTimeUnit())
+        .build(new CacheLoader<TaskGroupKey, ConstraintMatcher>() {
+          @Override
+          public ConstraintMatcher load(TaskGroupKey groupKey) {
+            return ConstraintMatcher.compile(groupKey.getTask().getConstraints());
+          }
+        });
   }
 
   private static final Set<MaintenanceMode> VETO_MODES = EnumSet.of(DRAINING, DRAINED);
@@ -90,37 +101,6 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     return vetoes.build();
   }
 
-  private static boolean isValueConstraint(IConstraint constraint) {
-    return constraint.getConstraint().getSetField() == TaskConstraint._Fields.VALUE;
-  }
-
-  private static final Ordering<IConstraint> VALUES_FIRST = Ordering.from(
-      new Comparator<IConstraint>() {
-        @Override
-        public int compare(IConstraint a, IConstraint b) {
-          if (a.getConstraint().getSetField() == b.getConstraint().getSetField()) {
-            return 0;
-          }
-          return isValueConstraint(a) ? -1 : 1;
-        }
-      });
-
-  private Optional<Veto> getConstraintVeto(
-      Iterable<IConstraint> taskConstraints,
-      AttributeAggregate jobState,
-      Iterable<IAttribute> offerAttributes) {
-
-    for (IConstraint constraint : VALUES_FIRST.sortedCopy(taskConstraints)) {
-      Optional<Veto> veto = ConstraintMatcher.getVeto(jobState, offerAttributes, constraint);
-      if (veto.isPresent()) {
-        // Break early to avoid potentially-expensive operations to satisfy other constraints.
-        return veto;
-      }
-    }
-
-    return Optional.empty();
-  }
-
   private Optional<Veto> getAuroraMaintenanceVeto(MaintenanceMode mode) {
     return VETO_MODES.contains(mode)
         ? Optional.of(Veto.maintenance(mode.toString().toLowerCase()))
@@ -139,12 +119,6 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     return Optional.empty();
   }
 
-  private boolean isDedicated(IHostAttributes attributes) {
-    return Iterables.any(
-        attributes.getAttributes(),
-        new ConstraintMatcher.NameFilter(DEDICATED_ATTRIBUTE));
-  }
-
   @Timed("scheduling_filter")
   @Override
   public Set<Veto> filter(UnusedResource resource, ResourceRequest request) {
@@ -152,10 +126,12 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     // early any time a veto from a score group is applied. This helps to more accurately report
     // a veto reason in the NearestFit.
 
-    // 1. Dedicated constraint check (highest score).
-    if (!ConfigurationManager.isDedicated(request.getConstraints())
-        && isDedicated(resource.getAttributes())) {
+    ConstraintMatcher constraints =
+        constraintsByGroup.getUnchecked(TaskGroupKey.from(request.getTask()));
+    HostAttributeIndex attributeIndex = resource.getAttributeIndex();
 
+    // 1. Dedicated constraint check (highest score).
+    if (!constraints.isDedicated() && attributeIndex.isDedicated()) {
       return ImmutableSet.of(Veto.dedicatedHostConstraintMismatch());
     }
 
@@ -172,10 +148,7 @@ public class SchedulingFilterImpl implements SchedulingFilter {
     }
 
     // 3. Value and limit constraint check.
-    Optional<Veto> constraintVeto = getConstraintVeto(
-        request.getConstraints(),
-        request.getJobState(),
-        resource.getAttributes().getAttributes());
+    Optional<Veto> constraintVeto = constraints.getVeto(attributeIndex, request.getJobState());
 
     if (constraintVeto.isPresent()) {
       return ImmutableSet.of(constraintVeto.get());
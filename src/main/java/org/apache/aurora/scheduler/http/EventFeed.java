@@ -0,0 +1,322 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.http;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.EventDispatcher.LossTolerant;
+import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.JobUpdateStatusChanged;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskEvent;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Retains recent task state changes and job update status changes so that clients can stream
+ * them rather than polling for the full task state.
+ * <p>
+ * Each event is assigned a sequence number, which clients use to resume a stream. Only the most
+ * recent events are retained, a client resuming from an evicted event must reload the full state.
+ * Sequence numbers are only meaningful within a single feed, which is identified by an epoch that
+ * changes whenever the scheduler restarts.
+ */
+@LossTolerant
+public class EventFeed implements EventSubscriber {
+
+  @VisibleForTesting
+  static final String TASK_STATE_CHANGE = "task_state_change";
+  @VisibleForTesting
+  static final String JOB_UPDATE_STATUS_CHANGE = "job_update_status_change";
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * Settings for the event feed and the streams that read from it.
+   */
+  public static class Settings {
+    private final int bufferSize;
+    private final int maxStreams;
+    private final Amount<Long, Time> heartbeatInterval;
+    private final Amount<Long, Time> maxStreamDuration;
+
+    public Settings(
+        int bufferSize,
+        int maxStreams,
+        Amount<Long, Time> heartbeatInterval,
+        Amount<Long, Time> maxStreamDuration) {
+
+      checkArgument(bufferSize > 0);
+      this.bufferSize = bufferSize;
+      this.maxStreams = maxStreams;
+      this.heartbeatInterval = requireNonNull(heartbeatInterval);
+      this.maxStreamDuration = requireNonNull(maxStreamDuration);
+    }
+
+    Amount<Long, Time> getHeartbeatInterval() {
+      return heartbeatInterval;
+    }
+
+    Amount<Long, Time> getMaxStreamDuration() {
+      return maxStreamDuration;
+    }
+  }
+
+  /**
+   * An event in the feed.
+   */
+  static final class Entry {
+    private final long sequence;
+    private final String role;
+    private final String type;
+    private final String data;
+
+    Entry(long sequence, String role, String type, String data) {
+      this.sequence = sequence;
+      this.role = requireNonNull(role);
+      this.type = requireNonNull(type);
+      this.data = requireNonNull(data);
+    }
+
+    long getSequence() {
+      return sequence;
+    }
+
+    String getType() {
+      return type;
+    }
+
+    String getData() {
+      return data;
+    }
+  }
+
+  /**
+   * Events read from the feed.
+   */
+  static final class Batch {
+    private final List<Entry> entries;
+    private final boolean truncated;
+    private final long position;
+
+    Batch(List<Entry> entries, boolean truncated, long position) {
+      this.entries = requireNonNull(entries);
+      this.truncated = truncated;
+      this.position = position;
+    }
+
+    List<Entry> getEntries() {
+      return entries;
+    }
+
+    /**
+     * Whether events following the requested position were evicted before they could be read.
+     */
+    boolean isTruncated() {
+      return truncated;
+    }
+
+    /**
+     * The sequence number to read after next.
+     */
+    long getPosition() {
+      return position;
+    }
+  }
+
+  private final Settings settings;
+  private final String epoch;
+  private final Semaphore streams;
+  private final AtomicLong eventsCounter;
+  private final AtomicLong truncatedCounter;
+
+  // Entry with sequence number s is stored at s % bufferSize. Guarded by this.
+  private final Entry[] buffer;
+  private long lastSequence = 0;
+
+  @Inject
+  EventFeed(Settings settings, StatsProvider statsProvider) {
+    this.settings = requireNonNull(settings);
+    this.epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    this.streams = new Semaphore(settings.maxStreams);
+    this.buffer = new Entry[settings.bufferSize];
+    this.eventsCounter = statsProvider.makeCounter("event_feed_events");
+    this.truncatedCounter = statsProvider.makeCounter("event_feed_streams_truncated");
+    statsProvider.makeGauge(
+        "event_feed_streams",
+        () -> settings.maxStreams - streams.availablePermits());
+  }
+
+  Settings getSettings() {
+    return settings;
+  }
+
+  String getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * Reserves a stream, if fewer than the maximum number of streams are open.
+   *
+   * @return Whether a stream was reserved. If so, it must be released with
+   *     {@link #releaseStream()}.
+   */
+  boolean acquireStream() {
+    return streams.tryAcquire();
+  }
+
+  void releaseStream() {
+    streams.release();
+  }
+
+  @Subscribe
+  public void taskChangedState(TaskStateChange change) {
+    // Tasks loaded from storage at startup are not changes.
+    if (!change.isTransition()) {
+      return;
+    }
+
+    IScheduledTask task = change.getTask();
+    List<ITaskEvent> events = task.getTaskEvents();
+    Map<String, Object> data = ImmutableMap.<String, Object>builder()
+        .put("taskId", change.getTaskId())
+        .put("job", job(Tasks.getJob(task)))
+        .put("instanceId", task.getAssignedTask().getInstanceId())
+        .put("oldState", change.getOldState().get().name())
+        .put("newState", change.getNewState().name())
+        .put("host", Optional.ofNullable(task.getAssignedTask().getSlaveHost()).orElse(""))
+        .put("timestampMs", events.isEmpty() ? 0L : events.get(events.size() - 1).getTimestamp())
+        .build();
+    append(Tasks.getJob(task).getRole(), TASK_STATE_CHANGE, data);
+  }
+
+  @Subscribe
+  public void jobUpdateStatusChanged(JobUpdateStatusChanged change) {
+    IJobUpdateEvent event = change.getEvent();
+    Map<String, Object> data = ImmutableMap.<String, Object>builder()
+        .put("updateId", change.getKey().getId())
+        .put("job", job(change.getKey().getJob()))
+        .put("status", event.getStatus().name())
+        .put("user", Optional.ofNullable(event.getUser()).orElse(""))
+        .put("message", Optional.ofNullable(event.getMessage()).orElse(""))
+        .put("timestampMs", event.getTimestampMs())
+        .build();
+    append(change.getKey().getJob().getRole(), JOB_UPDATE_STATUS_CHANGE, data);
+  }
+
+  private static Map<String, String> job(IJobKey job) {
+    return ImmutableMap.of(
+        "role", job.getRole(),
+        "environment", job.getEnvironment(),
+        "name", job.getName());
+  }
+
+  private void append(String role, String type, Map<String, Object> data) {
+    String json;
+    try {
+      json = MAPPER.writeValueAsString(data);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to serialize event " + data, e);
+    }
+
+    synchronized (this) {
+      lastSequence++;
+      buffer[index(lastSequence)] = new Entry(lastSequence, role, type, json);
+      notifyAll();
+    }
+    eventsCounter.incrementAndGet();
+  }
+
+  private int index(long sequence) {
+    return (int) (sequence % buffer.length);
+  }
+
+  /**
+   * Gets the sequence number of the most recent event.
+   *
+   * @return The latest sequence number, or 0 if there have been no events.
+   */
+  synchronized long getLastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Reads events following a position in the feed, waiting for an event if there are none.
+   *
+   * @param after Sequence number to read events after.
+   * @param roles Roles to read events for, or empty to read events for all roles.
+   * @param limit Maximum number of events to read.
+   * @param timeout Maximum time to wait for an event.
+   * @return Events read, which are empty if the timeout passed or no new events matched
+   *     {@code roles}.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  synchronized Batch read(long after, Set<String> roles, int limit, Amount<Long, Time> timeout)
+      throws InterruptedException {
+
+    checkArgument(after >= 0);
+    long deadline = System.nanoTime() + timeout.as(Time.NANOSECONDS);
+    while (lastSequence <= after) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return new Batch(ImmutableList.of(), false, Math.min(after, lastSequence));
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+
+    long oldest = Math.max(1, lastSequence - buffer.length + 1);
+    boolean truncated = after + 1 < oldest;
+    if (truncated) {
+      truncatedCounter.incrementAndGet();
+    }
+
+    ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+    long position = Math.max(after, oldest - 1);
+    int read = 0;
+    while (position < lastSequence && read < limit) {
+      position++;
+      Entry entry = buffer[index(position)];
+      if (roles.isEmpty() || roles.contains(entry.role)) {
+        entries.add(entry);
+        read++;
+      }
+    }
+    return new Batch(entries.build(), truncated, position);
+  }
+}
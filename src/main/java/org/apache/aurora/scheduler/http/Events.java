@@ -0,0 +1,174 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.http.EventFeed.Batch;
+import org.apache.aurora.scheduler.http.EventFeed.Entry;
+
+/**
+ * Servlet that streams task state changes and job update status changes as server-sent events.
+ * <p>
+ * Each event carries an id that may be passed back in a {@code Last-Event-ID} header, or a
+ * {@code since} query parameter, to resume the stream without missing events. If the events
+ * following that id are no longer retained, a {@code reset} event is sent first, after which the
+ * client should reload the full state it is tracking. Events may be limited to jobs of particular
+ * roles with one or more {@code role} query parameters.
+ */
+@Path("/events")
+public class Events {
+
+  static final String EVENT_STREAM = "text/event-stream";
+
+  @VisibleForTesting
+  static final String RESET = "reset";
+
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  private final EventFeed feed;
+
+  @Inject
+  Events(EventFeed feed) {
+    this.feed = Objects.requireNonNull(feed);
+  }
+
+  /**
+   * Streams events until the client disconnects or the maximum stream duration passes.
+   *
+   * @param lastEventId Id of the last event the client received, if it is reconnecting.
+   * @param since Id of the last event the client received, as an alternative to
+   *     {@code lastEventId}.
+   * @param roles Roles to stream events for, or empty for all roles.
+   * @return HTTP response.
+   */
+  @GET
+  @Produces(EVENT_STREAM)
+  public Response getEvents(
+      @HeaderParam("Last-Event-ID") String lastEventId,
+      @QueryParam("since") String since,
+      @QueryParam("role") Set<String> roles) {
+
+    if (!feed.acquireStream()) {
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+          .entity("Too many event streams are open.")
+          .build();
+    }
+
+    Optional<String> resumeFrom = Optional.ofNullable(lastEventId == null ? since : lastEventId);
+    Set<String> roleFilter = roles == null ? ImmutableSet.of() : ImmutableSet.copyOf(roles);
+    StreamingOutput output = out -> {
+      try {
+        stream(out, resumeFrom, roleFilter);
+      } finally {
+        feed.releaseStream();
+      }
+    };
+    return Response.ok(output)
+        .header("Cache-Control", "no-cache")
+        .build();
+  }
+
+  @VisibleForTesting
+  void stream(OutputStream out, Optional<String> resumeFrom, Set<String> roles)
+      throws IOException {
+
+    Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    long position = feed.getLastSequence();
+    boolean reset = false;
+    if (resumeFrom.isPresent()) {
+      Optional<Long> resumePosition = parseId(resumeFrom.get());
+      if (resumePosition.isPresent() && resumePosition.get() <= position) {
+        position = resumePosition.get();
+      } else {
+        // The id belongs to a previous scheduler, or is not one we issued.
+        reset = true;
+      }
+    }
+    if (reset) {
+      writer.write("id: " + id(position) + "\n");
+      writeReset(writer);
+    }
+
+    long deadline = System.nanoTime()
+        + feed.getSettings().getMaxStreamDuration().as(Time.NANOSECONDS);
+    try {
+      while (System.nanoTime() < deadline) {
+        Batch batch = feed.read(
+            position,
+            roles,
+            MAX_BATCH_SIZE,
+            feed.getSettings().getHeartbeatInterval());
+        if (batch.isTruncated()) {
+          writeReset(writer);
+        }
+        for (Entry entry : batch.getEntries()) {
+          writer.write("id: " + id(entry.getSequence()) + "\n");
+          writer.write("event: " + entry.getType() + "\n");
+          writer.write("data: " + entry.getData() + "\n\n");
+        }
+        if (batch.getEntries().isEmpty()) {
+          // A comment line keeps idle connections open, and detects clients that went away.
+          writer.write(":\n\n");
+        }
+        position = batch.getPosition();
+        writer.flush();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void writeReset(Writer writer) throws IOException {
+    writer.write("event: " + RESET + "\n");
+    writer.write("data: {}\n\n");
+  }
+
+  private String id(long sequence) {
+    return feed.getEpoch() + "-" + sequence;
+  }
+
+  private Optional<Long> parseId(String id) {
+    String prefix = feed.getEpoch() + "-";
+    if (!id.startsWith(prefix)) {
+      return Optional.empty();
+    }
+    try {
+      long sequence = Long.parseLong(id.substring(prefix.length()));
+      return sequence < 0 ? Optional.empty() : Optional.of(sequence);
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -64,9 +64,15 @@ import org.apache.aurora.common.net.http.handlers.ThreadStackPrinter;
 import org.apache.aurora.common.net.http.handlers.TimeSeriesDataSource;
 import org.apache.aurora.common.net.http.handlers.VarsHandler;
 import org.apache.aurora.common.net.http.handlers.VarsJsonHandler;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.app.ServiceGroupMonitor.MonitorException;
 import org.apache.aurora.scheduler.config.CliOptions;
+import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.config.validators.NotNegativeNumber;
+import org.apache.aurora.scheduler.config.validators.PositiveAmount;
+import org.apache.aurora.scheduler.config.validators.PositiveNumber;
+import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.http.api.ApiModule;
 import org.apache.aurora.scheduler.http.api.security.HttpSecurityModule;
 import org.apache.aurora.scheduler.thrift.ThriftModule;
@@ -121,6 +127,29 @@ public class JettyServerModule extends AbstractModule {
         description =
             "The ip address to listen. If not set, the scheduler will listen on all interfaces.")
     public String listenIp;
+
+    @Parameter(names = "-event_feed_buffer_size",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of recent task and job update events retained for clients resuming "
+            + "an event stream.")
+    public int eventFeedBufferSize = 10000;
+
+    @Parameter(names = "-event_feed_max_streams",
+        validateValueWith = NotNegativeNumber.class,
+        description = "Maximum number of concurrently open event streams. Each open stream holds "
+            + "an HTTP server thread.")
+    public int eventFeedMaxStreams = 10;
+
+    @Parameter(names = "-event_feed_heartbeat_interval",
+        validateValueWith = PositiveAmount.class,
+        description = "Interval at which to write a heartbeat to idle event streams.")
+    public TimeAmount eventFeedHeartbeatInterval = new TimeAmount(15, Time.SECONDS);
+
+    @Parameter(names = "-event_feed_max_stream_duration",
+        validateValueWith = PositiveAmount.class,
+        description = "Maximum time an event stream is kept open, after which clients must "
+            + "reconnect to resume it.")
+    public TimeAmount eventFeedMaxStreamDuration = new TimeAmount(10, Time.MINUTES);
   }
 
   private static final String STATIC_ASSETS_ROOT = Resource
@@ -180,6 +209,14 @@ public class JettyServerModule extends AbstractModule {
     bind(LeaderRedirect.class).in(Singleton.class);
     SchedulerServicesModule.addAppStartupServiceBinding(binder()).to(RedirectMonitor.class);
 
+    bind(EventFeed.Settings.class).toInstance(new EventFeed.Settings(
+        options.jetty.eventFeedBufferSize,
+        options.jetty.eventFeedMaxStreams,
+        options.jetty.eventFeedHeartbeatInterval,
+        options.jetty.eventFeedMaxStreamDuration));
+    bind(EventFeed.class).in(Singleton.class);
+    PubsubEventModule.bindSubscriber(binder(), EventFeed.class);
+
     if (production) {
       install(new AbstractModule() {
         @Override
@@ -195,7 +232,7 @@ public class JettyServerModule extends AbstractModule {
               (servletContext) -> Modules.combine(
                   new ApiModule(options.api),
                   new HttpSecurityModule(options, servletContext),
-                  new ThriftModule(),
+                  new ThriftModule(options),
                   new AopModule(options)));
         }
       });
@@ -206,11 +243,13 @@ public class JettyServerModule extends AbstractModule {
       "agents",
       "api",
       "cron",
+      "events",
       "maintenance",
       "mname",
       "offers",
       "pendingtasks",
       "quotas",
+      "schedulingtraces",
       "slaves",
       "state",
       "tiers",
@@ -223,6 +262,7 @@ public class JettyServerModule extends AbstractModule {
           .put(Agents.class, "agents")
           .put(ContentionPrinter.class, "contention")
           .put(Cron.class, "cron")
+          .put(Events.class, "events")
           .put(HealthHandler.class, "health")
           .put(LeaderHealth.class, "leaderhealth")
           .put(LogConfig.class, "logconfig")
@@ -232,6 +272,7 @@ public class JettyServerModule extends AbstractModule {
           .put(PendingTasks.class, "pendingtasks")
           .put(QuitHandler.class, "quitquitquit")
           .put(Quotas.class, "quotas")
+          .put(SchedulingTraces.class, "schedulingtraces")
           .put(Services.class, "services")
           .put(StructDump.class, "structdump")
           .put(State.class, "state")
@@ -360,6 +401,8 @@ public class JettyServerModule extends AbstractModule {
     private static Handler getGzipHandler(Handler wrapped) {
       GzipHandler gzip = new GzipHandler();
       gzip.addIncludedMethods(HttpMethod.POST);
+      // Compression would hold back event stream writes until its buffer fills.
+      gzip.addExcludedMimeTypes(Events.EVENT_STREAM);
       gzip.setHandler(wrapped);
       return gzip;
     }
@@ -0,0 +1,54 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.http;
+
+import java.util.Objects;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+
+import org.apache.aurora.scheduler.scheduling.SchedulingTracer;
+
+/**
+ * HTTP interface that exposes per-phase scheduling round latencies and the slowest recent rounds.
+ */
+@Path("/schedulingtraces")
+public class SchedulingTraces {
+
+  private final SchedulingTracer tracer;
+
+  @Inject
+  SchedulingTraces(SchedulingTracer tracer) {
+    this.tracer = Objects.requireNonNull(tracer);
+  }
+
+  /**
+   * Dumps scheduling round latency percentiles and recent slow rounds.
+   *
+   * @return HTTP response.
+   */
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getTraces() {
+    ImmutableMap<String, Object> traces = ImmutableMap.of(
+        "percentiles", tracer.getPercentiles(),
+        "slowRounds", tracer.getSlowRounds());
+    return Response.ok(traces).build();
+  }
+}
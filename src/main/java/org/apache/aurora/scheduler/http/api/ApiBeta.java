@@ -13,13 +13,15 @@
  */
 package org.apache.aurora.scheduler.http.api;
 
-import java.io.OutputStreamWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
-import java.util.List;
 import java.util.Objects;
 
 import javax.inject.Inject;
@@ -34,11 +36,10 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.StreamingOutput;
 
-import com.google.common.collect.Lists;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 
 import org.apache.aurora.gen.AuroraAdmin.Iface;
 import org.apache.aurora.scheduler.storage.entities.AuroraAdminMetadata;
@@ -48,6 +49,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.apache.aurora.scheduler.http.api.GsonMessageBodyHandler.GSON;
+import static org.apache.aurora.scheduler.http.api.GsonMessageBodyHandler.writeJson;
 
 /**
  * A scheduler interface that allows interaction with the thrift API via traditional JSON,
@@ -66,10 +68,6 @@ public class ApiBeta {
     this.api = Objects.requireNonNull(api);
   }
 
-  private JsonElement getJsonMember(JsonObject json, String memberName) {
-    return (json == null) ? null : json.get(memberName);
-  }
-
   private static Response errorResponse(Status status, String message) {
     return Response.status(status)
         .entity(Responses.error(message))
@@ -85,26 +83,64 @@ public class ApiBeta {
    * the elements supplied in the request must match the names of those specified in the thrift
    * method definition.  If a method parameter does not exist in the request object, {@code null}
    * will be substituted.
+   * <p>
+   * Parameters are read directly from the request stream, without building the whole request in
+   * memory.
    *
    * @param json Incoming request data, to translate into method parameters.
    * @param method The thrift method to bind parameters for.
    * @return Parsed method parameters.
+   * @throws IOException If the request data is not valid JSON.
    * @throws WebApplicationException If a parameter could not be parsed.
    */
-  private Object[] readParams(JsonObject json, Method method)
-      throws WebApplicationException {
+  private Object[] readParams(JsonReader json, Method method)
+      throws IOException, WebApplicationException {
+
+    Parameter[] params = method.getParameters();
+    Object[] values = new Object[params.length];
+    JsonToken token;
+    try {
+      token = json.peek();
+    } catch (EOFException e) {
+      // There was no post data.  This is okay, since that is expected for a zero-parameter
+      // method.
+      return values;
+    }
+    if (token != JsonToken.BEGIN_OBJECT) {
+      throw new WebApplicationException(
+          badRequest("Request data must be a JSON object of method parameters."));
+    }
+
+    json.beginObject();
+    while (json.hasNext()) {
+      int index = indexOf(params, json.nextName());
+      if (index < 0) {
+        json.skipValue();
+        continue;
+      }
 
-    List<Object> params = Lists.newArrayList();
-    for (Parameter param : method.getParameters()) {
       try {
-        params.add(GSON.fromJson(getJsonMember(json, param.getName()), param.getType()));
+        values[index] = GSON.fromJson(json, params[index].getType());
       } catch (JsonParseException e) {
         throw new WebApplicationException(
             e,
-            badRequest("Failed to parse parameter " + param + ": " + e.getMessage()));
+            badRequest("Failed to parse parameter " + params[index] + ": " + e.getMessage()));
       }
     }
-    return params.toArray();
+    json.endObject();
+    if (json.peek() != JsonToken.END_DOCUMENT) {
+      throw new MalformedJsonException("Unexpected data after the method parameters");
+    }
+    return values;
+  }
+
+  private static int indexOf(Parameter[] params, String name) {
+    for (int i = 0; i < params.length; i++) {
+      if (params[i].getName().equals(name)) {
+        return i;
+      }
+    }
+    return -1;
   }
 
   private Method getApiMethod(String name, Class<?>... parameterTypes) {
@@ -118,8 +154,8 @@ public class ApiBeta {
   @POST
   @Path("{method}")
   @Produces(MediaType.APPLICATION_JSON)
-  public Response invoke(@PathParam("method") String methodName, String postData) {
-    LOG.debug("Call to {} with data: {}", methodName, postData);
+  public Response invoke(@PathParam("method") String methodName, InputStream postData) {
+    LOG.debug("Call to {}", methodName);
 
     // First, verify that this is a valid method on the interface.
     Class<?>[] methodParameterTypes = AuroraAdminMetadata.METHODS.get(methodName);
@@ -127,28 +163,21 @@ public class ApiBeta {
       return errorResponse(Status.NOT_FOUND, "Method " + methodName + " does not exist.");
     }
 
-    JsonObject parameters;
-    try {
-      JsonElement json = GSON.fromJson(postData, JsonElement.class);
-      // The parsed object will be null if there was no post data.  This is okay, since that is
-      // expected for a zero-parameter method.
-      if (json != null && !(json instanceof JsonObject)) {
-        throw new WebApplicationException(
-            badRequest("Request data must be a JSON object of method parameters."));
-      }
-      parameters = (JsonObject) json;
-    } catch (JsonSyntaxException e) {
+    final Method method = getApiMethod(methodName, methodParameterTypes);
+    final Object[] params;
+    try (JsonReader json = new JsonReader(
+        new InputStreamReader(postData, StandardCharsets.UTF_8))) {
+
+      json.setLenient(true);
+      params = readParams(json, method);
+    } catch (IOException | IllegalStateException e) {
       throw new WebApplicationException(e, badRequest("Request must be valid JSON"));
     }
 
-    final Method method = getApiMethod(methodName, methodParameterTypes);
-    final Object[] params = readParams(parameters, method);
     return Response.ok((StreamingOutput) output -> {
       try {
         Object response = method.invoke(api, params);
-        try (OutputStreamWriter out = new OutputStreamWriter(output, StandardCharsets.UTF_8)) {
-          GSON.toJson(response, out);
-        }
+        writeJson(response, method.getReturnType(), output);
       } catch (IllegalAccessException | InvocationTargetException e) {
         throw new RuntimeException(e);
       }
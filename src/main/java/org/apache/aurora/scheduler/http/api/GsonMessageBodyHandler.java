@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.http.api;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -35,18 +36,20 @@ import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.gson.ExclusionStrategy;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import org.apache.thrift.TFieldIdEnum;
 import org.apache.thrift.TUnion;
@@ -105,15 +108,13 @@ public class GsonMessageBodyHandler
       MultivaluedMap<String, Object> httpHeaders,
       OutputStream entityStream) throws IOException, WebApplicationException {
 
-    try (OutputStreamWriter writer = new OutputStreamWriter(entityStream, StandardCharsets.UTF_8)) {
-      Type jsonType;
-      if (type.equals(genericType)) {
-        jsonType = type;
-      } else {
-        jsonType = genericType;
-      }
-      GSON.toJson(o, jsonType, writer);
+    Type jsonType;
+    if (type.equals(genericType)) {
+      jsonType = type;
+    } else {
+      jsonType = genericType;
     }
+    writeJson(o, jsonType, entityStream);
   }
 
   @Override
@@ -174,66 +175,123 @@ public class GsonMessageBodyHandler
     return union;
   }
 
+  /**
+   * Reads and writes thrift unions as a JSON object with a single member, named after the field
+   * that is set. Values are streamed rather than built into a JSON tree.
+   */
+  private static class TUnionTypeAdapterFactory implements TypeAdapterFactory {
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> typeToken) {
+      Class<? super T> unionType = typeToken.getRawType();
+      if (!TUnion.class.isAssignableFrom(unionType)) {
+        return null;
+      }
+
+      Map<String, Entry<TFieldIdEnum, FieldValueMetaData>> fields = Maps.newHashMap();
+      try {
+        Field metaDataMapField = unionType.getField("metaDataMap");
+        @SuppressWarnings("unchecked")
+        Map<TFieldIdEnum, FieldMetaData> metaDataMap =
+            (Map<TFieldIdEnum, FieldMetaData>) metaDataMapField.get(null);
+        for (Entry<TFieldIdEnum, FieldMetaData> entry : metaDataMap.entrySet()) {
+          fields.put(
+              entry.getKey().getFieldName(),
+              Maps.immutableEntry(entry.getKey(), entry.getValue().valueMetaData));
+        }
+      } catch (NoSuchFieldException | IllegalAccessException e) {
+        throw new RuntimeException(e);
+      }
+
+      return new TypeAdapter<T>() {
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+          if (value == null) {
+            out.nullValue();
+            return;
+          }
+
+          TUnion<?, ?> union = (TUnion<?, ?>) value;
+          Object fieldValue = union.getFieldValue();
+          @SuppressWarnings("unchecked")
+          TypeAdapter<Object> valueAdapter =
+              (TypeAdapter<Object>) gson.getAdapter(fieldValue.getClass());
+          out.beginObject();
+          out.name(union.getSetField().getFieldName());
+          valueAdapter.write(out, fieldValue);
+          out.endObject();
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+          if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+          }
+
+          in.beginObject();
+          if (!in.hasNext()) {
+            throw new JsonParseException(unionType.getName() + " must have exactly one element");
+          }
+          Entry<TFieldIdEnum, FieldValueMetaData> field = fields.get(in.nextName());
+          if (field == null) {
+            throw new RuntimeException("Failed to deserialize " + unionType);
+          }
+          Object fieldValue = gson.getAdapter(TypeToken.get(valueType(field.getValue()))).read(in);
+          if (in.hasNext()) {
+            throw new JsonParseException(unionType.getName() + " must have exactly one element");
+          }
+          in.endObject();
+
+          try {
+            @SuppressWarnings("unchecked")
+            T union = (T) createUnion(unionType, field.getKey(), fieldValue);
+            return union;
+          } catch (IllegalAccessException | InstantiationException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+    }
+
+    private static Type valueType(FieldValueMetaData valueMeta) {
+      if (valueMeta.isStruct()) {
+        return ((StructMetaData) valueMeta).structClass;
+      }
+
+      switch (valueMeta.type) {
+        case TType.DOUBLE:
+          return Double.TYPE;
+        case TType.I64:
+          return Long.TYPE;
+        case TType.STRING:
+          return String.class;
+        default:
+          throw new RuntimeException("Unmapped type: " + valueMeta.type);
+      }
+    }
+  }
+
   public static final Gson GSON = new GsonBuilder()
       .addSerializationExclusionStrategy(EXCLUDE_THRIFT_FIELDS)
-      .registerTypeHierarchyAdapter(
-          TUnion.class,
-          (JsonSerializer<TUnion<?, ?>>) (src, typeOfSrc, context) -> context.serialize(
-              ImmutableMap.of(src.getSetField().getFieldName(), src.getFieldValue())))
-      .registerTypeHierarchyAdapter(
-          TUnion.class,
-          (JsonDeserializer<TUnion<?, ?>>) (json, typeOfT, context) -> {
-            JsonObject jsonObject = json.getAsJsonObject();
-            if (jsonObject.entrySet().size() != 1) {
-              throw new JsonParseException(
-                  typeOfT.getClass().getName() + " must have exactly one element");
-            }
-
-            if (typeOfT instanceof Class) {
-              Class<?> clazz = (Class<?>) typeOfT;
-              Entry<String, JsonElement> item = Iterables.getOnlyElement(jsonObject.entrySet());
-
-              try {
-                Field metaDataMapField = clazz.getField("metaDataMap");
-                @SuppressWarnings("unchecked")
-                Map<TFieldIdEnum, FieldMetaData> metaDataMap =
-                    (Map<TFieldIdEnum, FieldMetaData>) metaDataMapField.get(null);
-
-                for (Entry<TFieldIdEnum, FieldMetaData> entry : metaDataMap.entrySet()) {
-                  if (entry.getKey().getFieldName().equals(item.getKey())) {
-                    Object result;
-                    if (entry.getValue().valueMetaData.isStruct()) {
-                      StructMetaData valueMeta = (StructMetaData) entry.getValue().valueMetaData;
-                      result = context.deserialize(item.getValue(), valueMeta.structClass);
-                    } else {
-                      FieldValueMetaData valueMeta = entry.getValue().valueMetaData;
-                      Type type;
-                      switch (valueMeta.type) {
-                        case TType.DOUBLE:
-                          type = Double.TYPE;
-                          break;
-                        case TType.I64:
-                          type = Long.TYPE;
-                          break;
-                        case TType.STRING:
-                          type = String.class;
-                          break;
-                        default:
-                          throw new RuntimeException("Unmapped type: " + valueMeta.type);
-                      }
-                      result = context.deserialize(item.getValue(), type);
-                    }
-                    return createUnion(clazz, entry.getKey(), result);
-                  }
-                }
-
-                throw new RuntimeException("Failed to deserialize " + typeOfT);
-              } catch (NoSuchFieldException | IllegalAccessException | InstantiationException e) {
-                throw new RuntimeException(e);
-              }
-            } else {
-              throw new RuntimeException("Unable to deserialize " + typeOfT);
-            }
-          })
+      .registerTypeAdapterFactory(new TUnionTypeAdapterFactory())
       .create();
+
+  /**
+   * Writes an object as JSON directly to a stream, without first rendering it to a string.
+   *
+   * @param o Object to write.
+   * @param type Type of the object.
+   * @param entityStream Stream to write to. The stream is closed once the object is written.
+   * @throws IOException If the object could not be written.
+   */
+  static void writeJson(Object o, Type type, OutputStream entityStream) throws IOException {
+    // Buffering avoids encoding each of the many small writes of the JSON writer separately.
+    try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+        new OutputStreamWriter(entityStream, StandardCharsets.UTF_8)))) {
+
+      GSON.toJson(o, type, writer);
+    } catch (JsonIOException e) {
+      throw new IOException(e);
+    }
+  }
 }
@@ -57,6 +57,14 @@ public interface Driver extends Service {
    */
   void declineOffer(OfferID offerId, Filters filter);
 
+  /**
+   * Declines a batch of resource offers with a single call.
+   *
+   * @param offerIds IDs of the offers to decline.
+   * @param filter offer filter applied to all of the declined offers.
+   */
+  void declineOffers(Collection<OfferID> offerIds, Filters filter);
+
   /**
    * Sends a kill task request for the given {@code taskId} to the mesos master.
    *
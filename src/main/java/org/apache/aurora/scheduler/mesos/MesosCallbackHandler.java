@@ -16,6 +16,7 @@ package org.apache.aurora.scheduler.mesos;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -25,6 +26,8 @@ import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 
 import org.apache.aurora.GuiceUtils.AllowUnchecked;
 import org.apache.aurora.common.application.Lifecycle;
@@ -99,6 +102,7 @@ public interface MesosCallbackHandler {
     private final AtomicLong statusUpdate;
     private final AtomicLong reRegisters;
     private final AtomicLong offersReceived;
+    private final AtomicLong attributesSaved;
     private final AtomicLong inverseOffersReceived;
     private final AtomicLong disconnects;
     private final AtomicLong executorsLost;
@@ -180,6 +184,7 @@ public interface MesosCallbackHandler {
       this.statusUpdate = statsProvider.makeCounter("scheduler_status_update");
       this.reRegisters = statsProvider.makeCounter("scheduler_framework_reregisters");
       this.offersReceived = statsProvider.makeCounter("scheduler_resource_offers");
+      this.attributesSaved = statsProvider.makeCounter("scheduler_offer_attributes_saved");
       this.inverseOffersReceived = statsProvider.makeCounter("scheduler_inverse_offers");
       this.disconnects = statsProvider.makeCounter("scheduler_framework_disconnects");
       this.executorsLost = statsProvider.makeCounter("scheduler_lost_executors");
@@ -218,21 +223,67 @@ public interface MesosCallbackHandler {
       // requires the storage lock which can block. We cannot block in the libmesos callback
       // handler without ill effects.
       executor.execute(() -> {
-        // TODO(wfarner): Reconsider the requirements here, augment the task scheduler to skip over
-        //                offers when the host attributes cannot be found. (AURORA-137)
-        storage.write((Storage.MutateWork.NoResult.Quiet) storeProvider -> {
+        // Attributes rarely change between offers from the same agent, so compare them against
+        // the stored attributes first. Offers with unchanged attributes are added without taking
+        // the storage write lock, which is only needed to save attributes that changed.
+        Map<Offer, IHostAttributes> unchanged = Maps.newLinkedHashMap();
+        List<Offer> changed = storage.read(storeProvider -> {
+          ImmutableList.Builder<Offer> changedOffers = ImmutableList.builder();
           for (Offer offer : offers) {
-            IHostAttributes attributes =
-                AttributeStore.Util.mergeOffer(storeProvider.getAttributeStore(), offer);
-            storeProvider.getAttributeStore().saveHostAttributes(attributes);
-            log.info("Received offer: {}", offer.getId().getValue());
-            offersReceived.incrementAndGet();
-            offerManager.add(new HostOffer(offer, attributes));
+            Optional<IHostAttributes> stored =
+                storeProvider.getAttributeStore().getHostAttributes(offer.getHostname());
+            IHostAttributes attributes = AttributeStore.Util.mergeOffer(stored, offer);
+            if (stored.isPresent() && stored.get().equals(attributes)) {
+              unchanged.put(offer, attributes);
+            } else {
+              changedOffers.add(offer);
+            }
           }
+          return changedOffers.build();
         });
+        unchanged.forEach(this::addOffer);
+
+        if (!unchanged.isEmpty()) {
+          // The maintenance mode may have been changed, and the change applied to the offer
+          // manager, after the attributes were read but before the offers were added. Read the
+          // attributes again so that the offers do not keep a stale mode. Later changes are
+          // applied to the added offers as usual.
+          List<IHostAttributes> modeChanged = storage.read(storeProvider -> {
+            ImmutableList.Builder<IHostAttributes> current = ImmutableList.builder();
+            unchanged.forEach((offer, attributes) ->
+                storeProvider.getAttributeStore().getHostAttributes(offer.getHostname())
+                    .filter(stored -> !stored.equals(attributes))
+                    .ifPresent(current::add));
+            return current.build();
+          });
+          for (IHostAttributes attributes : modeChanged) {
+            offerManager.hostAttributesChanged(new PubsubEvent.HostAttributesChanged(attributes));
+          }
+        }
+
+        if (!changed.isEmpty()) {
+          // TODO(wfarner): Reconsider the requirements here, augment the task scheduler to skip
+          //                over offers when the host attributes cannot be found. (AURORA-137)
+          storage.write((Storage.MutateWork.NoResult.Quiet) storeProvider -> {
+            for (Offer offer : changed) {
+              // Merge again, the maintenance mode may have changed since it was read.
+              IHostAttributes attributes =
+                  AttributeStore.Util.mergeOffer(storeProvider.getAttributeStore(), offer);
+              storeProvider.getAttributeStore().saveHostAttributes(attributes);
+              attributesSaved.incrementAndGet();
+              addOffer(offer, attributes);
+            }
+          });
+        }
       });
     }
 
+    private void addOffer(Offer offer, IHostAttributes attributes) {
+      log.info("Received offer: {}", offer.getId().getValue());
+      offersReceived.incrementAndGet();
+      offerManager.add(new HostOffer(offer, attributes));
+    }
+
     @Override
     public void handleRescind(OfferID offerId) {
       log.info("Offer rescinded: {}", offerId.getValue());
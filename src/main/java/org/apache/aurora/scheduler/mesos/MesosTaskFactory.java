@@ -16,20 +16,24 @@ package org.apache.aurora.scheduler.mesos;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.protobuf.ByteString;
 
 import org.apache.aurora.Protobufs;
 import org.apache.aurora.codec.ThriftBinaryCodec;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.SchedulerException;
-import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.resources.AcceptedOffer;
 import org.apache.aurora.scheduler.resources.ResourceBag;
@@ -98,9 +102,18 @@ public interface MesosTaskFactory {
     @VisibleForTesting
     static final String TIER_LABEL = AURORA_LABEL_PREFIX + ".tier";
 
+    // Enough to hold templates for the task configurations of all jobs being launched at once.
+    private static final int MAX_TEMPLATES = 1000;
+
     private final ExecutorSettings executorSettings;
     private final IServerInfo serverInfo;
 
+    // Partially built TaskInfos holding the fields that depend only on the task configuration.
+    // Instances of a job share a configuration, and only differ in the fields set per launch.
+    private final Cache<ITaskConfig, TaskInfo> templates = CacheBuilder.newBuilder()
+        .maximumSize(MAX_TEMPLATES)
+        .build();
+
     @Inject
     MesosTaskFactoryImpl(ExecutorSettings executorSettings, IServerInfo serverInfo) {
       this.executorSettings = requireNonNull(executorSettings);
@@ -120,8 +133,8 @@ public interface MesosTaskFactory {
       return getJobSourceName(task.getJob());
     }
 
-    private static String getExecutorName(IAssignedTask task) {
-      return task.getTask().getExecutorConfig().getName();
+    private static String getExecutorName(ITaskConfig task) {
+      return task.getExecutorConfig().getName();
     }
 
     @VisibleForTesting
@@ -173,37 +186,65 @@ public interface MesosTaskFactory {
             Iterables.transform(resources, Protobufs::toString));
       }
 
-      TaskInfo.Builder taskBuilder = TaskInfo.newBuilder()
-          .setName(JobKeys.canonicalString(Tasks.getJob(task)))
+      TaskInfo.Builder taskBuilder = getTemplate(config).toBuilder()
           .setTaskId(TaskID.newBuilder().setValue(task.getTaskId()))
           .setAgentId(offer.getAgentId())
           .addAllResources(resources);
 
+      if (executorSettings.shouldPopulateDiscoverInfo()) {
+        configureDiscoveryPorts(task, taskBuilder);
+      }
+
+      if (taskBuilder.hasExecutor()) {
+        configureExecutorForInstance(task, acceptedOffer, taskBuilder.getExecutorBuilder());
+        taskBuilder.setData(ByteString.copyFrom(serializeTask(task)));
+      }
+
+      return taskBuilder.build();
+    }
+
+    private TaskInfo getTemplate(ITaskConfig config) throws SchedulerException {
+      try {
+        return templates.get(config, () -> buildTemplate(config));
+      } catch (ExecutionException | UncheckedExecutionException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new SchedulerException(e.getCause());
+      }
+    }
+
+    /**
+     * Builds the parts of a TaskInfo that are the same for every instance launched with a task
+     * configuration. The result lacks required per-launch fields, so it is only partially built.
+     */
+    private TaskInfo buildTemplate(ITaskConfig config) throws SchedulerException {
+      TaskInfo.Builder taskBuilder = TaskInfo.newBuilder()
+          .setName(JobKeys.canonicalString(config.getJob()));
+
       configureTaskLabels(config, taskBuilder);
 
       if (executorSettings.shouldPopulateDiscoverInfo()) {
-        configureDiscoveryInfos(task, taskBuilder);
+        configureDiscoveryInfos(config, taskBuilder);
       }
 
       if (config.getContainer().isSetMesos()) {
-        ExecutorInfo.Builder executorInfoBuilder = configureTaskForExecutor(task, acceptedOffer);
+        ExecutorInfo.Builder executorInfoBuilder = configureTaskForExecutor(config);
 
         Optional<ContainerInfo.Builder> containerInfoBuilder = configureTaskForImage(
-            task.getTask().getContainer().getMesos(),
-            getExecutorName(task));
+            config.getContainer().getMesos(),
+            getExecutorName(config));
         if (containerInfoBuilder.isPresent()) {
           executorInfoBuilder.setContainer(containerInfoBuilder.get());
         }
 
-        taskBuilder.setExecutor(executorInfoBuilder.build());
+        taskBuilder.setExecutor(executorInfoBuilder);
       } else if (config.getContainer().isSetDocker()) {
         IDockerContainer dockerContainer = config.getContainer().getDocker();
         if (config.isSetExecutorConfig()) {
-          ExecutorInfo.Builder execBuilder = configureTaskForExecutor(task, acceptedOffer)
+          ExecutorInfo.Builder execBuilder = configureTaskForExecutor(config)
               .setContainer(getDockerContainerInfo(
                   dockerContainer,
-                  Optional.of(getExecutorName(task))));
-          taskBuilder.setExecutor(execBuilder.build());
+                  Optional.of(getExecutorName(config))));
+          taskBuilder.setExecutor(execBuilder);
         } else {
           LOG.warn("Running Docker-based task without an executor.");
           taskBuilder.setContainer(getDockerContainerInfo(dockerContainer, Optional.empty()))
@@ -213,11 +254,7 @@ public interface MesosTaskFactory {
         throw new SchedulerException("Task had no supported container set.");
       }
 
-      if (taskBuilder.hasExecutor()) {
-        taskBuilder.setData(ByteString.copyFrom(serializeTask(task)));
-      }
-
-      return taskBuilder.build();
+      return taskBuilder.buildPartial();
     }
 
     private Optional<ContainerInfo.Builder> configureTaskForImage(
@@ -294,20 +331,37 @@ public interface MesosTaskFactory {
           .build();
     }
 
+    private ExecutorInfo.Builder configureTaskForExecutor(ITaskConfig config) {
+      ExecutorInfo.Builder builder =
+          executorSettings.getExecutorConfig(getExecutorName(config)).get()
+          .getExecutor()
+          .toBuilder();
+
+      //TODO: (rdelvalle) add output_file when Aurora's Mesos dep is updated (MESOS-4735)
+      List<CommandInfo.URI> mesosFetcherUris = config.getMesosFetcherUris().stream()
+          .map(u -> Protos.CommandInfo.URI.newBuilder().setValue(u.getValue())
+              .setExecutable(false)
+              .setExtract(u.isExtract())
+              .setCache(u.isCache()).build())
+          .collect(Collectors.toList());
+
+      builder.setCommand(builder.getCommand().toBuilder().addAllUris(mesosFetcherUris));
+      return builder;
+    }
+
     @SuppressWarnings("deprecation") // we set the source field for backwards compat.
-    private ExecutorInfo.Builder configureTaskForExecutor(
+    private void configureExecutorForInstance(
         IAssignedTask task,
-        AcceptedOffer acceptedOffer) {
+        AcceptedOffer acceptedOffer,
+        ExecutorInfo.Builder builder) {
 
       String sourceName = getInstanceSourceName(task.getTask(), task.getInstanceId());
+      String executorName = getExecutorName(task.getTask());
 
-      ExecutorInfo.Builder builder =
-          executorSettings.getExecutorConfig(getExecutorName(task)).get()
-          .getExecutor()
-          .toBuilder()
+      builder
           .setExecutorId(getExecutorId(
               task.getTaskId(),
-              executorSettings.getExecutorConfig(getExecutorName(task)).get().getTaskPrefix()))
+              executorSettings.getExecutorConfig(executorName).get().getTaskPrefix()))
           .setSource(sourceName)
           .setLabels(
               Labels.newBuilder().addLabels(
@@ -315,16 +369,6 @@ public interface MesosTaskFactory {
                       .setKey(SOURCE_LABEL)
                       .setValue(sourceName)));
 
-      //TODO: (rdelvalle) add output_file when Aurora's Mesos dep is updated (MESOS-4735)
-      List<CommandInfo.URI> mesosFetcherUris = task.getTask().getMesosFetcherUris().stream()
-          .map(u -> Protos.CommandInfo.URI.newBuilder().setValue(u.getValue())
-              .setExecutable(false)
-              .setExtract(u.isExtract())
-              .setCache(u.isCache()).build())
-          .collect(Collectors.toList());
-
-      builder.setCommand(builder.getCommand().toBuilder().addAllUris(mesosFetcherUris));
-
       Iterable<Resource> executorResources = acceptedOffer.getExecutorResources();
       if (LOG.isDebugEnabled()) {
         LOG.debug(
@@ -332,7 +376,6 @@ public interface MesosTaskFactory {
             Iterables.transform(executorResources, Protobufs::toString));
       }
       builder.clearResources().addAllResources(executorResources);
-      return builder;
     }
 
     private void configureTaskLabels(ITaskConfig config, TaskInfo.Builder taskBuilder) {
@@ -347,13 +390,17 @@ public interface MesosTaskFactory {
       taskBuilder.setLabels(labelsBuilder);
     }
 
-    private void configureDiscoveryInfos(IAssignedTask task, TaskInfo.Builder taskBuilder) {
+    private void configureDiscoveryInfos(ITaskConfig config, TaskInfo.Builder taskBuilder) {
       DiscoveryInfo.Builder builder = taskBuilder.getDiscoveryBuilder();
       builder.setVisibility(DiscoveryInfo.Visibility.CLUSTER);
-      builder.setName(getInverseJobSourceName(task.getTask().getJob()));
-      builder.setEnvironment(task.getTask().getJob().getEnvironment());
+      builder.setName(getInverseJobSourceName(config.getJob()));
+      builder.setEnvironment(config.getJob().getEnvironment());
       // A good sane choice for default location is current Aurora cluster name.
       builder.setLocation(serverInfo.getClusterName());
+    }
+
+    private void configureDiscoveryPorts(IAssignedTask task, TaskInfo.Builder taskBuilder) {
+      DiscoveryInfo.Builder builder = taskBuilder.getDiscoveryBuilder();
       for (Map.Entry<String, Integer> entry : task.getAssignedPorts().entrySet()) {
         builder.getPortsBuilder().addPorts(
             Port.newBuilder()
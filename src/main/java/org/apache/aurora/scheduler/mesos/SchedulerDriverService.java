@@ -154,6 +154,20 @@ class SchedulerDriverService extends AbstractIdleService implements Driver {
     Futures.getUnchecked(driverFuture).declineOffer(convertedOfferId, convertedFilter);
   }
 
+  @Override
+  public void declineOffers(Collection<Protos.OfferID> offerIds, Protos.Filters filter) {
+    ensureRunning();
+
+    Collection<OfferID> convertedOfferIds =
+        Collections2.transform(offerIds, ProtosConversion::convert);
+    Filters convertedFilter = ProtosConversion.convert(filter);
+
+    // Accepting offers without any operations declines them, and unlike declineOffer allows
+    // several offers to be returned with one message to the master.
+    Futures.getUnchecked(driverFuture)
+        .acceptOffers(convertedOfferIds, ImmutableList.of(), convertedFilter);
+  }
+
   @Override
   public void killTask(String taskId) {
     ensureRunning();
@@ -171,6 +171,23 @@ class VersionedSchedulerDriverService extends AbstractIdleService
     });
   }
 
+  @Override
+  public void declineOffers(Collection<OfferID> offerIds, Filters filter) {
+    whenRegistered(() -> {
+      LOG.info("Declining {} offers", offerIds.size());
+
+      Futures.getUnchecked(mesosFuture).send(
+          Call.newBuilder().setType(Call.Type.DECLINE)
+              .setFrameworkId(getFrameworkId())
+              .setDecline(
+                  Call.Decline.newBuilder()
+                      .setFilters(filter)
+                      .addAllOfferIds(offerIds))
+              .build()
+      );
+    });
+  }
+
   @Override
   public void killTask(String taskId) {
     whenRegistered(() -> {
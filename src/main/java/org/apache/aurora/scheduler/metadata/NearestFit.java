@@ -137,7 +137,9 @@ public class NearestFit implements EventSubscriber {
   }
 
   private static class Fit {
-    private ImmutableSet<Veto> vetoes;
+    // Vetoes may be recorded concurrently by preemption slot searches evaluating agents in
+    // parallel, updates are serialized and reads see the latest published set.
+    private volatile ImmutableSet<Veto> vetoes;
 
     private static int score(Iterable<Veto> vetoes) {
       int total = 0;
@@ -159,7 +161,7 @@ public class NearestFit implements EventSubscriber {
      * count. See {@link Veto} for more details on scoring differences.
      * @param newVetoes The vetoes for the scheduling assignment with {@code newHost}.
      */
-    void maybeUpdate(Set<Veto> newVetoes) {
+    synchronized void maybeUpdate(Set<Veto> newVetoes) {
       if (vetoes == null) {
         update(newVetoes);
         return;
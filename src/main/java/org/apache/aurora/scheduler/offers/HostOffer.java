@@ -22,6 +22,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Suppliers;
 
 import org.apache.aurora.scheduler.base.Conversions;
+import org.apache.aurora.scheduler.filter.HostAttributeIndex;
 import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
@@ -38,6 +39,7 @@ import static org.apache.mesos.v1.Protos.Offer;
 public class HostOffer {
   private final Offer offer;
   private final IHostAttributes hostAttributes;
+  private final HostAttributeIndex attributeIndex;
   private final Supplier<ResourceBag> revocableResources;
   private final Supplier<ResourceBag> nonRevocableResources;
 
@@ -51,6 +53,7 @@ public class HostOffer {
   public HostOffer(Offer offer, IHostAttributes hostAttributes) {
     this.offer = requireNonNull(offer);
     this.hostAttributes = requireNonNull(hostAttributes);
+    this.attributeIndex = HostAttributeIndex.from(hostAttributes);
     this.nonZeroCpuAndMem = offerHasCpuAndMem(offer);
     this.revocableResources =
         Suppliers.memoize(() -> bagFromMesosResources(getOfferResources(offer, true)));
@@ -72,6 +75,10 @@ public class HostOffer {
     return hostAttributes;
   }
 
+  public HostAttributeIndex getAttributeIndex() {
+    return attributeIndex;
+  }
+
   public boolean hasCpuAndMem() {
     return nonZeroCpuAndMem;
   }
@@ -17,9 +17,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.Cache;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
@@ -27,12 +27,16 @@ import com.google.common.collect.Sets;
 
 import org.apache.aurora.common.collections.Pair;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.gen.TaskConstraint;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.storage.entities.IAttribute;
+import org.apache.aurora.scheduler.storage.entities.IConstraint;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.apache.aurora.scheduler.storage.entities.ITaskConstraint;
 import org.apache.mesos.v1.Protos;
 
 import static java.util.Objects.requireNonNull;
@@ -40,21 +44,33 @@ import static java.util.Objects.requireNonNull;
 /**
  * A container for the data structures used by this {@link OfferManagerImpl}, to make it easier to
  * reason about the different indices used and their consistency.
+ * <p>
+ * All indices are concurrent, so reads (including the lazily-evaluated filters returned by
+ * {@link #getAllMatching(TaskGroupKey, ResourceRequest)}) never block on writers. Only compound
+ * operations that must check the agent index before adding an offer are serialized. Removal
+ * claims an offer by removing it from {@code offersById}, which guarantees that at most one
+ * caller (e.g. a launch racing a rescind) observes a successful removal.
  */
 class HostOffers {
   private final OfferSet offers;
 
-  private final Map<Protos.OfferID, HostOffer> offersById = Maps.newHashMap();
-  private final Map<Protos.AgentID, HostOffer> offersBySlave = Maps.newHashMap();
-  private final Map<String, HostOffer> offersByHost = Maps.newHashMap();
+  private final Map<Protos.OfferID, HostOffer> offersById = Maps.newConcurrentMap();
+  private final Map<Protos.AgentID, HostOffer> offersBySlave = Maps.newConcurrentMap();
+  private final Map<String, HostOffer> offersByHost = Maps.newConcurrentMap();
+
+  // Index of offers by host attribute name and value, used to narrow down the offers considered
+  // for tasks with value constraints (e.g. rack=X or dedicated hosts) without evaluating vetoes
+  // against every offer.
+  private final Map<Pair<String, String>, Set<HostOffer>> offersByAttribute =
+      Maps.newConcurrentMap();
 
   // Keep track of offer->groupKey mappings that will never be matched to avoid redundant
   // scheduling attempts. See VetoGroup for more details on static ban.
-  private final Cache<Pair<Protos.OfferID, TaskGroupKey>, Boolean> staticallyBannedOffers;
+  private final StaticBans staticallyBannedOffers;
   private final SchedulingFilter schedulingFilter;
 
   // Keep track of globally banned offers that will never be matched to anything.
-  private final Set<Protos.OfferID> globallyBannedOffers = Sets.newHashSet();
+  private final Set<Protos.OfferID> globallyBannedOffers = Sets.newConcurrentHashSet();
 
   // Keep track of the number of offers evaluated for vetoes when getting matching offers
   private final AtomicLong vetoEvaluatedOffers;
@@ -63,16 +79,16 @@ class HostOffers {
              OfferSettings offerSettings,
              SchedulingFilter schedulingFilter) {
     this.offers = offerSettings.getOfferSet();
-    this.staticallyBannedOffers = offerSettings
-        .getStaticBanCacheBuilder()
-        .build();
+    this.staticallyBannedOffers = offerSettings.newStaticBans();
     this.schedulingFilter = requireNonNull(schedulingFilter);
 
     statsProvider.makeGauge(OfferManagerImpl.OUTSTANDING_OFFERS, offers::size);
     statsProvider.makeGauge(OfferManagerImpl.STATICALLY_BANNED_OFFERS,
         staticallyBannedOffers::size);
     statsProvider.makeGauge(OfferManagerImpl.STATICALLY_BANNED_OFFERS_HIT_RATE,
-        () -> staticallyBannedOffers.stats().hitRate());
+        staticallyBannedOffers::hitRate);
+    statsProvider.makeGauge(OfferManagerImpl.STATICALLY_BANNED_OFFERS_EVICTED,
+        staticallyBannedOffers::evictions);
     statsProvider.makeGauge(OfferManagerImpl.GLOBALLY_BANNED_OFFERS, globallyBannedOffers::size);
 
     vetoEvaluatedOffers = statsProvider.makeCounter(OfferManagerImpl.VETO_EVALUATED_OFFERS);
@@ -89,8 +105,9 @@ class HostOffers {
    */
   synchronized Optional<HostOffer> addAndPreventAgentCollision(HostOffer offer) {
     HostOffer sameAgent = offersBySlave.get(offer.getOffer().getAgentId());
-    if (sameAgent != null) {
-      remove(sameAgent.getOffer().getId());
+    // If the existing offer was concurrently removed (e.g. launched or rescinded), there is no
+    // longer a collision and the new offer may be added.
+    if (sameAgent != null && remove(sameAgent.getOffer().getId())) {
       return Optional.of(sameAgent);
     }
 
@@ -99,37 +116,67 @@ class HostOffers {
   }
 
   private void addInternal(HostOffer offer) {
-    offers.add(offer);
+    // Assign a ban slot before the offer can be claimed, so that vetoes found while matching are
+    // always recorded.
+    staticallyBannedOffers.addOffer(offer.getOffer().getId());
     offersById.put(offer.getOffer().getId(), offer);
     offersBySlave.put(offer.getOffer().getAgentId(), offer);
     offersByHost.put(offer.getOffer().getHostname(), offer);
+    forEachAttributeValue(offer, key -> offersByAttribute.compute(key, (k, indexed) -> {
+      Set<HostOffer> updated = indexed == null ? Sets.newConcurrentHashSet() : indexed;
+      updated.add(offer);
+      return updated;
+    }));
+    // Add to the offer set last, so that an offer is never visible to scheduling before it can
+    // be claimed through offersById.
+    offers.add(offer);
   }
 
-  synchronized boolean remove(Protos.OfferID id) {
+  boolean remove(Protos.OfferID id) {
     HostOffer removed = offersById.remove(id);
     if (removed != null) {
       offers.remove(removed);
-      offersBySlave.remove(removed.getOffer().getAgentId());
-      offersByHost.remove(removed.getOffer().getHostname());
+      staticallyBannedOffers.removeOffer(id);
+      // Only remove index entries that still refer to the removed offer, as a newer offer for the
+      // same agent may have been added concurrently.
+      offersBySlave.remove(removed.getOffer().getAgentId(), removed);
+      offersByHost.remove(removed.getOffer().getHostname(), removed);
+      forEachAttributeValue(
+          removed,
+          key -> offersByAttribute.computeIfPresent(key, (k, indexed) -> {
+            indexed.remove(removed);
+            return indexed.isEmpty() ? null : indexed;
+          }));
     }
     globallyBannedOffers.remove(id);
     return removed != null;
   }
 
-  synchronized void addGlobalBan(Protos.OfferID offerId) {
+  private static void forEachAttributeValue(
+      HostOffer offer,
+      Consumer<Pair<String, String>> action) {
+
+    for (IAttribute attribute : offer.getAttributes().getAttributes()) {
+      for (String value : attribute.getValues()) {
+        action.accept(Pair.of(attribute.getName(), value));
+      }
+    }
+  }
+
+  void addGlobalBan(Protos.OfferID offerId) {
     globallyBannedOffers.add(offerId);
   }
 
   synchronized void updateHostAttributes(IHostAttributes attributes) {
-    HostOffer offer = offersByHost.remove(attributes.getHost());
-    if (offer != null) {
-      // Remove and re-add a host's offer to re-sort based on its new hostStatus
-      remove(offer.getOffer().getId());
+    HostOffer offer = offersByHost.get(attributes.getHost());
+    // Remove and re-add a host's offer to re-sort based on its new hostStatus. The offer is only
+    // re-added if this call won the removal, otherwise it was launched or rescinded concurrently.
+    if (offer != null && remove(offer.getOffer().getId())) {
       addInternal(new HostOffer(offer.getOffer(), attributes));
     }
   }
 
-  synchronized Optional<HostOffer> get(Protos.AgentID slaveId) {
+  Optional<HostOffer> get(Protos.AgentID slaveId) {
     HostOffer offer = offersBySlave.get(slaveId);
     if (offer == null || globallyBannedOffers.contains(offer.getOffer().getId())) {
       return Optional.empty();
@@ -145,13 +192,13 @@ class HostOffers {
    *
    * @return The offers currently known by the scheduler.
    */
-  synchronized Iterable<HostOffer> getOffers() {
+  Iterable<HostOffer> getOffers() {
     return FluentIterable.from(offers.values())
         .filter(offer -> !globallyBannedOffers.contains(offer.getOffer().getId()))
         .toSet();
   }
 
-  synchronized Optional<HostOffer> getMatching(
+  Optional<HostOffer> getMatching(
       Protos.AgentID slaveId,
       ResourceRequest resourceRequest) {
 
@@ -165,27 +212,71 @@ class HostOffers {
    * {@code groupKey}. This iterable can handle concurrent operations on its underlying
    * collection, and may reflect changes that happen after the construction of the iterable.
    * This property is mainly used in {@code launchTask}.
+   * <p>
+   * When the request has value constraints, only the indexed candidate offers are ordered. They
+   * are ordered when this method is called, so offers added afterwards are not included, while
+   * offers removed afterwards are skipped.
    *
    * @param groupKey The task group to get offers for.
    * @return The offers a given task group can use.
    */
-  synchronized Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey,
-                                                  ResourceRequest resourceRequest) {
+  Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey, ResourceRequest resourceRequest) {
+
+    Optional<Set<HostOffer>> candidates = getValueConstraintCandidates(resourceRequest);
+    Iterable<HostOffer> ordered = candidates.isPresent()
+        ? offers.getOrdered(groupKey, resourceRequest, candidates.get())
+        : offers.getOrdered(groupKey, resourceRequest);
 
+    StaticBans.BanCheck staticBans = staticallyBannedOffers.forGroup(groupKey);
     return Iterables.unmodifiableIterable(
-        FluentIterable.from(offers.getOrdered(groupKey, resourceRequest))
+        FluentIterable.from(ordered)
             .filter(o -> !isGloballyBanned(o))
-            .filter(o -> !isStaticallyBanned(o, groupKey))
+            .filter(o -> !staticBans.isBanned(o.getOffer().getId()))
             .filter(HostOffer::hasCpuAndMem)
             .filter(o -> !isVetoed(o, resourceRequest, Optional.of(groupKey))));
   }
 
-  private synchronized boolean isGloballyBanned(HostOffer offer) {
-    return globallyBannedOffers.contains(offer.getOffer().getId());
+  /**
+   * Uses the attribute index to find the offers that can satisfy all non-negated value
+   * constraints of a request. Other constraints are left to veto evaluation.
+   *
+   * @param resourceRequest Request to find candidate offers for.
+   * @return Candidate offers, or empty if the request has no indexable constraints.
+   */
+  private Optional<Set<HostOffer>> getValueConstraintCandidates(ResourceRequest resourceRequest) {
+    Set<HostOffer> candidates = null;
+    for (IConstraint constraint : resourceRequest.getConstraints()) {
+      ITaskConstraint taskConstraint = constraint.getConstraint();
+      if (taskConstraint.getSetField() != TaskConstraint._Fields.VALUE
+          || taskConstraint.getValue().isNegated()) {
+
+        continue;
+      }
+
+      Set<HostOffer> matching = Sets.newHashSet();
+      for (String value : taskConstraint.getValue().getValues()) {
+        Set<HostOffer> indexed = offersByAttribute.get(Pair.of(constraint.getName(), value));
+        if (indexed != null) {
+          matching.addAll(indexed);
+        }
+      }
+
+      if (candidates == null) {
+        candidates = matching;
+      } else {
+        candidates.retainAll(matching);
+      }
+
+      if (candidates.isEmpty()) {
+        break;
+      }
+    }
+
+    return Optional.ofNullable(candidates);
   }
 
-  private synchronized boolean isStaticallyBanned(HostOffer offer, TaskGroupKey groupKey) {
-    return staticallyBannedOffers.getIfPresent(Pair.of(offer.getOffer().getId(), groupKey)) != null;
+  private boolean isGloballyBanned(HostOffer offer) {
+    return globallyBannedOffers.contains(offer.getOffer().getId());
   }
 
   /**
@@ -212,15 +303,15 @@ class HostOffers {
   }
 
   @VisibleForTesting
-  synchronized void addStaticGroupBan(Protos.OfferID offerId, TaskGroupKey groupKey) {
+  void addStaticGroupBan(Protos.OfferID offerId, TaskGroupKey groupKey) {
     if (offersById.containsKey(offerId)) {
-      staticallyBannedOffers.put(Pair.of(offerId, groupKey), true);
+      staticallyBannedOffers.ban(offerId, groupKey);
     }
   }
 
   @VisibleForTesting
-  synchronized Set<Pair<Protos.OfferID, TaskGroupKey>> getStaticBans() {
-    return staticallyBannedOffers.asMap().keySet();
+  Set<Pair<Protos.OfferID, TaskGroupKey>> getStaticBans() {
+    return staticallyBannedOffers.asSet();
   }
 
   synchronized void clear() {
@@ -228,12 +319,13 @@ class HostOffers {
     offersById.clear();
     offersBySlave.clear();
     offersByHost.clear();
-    staticallyBannedOffers.invalidateAll();
+    offersByAttribute.clear();
+    staticallyBannedOffers.clear();
     globallyBannedOffers.clear();
   }
 
   @VisibleForTesting
-  synchronized void cleanUpStaticallyBannedOffers() {
+  void cleanUpStaticallyBannedOffers() {
     staticallyBannedOffers.cleanUp();
   }
 }
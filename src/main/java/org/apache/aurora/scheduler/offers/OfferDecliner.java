@@ -0,0 +1,133 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
+import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.mesos.v1.Protos.Filters;
+import org.apache.mesos.v1.Protos.OfferID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Declines offers in batches, so that offers declined within a short window of each other are
+ * returned to Mesos with a single driver call.
+ * <p>
+ * A filter applies to every offer declined in a call, so offers are batched separately for each
+ * refuse duration.
+ */
+public class OfferDecliner {
+  private static final Logger LOG = LoggerFactory.getLogger(OfferDecliner.class);
+
+  @VisibleForTesting
+  static final String OFFERS_DECLINED = "offers_declined";
+  @VisibleForTesting
+  static final String OFFER_DECLINE_CALLS = "offer_decline_calls";
+
+  private final Driver driver;
+  private final Amount<Long, Time> batchWindow;
+  private final ScheduledExecutorService executor;
+  private final AtomicLong offersDeclined;
+  private final AtomicLong declineCalls;
+
+  // Offers waiting to be declined, keyed by the refuse seconds of their filter. Guarded by this.
+  private final ListMultimap<Long, OfferID> pending = LinkedListMultimap.create();
+  private boolean flushScheduled = false;
+
+  @Inject
+  @VisibleForTesting
+  public OfferDecliner(
+      Driver driver,
+      OfferSettings settings,
+      @AsyncExecutor ScheduledExecutorService executor,
+      StatsProvider statsProvider) {
+
+    this.driver = requireNonNull(driver);
+    this.batchWindow = settings.getDeclineBatchWindow();
+    this.executor = requireNonNull(executor);
+    this.offersDeclined = statsProvider.makeCounter(OFFERS_DECLINED);
+    this.declineCalls = statsProvider.makeCounter(OFFER_DECLINE_CALLS);
+  }
+
+  /**
+   * Declines an offer at the end of the current batch window, or immediately if batching is
+   * disabled.
+   *
+   * @param offerId ID of the offer to decline.
+   * @param refuseSeconds Duration for which Mesos should not re-offer the resources.
+   */
+  void decline(OfferID offerId, long refuseSeconds) {
+    if (batchWindow.getValue() == 0) {
+      declineNow(refuseSeconds, ImmutableList.of(offerId));
+      return;
+    }
+
+    synchronized (this) {
+      pending.put(refuseSeconds, offerId);
+      if (!flushScheduled) {
+        flushScheduled = true;
+        executor.schedule(this::flush, batchWindow.getValue(), batchWindow.getUnit().getTimeUnit());
+      }
+    }
+  }
+
+  /**
+   * Drops offers waiting to be declined. Used when the offers are no longer valid, e.g. after the
+   * driver disconnected.
+   */
+  synchronized void clear() {
+    pending.clear();
+  }
+
+  @VisibleForTesting
+  void flush() {
+    ListMultimap<Long, OfferID> batches;
+    synchronized (this) {
+      batches = ImmutableListMultimap.copyOf(pending);
+      pending.clear();
+      flushScheduled = false;
+    }
+
+    for (Map.Entry<Long, Collection<OfferID>> batch : batches.asMap().entrySet()) {
+      declineNow(batch.getKey(), batch.getValue());
+    }
+  }
+
+  private void declineNow(long refuseSeconds, Collection<OfferID> offerIds) {
+    LOG.debug("Declining offers {} for {} seconds", offerIds, refuseSeconds);
+    driver.declineOffers(
+        offerIds,
+        Filters.newBuilder().setRefuseSeconds(refuseSeconds).build());
+    declineCalls.incrementAndGet();
+    offersDeclined.addAndGet(offerIds.size());
+  }
+}
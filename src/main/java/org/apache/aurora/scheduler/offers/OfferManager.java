@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.List;
 import java.util.Optional;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -32,7 +33,9 @@ import static org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChang
 public interface OfferManager extends EventSubscriber {
 
   /**
-   * Notifies the scheduler of a new resource offer.
+   * Notifies the scheduler of a new resource offer. Offers that are retained for scheduling are
+   * announced with an {@link org.apache.aurora.scheduler.events.PubsubEvent.OfferAvailable}
+   * event.
    *
    * @param offer Newly-available resource offer.
    */
@@ -104,6 +107,41 @@ public interface OfferManager extends EventSubscriber {
    */
   void launchTask(OfferID offerId, Protos.TaskInfo task) throws LaunchException;
 
+  /**
+   * Launches multiple tasks matched against the same offer in a single accept call.
+   *
+   * @param offerId Matched offer ID.
+   * @param tasks Matched task infos, whose combined resources must fit within the offer.
+   * @throws LaunchException If there was an error launching the tasks.
+   */
+  void launchTasks(OfferID offerId, List<Protos.TaskInfo> tasks) throws LaunchException;
+
+  /**
+   * Claims an offer for launching tasks, preventing it from being matched any further. The tasks
+   * must subsequently be launched with {@link #acceptClaimed(OfferID, List)}.
+   *
+   * @param offerId Matched offer ID.
+   * @throws LaunchException If the offer no longer exists.
+   */
+  void claim(OfferID offerId) throws LaunchException;
+
+  /**
+   * Launches tasks against an offer previously claimed with {@link #claim(OfferID)}.
+   *
+   * @param offerId Claimed offer ID.
+   * @param tasks Matched task infos, whose combined resources must fit within the offer.
+   * @throws LaunchException If there was an error launching the tasks.
+   */
+  void acceptClaimed(OfferID offerId, List<Protos.TaskInfo> tasks) throws LaunchException;
+
+  /**
+   * Returns an offer previously claimed with {@link #claim(OfferID)} to Mesos, when no tasks will
+   * be launched against it.
+   *
+   * @param offerId Claimed offer ID.
+   */
+  void releaseClaimed(OfferID offerId);
+
   /**
    * Thrown when there was an unexpected failure trying to launch a task.
    */
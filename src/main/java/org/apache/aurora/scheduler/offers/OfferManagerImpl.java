@@ -13,24 +13,34 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.eventbus.Subscribe;
 
 import org.apache.aurora.common.collections.Pair;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.mesos.Driver;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.resources.ResourceManager;
+import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.mesos.v1.Protos;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +62,8 @@ public class OfferManagerImpl implements OfferManager {
   @VisibleForTesting
   static final String STATICALLY_BANNED_OFFERS_HIT_RATE = "statically_banned_offers_hit_rate";
   @VisibleForTesting
+  static final String STATICALLY_BANNED_OFFERS_EVICTED = "statically_banned_offers_evicted";
+  @VisibleForTesting
   static final String OFFER_CANCEL_FAILURES = "offer_cancel_failures";
   @VisibleForTesting
   static final String GLOBALLY_BANNED_OFFERS = "globally_banned_offers_size";
@@ -65,6 +77,14 @@ public class OfferManagerImpl implements OfferManager {
   private final Driver driver;
   private final OfferSettings offerSettings;
   private final Deferment offerDecline;
+  private final OfferDecliner decliner;
+  private final EventSink eventSink;
+  private final Ticker ticker;
+  private final long startNanos;
+
+  // Ticker time at which tasks requesting each combination of resource types were last matched
+  // against offers.
+  private final Map<Set<ResourceType>, Long> lastDemand = new ConcurrentHashMap<>();
 
   @Inject
   @VisibleForTesting
@@ -73,7 +93,9 @@ public class OfferManagerImpl implements OfferManager {
       OfferSettings offerSettings,
       StatsProvider statsProvider,
       Deferment offerDecline,
-      SchedulingFilter schedulingFilter) {
+      OfferDecliner decliner,
+      SchedulingFilter schedulingFilter,
+      EventSink eventSink) {
 
     this.driver = requireNonNull(driver);
     this.offerSettings = requireNonNull(offerSettings);
@@ -81,6 +103,10 @@ public class OfferManagerImpl implements OfferManager {
     this.offerRaces = statsProvider.makeCounter(OFFER_ACCEPT_RACES);
     this.offerCancelFailures = statsProvider.makeCounter(OFFER_CANCEL_FAILURES);
     this.offerDecline = requireNonNull(offerDecline);
+    this.decliner = requireNonNull(decliner);
+    this.eventSink = requireNonNull(eventSink);
+    this.ticker = offerSettings.getTicker();
+    this.startNanos = ticker.read();
   }
 
   @Override
@@ -91,22 +117,51 @@ public class OfferManagerImpl implements OfferManager {
       // they may be combined into a single offer.
       LOG.info("Returning offers for " + offer.getOffer().getAgentId().getValue()
           + " for compaction.");
-      decline(offer.getOffer().getId());
-      decline(sameAgent.get().getOffer().getId());
+      long refuseSeconds = offerSettings.getFilterDuration().as(Time.SECONDS);
+      decliner.decline(offer.getOffer().getId(), refuseSeconds);
+      decliner.decline(sameAgent.get().getOffer().getId(), refuseSeconds);
     } else {
-      offerDecline.defer(() -> removeAndDecline(offer.getOffer().getId()));
+      offerDecline.defer(() -> removeAndDecline(offer.getOffer()));
+      eventSink.post(new PubsubEvent.OfferAvailable(offer.getOffer()));
     }
   }
 
-  private void removeAndDecline(Protos.OfferID id) {
-    if (removeFromHostOffers(id)) {
-      decline(id);
+  private void removeAndDecline(Protos.Offer offer) {
+    if (removeFromHostOffers(offer.getId())) {
+      decliner.decline(offer.getId(), getRefuseSeconds(offer));
     }
   }
 
-  private void decline(Protos.OfferID id) {
-    LOG.debug("Declining offer {}", id);
-    driver.declineOffer(id, getOfferFilter());
+  /**
+   * Gets the duration for which Mesos should not re-offer the resources of an unused offer. This
+   * grows from the configured filter duration with the time since a pending task last requested
+   * the kinds of resources in the offer, so that resources nobody wants are offered less often.
+   */
+  private long getRefuseSeconds(Protos.Offer offer) {
+    long filterSeconds = offerSettings.getFilterDuration().as(Time.SECONDS);
+    long maxFilterSeconds = offerSettings.getMaxFilterDuration().as(Time.SECONDS);
+    if (maxFilterSeconds <= filterSeconds) {
+      return filterSeconds;
+    }
+
+    Set<ResourceType> offered =
+        resourceTypes(ResourceManager.bagFromMesosResources(offer.getResourcesList()));
+    long lastDemandNanos = startNanos;
+    for (Map.Entry<Set<ResourceType>, Long> demand : lastDemand.entrySet()) {
+      if (offered.containsAll(demand.getKey())) {
+        lastDemandNanos = Math.max(lastDemandNanos, demand.getValue());
+      }
+    }
+    long idleSeconds = TimeUnit.NANOSECONDS.toSeconds(ticker.read() - lastDemandNanos);
+    return Math.min(maxFilterSeconds, Math.max(filterSeconds, idleSeconds));
+  }
+
+  private void recordDemand(ResourceRequest resourceRequest) {
+    lastDemand.put(resourceTypes(resourceRequest.getResourceBag()), ticker.read());
+  }
+
+  private static Set<ResourceType> resourceTypes(ResourceBag bag) {
+    return ImmutableSet.copyOf(bag.filter(ResourceBag.IS_POSITIVE).getResourceVectors().keySet());
   }
 
   private Protos.Filters getOfferFilter() {
@@ -163,6 +218,7 @@ public class OfferManagerImpl implements OfferManager {
 
   @Override
   public Optional<HostOffer> getMatching(Protos.AgentID slaveId, ResourceRequest resourceRequest) {
+    recordDemand(resourceRequest);
     return hostOffers.getMatching(slaveId, resourceRequest);
   }
 
@@ -170,6 +226,7 @@ public class OfferManagerImpl implements OfferManager {
   public Iterable<HostOffer> getAllMatching(TaskGroupKey groupKey,
                                             ResourceRequest resourceRequest) {
 
+    recordDemand(resourceRequest);
     return hostOffers.getAllMatching(groupKey, resourceRequest);
   }
 
@@ -185,35 +242,62 @@ public class OfferManagerImpl implements OfferManager {
   public void driverDisconnected(PubsubEvent.DriverDisconnected event) {
     LOG.info("Clearing stale offers since the driver is disconnected.");
     hostOffers.clear();
+    decliner.clear();
   }
 
   @Timed("offer_manager_launch_task")
   @Override
   public void launchTask(Protos.OfferID offerId, Protos.TaskInfo task) throws LaunchException {
+    launchTasks(offerId, ImmutableList.of(task));
+  }
+
+  @Timed("offer_manager_launch_tasks")
+  @Override
+  public void launchTasks(Protos.OfferID offerId, List<Protos.TaskInfo> tasks)
+      throws LaunchException {
+
+    claim(offerId);
+    acceptClaimed(offerId, tasks);
+  }
+
+  @Override
+  public void claim(Protos.OfferID offerId) throws LaunchException {
     // Guard against an offer being removed after we grabbed it from the iterator.
     // If that happens, the offer will not exist in hostOffers, and we can immediately
     // send it back to LOST for quick reschedule.
     // Removing while iterating counts on the use of a weakly-consistent iterator being used,
     // which is a feature of ConcurrentSkipListSet.
-    if (hostOffers.remove(offerId)) {
-      try {
-        Protos.Offer.Operation launch = Protos.Offer.Operation.newBuilder()
-            .setType(Protos.Offer.Operation.Type.LAUNCH)
-            .setLaunch(Protos.Offer.Operation.Launch.newBuilder().addTaskInfos(task))
-            .build();
-        driver.acceptOffers(offerId, ImmutableList.of(launch), getOfferFilter());
-      } catch (IllegalStateException e) {
-        // TODO(William Farner): Catch only the checked exception produced by Driver
-        // once it changes from throwing IllegalStateException when the driver is not yet
-        // registered.
-        throw new LaunchException("Failed to launch task.", e);
-      }
-    } else {
+    if (!hostOffers.remove(offerId)) {
       offerRaces.incrementAndGet();
       throw new LaunchException("Offer no longer exists in offer queue, likely data race.");
     }
   }
 
+  @Timed("offer_manager_accept_claimed")
+  @Override
+  public void acceptClaimed(Protos.OfferID offerId, List<Protos.TaskInfo> tasks)
+      throws LaunchException {
+
+    try {
+      Protos.Offer.Operation launch = Protos.Offer.Operation.newBuilder()
+          .setType(Protos.Offer.Operation.Type.LAUNCH)
+          .setLaunch(Protos.Offer.Operation.Launch.newBuilder().addAllTaskInfos(tasks))
+          .build();
+      driver.acceptOffers(offerId, ImmutableList.of(launch), getOfferFilter());
+    } catch (IllegalStateException e) {
+      // TODO(William Farner): Catch only the checked exception produced by Driver
+      // once it changes from throwing IllegalStateException when the driver is not yet
+      // registered.
+      throw new LaunchException("Failed to launch tasks.", e);
+    }
+  }
+
+  @Override
+  public void releaseClaimed(Protos.OfferID offerId) {
+    // The offer was removed from hostOffers when it was claimed, so it only needs to be declined.
+    decliner.decline(offerId, offerSettings.getFilterDuration().as(Time.SECONDS));
+  }
+
   /**
    * Get all static bans.
    */
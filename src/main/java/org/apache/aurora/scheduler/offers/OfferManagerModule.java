@@ -80,6 +80,21 @@ public class OfferManagerModule extends AbstractModule {
                 + "starvation for other frameworks if you run many frameworks in your cluster.")
     public TimeAmount offerFilterDuration = new TimeAmount(5, Time.SECONDS);
 
+    @Parameter(names = "-offer_max_filter_duration",
+        description =
+            "Maximum duration after which we expect Mesos to re-offer resources that were "
+                + "declined after being held. The filter duration grows from "
+                + "offer_filter_duration with the time since a pending task last requested the "
+                + "kinds of resources in the offer, up to this value. Has no effect unless greater "
+                + "than offer_filter_duration.")
+    public TimeAmount offerMaxFilterDuration = new TimeAmount(5, Time.SECONDS);
+
+    @Parameter(names = "-offer_decline_batch_window",
+        validateValueWith = NotNegativeAmount.class,
+        description = "Window during which declined offers are collected to be returned to Mesos "
+            + "with a single call. A value of zero declines each offer immediately.")
+    public TimeAmount offerDeclineBatchWindow = new TimeAmount(100, Time.MILLISECONDS);
+
     @Parameter(names = "-unavailability_threshold",
         description =
             "Threshold time, when running tasks should be drained from a host, before a host "
@@ -105,7 +120,8 @@ public class OfferManagerModule extends AbstractModule {
         description =
             "The number of offers to hold in the static ban cache. If no value is specified, "
                 + "the cache will grow indefinitely. However, entries will expire within "
-                + "'min_offer_hold_time' + 'offer_hold_jitter_window' of being written.")
+                + "'min_offer_hold_time' + 'offer_hold_jitter_window' of being written. When "
+                + "the cache is full, the oldest entries are evicted.")
     public long offerStaticBanCacheMaxSize = Long.MAX_VALUE;
   }
 
@@ -180,6 +196,7 @@ public class OfferManagerModule extends AbstractModule {
           bind(Deferment.class).to(Deferment.DelayedDeferment.class);
         }
 
+        bind(OfferDecliner.class).in(Singleton.class);
         bind(OfferManager.class).to(OfferManagerImpl.class);
         bind(OfferManagerImpl.class).in(Singleton.class);
         expose(OfferManager.class);
@@ -209,6 +226,8 @@ public class OfferManagerModule extends AbstractModule {
 
     return new OfferSettings(
         cliOptions.offer.offerFilterDuration,
+        cliOptions.offer.offerMaxFilterDuration,
+        cliOptions.offer.offerDeclineBatchWindow,
         offerSet,
         Amount.of(maxOfferHoldTime, Time.SECONDS),
         cliOptions.offer.offerStaticBanCacheMaxSize,
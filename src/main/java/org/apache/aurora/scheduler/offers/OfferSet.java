@@ -13,6 +13,10 @@
  */
 package org.apache.aurora.scheduler.offers;
 
+import java.util.Set;
+
+import com.google.common.collect.Iterables;
+
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 
@@ -38,4 +42,19 @@ public interface OfferSet {
    * ordering depending on the name of the task, or if the task is revocable.
    */
   Iterable<HostOffer> getOrdered(TaskGroupKey groupKey, ResourceRequest resourceRequest);
+
+  /**
+   * Get an ordered stream of offers to consider, restricted to a subset of candidate offers that
+   * were pre-selected from an index (e.g. offers satisfying a task's value constraints). The
+   * ordering must be consistent with {@link #getOrdered(TaskGroupKey, ResourceRequest)}.
+   * Implementations should override this if they can order the candidates without iterating all
+   * offers. The result may be ordered when requested, but must skip offers removed since.
+   */
+  default Iterable<HostOffer> getOrdered(
+      TaskGroupKey groupKey,
+      ResourceRequest resourceRequest,
+      Set<HostOffer> candidates) {
+
+    return Iterables.filter(getOrdered(groupKey, resourceRequest), candidates::contains);
+  }
 }
@@ -17,6 +17,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListSet;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.inject.Inject;
 
@@ -29,10 +30,12 @@ import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 @VisibleForTesting
 public class OfferSetImpl implements OfferSet {
 
+  private final Ordering<HostOffer> ordering;
   private final Set<HostOffer> offers;
 
   @Inject
   public OfferSetImpl(Ordering<HostOffer> ordering) {
+    this.ordering = ordering;
     offers = new ConcurrentSkipListSet<>(ordering);
   }
 
@@ -67,4 +70,15 @@ public class OfferSetImpl implements OfferSet {
   public Iterable<HostOffer> getOrdered(TaskGroupKey groupKey, ResourceRequest resourceRequest) {
     return offers;
   }
+
+  @Override
+  public Iterable<HostOffer> getOrdered(
+      TaskGroupKey groupKey,
+      ResourceRequest resourceRequest,
+      Set<HostOffer> candidates) {
+
+    // Sorting the candidates only costs O(k log k) for k candidates, but the order is fixed when
+    // requested. Candidates removed from the set afterwards are still skipped.
+    return Iterables.filter(ordering.sortedCopy(candidates), offers::contains);
+  }
 }
@@ -15,7 +15,6 @@ package org.apache.aurora.scheduler.offers;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Ticker;
-import com.google.common.cache.CacheBuilder;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
@@ -29,23 +28,29 @@ import static java.util.Objects.requireNonNull;
 public class OfferSettings {
 
   private final Amount<Long, Time> filterDuration;
+  private final Amount<Long, Time> maxFilterDuration;
+  private final Amount<Long, Time> declineBatchWindow;
   private final OfferSet offerSet;
-  private final CacheBuilder<Object, Object> staticBanCacheBuilder;
+  private final Amount<Long, Time> maxHoldTime;
+  private final long staticBanMaxSize;
+  private final Ticker ticker;
 
   @VisibleForTesting
   public OfferSettings(Amount<Long, Time> filterDuration,
+                       Amount<Long, Time> maxFilterDuration,
+                       Amount<Long, Time> declineBatchWindow,
                        OfferSet offerSet,
                        Amount<Long, Time> maxHoldTime,
                        long staticBanCacheMaxSize,
-                       Ticker staticBanTicker) {
+                       Ticker ticker) {
 
     this.filterDuration = requireNonNull(filterDuration);
+    this.maxFilterDuration = requireNonNull(maxFilterDuration);
+    this.declineBatchWindow = requireNonNull(declineBatchWindow);
     this.offerSet = requireNonNull(offerSet);
-    this.staticBanCacheBuilder = CacheBuilder.newBuilder()
-        .expireAfterWrite(maxHoldTime.as(Time.SECONDS), Time.SECONDS.getTimeUnit())
-        .maximumSize(staticBanCacheMaxSize)
-        .ticker(staticBanTicker)
-        .recordStats();
+    this.maxHoldTime = requireNonNull(maxHoldTime);
+    this.staticBanMaxSize = staticBanCacheMaxSize;
+    this.ticker = requireNonNull(ticker);
   }
 
   /**
@@ -55,6 +60,28 @@ public class OfferSettings {
     return filterDuration;
   }
 
+  /**
+   * Upper bound for the filter duration of declined offers that no pending task has wanted for a
+   * while. Has no effect if not greater than the {@link #getFilterDuration() filter duration}.
+   */
+  Amount<Long, Time> getMaxFilterDuration() {
+    return maxFilterDuration;
+  }
+
+  /**
+   * Window during which declined offers are collected, to be returned with a single driver call.
+   */
+  Amount<Long, Time> getDeclineBatchWindow() {
+    return declineBatchWindow;
+  }
+
+  /**
+   * Time source used to expire static bans and to track demand for offers.
+   */
+  Ticker getTicker() {
+    return ticker;
+  }
+
   /**
    * The factory to create the {@link OfferSet} implementation.
    */
@@ -63,10 +90,10 @@ public class OfferSettings {
   }
 
   /**
-   * The builder for the static ban cache. Cache settings (e.g. max size, entry expiration) should
-   * already be added to the builder by this point.
+   * Creates an empty set of static bans, expiring after the max offer hold time and bounded by the
+   * configured max size.
    */
-  CacheBuilder<Object, Object> getStaticBanCacheBuilder() {
-    return staticBanCacheBuilder;
+  StaticBans newStaticBans() {
+    return new StaticBans(maxHoldTime, staticBanMaxSize, ticker);
   }
 }
@@ -0,0 +1,353 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import org.apache.aurora.common.collections.Pair;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.mesos.v1.Protos;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Static bans of offers for task groups, stored as a bitset per task group over dense offer slot
+ * ids.
+ * <p>
+ * Each outstanding offer is assigned a slot, which is recycled once the offer is removed. Bans of
+ * a slot expire together, a fixed duration after the first ban was placed on the slot since it was
+ * last cleared. Checking a ban does not allocate or lock: the group bitset is looked up once per
+ * group, and each offer check is a slot lookup and a bit test.
+ * <p>
+ * Mutations are serialized, and clear the bits of a slot across all groups before the slot is
+ * reused, so that a ban never outlives the offer it was placed on. Once the maximum number of bans
+ * is reached, the bans of the slot banned longest ago are evicted to make room for new ones.
+ */
+class StaticBans {
+  private static final int BITS_PER_WORD = Long.SIZE;
+  private static final int INITIAL_SLOTS = 1024;
+
+  private final long holdNanos;
+  private final long maxSize;
+  private final Ticker ticker;
+
+  private final Map<Protos.OfferID, Integer> slotsByOffer = Maps.newConcurrentMap();
+  private final Map<TaskGroupKey, GroupBans> groups = Maps.newConcurrentMap();
+
+  // The fields below are guarded by the intrinsic lock.
+  private final Deque<Integer> freeSlots = new ArrayDeque<>();
+  private Protos.OfferID[] offersBySlot = new Protos.OfferID[INITIAL_SLOTS];
+  private int nextSlot;
+  private long size;
+
+  // Time of the first ban placed on each slot, read without locking by ban checks.
+  private volatile AtomicLongArray banStartNanos = new AtomicLongArray(INITIAL_SLOTS);
+  private volatile boolean[] slotBanned = new boolean[INITIAL_SLOTS];
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  StaticBans(Amount<Long, Time> holdTime, long maxSize, Ticker ticker) {
+    // Saturate rather than overflow for effectively unbounded hold times.
+    this.holdNanos = TimeUnit.SECONDS.toNanos(holdTime.as(Time.SECONDS));
+    this.maxSize = maxSize;
+    this.ticker = requireNonNull(ticker);
+  }
+
+  /**
+   * Assigns a slot to a newly added offer.
+   *
+   * @param offerId Offer that was added.
+   */
+  synchronized void addOffer(Protos.OfferID offerId) {
+    if (slotsByOffer.containsKey(offerId)) {
+      return;
+    }
+
+    int slot;
+    if (freeSlots.isEmpty()) {
+      slot = nextSlot++;
+      ensureCapacity(slot + 1);
+    } else {
+      slot = freeSlots.pop();
+    }
+    offersBySlot[slot] = offerId;
+    slotsByOffer.put(offerId, slot);
+  }
+
+  /**
+   * Releases the slot of a removed offer, clearing all bans placed on it.
+   *
+   * @param offerId Offer that was removed.
+   */
+  synchronized void removeOffer(Protos.OfferID offerId) {
+    Integer slot = slotsByOffer.remove(offerId);
+    if (slot != null) {
+      clearSlot(slot);
+      offersBySlot[slot] = null;
+      freeSlots.push(slot);
+    }
+  }
+
+  /**
+   * Bans an outstanding offer from matching a task group. This is a no-op if the offer is not
+   * outstanding. If the maximum number of bans has been reached, the oldest bans are evicted.
+   *
+   * @param offerId Offer to ban.
+   * @param groupKey Group to ban the offer for.
+   */
+  synchronized void ban(Protos.OfferID offerId, TaskGroupKey groupKey) {
+    Integer slot = slotsByOffer.get(offerId);
+    if (slot == null) {
+      return;
+    }
+
+    long now = ticker.read();
+    if (slotBanned[slot] && isExpired(slot, now)) {
+      clearSlot(slot);
+    }
+
+    GroupBans existing = groups.get(groupKey);
+    if (existing != null && existing.isSet(slot)) {
+      return;
+    }
+
+    while (size >= maxSize && evictOldest()) {
+      // Evicting may clear the slot being banned, in which case its ban start is reset below.
+    }
+    if (size < maxSize) {
+      GroupBans bans = groups.computeIfAbsent(groupKey, key -> new GroupBans());
+      bans.set(slot, slotCapacity());
+      size++;
+      if (!slotBanned[slot]) {
+        banStartNanos.set(slot, now);
+        slotBanned[slot] = true;
+      }
+    }
+  }
+
+  /**
+   * Gets a view of the bans of a task group, valid for the current point in time.
+   *
+   * @param groupKey Group to get bans for.
+   * @return Bans of the group.
+   */
+  BanCheck forGroup(TaskGroupKey groupKey) {
+    GroupBans bans = groups.get(groupKey);
+    long now = ticker.read();
+    return offerId -> {
+      requests.increment();
+      if (bans == null) {
+        return false;
+      }
+
+      Integer slot = slotsByOffer.get(offerId);
+      boolean banned = slot != null && bans.isSet(slot) && !isExpired(slot, now);
+      if (banned) {
+        hits.increment();
+      }
+      return banned;
+    };
+  }
+
+  /**
+   * Checks whether an offer is banned for a task group.
+   */
+  @FunctionalInterface
+  interface BanCheck {
+    boolean isBanned(Protos.OfferID offerId);
+  }
+
+  /**
+   * Clears the bans of the slot whose bans were placed longest ago.
+   *
+   * @return Whether any bans were evicted.
+   */
+  private boolean evictOldest() {
+    int oldest = -1;
+    for (int slot = 0; slot < nextSlot; slot++) {
+      if (slotBanned[slot]
+          && (oldest == -1 || banStartNanos.get(slot) - banStartNanos.get(oldest) < 0)) {
+        oldest = slot;
+      }
+    }
+    if (oldest == -1) {
+      return false;
+    }
+
+    long before = size;
+    clearSlot(oldest);
+    evictions.add(before - size);
+    return true;
+  }
+
+  private boolean isExpired(int slot, long now) {
+    return now - banStartNanos.get(slot) >= holdNanos;
+  }
+
+  /**
+   * Clears the bans of all slots that have expired.
+   */
+  synchronized void cleanUp() {
+    long now = ticker.read();
+    for (int slot = 0; slot < nextSlot; slot++) {
+      if (slotBanned[slot] && isExpired(slot, now)) {
+        clearSlot(slot);
+      }
+    }
+  }
+
+  synchronized void clear() {
+    slotsByOffer.clear();
+    groups.clear();
+    freeSlots.clear();
+    Arrays.fill(offersBySlot, null);
+    nextSlot = 0;
+    size = 0;
+    slotBanned = new boolean[offersBySlot.length];
+  }
+
+  /**
+   * Gets the number of bans, excluding expired ones.
+   *
+   * @return Number of bans.
+   */
+  synchronized long size() {
+    cleanUp();
+    return size;
+  }
+
+  /**
+   * Gets the ratio of ban checks that found a ban.
+   *
+   * @return Ban hit rate, or 1.0 if no checks were made.
+   */
+  double hitRate() {
+    long requestCount = requests.sum();
+    return requestCount == 0 ? 1.0 : (double) hits.sum() / requestCount;
+  }
+
+  /**
+   * Gets the number of bans evicted to stay within the maximum number of bans.
+   *
+   * @return Number of evicted bans.
+   */
+  long evictions() {
+    return evictions.sum();
+  }
+
+  synchronized Set<Pair<Protos.OfferID, TaskGroupKey>> asSet() {
+    ImmutableSet.Builder<Pair<Protos.OfferID, TaskGroupKey>> builder = ImmutableSet.builder();
+    long now = ticker.read();
+    for (Map.Entry<TaskGroupKey, GroupBans> entry : groups.entrySet()) {
+      for (int slot = 0; slot < nextSlot; slot++) {
+        if (entry.getValue().isSet(slot) && !isExpired(slot, now)) {
+          builder.add(Pair.of(offersBySlot[slot], entry.getKey()));
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private int slotCapacity() {
+    return offersBySlot.length;
+  }
+
+  private void ensureCapacity(int slots) {
+    if (slots <= offersBySlot.length) {
+      return;
+    }
+
+    int capacity = Math.max(slots, offersBySlot.length * 2);
+    offersBySlot = Arrays.copyOf(offersBySlot, capacity);
+    slotBanned = Arrays.copyOf(slotBanned, capacity);
+    AtomicLongArray starts = new AtomicLongArray(capacity);
+    for (int i = 0; i < banStartNanos.length(); i++) {
+      starts.set(i, banStartNanos.get(i));
+    }
+    banStartNanos = starts;
+  }
+
+  private void clearSlot(int slot) {
+    if (!slotBanned[slot]) {
+      return;
+    }
+
+    groups.entrySet().removeIf(entry -> {
+      GroupBans bans = entry.getValue();
+      if (bans.clear(slot)) {
+        size--;
+      }
+      return bans.isEmpty();
+    });
+    slotBanned[slot] = false;
+  }
+
+  /**
+   * Bitset of the slots banned for a group. Bits are read without locking, and only modified
+   * while holding the lock of the enclosing {@link StaticBans}.
+   */
+  private static final class GroupBans {
+    private volatile AtomicLongArray words = new AtomicLongArray(INITIAL_SLOTS / BITS_PER_WORD);
+    private int count;
+
+    boolean isSet(int slot) {
+      AtomicLongArray current = words;
+      int word = slot / BITS_PER_WORD;
+      return word < current.length() && (current.get(word) & (1L << slot)) != 0;
+    }
+
+    void set(int slot, int capacity) {
+      int word = slot / BITS_PER_WORD;
+      if (word >= words.length()) {
+        AtomicLongArray grown = new AtomicLongArray((capacity + BITS_PER_WORD - 1) / BITS_PER_WORD);
+        for (int i = 0; i < words.length(); i++) {
+          grown.set(i, words.get(i));
+        }
+        words = grown;
+      }
+      words.set(word, words.get(word) | (1L << slot));
+      count++;
+    }
+
+    boolean clear(int slot) {
+      if (!isSet(slot)) {
+        return false;
+      }
+
+      int word = slot / BITS_PER_WORD;
+      words.set(word, words.get(word) & ~(1L << slot));
+      count--;
+      return true;
+    }
+
+    boolean isEmpty() {
+      return count == 0;
+    }
+  }
+}
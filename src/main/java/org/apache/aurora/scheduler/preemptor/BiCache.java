@@ -13,23 +13,24 @@
  */
 package org.apache.aurora.scheduler.preemptor;
 
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.inject.Inject;
 
-import com.google.common.base.Ticker;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
-import com.google.common.cache.RemovalNotification;
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Maps;
+import com.google.common.math.LongMath;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
@@ -41,6 +42,12 @@ import static java.util.Objects.requireNonNull;
 /**
  * A bi-directional cache of items. Entries are purged from cache after
  * {@link BiCacheSettings#expireAfter}.
+ * <p>
+ * Reads do not lock: an entry is visible until it expires, regardless of whether it has been
+ * purged yet. Mutations are serialized. Expired entries are purged by a timer wheel with a fixed
+ * number of buckets spanning the expiration duration, which is advanced by mutations and by the
+ * first read of every tick, so that purging costs time proportional to the number of expired
+ * entries rather than to the size of the cache.
  *
  * @param <K> Key type.
  * @param <V> Value type.
@@ -57,40 +64,50 @@ public class BiCache<K, V> {
     }
   }
 
-  private final Cache<K, V> cache;
-  private final Multimap<V, K> inverse = HashMultimap.create();
+  private static final int WHEEL_SIZE = 64;
+
+  private final Clock clock;
+  private final long expireNanos;
+  private final long tickNanos;
+  private final long ticksToExpire;
+
+  private final ConcurrentMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+  private final ConcurrentMap<V, Set<K>> inverse = new ConcurrentHashMap<>();
+  private final Map<K, V> view;
+
+  // The wheel is guarded by the intrinsic lock.
+  private final ArrayDeque<Entry<K, V>>[] wheel;
+  private long currentTick;
+  private volatile long nextTickNanos;
+
   private final AtomicLong removalCounter;
   private final AtomicLong expirationCounter;
   private final AtomicLong explictRemovalCounter;
 
   @Inject
+  @SuppressWarnings("unchecked")
   public BiCache(
       StatsProvider statsProvider,
       BiCacheSettings settings,
       final Clock clock) {
 
-    requireNonNull(clock);
-    this.cache = CacheBuilder.newBuilder()
-        .expireAfterWrite(settings.expireAfter.as(Time.MINUTES), TimeUnit.MINUTES)
-        .ticker(new Ticker() {
-          @Override
-          public long read() {
-            return clock.nowNanos();
-          }
-        })
-        .removalListener(new RemovalListener<K, V>() {
-          @Override
-          public void onRemoval(RemovalNotification<K, V> notification) {
-            removalCounter.getAndIncrement();
-            if (notification.wasEvicted()) {
-              expirationCounter.incrementAndGet();
-            }
-            inverse.remove(notification.getValue(), notification.getKey());
-          }
-        })
-        .build();
-
-    statsProvider.makeGauge(settings.cacheName + "_cache_size", cache::size);
+    this.clock = requireNonNull(clock);
+    // Saturate rather than overflow for effectively unbounded expiration.
+    this.expireNanos = TimeUnit.MINUTES.toNanos(settings.expireAfter.as(Time.MINUTES));
+    this.tickNanos = Math.max(1, expireNanos / WHEEL_SIZE);
+    this.ticksToExpire = LongMath.divide(expireNanos, tickNanos, RoundingMode.CEILING);
+    this.wheel = new ArrayDeque[WHEEL_SIZE];
+    for (int i = 0; i < WHEEL_SIZE; i++) {
+      wheel[i] = new ArrayDeque<>();
+    }
+    long now = clock.nowNanos();
+    this.currentTick = Math.floorDiv(now, tickNanos);
+    this.nextTickNanos = nextTickStart(currentTick);
+
+    this.view = Collections.unmodifiableMap(
+        Maps.transformValues(Maps.filterValues(entries, this::isLive), entry -> entry.value));
+
+    statsProvider.makeGauge(settings.cacheName + "_cache_size", entries::size);
     removalCounter = statsProvider.makeCounter(settings.cacheName + "_cache_removals");
     expirationCounter = statsProvider.makeCounter(
         settings.cacheName + "_cache_expiration_removals");
@@ -107,8 +124,17 @@ public class BiCache<K, V> {
   public synchronized void put(K key, V value) {
     requireNonNull(key);
     requireNonNull(value);
-    cache.put(key, value);
-    inverse.put(value, key);
+    long now = clock.nowNanos();
+    advance(now);
+
+    Entry<K, V> entry = new Entry<>(key, value, now);
+    Entry<K, V> replaced = entries.put(key, entry);
+    if (replaced != null) {
+      removalCounter.getAndIncrement();
+      removeInverse(replaced);
+    }
+    inverse.computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet()).add(key);
+    wheel[bucket(Math.floorDiv(now, tickNanos) + ticksToExpire + 1)].add(entry);
   }
 
   /**
@@ -117,8 +143,19 @@ public class BiCache<K, V> {
    * @param key Key to get value for.
    * @return Optional of value.
    */
-  public synchronized Optional<V> get(K key) {
-    return Optional.ofNullable(cache.getIfPresent(key));
+  public Optional<V> get(K key) {
+    long now = clock.nowNanos();
+    maybeAdvance(now);
+    Entry<K, V> entry = entries.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+
+    if (isExpired(entry, now)) {
+      expire(entry);
+      return Optional.empty();
+    }
+    return Optional.of(entry.value);
   }
 
   /**
@@ -127,11 +164,24 @@ public class BiCache<K, V> {
    * @param value Value to get all keys for.
    * @return An {@link Iterable} of keys or empty if value does not exist.
    */
-  public synchronized Set<K> getByValue(V value) {
-    // Cache items are lazily removed by routine maintenance operations during get/write access.
-    // Forcing cleanup here to ensure proper data integrity.
-    cache.cleanUp();
-    return ImmutableSet.copyOf(inverse.get(value));
+  public Set<K> getByValue(V value) {
+    long now = clock.nowNanos();
+    maybeAdvance(now);
+    Set<K> keys = inverse.get(value);
+    if (keys == null) {
+      return ImmutableSet.of();
+    }
+
+    // The inverse index may briefly lag behind the entries, only return keys of live entries that
+    // still map to the value.
+    ImmutableSet.Builder<K> live = ImmutableSet.builder();
+    for (K key : keys) {
+      Entry<K, V> entry = entries.get(key);
+      if (entry != null && entry.value.equals(value) && !isExpired(entry, now)) {
+        live.add(key);
+      }
+    }
+    return live.build();
   }
 
   /**
@@ -142,8 +192,18 @@ public class BiCache<K, V> {
    */
   public synchronized void remove(K key, V value) {
     explictRemovalCounter.getAndIncrement();
-    inverse.remove(value, key);
-    cache.invalidate(key);
+    requireNonNull(key);
+    long now = clock.nowNanos();
+    advance(now);
+
+    Entry<K, V> entry = entries.remove(key);
+    if (entry != null) {
+      removalCounter.getAndIncrement();
+      if (isExpired(entry, now)) {
+        expirationCounter.getAndIncrement();
+      }
+      removeInverse(entry);
+    }
   }
 
   /**
@@ -151,7 +211,97 @@ public class BiCache<K, V> {
    *
    * @return Immutable map of cache entries.
    */
-  public synchronized Map<K, V> asMap() {
-    return ImmutableMap.copyOf(cache.asMap());
+  public Map<K, V> asMap() {
+    return ImmutableMap.copyOf(view);
+  }
+
+  /**
+   * Returns a read-only view of the entries stored in this cache. The view reflects later changes
+   * to the cache, and never exposes expired entries. Lookups in the view do not copy or lock, but
+   * computing its size iterates over all entries.
+   *
+   * @return Live view of cache entries.
+   */
+  public Map<K, V> view() {
+    return view;
+  }
+
+  private boolean isExpired(Entry<K, V> entry, long now) {
+    return now - entry.writeNanos >= expireNanos;
+  }
+
+  private boolean isLive(Entry<K, V> entry) {
+    return !isExpired(entry, clock.nowNanos());
+  }
+
+  private synchronized void expire(Entry<K, V> entry) {
+    if (entries.remove(entry.key, entry)) {
+      removalCounter.getAndIncrement();
+      expirationCounter.getAndIncrement();
+      removeInverse(entry);
+    }
+  }
+
+  private void removeInverse(Entry<K, V> entry) {
+    Set<K> keys = inverse.get(entry.value);
+    if (keys != null) {
+      keys.remove(entry.key);
+      if (keys.isEmpty()) {
+        inverse.remove(entry.value, keys);
+      }
+    }
+  }
+
+  private void maybeAdvance(long now) {
+    if (now >= nextTickNanos) {
+      synchronized (this) {
+        advance(now);
+      }
+    }
+  }
+
+  private void advance(long now) {
+    long tick = Math.floorDiv(now, tickNanos);
+    if (tick <= currentTick) {
+      return;
+    }
+
+    // Once the wheel has fully turned, every bucket has been visited.
+    long ticks = Math.min(tick - currentTick, WHEEL_SIZE);
+    for (long i = 1; i <= ticks; i++) {
+      Iterator<Entry<K, V>> bucket = wheel[bucket(currentTick + i)].iterator();
+      while (bucket.hasNext()) {
+        Entry<K, V> entry = bucket.next();
+        if (entries.get(entry.key) != entry) {
+          // Replaced or removed since it was scheduled.
+          bucket.remove();
+        } else if (isExpired(entry, now)) {
+          bucket.remove();
+          expire(entry);
+        }
+      }
+    }
+    currentTick = tick;
+    nextTickNanos = nextTickStart(tick);
+  }
+
+  private long nextTickStart(long tick) {
+    return LongMath.saturatedMultiply(LongMath.saturatedAdd(tick, 1), tickNanos);
+  }
+
+  private static int bucket(long tick) {
+    return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+  }
+
+  private static final class Entry<K, V> {
+    private final K key;
+    private final V value;
+    private final long writeNanos;
+
+    Entry(K key, V value, long writeNanos) {
+      this.key = key;
+      this.value = value;
+      this.writeNanos = writeNanos;
+    }
   }
 }
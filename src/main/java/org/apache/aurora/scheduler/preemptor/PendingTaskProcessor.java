@@ -18,9 +18,9 @@ import java.lang.annotation.Target;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Qualifier;
@@ -37,14 +37,15 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
@@ -57,12 +58,14 @@ import org.apache.aurora.scheduler.filter.AttributeAggregate;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.state.ClusterState;
+import org.apache.aurora.scheduler.state.VictimIndex;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.mesos.v1.Protos.AgentID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -90,6 +93,8 @@ public class PendingTaskProcessor implements Runnable {
   private final ClusterState clusterState;
   private final Clock clock;
   private final Integer reservationBatchSize;
+  private final int waveSize;
+  private final ListeningExecutorService searchExecutor;
 
   /**
    * Binding annotation for the time interval after which a pending task becomes eligible to
@@ -111,6 +116,25 @@ public class PendingTaskProcessor implements Runnable {
   @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
   @interface ReservationBatchSize { }
 
+  /**
+   * Binding annotation for the number of threads evaluating agents in parallel while searching for
+   * a preemption slot.
+   */
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface SlotSearchParallelism { }
+
+  /**
+   * Binding annotation for the executor evaluating agents while searching for a preemption slot.
+   */
+  @Qualifier
+  @Target({ FIELD, PARAMETER, METHOD }) @Retention(RUNTIME)
+  @interface SlotSearchExecutor { }
+
+  // Number of agents handed to each search thread per wave. Larger waves amortize dispatch
+  // overhead, at the cost of evaluating agents past the slot that is eventually picked.
+  private static final int AGENTS_PER_THREAD = 8;
+
   @Inject
   PendingTaskProcessor(
       Storage storage,
@@ -121,7 +145,9 @@ public class PendingTaskProcessor implements Runnable {
       BiCache<PreemptionProposal, TaskGroupKey> slotCache,
       ClusterState clusterState,
       Clock clock,
-      @ReservationBatchSize Integer reservationBatchSize) {
+      @ReservationBatchSize Integer reservationBatchSize,
+      @SlotSearchParallelism Integer parallelism,
+      @SlotSearchExecutor ListeningExecutorService searchExecutor) {
 
     this.storage = requireNonNull(storage);
     this.offerManager = requireNonNull(offerManager);
@@ -132,6 +158,9 @@ public class PendingTaskProcessor implements Runnable {
     this.clusterState = requireNonNull(clusterState);
     this.clock = requireNonNull(clock);
     this.reservationBatchSize = requireNonNull(reservationBatchSize);
+    Preconditions.checkArgument(parallelism > 0, "parallelism should be positive.");
+    this.waveSize = parallelism == 1 ? 1 : parallelism * AGENTS_PER_THREAD;
+    this.searchExecutor = requireNonNull(searchExecutor);
   }
 
   @Timed("pending_task_processor_run")
@@ -139,21 +168,16 @@ public class PendingTaskProcessor implements Runnable {
   public void run() {
     metrics.recordTaskProcessorRun();
     storage.read(store -> {
-      Multimap<String, PreemptionVictim> slavesToActiveTasks =
-          clusterState.getSlavesToActiveTasks();
+      VictimIndex victims = clusterState.getVictimIndex();
 
-      if (slavesToActiveTasks.isEmpty()) {
+      if (victims.isEmpty()) {
         // No preemption victims to consider.
         return null;
       }
 
-      // Group the offers by slave id so they can be paired with active tasks from the same slave.
-      Map<String, HostOffer> slavesToOffers =
-          Maps.uniqueIndex(offerManager.getAll(), OFFER_TO_SLAVE_ID);
-
-      Set<String> allSlaves = Sets.newHashSet(Iterables.concat(
-          slavesToOffers.keySet(),
-          slavesToActiveTasks.keySet()));
+      // Only agents with victims can yield a preemption slot, offers are looked up for those
+      // agents as they are evaluated.
+      Set<String> reservedSlaves = Sets.newHashSet();
 
       // The algorithm below attempts to find a reservation for every task group by matching
       // it against all available slaves until a preemption slot is found. Groups are evaluated
@@ -166,10 +190,9 @@ public class PendingTaskProcessor implements Runnable {
       List<TaskGroupKey> pendingGroups = fetchIdlePendingGroups(store);
       Iterator<TaskGroupKey> groups = Iterators.consumingIterator(pendingGroups.iterator());
       TaskGroupKey lastGroup = null;
-      Iterator<String> slaveIterator = allSlaves.iterator();
+      SlotSearch search = null;
 
       while (!pendingGroups.isEmpty()) {
-        boolean matched = false;
         TaskGroupKey group = groups.next();
         ITaskConfig task = group.getTask();
 
@@ -177,35 +200,28 @@ public class PendingTaskProcessor implements Runnable {
         metrics.recordPreemptionAttemptFor(task);
         // Start over only if a different task group is being processed
         if (!group.equals(lastGroup)) {
-          slaveIterator = allSlaves.iterator();
+          search = new SlotSearch(
+              task,
+              jobStates.getUnchecked(task.getJob()),
+              victims,
+              unreserved(victims, reservedSlaves),
+              store);
         }
-        while (slaveIterator.hasNext()) {
-          String slaveId = slaveIterator.next();
-          Optional<ImmutableSet<PreemptionVictim>> candidates =
-              preemptionVictimFilter.filterPreemptionVictims(
-                  task,
-                  slavesToActiveTasks.get(slaveId),
-                  jobStates.getUnchecked(task.getJob()),
-                  Optional.ofNullable(slavesToOffers.get(slaveId)),
-                  store);
-
-          metrics.recordSlotSearchResult(candidates, task);
-          if (candidates.isPresent()) {
-            // Slot found -> remove slave to avoid multiple task reservations.
-            Iterable<String> candidateTaskIds = Iterables.transform(
-                candidates.get(),
-                PreemptionVictim::getTaskId);
-            LOG.info("Found preemptible slot on agent {} for {} with candidates {}",
-                slaveId,
-                group,
-                Joiner.on(",").join(candidateTaskIds));
-            slaveIterator.remove();
-            slotCache.put(new PreemptionProposal(candidates.get(), slaveId), group);
-            matched = true;
-            break;
-          }
-        }
-        if (!matched) {
+
+        Optional<PreemptionProposal> slot = search.next();
+        if (slot.isPresent()) {
+          // Slot found -> remove slave to avoid multiple task reservations.
+          String slaveId = slot.get().getSlaveId();
+          Iterable<String> candidateTaskIds = Iterables.transform(
+              slot.get().getVictims(),
+              PreemptionVictim::getTaskId);
+          LOG.info("Found preemptible slot on agent {} for {} with candidates {}",
+              slaveId,
+              group,
+              Joiner.on(",").join(candidateTaskIds));
+          reservedSlaves.add(slaveId);
+          slotCache.put(slot.get(), group);
+        } else {
           // No slot found for the group -> remove group and reset group iterator.
           LOG.info("Could not find preemptible slot for {}", group);
           pendingGroups.removeAll(ImmutableSet.of(group));
@@ -218,6 +234,95 @@ public class PendingTaskProcessor implements Runnable {
     });
   }
 
+  /**
+   * Searches agents for a preemption slot for a task group, in agent iteration order.
+   * <p>
+   * Agents are evaluated in waves. With parallelism, a wave is evaluated concurrently, and the
+   * results are then consumed in agent order, so that the slots found (and the metrics recorded)
+   * are the same as for a sequential search. Results not consumed by the time the search is
+   * abandoned for another group are discarded, and the agents are evaluated again by later
+   * searches. Vetoes found while evaluating discarded agents are still reported to the nearest
+   * fit tracking, which only keeps the closest fit seen and so may reflect an agent the search
+   * never consumed.
+   */
+  private final class SlotSearch {
+    private final ITaskConfig task;
+    private final AttributeAggregate jobState;
+    private final VictimIndex victims;
+    private final Iterator<String> agents;
+    private final StoreProvider store;
+    private List<String> waveAgents = ImmutableList.of();
+    private List<Optional<ImmutableSet<PreemptionVictim>>> waveResults = ImmutableList.of();
+    private int position;
+
+    SlotSearch(
+        ITaskConfig task,
+        AttributeAggregate jobState,
+        VictimIndex victims,
+        Iterator<String> agents,
+        StoreProvider store) {
+
+      this.task = task;
+      this.jobState = jobState;
+      this.victims = victims;
+      this.agents = agents;
+      this.store = store;
+    }
+
+    Optional<PreemptionProposal> next() {
+      while (true) {
+        if (position == waveAgents.size()) {
+          if (!agents.hasNext()) {
+            return Optional.empty();
+          }
+          evaluateWave();
+        }
+
+        String agentId = waveAgents.get(position);
+        Optional<ImmutableSet<PreemptionVictim>> candidates = waveResults.get(position);
+        position++;
+        metrics.recordSlotSearchResult(candidates, task);
+        if (candidates.isPresent()) {
+          return Optional.of(new PreemptionProposal(candidates.get(), agentId));
+        }
+      }
+    }
+
+    private void evaluateWave() {
+      List<String> wave = Lists.newArrayListWithCapacity(waveSize);
+      while (wave.size() < waveSize && agents.hasNext()) {
+        wave.add(agents.next());
+      }
+
+      waveAgents = wave;
+      waveResults = Futures.getUnchecked(Futures.allAsList(wave.stream()
+          .map(agentId -> searchExecutor.submit(() -> evaluate(agentId)))
+          .collect(Collectors.toList())));
+      position = 0;
+    }
+
+    private Optional<ImmutableSet<PreemptionVictim>> evaluate(String agentId) {
+      Optional<HostOffer> offer = offerManager.get(AgentID.newBuilder().setValue(agentId).build());
+      if (!preemptionVictimFilter.mayFit(task, victims.getPreemptibleResources(agentId), offer)) {
+        metrics.recordSlotSearchPruned();
+        return Optional.empty();
+      }
+
+      return preemptionVictimFilter.filterPreemptionVictims(
+          task,
+          victims.getVictims(agentId),
+          jobState,
+          offer,
+          store);
+    }
+  }
+
+  private static Iterator<String> unreserved(VictimIndex victims, Set<String> reservedSlaves) {
+    return Iterators.filter(
+        victims.getAgentIds().iterator(),
+        slaveId -> !reservedSlaves.contains(slaveId));
+  }
+
   private List<TaskGroupKey> fetchIdlePendingGroups(StoreProvider store) {
     Multiset<TaskGroupKey> taskGroupCounts = HashMultiset.create(
         FluentIterable.from(store.getTaskStore().fetchTasks(Query.statusScoped(PENDING)))
@@ -286,7 +391,4 @@ public class PendingTaskProcessor implements Runnable {
           >= preemptionCandidacyDelay.as(Time.MILLISECONDS);
     }
   };
-
-  private static final Function<HostOffer, String> OFFER_TO_SLAVE_ID =
-      offer -> offer.getOffer().getAgentId().getValue();
 }
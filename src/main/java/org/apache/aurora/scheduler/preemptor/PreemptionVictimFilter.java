@@ -15,8 +15,10 @@ package org.apache.aurora.scheduler.preemptor;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
@@ -24,22 +26,34 @@ import javax.inject.Inject;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
+import org.apache.aurora.common.collections.Pair;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.scheduler.TierInfo;
 import org.apache.aurora.scheduler.TierManager;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
+import org.apache.aurora.scheduler.filter.HostAttributeIndex;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
+import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoType;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.resources.ResourceType;
+import org.apache.aurora.scheduler.state.VictimIndex.VictimClass;
 import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
@@ -84,11 +98,41 @@ public interface PreemptionVictimFilter {
       Optional<HostOffer> offer,
       StoreProvider storeProvider);
 
+  /**
+   * Cheaply checks whether an agent could possibly yield preemption victims for a task, based on
+   * the aggregated resources of the tasks on the agent. A {@code false} result guarantees that
+   * {@link #filterPreemptionVictims} would not find victims on the agent, while a {@code true}
+   * result gives no guarantee.
+   *
+   * @param pendingTask Task to search preemption slot for.
+   * @param preemptibleResources Aggregated resources of active tasks on the agent, by class.
+   * @param offer A resource offer for the agent.
+   * @return Whether the agent may yield victims for the task.
+   */
+  default boolean mayFit(
+      ITaskConfig pendingTask,
+      Map<VictimClass, ResourceBag> preemptibleResources,
+      Optional<HostOffer> offer) {
+
+    return true;
+  }
+
   class PreemptionVictimFilterImpl implements PreemptionVictimFilter {
+    // Static vetoes that do not depend on resources are cached per host and task group, so that
+    // agents that can never host a group are skipped without evaluating their victims. Entries
+    // expire to pick up changes to host attributes.
+    private static final Amount<Long, Time> STATIC_VETO_EXPIRATION = Amount.of(1L, Time.MINUTES);
+    private static final long MAX_CACHED_STATIC_VETOES = 100_000;
+
+    // Tolerance for floating point differences between aggregated and incrementally summed
+    // resources, so that the precheck never rejects an agent that would fit.
+    private static final double EPSILON = 1e-6;
+
     private final SchedulingFilter schedulingFilter;
     private final ExecutorSettings executorSettings;
     private final PreemptorMetrics metrics;
     private final TierManager tierManager;
+    private final Cache<Pair<String, TaskGroupKey>, Boolean> staticallyVetoed;
 
     @Inject
     PreemptionVictimFilterImpl(
@@ -101,6 +145,10 @@ public interface PreemptionVictimFilter {
       this.executorSettings = requireNonNull(executorSettings);
       this.metrics = requireNonNull(metrics);
       this.tierManager = requireNonNull(tierManager);
+      this.staticallyVetoed = CacheBuilder.newBuilder()
+          .expireAfterWrite(STATIC_VETO_EXPIRATION.as(Time.SECONDS), TimeUnit.SECONDS)
+          .maximumSize(MAX_CACHED_STATIC_VETOES)
+          .build();
     }
 
     private static final Function<HostOffer, String> OFFER_TO_HOST =
@@ -187,6 +235,19 @@ public interface PreemptionVictimFilter {
         Optional<HostOffer> offer,
         StoreProvider storeProvider) {
 
+      Optional<String> host = offer.isPresent()
+          ? offer.map(OFFER_TO_HOST)
+          : Optional.ofNullable(Iterables.getFirst(possibleVictims, null)).map(VICTIM_TO_HOST);
+      if (!host.isPresent()) {
+        return Optional.empty();
+      }
+
+      TaskGroupKey groupKey = TaskGroupKey.from(pendingTask);
+      Pair<String, TaskGroupKey> vetoKey = Pair.of(host.get(), groupKey);
+      if (staticallyVetoed.getIfPresent(vetoKey) != null) {
+        return Optional.empty();
+      }
+
       List<PreemptionVictim> sortedVictims = StreamSupport
           .stream(possibleVictims.spliterator(), false)
           .filter(preemptionFilter(pendingTask))
@@ -218,6 +279,7 @@ public interface PreemptionVictimFilter {
           ResourceRequest.fromTask(pendingTask, executorSettings, jobState, tierManager);
 
       Optional<Instant> unavailability = offer.flatMap(HostOffer::getUnavailabilityStart);
+      HostAttributeIndex attributeIndex = HostAttributeIndex.from(attributes.get());
 
       ResourceBag totalResource = slackResources;
       Set<PreemptionVictim> toPreemptTasks = Sets.newHashSet();
@@ -226,17 +288,76 @@ public interface PreemptionVictimFilter {
         totalResource = totalResource.add(victimToResources.apply(victim));
 
         Set<Veto> vetoes = schedulingFilter.filter(
-            new UnusedResource(totalResource, attributes.get(), unavailability),
+            new UnusedResource(totalResource, attributes.get(), attributeIndex, unavailability),
             requiredResources);
 
         if (vetoes.isEmpty()) {
           return Optional.of(ImmutableSet.copyOf(toPreemptTasks));
         }
+
+        if (isResourceIndependent(vetoes)) {
+          // Preempting more victims will not change the outcome.
+          if (isHostInherent(vetoes)) {
+            staticallyVetoed.put(vetoKey, true);
+          }
+          return Optional.empty();
+        }
       }
 
       return Optional.empty();
     }
 
+    @Override
+    public boolean mayFit(
+        ITaskConfig pendingTask,
+        Map<VictimClass, ResourceBag> preemptibleResources,
+        Optional<HostOffer> offer) {
+
+      ResourceBag available = offer
+          .map(o -> bagFromMesosResources(getNonRevocableOfferResources(o.getOffer())))
+          .orElse(EMPTY);
+      boolean pendingIsPreemptible = tierManager.getTier(pendingTask).isPreemptible();
+      for (Map.Entry<VictimClass, ResourceBag> entry : preemptibleResources.entrySet()) {
+        VictimClass victimClass = entry.getKey();
+        TierInfo victimTier = tierManager.getTiers()
+            .get(victimClass.getTier().orElse(tierManager.getDefaultTierName()));
+        if (victimTier == null) {
+          // Unknown tier, count the resources to remain conservative.
+          available = available.add(entry.getValue());
+        } else if (canPreempt(
+            pendingTask,
+            pendingIsPreemptible,
+            victimClass.getRole(),
+            victimClass.getPriority(),
+            victimTier.isPreemptible())) {
+
+          available = available.add(victimTier.isRevocable()
+              ? entry.getValue().filter(IS_MESOS_REVOCABLE.negate())
+              : entry.getValue());
+        }
+      }
+
+      ResourceBag required = ResourceManager.bagFromTask(pendingTask, executorSettings);
+      for (Map.Entry<ResourceType, Double> entry : required.getResourceVectors().entrySet()) {
+        if (available.valueOf(entry.getKey()) + EPSILON < entry.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean isResourceIndependent(Set<Veto> vetoes) {
+      return vetoes.stream()
+          .noneMatch(veto -> veto.getVetoType() == VetoType.INSUFFICIENT_RESOURCES
+              || veto.getVetoType().getGroup() == VetoGroup.DYNAMIC);
+    }
+
+    private static boolean isHostInherent(Set<Veto> vetoes) {
+      return vetoes.stream()
+          .allMatch(veto -> veto.getVetoType() == VetoType.CONSTRAINT_MISMATCH
+              || veto.getVetoType() == VetoType.DEDICATED_CONSTRAINT_MISMATCH);
+    }
+
     /**
      * Creates a filter that will find tasks that the provided {@code pendingTask} may preempt.
      *
@@ -245,24 +366,33 @@ public interface PreemptionVictimFilter {
      *     with {@code preemptibleTask}.
      */
     private Predicate<PreemptionVictim> preemptionFilter(final ITaskConfig pendingTask) {
-      return possibleVictim -> {
-        boolean pendingIsPreemptible = tierManager.getTier(pendingTask).isPreemptible();
-        boolean victimIsPreemptible =
-            tierManager.getTier(possibleVictim.getConfig()).isPreemptible();
-
-        if (!pendingIsPreemptible && victimIsPreemptible) {
-          return true;
-        } else if (pendingIsPreemptible == victimIsPreemptible) {
-          // If preemptible flags are equal, preemption is based on priority within the same role.
-          if (pendingTask.getJob().getRole().equals(possibleVictim.getRole())) {
-            return pendingTask.getPriority() > possibleVictim.getPriority();
-          } else {
-            return false;
-          }
+      return possibleVictim -> canPreempt(
+          pendingTask,
+          tierManager.getTier(pendingTask).isPreemptible(),
+          possibleVictim.getRole(),
+          possibleVictim.getPriority(),
+          tierManager.getTier(possibleVictim.getConfig()).isPreemptible());
+    }
+
+    private static boolean canPreempt(
+        ITaskConfig pendingTask,
+        boolean pendingIsPreemptible,
+        String victimRole,
+        int victimPriority,
+        boolean victimIsPreemptible) {
+
+      if (!pendingIsPreemptible && victimIsPreemptible) {
+        return true;
+      } else if (pendingIsPreemptible == victimIsPreemptible) {
+        // If preemptible flags are equal, preemption is based on priority within the same role.
+        if (pendingTask.getJob().getRole().equals(victimRole)) {
+          return pendingTask.getPriority() > victimPriority;
         } else {
           return false;
         }
-      };
+      } else {
+        return false;
+      }
     }
   }
 }
@@ -51,6 +51,17 @@ public interface Preemptor {
       AttributeAggregate jobState,
       MutableStoreProvider storeProvider);
 
+  /**
+   * Checks whether a preemption slot has been found for a task group, in which case a call to
+   * {@link #attemptPreemptionFor} may preempt tasks for it.
+   *
+   * @param groupKey Task group to check.
+   * @return {@code true} if a preemption slot is held for the group, {@code false} otherwise.
+   */
+  default boolean hasPreemptionSlot(TaskGroupKey groupKey) {
+    return false;
+  }
+
   class PreemptorImpl implements Preemptor {
     private static final Logger LOG = LoggerFactory.getLogger(PreemptorImpl.class);
 
@@ -117,5 +128,10 @@ public interface Preemptor {
 
       return Optional.empty();
     }
+
+    @Override
+    public boolean hasPreemptionSlot(TaskGroupKey groupKey) {
+      return !slotCache.getByValue(groupKey).isEmpty();
+    }
   }
 }
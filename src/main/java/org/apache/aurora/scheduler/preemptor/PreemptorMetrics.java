@@ -43,6 +43,9 @@ public class PreemptorMetrics {
   @VisibleForTesting
   static final String UNMATCHED_TASKS = "preemptor_unmatched_tasks";
 
+  @VisibleForTesting
+  static final String SLOT_SEARCH_PRUNED_NAME = "preemptor_slot_search_pruned_agents";
+
   private volatile boolean exported = false;
   private final CachedCounters counters;
 
@@ -79,7 +82,8 @@ public class PreemptorMetrics {
         slotValidationStatName(false),
         MISSING_ATTRIBUTES_NAME,
         TASK_PROCESSOR_RUN_NAME,
-        UNMATCHED_TASKS);
+        UNMATCHED_TASKS,
+        SLOT_SEARCH_PRUNED_NAME);
     for (String stat : allStats) {
       counters.get(stat);
     }
@@ -160,6 +164,10 @@ public class PreemptorMetrics {
     increment(UNMATCHED_TASKS);
   }
 
+  void recordSlotSearchPruned() {
+    increment(SLOT_SEARCH_PRUNED_NAME);
+  }
+
   void recordSlotValidationResult(Optional<?> result, IAssignedTask task) {
     increment(slotValidationStatName(result.isPresent()));
     increment(slotValidationByJobStatName(result.isPresent(), task.getTask().getJob()));
@@ -17,6 +17,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.inject.Inject;
 import javax.inject.Qualifier;
@@ -26,6 +27,8 @@ import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.AbstractScheduledService;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
 import com.google.inject.PrivateModule;
@@ -35,6 +38,7 @@ import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.app.MoreModules;
+import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.config.CliOptions;
 import org.apache.aurora.scheduler.config.splitters.CommaSplitter;
@@ -91,6 +95,12 @@ public class PreemptorModule extends AbstractModule {
         description = "The maximum number of reservations for a task group to be made in a batch.")
     public int reservationMaxBatchSize = 5;
 
+    @Parameter(names = "-preemption_slot_search_parallelism",
+        validateValueWith = PositiveNumber.class,
+        description = "The number of threads used to evaluate agents while searching for a "
+            + "preemption slot for a task group. A value of 1 searches on the calling thread.")
+    public int slotSearchParallelism = 1;
+
     @Parameter(names = "-preemption_slot_finder_modules",
         description = "Guice modules for custom preemption slot searching for pending tasks.",
         splitter = CommaSplitter.class)
@@ -134,6 +144,12 @@ public class PreemptorModule extends AbstractModule {
           bind(new TypeLiteral<Integer>() { })
               .annotatedWith(PendingTaskProcessor.ReservationBatchSize.class)
               .toInstance(options.reservationMaxBatchSize);
+          bind(new TypeLiteral<Integer>() { })
+              .annotatedWith(PendingTaskProcessor.SlotSearchParallelism.class)
+              .toInstance(options.slotSearchParallelism);
+          bind(ListeningExecutorService.class)
+              .annotatedWith(PendingTaskProcessor.SlotSearchExecutor.class)
+              .toInstance(slotSearchExecutor(options.slotSearchParallelism));
 
           for (Module module: MoreModules.instantiateAll(options.slotFinderModules, cliOptions)) {
             install(module);
@@ -169,14 +185,37 @@ public class PreemptorModule extends AbstractModule {
     }
   }
 
+  /**
+   * Creates the executor evaluating agents during a preemption slot search. Without parallelism
+   * agents are evaluated on the calling thread.
+   */
+  private static ListeningExecutorService slotSearchExecutor(int parallelism) {
+    if (parallelism == 1) {
+      return MoreExecutors.newDirectExecutorService();
+    }
+
+    return MoreExecutors.listeningDecorator(AsyncUtil.loggingExecutor(
+        parallelism,
+        parallelism,
+        new LinkedBlockingQueue<>(),
+        "PreemptorSlotSearch-%d",
+        LOG));
+  }
+
   static class PreemptorService extends AbstractScheduledService {
     private final Runnable slotFinder;
     private final Scheduler schedule;
+    private final ListeningExecutorService slotSearchExecutor;
 
     @Inject
-    PreemptorService(@PreemptionSlotFinder Runnable slotFinder, Scheduler schedule) {
+    PreemptorService(
+        @PreemptionSlotFinder Runnable slotFinder,
+        Scheduler schedule,
+        @PendingTaskProcessor.SlotSearchExecutor ListeningExecutorService slotSearchExecutor) {
+
       this.slotFinder = requireNonNull(slotFinder);
       this.schedule = requireNonNull(schedule);
+      this.slotSearchExecutor = requireNonNull(slotSearchExecutor);
     }
 
     @Override
@@ -184,6 +223,11 @@ public class PreemptorModule extends AbstractModule {
       slotFinder.run();
     }
 
+    @Override
+    protected void shutDown() {
+      slotSearchExecutor.shutdownNow();
+    }
+
     @Override
     protected Scheduler scheduler() {
       return schedule;
@@ -99,6 +99,13 @@ public class ReconciliationModule extends AbstractModule {
         validateValueWith = PositiveAmount.class,
         description = "Interval between explicit batch reconciliation requests.")
     public TimeAmount reconciliationBatchInterval = new TimeAmount(5L, Time.SECONDS);
+
+    @Parameter(names = "-reconciliation_explicit_shards",
+        validateValueWith = PositiveNumber.class,
+        description = "Number of shards, by agent, that tasks are split into for explicit "
+            + "reconciliation. One shard is reconciled at a time, so that all shards are "
+            + "reconciled once per reconciliation_explicit_interval.")
+    public int reconciliationExplicitShards = 60;
   }
 
   @Qualifier
@@ -148,7 +155,8 @@ public class ReconciliationModule extends AbstractModule {
             options.reconciliationImplicitInterval,
             options.reconciliationScheduleSpread,
             options.reconciliationBatchInterval,
-            options.reconciliationBatchSize));
+            options.reconciliationBatchSize,
+            options.reconciliationExplicitShards));
         bind(ScheduledExecutorService.class).annotatedWith(BackgroundWorker.class)
             .toInstance(AsyncUtil.loggingScheduledExecutor(1, "TaskReconciler-%d", LOG));
         bind(TaskReconciler.class).in(Singleton.class);
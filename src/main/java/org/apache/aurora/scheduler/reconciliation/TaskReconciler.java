@@ -13,23 +13,31 @@
  */
 package org.apache.aurora.scheduler.reconciliation;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimaps;
 import com.google.common.util.concurrent.AbstractIdleService;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.mesos.Driver;
@@ -43,6 +51,7 @@ import static java.util.Objects.requireNonNull;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import static org.apache.aurora.common.quantity.Time.MILLISECONDS;
 import static org.apache.aurora.common.quantity.Time.MINUTES;
 import static org.apache.aurora.common.quantity.Time.SECONDS;
 
@@ -50,6 +59,11 @@ import static org.apache.aurora.common.quantity.Time.SECONDS;
  * A task reconciler that periodically triggers Mesos (implicit) and Aurora (explicit) task
  * reconciliation to synchronize global task states. More on task reconciliation:
  * http://mesos.apache.org/documentation/latest/reconciliation.
+ * <p>
+ * Explicit reconciliation runs continuously rather than all at once. Tasks are split into shards
+ * by a hash of their agent, and one shard is reconciled at a time, at an even pace that covers
+ * every shard once per explicit reconciliation interval. Tasks are fetched once per sweep over all
+ * shards, and a shard counts as reconciled once all of its batches were sent.
  */
 public class TaskReconciler extends AbstractIdleService {
 
@@ -59,20 +73,41 @@ public class TaskReconciler extends AbstractIdleService {
   @VisibleForTesting
   static final String IMPLICIT_STAT_NAME = "reconciliation_implicit_runs";
 
+  @VisibleForTesting
+  static final String EXPLICIT_TASKS_STAT_NAME = "reconciliation_explicit_tasks";
+
+  @VisibleForTesting
+  static final String EXPLICIT_COVERAGE_LAG_STAT_NAME = "reconciliation_explicit_coverage_lag_ms";
+
+  // Tasks we have heard least recently about are reconciled first.
+  private static final Comparator<IScheduledTask> OLDEST_STATUS_FIRST =
+      Comparator.comparingLong(t -> Tasks.getLatestEvent(t).getTimestamp());
+
   private final TaskReconcilerSettings settings;
   private final Storage storage;
   private final Driver driver;
   private final ScheduledExecutorService executor;
+  private final Clock clock;
   private final AtomicLong explicitRuns;
   private final AtomicLong implicitRuns;
+  private final AtomicLong explicitTasks;
+
+  // Time at which each shard was last explicitly reconciled.
+  private final AtomicLongArray shardReconciledAt;
+
+  // Only accessed from the executor.
+  private int nextShard = 0;
+  // Assigned tasks of the current sweep over all shards, by shard. Only accessed from the executor.
+  private ImmutableListMultimap<Integer, IScheduledTask> sweep = ImmutableListMultimap.of();
 
   static class TaskReconcilerSettings {
-    private final Amount<Long, Time> explicitInterval;
     private final Amount<Long, Time> implicitInterval;
     private final long explicitDelayMinutes;
     private final long implicitDelayMinutes;
     private final long explicitBatchDelaySeconds;
     private final int explicitBatchSize;
+    private final int explicitShards;
+    private final long explicitShardIntervalMs;
 
     @VisibleForTesting
     TaskReconcilerSettings(
@@ -81,15 +116,21 @@ public class TaskReconciler extends AbstractIdleService {
         Amount<Long, Time> implicitInterval,
         Amount<Long, Time> scheduleSpread,
         Amount<Long, Time> explicitBatchInterval,
-        int explicitBatchSize) {
+        int explicitBatchSize,
+        int explicitShards) {
 
-      this.explicitInterval = requireNonNull(explicitInterval);
       this.implicitInterval = requireNonNull(implicitInterval);
       explicitDelayMinutes = requireNonNull(initialDelay).as(MINUTES);
       implicitDelayMinutes = initialDelay.as(MINUTES) + scheduleSpread.as(MINUTES);
       explicitBatchDelaySeconds = explicitBatchInterval.as(SECONDS);
       this.explicitBatchSize = explicitBatchSize;
+      this.explicitShards = explicitShards;
 
+      checkArgument(explicitShards > 0, "Invalid explicit shard count: %s", explicitShards);
+      explicitShardIntervalMs = requireNonNull(explicitInterval).as(MILLISECONDS) / explicitShards;
+      checkArgument(
+          explicitShardIntervalMs > 0,
+          "Explicit interval is too short for %s shards: %s", explicitShards, explicitInterval);
       checkArgument(
           explicitDelayMinutes >= 0,
           "Invalid explicit reconciliation delay: %s", explicitDelayMinutes);
@@ -109,14 +150,39 @@ public class TaskReconciler extends AbstractIdleService {
       Storage storage,
       Driver driver,
       @BackgroundWorker ScheduledExecutorService executor,
+      Clock clock,
       StatsProvider stats) {
 
     this.settings = requireNonNull(settings);
     this.storage = requireNonNull(storage);
     this.driver = requireNonNull(driver);
     this.executor = requireNonNull(executor);
+    this.clock = requireNonNull(clock);
     this.explicitRuns = stats.makeCounter(EXPLICIT_STAT_NAME);
     this.implicitRuns = stats.makeCounter(IMPLICIT_STAT_NAME);
+    this.explicitTasks = stats.makeCounter(EXPLICIT_TASKS_STAT_NAME);
+    this.shardReconciledAt = new AtomicLongArray(settings.explicitShards);
+    markReconciled(0, settings.explicitShards);
+    stats.makeGauge(EXPLICIT_COVERAGE_LAG_STAT_NAME, this::getCoverageLagMs);
+  }
+
+  /**
+   * Gets the time since the least recently reconciled shard was last explicitly reconciled. This
+   * is close to the explicit reconciliation interval while reconciliation keeps pace.
+   */
+  private long getCoverageLagMs() {
+    long oldest = Long.MAX_VALUE;
+    for (int i = 0; i < shardReconciledAt.length(); i++) {
+      oldest = Math.min(oldest, shardReconciledAt.get(i));
+    }
+    return clock.nowMillis() - oldest;
+  }
+
+  private void markReconciled(int fromShard, int toShard) {
+    long now = clock.nowMillis();
+    for (int i = fromShard; i < toShard; i++) {
+      shardReconciledAt.set(i, now);
+    }
   }
 
   public void triggerExplicitReconciliation(Optional<Integer> batchSize) {
@@ -135,10 +201,10 @@ public class TaskReconciler extends AbstractIdleService {
 
   private void scheduleExplicitReconciliation() {
     executor.scheduleAtFixedRate(
-        () -> doExplicitReconcile(settings.explicitBatchSize),
-        settings.explicitDelayMinutes,
-        settings.explicitInterval.as(MINUTES),
-        MINUTES.getTimeUnit());
+        this::reconcileNextShard,
+        TimeUnit.MINUTES.toMillis(settings.explicitDelayMinutes),
+        settings.explicitShardIntervalMs,
+        MILLISECONDS.getTimeUnit());
   }
 
   private void scheduleImplicitReconciliation() {
@@ -155,19 +221,82 @@ public class TaskReconciler extends AbstractIdleService {
   }
 
   private void doExplicitReconcile(int batchSize) {
-    Iterable<List<IScheduledTask>> activeBatches = Iterables.partition(
-        Storage.Util.fetchTasks(storage, Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES)),
-        batchSize);
+    reconcile(
+        fetchAssignedTasks().collect(Collectors.toList()),
+        batchSize,
+        () -> markReconciled(0, settings.explicitShards));
+    explicitRuns.incrementAndGet();
+  }
+
+  private void reconcileNextShard() {
+    int shard = nextShard;
+    if (shard == 0) {
+      sweep = Multimaps.index(
+          fetchAssignedTasks().iterator(),
+          t -> shardOf(t, settings.explicitShards));
+    }
+    reconcile(
+        sweep.get(shard),
+        settings.explicitBatchSize,
+        () -> markReconciled(shard, shard + 1));
+
+    nextShard = (shard + 1) % settings.explicitShards;
+    if (nextShard == 0) {
+      sweep = ImmutableListMultimap.of();
+      explicitRuns.incrementAndGet();
+    }
+  }
+
+  private Stream<IScheduledTask> fetchAssignedTasks() {
+    return StreamSupport.stream(
+        Storage.Util.fetchTasks(storage, Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES))
+            .spliterator(),
+        false);
+  }
+
+  /**
+   * Sends tasks for explicit reconciliation in batches, spaced by the batch delay.
+   *
+   * @param tasks Tasks to reconcile.
+   * @param batchSize Maximum number of tasks per batch.
+   * @param whenSent Called once the last batch was sent.
+   */
+  private void reconcile(List<IScheduledTask> tasks, int batchSize, Runnable whenSent) {
+    List<IScheduledTask> ordered = tasks.stream()
+        .sorted(OLDEST_STATUS_FIRST)
+        .collect(Collectors.toList());
+    explicitTasks.addAndGet(ordered.size());
+
+    List<List<IScheduledTask>> batches = Lists.partition(ordered, batchSize);
+    if (batches.isEmpty()) {
+      whenSent.run();
+      return;
+    }
 
     long delay = 0;
-    for (List<IScheduledTask> batch : activeBatches) {
-      executor.schedule(() -> driver.reconcileTasks(
-          batch.stream().map(TASK_TO_PROTO::apply).collect(Collectors.toList())),
+    for (int i = 0; i < batches.size(); i++) {
+      List<IScheduledTask> batch = batches.get(i);
+      boolean last = i == batches.size() - 1;
+      executor.schedule(
+          () -> {
+            driver.reconcileTasks(
+                batch.stream().map(TASK_TO_PROTO::apply).collect(Collectors.toList()));
+            if (last) {
+              whenSent.run();
+            }
+          },
           delay,
           SECONDS.getTimeUnit());
       delay += settings.explicitBatchDelaySeconds;
     }
-    explicitRuns.incrementAndGet();
+  }
+
+  /**
+   * Gets the explicit reconciliation shard of a task. All tasks on an agent are in the same shard.
+   */
+  @VisibleForTesting
+  static int shardOf(IScheduledTask task, int shards) {
+    return Math.floorMod(task.getAssignedTask().getSlaveId().hashCode(), shards);
   }
 
   @Override
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.resources;
 
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BinaryOperator;
@@ -23,9 +24,12 @@ import java.util.stream.StreamSupport;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 
 import org.apache.aurora.gen.ResourceAggregate;
+import org.apache.aurora.scheduler.base.Numbers;
 import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.storage.durability.ThriftBackfill;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
@@ -34,6 +38,8 @@ import org.apache.aurora.scheduler.storage.entities.IResourceAggregate;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.mesos.v1.Protos.Resource;
+import org.apache.mesos.v1.Protos.TaskInfo;
+import org.apache.mesos.v1.Protos.Value;
 
 import static org.apache.aurora.scheduler.resources.ResourceType.BY_MESOS_NAME;
 import static org.apache.aurora.scheduler.resources.ResourceType.fromResource;
@@ -145,6 +151,79 @@ public final class ResourceManager {
     return Iterables.filter(getOfferResources(offer, revocable), r -> fromResource(r).equals(type));
   }
 
+  /**
+   * Gets the offer left after allocating the resources of a task and its executor from it.
+   *
+   * @param offer Offer the task was allocated from.
+   * @param task Task allocated from {@code offer}.
+   * @return A copy of {@code offer} with the resources used by {@code task} removed.
+   */
+  public static Offer subtractTaskResources(Offer offer, TaskInfo task) {
+    List<Resource.Builder> remaining = offer.getResourcesList().stream()
+        .map(Resource::toBuilder)
+        .collect(Collectors.toList());
+
+    Iterable<Resource> used = Iterables.concat(
+        task.getResourcesList(),
+        task.hasExecutor() ? task.getExecutor().getResourcesList() : ImmutableList.of());
+    for (Resource resource : used) {
+      // Allocated resources are copies of the offer resources they were taken from, with only
+      // their values changed.
+      Resource slot = withoutValue(resource);
+      remaining.stream()
+          .filter(available -> slot.equals(withoutValue(available.build())))
+          .findFirst()
+          .ifPresent(available -> subtractValue(available, resource));
+    }
+
+    return offer.toBuilder()
+        .clearResources()
+        .addAllResources(remaining.stream()
+            .map(Resource.Builder::build)
+            .filter(ResourceManager::hasValue)
+            .collect(Collectors.toList()))
+        .build();
+  }
+
+  private static Resource withoutValue(Resource resource) {
+    return resource.toBuilder().clearScalar().clearRanges().clearSet().build();
+  }
+
+  private static boolean hasValue(Resource resource) {
+    switch (resource.getType()) {
+      case SCALAR:
+        return resource.getScalar().getValue() > 0;
+      case RANGES:
+        return resource.getRanges().getRangeCount() > 0;
+      default:
+        return resource.getSet().getItemCount() > 0;
+    }
+  }
+
+  private static void subtractValue(Resource.Builder available, Resource used) {
+    switch (available.getType()) {
+      case SCALAR:
+        available.getScalarBuilder().setValue(
+            Math.max(0, available.getScalar().getValue() - used.getScalar().getValue()));
+        break;
+
+      case RANGES:
+        Set<Integer> members = Sets.newHashSet(Iterables.concat(Iterables.transform(
+            available.getRanges().getRangeList(),
+            Numbers.RANGE_TO_MEMBERS)));
+        used.getRanges().getRangeList()
+            .forEach(range -> members.removeAll(Numbers.RANGE_TO_MEMBERS.apply(range)));
+        available.setRanges(Value.Ranges.newBuilder()
+            .addAllRange(Iterables.transform(Numbers.toRanges(members), Numbers.RANGE_TRANSFORM)));
+        break;
+
+      default:
+        Set<String> items = Sets.newHashSet(available.getSet().getItemList());
+        items.removeAll(used.getSet().getItemList());
+        available.setSet(Value.Set.newBuilder().addAllItem(items));
+    }
+  }
+
   /**
    * Same as {@link #getTaskResources(ITaskConfig, ResourceType)}.
    *
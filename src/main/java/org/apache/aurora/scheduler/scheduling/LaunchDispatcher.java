@@ -0,0 +1,203 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AbstractExecutionThreadService;
+
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.offers.OfferManager.LaunchException;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.Storage;
+import org.apache.mesos.v1.Protos;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.LOST;
+import static org.apache.aurora.scheduler.scheduling.TaskAssignerImpl.LAUNCH_FAILED_MSG;
+
+/**
+ * Dispatches task launches to the driver outside of the storage transaction that assigned the
+ * tasks.
+ * <p>
+ * A thread may open a deferral scope around a storage transaction. Launches made within the scope
+ * claim their offers right away, but only reach the driver once the scope is committed, from a
+ * dedicated launcher thread. This keeps driver latency out of the storage write lock, and ensures
+ * that tasks are never launched unless their assignment has been persisted. Launches that fail
+ * after being dispatched move their tasks to LOST in a new transaction, just like launches that
+ * fail within the transaction.
+ * <p>
+ * Launches made outside of a deferral scope are dispatched synchronously on the calling thread.
+ */
+public class LaunchDispatcher extends AbstractExecutionThreadService {
+  private static final Logger LOG = LoggerFactory.getLogger(LaunchDispatcher.class);
+
+  @VisibleForTesting
+  static final String LAUNCH_DISPATCHER_QUEUE_SIZE = "launch_dispatcher_queue_size";
+  @VisibleForTesting
+  static final String LAUNCH_DISPATCHER_LAUNCHES = "launch_dispatcher_launches";
+  @VisibleForTesting
+  static final String LAUNCH_DISPATCHER_FAILURES = "launch_dispatcher_failures";
+
+  private final OfferManager offerManager;
+  private final Storage storage;
+  private final StateManager stateManager;
+  private final BlockingQueue<Launch> launchQueue = new LinkedBlockingQueue<>();
+  private final ThreadLocal<List<Launch>> deferred = new ThreadLocal<>();
+  private final AtomicLong launches;
+  private final AtomicLong failures;
+
+  @Inject
+  LaunchDispatcher(
+      OfferManager offerManager,
+      Storage storage,
+      StateManager stateManager,
+      StatsProvider statsProvider) {
+
+    this.offerManager = requireNonNull(offerManager);
+    this.storage = requireNonNull(storage);
+    this.stateManager = requireNonNull(stateManager);
+    statsProvider.makeGauge(LAUNCH_DISPATCHER_QUEUE_SIZE, launchQueue::size);
+    this.launches = statsProvider.makeCounter(LAUNCH_DISPATCHER_LAUNCHES);
+    this.failures = statsProvider.makeCounter(LAUNCH_DISPATCHER_FAILURES);
+  }
+
+  /**
+   * Launches tasks against an offer. The offer is claimed immediately, while launching the tasks
+   * is deferred until the deferral scope of the calling thread is committed, if one is open.
+   *
+   * @param offerId Matched offer ID.
+   * @param tasks Matched task infos.
+   * @throws LaunchException If the offer could not be claimed, or the tasks could not be launched
+   *     synchronously.
+   */
+  public void launch(Protos.OfferID offerId, List<Protos.TaskInfo> tasks) throws LaunchException {
+    List<Launch> scope = deferred.get();
+    if (scope == null) {
+      offerManager.launchTasks(offerId, tasks);
+    } else {
+      offerManager.claim(offerId);
+      scope.add(new Launch(offerId, tasks));
+    }
+  }
+
+  /**
+   * Opens a deferral scope on the calling thread.
+   */
+  public void deferLaunches() {
+    deferred.set(Lists.newArrayList());
+  }
+
+  /**
+   * Closes the deferral scope of the calling thread, dispatching its launches.
+   */
+  public void commitLaunches() {
+    List<Launch> scope = deferred.get();
+    deferred.remove();
+    if (scope != null) {
+      launchQueue.addAll(scope);
+    }
+  }
+
+  /**
+   * Closes the deferral scope of the calling thread, dropping its launches and releasing the
+   * offers they claimed. This should be used when the transaction that assigned the tasks was not
+   * committed.
+   */
+  public void abortLaunches() {
+    List<Launch> scope = deferred.get();
+    deferred.remove();
+    if (scope != null && !scope.isEmpty()) {
+      LOG.warn("Dropping {} launches of a transaction that was not committed.", scope.size());
+      for (Launch launch : scope) {
+        offerManager.releaseClaimed(launch.offerId);
+      }
+    }
+  }
+
+  @Override
+  protected void run() throws InterruptedException {
+    while (isRunning()) {
+      // Make the loop responsive to shutdown under light load by using
+      // a short non-configurable timeout in poll().
+      Launch head = launchQueue.poll(3, TimeUnit.SECONDS);
+      if (head != null) {
+        List<Launch> batch = Lists.newArrayList(head);
+        launchQueue.drainTo(batch);
+        dispatch(batch);
+      }
+    }
+  }
+
+  @Override
+  protected void shutDown() {
+    List<Launch> batch = Lists.newArrayList();
+    launchQueue.drainTo(batch);
+    dispatch(batch);
+  }
+
+  private void dispatch(List<Launch> batch) {
+    List<String> failedTaskIds = Lists.newArrayList();
+    for (Launch launch : batch) {
+      try {
+        offerManager.acceptClaimed(launch.offerId, launch.tasks);
+        launches.incrementAndGet();
+      } catch (LaunchException e) {
+        LOG.warn("Failed to launch tasks.", e);
+        failures.incrementAndGet();
+        launch.tasks.forEach(task -> failedTaskIds.add(task.getTaskId().getValue()));
+      }
+    }
+
+    if (!failedTaskIds.isEmpty()) {
+      // Backpedal on the assignments, as is done for launches that fail within the scheduling
+      // transaction.
+      storage.write((Storage.MutateWork.NoResult.Quiet) storeProvider -> {
+        for (String taskId : failedTaskIds) {
+          stateManager.changeState(
+              storeProvider,
+              taskId,
+              Optional.of(ASSIGNED),
+              LOST,
+              LAUNCH_FAILED_MSG);
+        }
+      });
+    }
+  }
+
+  private static final class Launch {
+    private final Protos.OfferID offerId;
+    private final List<Protos.TaskInfo> tasks;
+
+    Launch(Protos.OfferID offerId, List<Protos.TaskInfo> tasks) {
+      this.offerId = requireNonNull(offerId);
+      this.tasks = ImmutableList.copyOf(tasks);
+    }
+  }
+}
@@ -104,6 +104,8 @@ public class SchedulingModule extends AbstractModule {
 
   @Override
   protected void configure() {
+    bind(SchedulingTracer.class).in(Singleton.class);
+
     install(new PrivateModule() {
       @Override
       protected void configure() {
@@ -133,6 +135,9 @@ public class SchedulingModule extends AbstractModule {
     bind(TaskGroups.TaskGroupBatchWorker.class).in(Singleton.class);
     addSchedulerActiveServiceBinding(binder()).to(TaskGroups.TaskGroupBatchWorker.class);
 
+    bind(LaunchDispatcher.class).in(Singleton.class);
+    addSchedulerActiveServiceBinding(binder()).to(LaunchDispatcher.class);
+
     install(new PrivateModule() {
       @Override
       protected void configure() {
@@ -0,0 +1,295 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import com.google.common.collect.EvictingQueue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import org.apache.aurora.common.stats.StatsProvider;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.stats.WindowedPercentiles;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Records per-phase durations of scheduling rounds.
+ * <p>
+ * A round covers a single scheduling attempt for a task group, and is bound to the thread
+ * performing it. Phases of a round are sequential: starting a phase ends the previously active
+ * one. Veto evaluation is the exception, as it happens lazily while iterating offers; veto time
+ * is recorded separately and excluded from the offer iteration phase.
+ * <p>
+ * Phase durations are exported as percentile stats, and the slowest rounds are retained in a
+ * bounded ring buffer for inspection.
+ */
+public class SchedulingTracer {
+
+  /**
+   * Phases of a scheduling round.
+   */
+  public enum Phase {
+    TASK_FETCH,
+    AGGREGATE_BUILD,
+    OFFER_ITERATION,
+    VETO_EVALUATION,
+    ASSIGNMENT,
+    LAUNCH,
+    PREEMPTION
+  }
+
+  @VisibleForTesting
+  static final int SLOW_ROUNDS_BUFFER_SIZE = 100;
+
+  private static final double[] PERCENTILES = {50, 90, 99};
+  private static final String UNKNOWN_GROUP = "unknown";
+
+  private final Ticker ticker;
+  private final Map<Phase, WindowedPercentiles> phasePercentiles;
+  private final WindowedPercentiles roundPercentiles;
+  private final EvictingQueue<RoundTrace> slowRounds =
+      EvictingQueue.create(SLOW_ROUNDS_BUFFER_SIZE);
+  private final ThreadLocal<Round> currentRound = new ThreadLocal<>();
+
+  @Inject
+  public SchedulingTracer(StatsProvider statsProvider) {
+    this(Ticker.systemTicker(), statsProvider);
+  }
+
+  @VisibleForTesting
+  SchedulingTracer(Ticker ticker, StatsProvider statsProvider) {
+    this.ticker = requireNonNull(ticker);
+    this.phasePercentiles = Maps.newEnumMap(Phase.class);
+    for (Phase phase : Phase.values()) {
+      phasePercentiles.put(
+          phase,
+          new WindowedPercentiles(
+              statsProvider,
+              "scheduling_round_" + phase.name().toLowerCase() + "_nanos",
+              WindowedPercentiles.DEFAULT_WINDOW_SIZE,
+              PERCENTILES));
+    }
+    this.roundPercentiles = new WindowedPercentiles(
+        statsProvider,
+        "scheduling_round_nanos",
+        WindowedPercentiles.DEFAULT_WINDOW_SIZE,
+        PERCENTILES);
+  }
+
+  /**
+   * Starts a scheduling round on the calling thread. Any round that was not finished on this
+   * thread is discarded.
+   */
+  public void startRound() {
+    currentRound.set(new Round(ticker.read()));
+  }
+
+  /**
+   * Starts a phase of the current round, ending the previously active phase. This is a no-op if
+   * there is no round in progress on the calling thread.
+   *
+   * @param phase Phase to start.
+   */
+  public void startPhase(Phase phase) {
+    Round round = currentRound.get();
+    if (round != null) {
+      round.startPhase(phase, ticker.read());
+    }
+  }
+
+  /**
+   * Records the time spent evaluating vetoes. Only veto evaluations that happen while iterating
+   * offers in the current round are recorded.
+   *
+   * @param nanos Duration of the veto evaluation.
+   */
+  public void recordVetoEvaluation(long nanos) {
+    Round round = currentRound.get();
+    if (round != null && round.activePhase == Phase.OFFER_ITERATION) {
+      round.phaseNanos[Phase.VETO_EVALUATION.ordinal()] += nanos;
+    }
+  }
+
+  /**
+   * Gets the current time of the ticker used for tracing, for callers measuring durations to
+   * pass to {@link #recordVetoEvaluation(long)}.
+   *
+   * @return Current ticker time in nanoseconds.
+   */
+  public long read() {
+    return ticker.read();
+  }
+
+  /**
+   * Finishes the current round, recording its phase durations. This is a no-op if there is no
+   * round in progress on the calling thread.
+   *
+   * @param groupKey Task group that was scheduled, if any tasks were found.
+   */
+  public void finishRound(Optional<TaskGroupKey> groupKey) {
+    Round round = currentRound.get();
+    if (round == null) {
+      return;
+    }
+    currentRound.remove();
+
+    long now = ticker.read();
+    round.startPhase(null, now);
+    long totalNanos = now - round.startNanos;
+
+    // Veto evaluation happens within offer iteration, exclude it to avoid double counting.
+    int iteration = Phase.OFFER_ITERATION.ordinal();
+    round.phaseNanos[iteration] = Math.max(
+        0,
+        round.phaseNanos[iteration] - round.phaseNanos[Phase.VETO_EVALUATION.ordinal()]);
+
+    EnumMap<Phase, Long> phases = Maps.newEnumMap(Phase.class);
+    for (Phase phase : Phase.values()) {
+      long nanos = round.phaseNanos[phase.ordinal()];
+      phasePercentiles.get(phase).record(nanos);
+      phases.put(phase, nanos);
+    }
+    roundPercentiles.record(totalNanos);
+
+    // Rounds are only retained in the ring buffer if they are at least as slow as the most
+    // recently sampled p99, so that the buffer reflects tail latency.
+    if (totalNanos >= roundPercentiles.getSampled(PERCENTILES[2])) {
+      synchronized (slowRounds) {
+        slowRounds.add(new RoundTrace(
+            groupKey.map(TaskGroupKey::toString).orElse(UNKNOWN_GROUP),
+            totalNanos,
+            phases));
+      }
+    }
+  }
+
+  /**
+   * Gets the most recently sampled percentiles of round and phase durations, in nanoseconds.
+   *
+   * @return Percentiles keyed by phase name (or {@code round} for the whole round), then by
+   *     percentile.
+   */
+  public Map<String, Map<Double, Long>> getPercentiles() {
+    ImmutableMap.Builder<String, Map<Double, Long>> builder = ImmutableMap.builder();
+    builder.put("round", toMap(roundPercentiles));
+    for (Phase phase : Phase.values()) {
+      builder.put(phase.name().toLowerCase(), toMap(phasePercentiles.get(phase)));
+    }
+    return builder.build();
+  }
+
+  private static Map<Double, Long> toMap(WindowedPercentiles percentiles) {
+    ImmutableMap.Builder<Double, Long> builder = ImmutableMap.builder();
+    for (double value : PERCENTILES) {
+      builder.put(value, (long) percentiles.getSampled(value));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Gets the retained slow rounds, oldest first.
+   *
+   * @return Recent slow rounds.
+   */
+  public List<RoundTrace> getSlowRounds() {
+    synchronized (slowRounds) {
+      return ImmutableList.copyOf(slowRounds);
+    }
+  }
+
+  private static final class Round {
+    private final long startNanos;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private Phase activePhase;
+    private long activePhaseStartNanos;
+
+    Round(long startNanos) {
+      this.startNanos = startNanos;
+    }
+
+    void startPhase(Phase phase, long now) {
+      if (activePhase != null) {
+        phaseNanos[activePhase.ordinal()] += now - activePhaseStartNanos;
+      }
+      activePhase = phase;
+      activePhaseStartNanos = now;
+    }
+  }
+
+  /**
+   * A completed scheduling round.
+   */
+  public static final class RoundTrace {
+    private final String group;
+    private final long totalNanos;
+    private final Map<Phase, Long> phaseNanos;
+
+    @VisibleForTesting
+    RoundTrace(String group, long totalNanos, Map<Phase, Long> phaseNanos) {
+      this.group = requireNonNull(group);
+      this.totalNanos = totalNanos;
+      this.phaseNanos = ImmutableMap.copyOf(phaseNanos);
+    }
+
+    public String getGroup() {
+      return group;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public Map<Phase, Long> getPhaseNanos() {
+      return phaseNanos;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof RoundTrace)) {
+        return false;
+      }
+
+      RoundTrace other = (RoundTrace) o;
+      return Objects.equals(group, other.group)
+          && totalNanos == other.totalNanos
+          && Objects.equals(phaseNanos, other.phaseNanos);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(group, totalNanos, phaseNanos);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("group", group)
+          .add("totalNanos", totalNanos)
+          .add("phaseNanos", phaseNanos)
+          .toString();
+    }
+  }
+}
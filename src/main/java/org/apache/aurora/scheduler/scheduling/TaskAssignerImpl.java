@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.scheduling;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -24,6 +25,7 @@ import javax.inject.Inject;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import org.apache.aurora.common.stats.StatsProvider;
@@ -34,8 +36,10 @@ import org.apache.aurora.scheduler.mesos.MesosTaskFactory;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.offers.OfferManager.LaunchException;
+import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.resources.ResourceType;
+import org.apache.aurora.scheduler.scheduling.SchedulingTracer.Phase;
 import org.apache.aurora.scheduler.state.StateManager;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
@@ -66,6 +70,8 @@ public class TaskAssignerImpl implements TaskAssigner {
   private final MesosTaskFactory taskFactory;
   private final OfferManager offerManager;
   private final UpdateAgentReserver updateAgentReserver;
+  private final SchedulingTracer tracer;
+  private final LaunchDispatcher launchDispatcher;
 
   @Inject
   public TaskAssignerImpl(
@@ -73,13 +79,17 @@ public class TaskAssignerImpl implements TaskAssigner {
       MesosTaskFactory taskFactory,
       OfferManager offerManager,
       UpdateAgentReserver updateAgentReserver,
-      StatsProvider statsProvider) {
+      StatsProvider statsProvider,
+      SchedulingTracer tracer,
+      LaunchDispatcher launchDispatcher) {
 
     this.stateManager = requireNonNull(stateManager);
     this.taskFactory = requireNonNull(taskFactory);
     this.offerManager = requireNonNull(offerManager);
     this.launchFailures = statsProvider.makeCounter(ASSIGNER_LAUNCH_FAILURES);
     this.updateAgentReserver = requireNonNull(updateAgentReserver);
+    this.tracer = requireNonNull(tracer);
+    this.launchDispatcher = requireNonNull(launchDispatcher);
   }
 
   @VisibleForTesting
@@ -115,24 +125,39 @@ public class TaskAssignerImpl implements TaskAssigner {
   private void launchUsingOffer(
       MutableStoreProvider stores,
       ResourceRequest resourceRequest,
-      IAssignedTask task,
-      HostOffer offer) throws LaunchException {
+      OfferMatch match) throws LaunchException {
+
+    tracer.startPhase(Phase.ASSIGNMENT);
+    List<Protos.TaskInfo> taskInfos = Lists.newArrayListWithCapacity(match.tasks.size());
+    Protos.Offer offer = match.offer.getOffer();
+    for (IAssignedTask task : match.tasks) {
+      if (!taskInfos.isEmpty()) {
+        // Allocate each task from what is left of the offer, so that tasks sharing the offer do
+        // not claim the same resources (e.g. ports).
+        offer = ResourceManager.subtractTaskResources(offer, Iterables.getLast(taskInfos));
+      }
+      taskInfos.add(assign(stores, offer, task.getTaskId(), resourceRequest.isRevocable()));
+    }
 
-    String taskId = task.getTaskId();
-    Protos.TaskInfo taskInfo =
-        assign(stores, offer.getOffer(), taskId, resourceRequest.isRevocable());
-    resourceRequest.getJobState().updateAttributeAggregate(offer.getAttributes());
+    tracer.startPhase(Phase.LAUNCH);
     try {
-      offerManager.launchTask(offer.getOffer().getId(), taskInfo);
+      launchDispatcher.launch(match.offer.getOffer().getId(), taskInfos);
     } catch (LaunchException e) {
-      LOG.warn("Failed to launch task.", e);
-      launchFailures.incrementAndGet();
+      LOG.warn("Failed to launch tasks.", e);
+      launchFailures.addAndGet(match.tasks.size());
 
-      // The attempt to schedule the task failed, so we need to backpedal on the assignment.
-      // It is in the LOST state and a new task will move to PENDING to replace it.
-      // Should the state change fail due to storage issues, that's okay.  The task will
+      // The attempt to schedule the tasks failed, so we need to backpedal on the assignments.
+      // They are in the LOST state and new tasks will move to PENDING to replace them.
+      // Should the state change fail due to storage issues, that's okay.  The tasks will
       // time out in the ASSIGNED state and be moved to LOST.
-      stateManager.changeState(stores, taskId, Optional.of(ASSIGNED), LOST, LAUNCH_FAILED_MSG);
+      for (IAssignedTask task : match.tasks) {
+        stateManager.changeState(
+            stores,
+            task.getTaskId(),
+            Optional.of(ASSIGNED),
+            LOST,
+            LAUNCH_FAILED_MSG);
+      }
       throw e;
     }
   }
@@ -173,8 +198,8 @@ public class TaskAssignerImpl implements TaskAssigner {
         Protos.AgentID.newBuilder().setValue(agentId.get()).build(),
         resourceRequest);
     if (offer.isPresent()) {
-      LOG.info("Used update reservation for {} on {}", key, agentId.get());
-      updateAgentReserver.release(agentId.get(), key);
+      // The reservation is only released once the task is launched, as the offer may not have
+      // room left for the task.
       return ReservationStatus.ready(offer.get());
     } else {
       LOG.info(
@@ -202,50 +227,110 @@ public class TaskAssignerImpl implements TaskAssigner {
     return reservedForPreemption || updateAgentReserver.isReserved(agentId);
   }
 
-  private static class SchedulingMatch {
-    final IAssignedTask task;
+  /**
+   * Tasks matched against a single offer, along with the offer resources they leave unused.
+   */
+  private static class OfferMatch {
     final HostOffer offer;
+    final List<IAssignedTask> tasks = Lists.newArrayList();
+    // Instances among the tasks that were matched using an update reservation of the agent.
+    final List<IInstanceKey> reservations = Lists.newArrayList();
+    ResourceBag remaining;
 
-    SchedulingMatch(IAssignedTask task, HostOffer offer) {
-      this.task = requireNonNull(task);
+    OfferMatch(HostOffer offer, ResourceBag remaining) {
       this.offer = requireNonNull(offer);
+      this.remaining = requireNonNull(remaining);
+    }
+
+    void add(IAssignedTask task, ResourceBag request) {
+      tasks.add(task);
+      remaining = remaining.subtract(request);
+    }
+
+    /**
+     * Undoes the matches when their tasks are not launched, returning their resources to the offer
+     * and removing them from the job's attribute aggregate.
+     */
+    void release(ResourceRequest resourceRequest) {
+      remaining = remaining.add(resourceRequest.getResourceBag().scale(tasks.size()));
+      for (int i = 0; i < tasks.size(); i++) {
+        resourceRequest.getJobState().revertAttributeAggregate(offer.getAttributes());
+      }
+      tasks.clear();
+      reservations.clear();
     }
   }
 
-  private Collection<SchedulingMatch> findMatches(
+  /**
+   * Determine whether an offer has room for another task. Offers that have not been matched yet
+   * have been checked against the full request by the scheduling filter already.
+   */
+  private static boolean hasRoom(
+      Map<String, OfferMatch> matchesByOffer,
+      HostOffer offer,
+      ResourceBag request) {
+
+    OfferMatch match = matchesByOffer.get(offer.getOffer().getId().getValue());
+    return match == null || match.remaining.greaterThanOrEqualTo(request);
+  }
+
+  private Collection<OfferMatch> findMatches(
       ResourceRequest resourceRequest,
       TaskGroupKey groupKey,
       Set<IAssignedTask> tasks,
       Map<String, TaskGroupKey> preemptionReservations) {
 
-    // Avoid matching multiple tasks against any offer.
-    Map<String, SchedulingMatch> matchesByOffer = Maps.newHashMap();
+    // Multiple tasks may be matched against an offer for as long as its resources allow, so that
+    // they are launched with a single accept call.
+    Map<String, OfferMatch> matchesByOffer = Maps.newLinkedHashMap();
+    ResourceBag request = resourceRequest.getResourceBag();
 
     tasks.forEach(task -> {
       ReservationStatus reservation = getReservation(task, resourceRequest);
       Optional<HostOffer> chosenOffer;
       if (reservation.isTaskReserving()) {
         // Use the reserved offer, which may not currently exist.
-        chosenOffer = reservation.getOffer();
+        chosenOffer = reservation.getOffer().filter(o -> hasRoom(matchesByOffer, o, request));
       } else {
         // Get all offers that will satisfy the given ResourceRequest and that are not reserved
         // for updates or preemption.
         Iterable<HostOffer> matchingOffers = Iterables.filter(
             offerManager.getAllMatching(groupKey, resourceRequest),
-            o -> !matchesByOffer.containsKey(o.getOffer().getId().getValue())
+            o -> hasRoom(matchesByOffer, o, request)
                 && !isAgentReserved(o, groupKey, preemptionReservations));
 
         chosenOffer = Optional.ofNullable(Iterables.getFirst(matchingOffers, null));
       }
 
-      chosenOffer.ifPresent(hostOffer -> matchesByOffer.put(
-          hostOffer.getOffer().getId().getValue(),
-          new SchedulingMatch(task, hostOffer)));
+      chosenOffer.ifPresent(hostOffer -> {
+        OfferMatch match = matchesByOffer.computeIfAbsent(
+            hostOffer.getOffer().getId().getValue(),
+            id -> new OfferMatch(
+                hostOffer,
+                hostOffer.getResourceBag(resourceRequest.isRevocable())));
+        match.add(task, request);
+        if (reservation.isTaskReserving()) {
+          match.reservations.add(
+              InstanceKeys.from(task.getTask().getJob(), task.getInstanceId()));
+        }
+
+        // Account for the match right away, so that limit constraints are enforced against
+        // subsequent tasks matching the same host.
+        resourceRequest.getJobState().updateAttributeAggregate(hostOffer.getAttributes());
+      });
     });
 
     return matchesByOffer.values();
   }
 
+  private void releaseUpdateReservations(OfferMatch match) {
+    String agentId = match.offer.getOffer().getAgentId().getValue();
+    for (IInstanceKey key : match.reservations) {
+      LOG.info("Used update reservation for {} on {}", key, agentId);
+      updateAgentReserver.release(agentId, key);
+    }
+  }
+
   @Timed("assigner_maybe_assign")
   @Override
   public Set<String> maybeAssign(
@@ -257,13 +342,23 @@ public class TaskAssignerImpl implements TaskAssigner {
 
     ImmutableSet.Builder<String> assigned = ImmutableSet.builder();
 
-    for (SchedulingMatch match : findMatches(resourceRequest, groupKey, tasks, reservations)) {
+    tracer.startPhase(Phase.OFFER_ITERATION);
+    boolean launchFailed = false;
+    for (OfferMatch match : findMatches(resourceRequest, groupKey, tasks, reservations)) {
+      if (launchFailed) {
+        // Matches after a failed launch are not attempted.
+        match.release(resourceRequest);
+        continue;
+      }
+
       try {
-        launchUsingOffer(storeProvider, resourceRequest, match.task, match.offer);
-        assigned.add(match.task.getTaskId());
+        launchUsingOffer(storeProvider, resourceRequest, match);
+        match.tasks.forEach(task -> assigned.add(task.getTaskId()));
+        releaseUpdateReservations(match);
       } catch (LaunchException e) {
         // Any launch exception causes the scheduling round to terminate for this TaskGroup.
-        break;
+        match.release(resourceRequest);
+        launchFailed = true;
       }
     }
 
@@ -15,11 +15,17 @@ package org.apache.aurora.scheduler.scheduling;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -28,8 +34,12 @@ import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.RateLimiter;
@@ -39,16 +49,28 @@ import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.stats.SlidingStats;
 import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.util.BackoffStrategy;
+import org.apache.aurora.common.util.Clock;
 import org.apache.aurora.scheduler.BatchWorker;
+import org.apache.aurora.scheduler.SchedulerModule;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.config.CliOptions;
 import org.apache.aurora.scheduler.events.PubsubEvent.EventSubscriber;
+import org.apache.aurora.scheduler.events.PubsubEvent.OfferAvailable;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.preemptor.Preemptor;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static java.lang.annotation.ElementType.FIELD;
 import static java.lang.annotation.ElementType.METHOD;
@@ -67,11 +89,31 @@ import static org.apache.aurora.gen.ScheduleStatus.PENDING;
  * This is used to prevent redundant work in trying to schedule tasks as well as to provide
  * nearly-equal responsiveness when scheduling across jobs.  In other words, a 1000 instance job
  * cannot starve a 1 instance job.
+ * <p>
+ * Groups are evaluated by a single scheduling loop running on the async executor. Groups wait in
+ * a delay queue while penalized, and ready groups are submitted to the batch worker in weighted
+ * fair order across roles and tiers without blocking on the result.
+ * <p>
+ * Groups that fail to schedule are parked: when their backoff expires, they are only retried if
+ * an outstanding offer could plausibly fit them (or a preemption slot is held for them), and are
+ * otherwise left waiting on their next backoff. Newly available offers wake parked groups that
+ * they could plausibly fit, short-circuiting the remaining backoff.
  */
 public class TaskGroups implements EventSubscriber {
 
   @VisibleForTesting
   static final String SCHEDULE_ATTEMPTS_BLOCKS = "schedule_attempts_blocks";
+  @VisibleForTesting
+  static final String SCHEDULE_ATTEMPTS_PARKED = "schedule_attempts_parked";
+  @VisibleForTesting
+  static final String GROUPS_WOKEN_BY_OFFERS = "task_groups_woken_by_offers";
+  @VisibleForTesting
+  static final String PARKED_GROUPS = "task_groups_parked";
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskGroups.class);
+
+  // Production groups are attempted twice as often as non-production groups of a role.
+  private static final int PRODUCTION_WEIGHT = 2;
 
   private final ConcurrentMap<TaskGroupKey, TaskGroup> groups = Maps.newConcurrentMap();
   private final ScheduledExecutorService executor;
@@ -79,12 +121,38 @@ public class TaskGroups implements EventSubscriber {
   private final TaskScheduler taskScheduler;
   private final RescheduleCalculator rescheduleCalculator;
   private final BatchWorker<Set<String>> batchWorker;
+  private final Clock clock;
+  private final OfferManager offerManager;
+  private final Preemptor preemptor;
+
+  // Groups waiting for their penalty to expire, ordered by the time they become ready, then by the
+  // order they were queued in. Guarded by the intrinsic lock, as are the fields below.
+  private final PriorityQueue<DelayedGroup> readyQueue = new PriorityQueue<>(
+      Comparator.<DelayedGroup>comparingLong(delayed -> delayed.readyAtMs)
+          .thenComparingLong(delayed -> delayed.sequence));
+  private long nextSequence;
+  private long nextWakeupMs = Long.MAX_VALUE;
+  // Pending run of the scheduling loop for the next group to become ready, if it is delayed.
+  private ScheduledFuture<?> wakeup;
+  // Whether a pass of the scheduling loop is active, and whether another pass was requested
+  // meanwhile. Only one pass runs at a time, a requested pass runs when the active one completes.
+  private boolean loopRunning;
+  private boolean loopRequested;
+  // Queued groups that failed their last scheduling attempt, indexed by their resource shape so
+  // that an offer is compared against each distinct shape once.
+  private final Map<ResourceBag, Map<TaskGroupKey, DelayedGroup>> parked = Maps.newHashMap();
+  // Weighted fair queueing state: the virtual time of the last attempted group, and the virtual
+  // finish time of the last attempt of each share still ahead of it.
+  private final Map<Share, Double> shareFinishTimes = Maps.newHashMap();
+  private double virtualTime;
 
   // Track the penalties of tasks at the time they were scheduled. This is to provide data that
   // may influence the selection of a different backoff strategy.
   private final SlidingStats scheduledTaskPenalties =
       new SlidingStats("scheduled_task_penalty", "ms");
   private final AtomicLong scheduleAttemptsBlocks;
+  private final AtomicLong scheduleAttemptsParked;
+  private final AtomicLong groupsWokenByOffers;
 
   /**
    * Annotation for the max scheduling batch size.
@@ -96,19 +164,44 @@ public class TaskGroups implements EventSubscriber {
 
   @VisibleForTesting
   public static class TaskGroupBatchWorker extends BatchWorker<Set<String>> {
+    private final LaunchDispatcher launchDispatcher;
+
     @Inject
     TaskGroupBatchWorker(
         Storage storage,
         StatsProvider statsProvider,
-        @SchedulingMaxBatchSize int maxBatchSize) {
+        @SchedulingMaxBatchSize int maxBatchSize,
+        LaunchDispatcher launchDispatcher,
+        CliOptions options) {
 
-      super(storage, statsProvider, maxBatchSize);
+      super(
+          storage,
+          statsProvider,
+          maxBatchSize,
+          SchedulerModule.batchLockHoldTarget(options));
+      this.launchDispatcher = requireNonNull(launchDispatcher);
     }
 
     @Override
     protected String serviceName() {
       return "TaskGroupBatchWorker";
     }
+
+    @Override
+    protected void beforeBatch() {
+      // Hold off launching tasks until their assignment is committed, so that the driver is not
+      // called while holding the storage write lock.
+      launchDispatcher.deferLaunches();
+    }
+
+    @Override
+    protected void afterBatch(boolean committed) {
+      if (committed) {
+        launchDispatcher.commitLaunches();
+      } else {
+        launchDispatcher.abortLaunches();
+      }
+    }
   }
 
   public static class TaskGroupsSettings {
@@ -140,63 +233,285 @@ public class TaskGroups implements EventSubscriber {
       TaskScheduler taskScheduler,
       RescheduleCalculator rescheduleCalculator,
       TaskGroupBatchWorker batchWorker,
-      StatsProvider statsProvider) {
+      StatsProvider statsProvider,
+      Clock clock,
+      OfferManager offerManager,
+      Preemptor preemptor) {
 
     this.executor = requireNonNull(executor);
     this.settings = requireNonNull(settings);
     this.taskScheduler = requireNonNull(taskScheduler);
     this.rescheduleCalculator = requireNonNull(rescheduleCalculator);
     this.batchWorker = requireNonNull(batchWorker);
+    this.clock = requireNonNull(clock);
+    this.offerManager = requireNonNull(offerManager);
+    this.preemptor = requireNonNull(preemptor);
     this.scheduleAttemptsBlocks = statsProvider.makeCounter(SCHEDULE_ATTEMPTS_BLOCKS);
+    this.scheduleAttemptsParked = statsProvider.makeCounter(SCHEDULE_ATTEMPTS_PARKED);
+    this.groupsWokenByOffers = statsProvider.makeCounter(GROUPS_WOKEN_BY_OFFERS);
+    statsProvider.makeGauge(PARKED_GROUPS, this::parkedGroupCount);
+  }
+
+  private synchronized int parkedGroupCount() {
+    return parked.values().stream().mapToInt(Map::size).sum();
   }
 
-  private synchronized void evaluateGroupLater(Runnable evaluate, TaskGroup group) {
+  private synchronized void evaluateGroupLater(TaskGroup group, boolean park) {
     // Avoid check-then-act by holding the intrinsic lock.  If not done atomically, we could
     // remove a group while a task is being added to it.
     if (group.hasMore()) {
-      executor.schedule(evaluate, group.getPenaltyMs(), TimeUnit.MILLISECONDS);
+      enqueue(new DelayedGroup(
+          group,
+          clock.nowMillis() + group.getPenaltyMs(),
+          park ? Optional.of(shapeOf(group)) : Optional.empty()));
+      scheduleWakeup();
     } else {
       groups.remove(group.getKey());
     }
   }
 
-  private void startGroup(final TaskGroup group) {
-    Runnable monitor = new Runnable() {
-      @Override
-      public void run() {
-        final Set<String> taskIds = group.peek(settings.maxTasksPerSchedule);
-        long penaltyMs = 0;
-        if (!taskIds.isEmpty()) {
-          if (settings.rateLimiter.acquire() > 0) {
-            scheduleAttemptsBlocks.incrementAndGet();
-          }
-          CompletableFuture<Set<String>> result = batchWorker.execute(storeProvider ->
-              taskScheduler.schedule(storeProvider, taskIds));
-
-          Set<String> scheduled = null;
-          try {
-            scheduled = result.get();
-          } catch (ExecutionException | InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e);
-          }
-
-          scheduledTaskPenalties.accumulate(group.getPenaltyMs());
-          if (scheduled.isEmpty()) {
-            penaltyMs = settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs());
-          } else {
-            group.remove(scheduled);
-            if (group.hasMore()) {
-              penaltyMs = settings.firstScheduleDelay.as(Time.MILLISECONDS);
-            }
-          }
+  /**
+   * Returns groups that could not be attempted due to rate limiting to the delay queue. They are
+   * retried after the first schedule delay, rather than blocking a thread of the async executor
+   * until the rate limiter permits another attempt.
+   */
+  private synchronized void requeueThrottled(List<DelayedGroup> throttled) {
+    long readyAtMs = clock.nowMillis() + settings.firstScheduleDelay.as(Time.MILLISECONDS);
+    for (DelayedGroup delayed : throttled) {
+      enqueue(new DelayedGroup(delayed.group, readyAtMs, delayed.parkedShape));
+    }
+    scheduleWakeup();
+  }
+
+  // Must be called while holding the intrinsic lock.
+  private void enqueue(DelayedGroup delayed) {
+    delayed.sequence = nextSequence++;
+    readyQueue.add(delayed);
+    if (delayed.parkedShape.isPresent()) {
+      parked.computeIfAbsent(delayed.parkedShape.get(), shape -> Maps.newHashMap())
+          .put(delayed.group.getKey(), delayed);
+    }
+  }
+
+  private static ResourceBag shapeOf(TaskGroup group) {
+    return ResourceManager.bagFromResources(group.getKey().getTask().getResources());
+  }
+
+  // Must be called while holding the intrinsic lock.
+  private void scheduleWakeup() {
+    while (!readyQueue.isEmpty() && readyQueue.peek().stale) {
+      readyQueue.poll();
+    }
+    DelayedGroup next = readyQueue.peek();
+    if (next != null && next.readyAtMs < nextWakeupMs) {
+      nextWakeupMs = next.readyAtMs;
+      // The pending wakeup is later than the new one, which takes its place.
+      if (wakeup != null) {
+        wakeup.cancel(false);
+        wakeup = null;
+      }
+      long delayMs = next.readyAtMs - clock.nowMillis();
+      if (delayMs > 0) {
+        wakeup = executor.schedule(this::runSchedulingLoop, delayMs, TimeUnit.MILLISECONDS);
+      } else {
+        executor.execute(this::runSchedulingLoop);
+      }
+    }
+  }
+
+  /**
+   * Removes all groups whose penalty has expired from the delay queue, in fair-share order.
+   * <p>
+   * Groups are ordered by weighted fair queueing across shares, where a share is the role of the
+   * group and whether it is a production group. Each attempt advances the virtual time of its
+   * share by the inverse of the share weight, so that a role with many ready groups cannot starve
+   * other roles, and production groups are attempted more often than non-production ones.
+   */
+  private synchronized List<DelayedGroup> drainReadyGroups() {
+    long now = clock.nowMillis();
+    if (nextWakeupMs <= now) {
+      nextWakeupMs = Long.MAX_VALUE;
+      wakeup = null;
+    }
+
+    List<DelayedGroup> ready = Lists.newArrayList();
+    while (!readyQueue.isEmpty() && readyQueue.peek().readyAtMs <= now) {
+      DelayedGroup delayed = readyQueue.poll();
+      if (delayed.stale) {
+        continue;
+      }
+      if (delayed.parkedShape.isPresent()) {
+        Map<TaskGroupKey, DelayedGroup> sameShape = parked.get(delayed.parkedShape.get());
+        sameShape.remove(delayed.group.getKey());
+        if (sameShape.isEmpty()) {
+          parked.remove(delayed.parkedShape.get());
         }
+      }
+      ITaskConfig task = delayed.group.getKey().getTask();
+      Share share = new Share(task.getJob().getRole(), task.isProduction());
+      double start = Math.max(virtualTime, shareFinishTimes.getOrDefault(share, 0D));
+      double finish = start + 1D / (share.production ? PRODUCTION_WEIGHT : 1);
+      shareFinishTimes.put(share, finish);
+      delayed.finishTime = finish;
+      ready.add(delayed);
+    }
+    scheduleWakeup();
+
+    if (ready.isEmpty()) {
+      return ImmutableList.of();
+    }
+
+    ready.sort(Comparator.comparingDouble(delayed -> delayed.finishTime));
+    virtualTime = Iterables.getLast(ready).finishTime;
+    // Shares that have caught up with the virtual time no longer carry any credit.
+    shareFinishTimes.values().removeIf(finish -> finish <= virtualTime);
+    return ready;
+  }
+
+  private boolean mayFit(
+      TaskGroupKey key,
+      ResourceBag shape,
+      Supplier<List<ResourceBag>> offered,
+      Map<ResourceBag, Boolean> fitsByShape) {
+
+    if (preemptor.hasPreemptionSlot(key)) {
+      return true;
+    }
+
+    return fitsByShape.computeIfAbsent(
+        shape,
+        required -> offered.get().stream().anyMatch(bag -> bag.greaterThanOrEqualTo(required)));
+  }
 
-        group.setPenaltyMs(penaltyMs);
-        evaluateGroupLater(this, group);
+  private void runSchedulingLoop() {
+    synchronized (this) {
+      if (loopRunning) {
+        loopRequested = true;
+        return;
+      }
+      loopRunning = true;
+    }
+
+    boolean rerun = true;
+    try {
+      while (rerun) {
+        runSchedulingPass();
+        synchronized (this) {
+          rerun = loopRequested;
+          loopRequested = false;
+          loopRunning = rerun;
+        }
       }
-    };
-    evaluateGroupLater(monitor, group);
+    } finally {
+      if (rerun) {
+        // The pass failed, allow the next wakeup to run the loop.
+        synchronized (this) {
+          loopRunning = false;
+        }
+      }
+    }
+  }
+
+  private void runSchedulingPass() {
+    // Outstanding offers are only needed for parked groups, and are read at most once per pass.
+    Supplier<List<ResourceBag>> offered = Suppliers.memoize(() ->
+        ImmutableList.copyOf(Iterables.transform(
+            offerManager.getAll(),
+            offer -> ResourceManager.bagFromMesosResources(offer.getOffer().getResourcesList()))));
+    Map<ResourceBag, Boolean> fitsByShape = Maps.newHashMap();
+
+    List<DelayedGroup> ready = drainReadyGroups();
+    for (int i = 0; i < ready.size(); i++) {
+      DelayedGroup delayed = ready.get(i);
+      TaskGroup group = delayed.group;
+      Set<String> taskIds = group.peek(settings.maxTasksPerSchedule);
+      if (taskIds.isEmpty()) {
+        group.setPenaltyMs(0);
+        evaluateGroupLater(group, false);
+        continue;
+      }
+
+      if (delayed.parkedShape.isPresent()
+          && !mayFit(group.getKey(), delayed.parkedShape.get(), offered, fitsByShape)) {
+        // Nothing could fit the group, keep it parked rather than spending an attempt on it.
+        scheduleAttemptsParked.incrementAndGet();
+        group.setPenaltyMs(settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs()));
+        evaluateGroupLater(group, true);
+        continue;
+      }
+
+      if (!settings.rateLimiter.tryAcquire()) {
+        scheduleAttemptsBlocks.incrementAndGet();
+        requeueThrottled(ready.subList(i, ready.size()));
+        return;
+      }
+      batchWorker.execute(storeProvider -> taskScheduler.schedule(storeProvider, taskIds))
+          .whenComplete((scheduled, error) -> groupScheduled(group, scheduled, error));
+    }
+  }
+
+  private void groupScheduled(TaskGroup group, Set<String> scheduled, Throwable error) {
+    long penaltyMs = 0;
+    boolean park = false;
+    scheduledTaskPenalties.accumulate(group.getPenaltyMs());
+    if (error != null) {
+      LOG.error("Failed to schedule tasks of group " + group.getName(), error);
+      penaltyMs = settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs());
+    } else if (scheduled.isEmpty()) {
+      penaltyMs = settings.taskGroupBackoff.calculateBackoffMs(group.getPenaltyMs());
+      park = true;
+    } else {
+      group.remove(scheduled);
+      if (group.hasMore()) {
+        penaltyMs = settings.firstScheduleDelay.as(Time.MILLISECONDS);
+      }
+    }
+
+    group.setPenaltyMs(penaltyMs);
+    evaluateGroupLater(group, park);
+  }
+
+  /**
+   * Wakes parked task groups that could plausibly fit a newly available offer, so that they are
+   * attempted without waiting for their backoff to expire. Only the resource shape of the groups
+   * is considered, constraints are left to the scheduling attempt.
+   *
+   * @param event Offer available event.
+   */
+  @Subscribe
+  public synchronized void offerAvailable(OfferAvailable event) {
+    if (parked.isEmpty()) {
+      return;
+    }
+
+    ResourceBag offered = ResourceManager.bagFromMesosResources(
+        event.getOffer().getResourcesList());
+    long now = clock.nowMillis();
+    Iterator<Map.Entry<ResourceBag, Map<TaskGroupKey, DelayedGroup>>> shapes =
+        parked.entrySet().iterator();
+    while (shapes.hasNext()) {
+      Map.Entry<ResourceBag, Map<TaskGroupKey, DelayedGroup>> shape = shapes.next();
+      if (!offered.greaterThanOrEqualTo(shape.getKey())) {
+        continue;
+      }
+
+      Iterator<DelayedGroup> parkedGroups = shape.getValue().values().iterator();
+      while (parkedGroups.hasNext()) {
+        DelayedGroup delayed = parkedGroups.next();
+        if (delayed.readyAtMs > now) {
+          parkedGroups.remove();
+          // Removing from the middle of the delay queue is linear, skip the entry once it is
+          // polled instead.
+          delayed.stale = true;
+          enqueue(new DelayedGroup(delayed.group, now, Optional.empty()));
+          groupsWokenByOffers.incrementAndGet();
+        }
+      }
+      if (shape.getValue().isEmpty()) {
+        shapes.remove();
+      }
+    }
+    scheduleWakeup();
   }
 
   /**
@@ -209,6 +524,21 @@ public class TaskGroups implements EventSubscriber {
    */
   @Subscribe
   public synchronized void taskChangedState(TaskStateChange stateChange) {
+    stateChanged(stateChange);
+  }
+
+  /**
+   * Informs the task groups of several task state changes, such as the instances of a newly
+   * created job becoming pending.
+   *
+   * @param stateChanges State change notifications.
+   */
+  @Subscribe
+  public synchronized void taskChangedStates(TaskStateChanges stateChanges) {
+    stateChanges.getChanges().forEach(this::stateChanged);
+  }
+
+  private void stateChanged(TaskStateChange stateChange) {
     if (stateChange.getNewState() == PENDING) {
       IScheduledTask task = stateChange.getTask();
       TaskGroupKey key = TaskGroupKey.from(task.getAssignedTask().getTask());
@@ -222,7 +552,7 @@ public class TaskGroups implements EventSubscriber {
           penaltyMs = rescheduleCalculator.getStartupScheduleDelayMs(task);
         }
         newGroup.setPenaltyMs(penaltyMs);
-        startGroup(newGroup);
+        evaluateGroupLater(newGroup, false);
       } else {
         existing.offer(Tasks.id(task));
       }
@@ -249,4 +579,46 @@ public class TaskGroups implements EventSubscriber {
     return ImmutableSet.copyOf(groups.values());
   }
 
+  private static final class Share {
+    private final String role;
+    private final boolean production;
+
+    Share(String role, boolean production) {
+      this.role = requireNonNull(role);
+      this.production = production;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Share)) {
+        return false;
+      }
+
+      Share other = (Share) o;
+      return Objects.equals(role, other.role) && production == other.production;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(role, production);
+    }
+  }
+
+  private static final class DelayedGroup {
+    private final TaskGroup group;
+    private final long readyAtMs;
+    // Resources required by a parked group, absent if the group is not parked.
+    private final Optional<ResourceBag> parkedShape;
+    private long sequence;
+    private double finishTime;
+    // Whether the group was queued again, and this entry must be skipped.
+    private boolean stale;
+
+    DelayedGroup(TaskGroup group, long readyAtMs, Optional<ResourceBag> parkedShape) {
+      this.group = group;
+      this.readyAtMs = readyAtMs;
+      this.parkedShape = parkedShape;
+    }
+  }
+
 }
@@ -43,6 +43,7 @@ import org.apache.aurora.scheduler.filter.AttributeAggregate;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.preemptor.BiCache;
 import org.apache.aurora.scheduler.preemptor.Preemptor;
+import org.apache.aurora.scheduler.scheduling.SchedulingTracer.Phase;
 import org.apache.aurora.scheduler.storage.Storage.MutableStoreProvider;
 import org.apache.aurora.scheduler.storage.Storage.StoreProvider;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
@@ -82,6 +83,7 @@ public class TaskSchedulerImpl implements TaskScheduler {
   private final ExecutorSettings executorSettings;
   private final TierManager tierManager;
   private final BiCache<String, TaskGroupKey> reservations;
+  private final SchedulingTracer tracer;
 
   private final AtomicLong attemptsFired = Stats.exportLong("schedule_attempts_fired");
   private final AtomicLong attemptsFailed = Stats.exportLong("schedule_attempts_failed");
@@ -93,13 +95,15 @@ public class TaskSchedulerImpl implements TaskScheduler {
       Preemptor preemptor,
       ExecutorSettings executorSettings,
       TierManager tierManager,
-      BiCache<String, TaskGroupKey> reservations) {
+      BiCache<String, TaskGroupKey> reservations,
+      SchedulingTracer tracer) {
 
     this.assigner = requireNonNull(assigner);
     this.preemptor = requireNonNull(preemptor);
     this.executorSettings = requireNonNull(executorSettings);
     this.tierManager = requireNonNull(tierManager);
     this.reservations = requireNonNull(reservations);
+    this.tracer = requireNonNull(tracer);
   }
 
   @Timed("task_schedule_attempt")
@@ -135,43 +139,53 @@ public class TaskSchedulerImpl implements TaskScheduler {
   }
 
   private Set<String> scheduleTasks(MutableStoreProvider store, Set<String> ids) {
-    LOG.debug("Attempting to schedule tasks {}", ids);
-    Map<String, IAssignedTask> tasksById = fetchTasks(store, ids);
+    Optional<TaskGroupKey> groupKey = Optional.empty();
+    tracer.startRound();
+    try {
+      LOG.debug("Attempting to schedule tasks {}", ids);
+      tracer.startPhase(Phase.TASK_FETCH);
+      Map<String, IAssignedTask> tasksById = fetchTasks(store, ids);
+
+      if (tasksById.isEmpty()) {
+        // None of the tasks were found in storage.  This could be caused by a task group that was
+        // killed by the user, for example.
+        return ids;
+      }
 
-    if (tasksById.isEmpty()) {
-      // None of the tasks were found in storage.  This could be caused by a task group that was
-      // killed by the user, for example.
-      return ids;
+      // Prepare scheduling context for the tasks
+      ITaskConfig task = Iterables.getOnlyElement(tasksById.values().stream()
+          .map(IAssignedTask::getTask)
+          .collect(Collectors.toSet()));
+      groupKey = Optional.of(TaskGroupKey.from(task));
+      tracer.startPhase(Phase.AGGREGATE_BUILD);
+      AttributeAggregate aggregate = AttributeAggregate.getJobActiveState(store, task.getJob());
+
+      // Attempt to schedule using available resources.
+      Set<String> launched = assigner.maybeAssign(
+          store,
+          ResourceRequest.fromTask(task, executorSettings, aggregate, tierManager),
+          groupKey.get(),
+          ImmutableSet.copyOf(tasksById.values()),
+          reservations.view());
+
+      attemptsFired.addAndGet(tasksById.size());
+
+      // Fall back to preemption for tasks not scheduled above.
+      tracer.startPhase(Phase.PREEMPTION);
+      Set<String> unassigned = Sets.difference(tasksById.keySet(), launched);
+      unassigned.forEach(taskId -> {
+        // TODO(maxim): Now that preemption slots are searched asynchronously, consider
+        // retrying a launch attempt within the current scheduling round IFF a reservation is
+        // available.
+        maybePreemptFor(tasksById.get(taskId), aggregate, store);
+      });
+      attemptsNoMatch.addAndGet(unassigned.size());
+
+      // Return all successfully launched tasks as well as those weren't tried (not in PENDING).
+      return Sets.union(launched, Sets.difference(ids, tasksById.keySet()));
+    } finally {
+      tracer.finishRound(groupKey);
     }
-
-    // Prepare scheduling context for the tasks
-    ITaskConfig task = Iterables.getOnlyElement(tasksById.values().stream()
-        .map(IAssignedTask::getTask)
-        .collect(Collectors.toSet()));
-    AttributeAggregate aggregate = AttributeAggregate.getJobActiveState(store, task.getJob());
-
-    // Attempt to schedule using available resources.
-    Set<String> launched = assigner.maybeAssign(
-        store,
-        ResourceRequest.fromTask(task, executorSettings, aggregate, tierManager),
-        TaskGroupKey.from(task),
-        ImmutableSet.copyOf(tasksById.values()),
-        reservations.asMap());
-
-    attemptsFired.addAndGet(tasksById.size());
-
-    // Fall back to preemption for tasks not scheduled above.
-    Set<String> unassigned = Sets.difference(tasksById.keySet(), launched);
-    unassigned.forEach(taskId -> {
-      // TODO(maxim): Now that preemption slots are searched asynchronously, consider
-      // retrying a launch attempt within the current scheduling round IFF a reservation is
-      // available.
-      maybePreemptFor(tasksById.get(taskId), aggregate, store);
-    });
-    attemptsNoMatch.addAndGet(unassigned.size());
-
-    // Return all successfully launched tasks as well as those weren't tried (not in PENDING).
-    return Sets.union(launched, Sets.difference(ids, tasksById.keySet()));
   }
 
   private void maybePreemptFor(
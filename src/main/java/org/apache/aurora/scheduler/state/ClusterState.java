@@ -24,9 +24,17 @@ public interface ClusterState {
 
   /**
    * Gets a snapshot of the active tasks in the cluster, indexed by the slave IDs they are
-   * assigned to.
+   * assigned to. This copies the state of all agents, prefer {@link #getVictimIndex()} where a
+   * point-in-time snapshot is not required.
    *
    * @return Active tasks and their associated slave IDs.
    */
   Multimap<String, PreemptionVictim> getSlavesToActiveTasks();
+
+  /**
+   * Gets a live, read-only view of the active tasks in the cluster.
+   *
+   * @return Index of active tasks by agent.
+   */
+  VictimIndex getVictimIndex();
 }
@@ -13,40 +13,180 @@
  */
 package org.apache.aurora.scheduler.state;
 
-import com.google.common.collect.HashMultimap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.Subscribe;
 
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.preemptor.PreemptionVictim;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.state.VictimIndex.VictimClass;
+
+import static java.util.Objects.requireNonNull;
 
 /**
  * A cached view of cluster state, kept up to date by pubsub notifications.
+ * <p>
+ * Victims are indexed by agent, and each agent's entry is replaced as a whole when a task on it
+ * changes state. Readers of the {@link VictimIndex} therefore never block, and never observe a
+ * partially applied change to an agent.
  */
 public class ClusterStateImpl implements ClusterState, PubsubEvent.EventSubscriber {
 
-  private final Multimap<String, PreemptionVictim> victims = HashMultimap.create();
+  private final ExecutorSettings executorSettings;
+  private final ConcurrentMap<String, AgentVictims> agents = Maps.newConcurrentMap();
+  private final VictimIndex index = new Index();
+
+  @Inject
+  public ClusterStateImpl(ExecutorSettings executorSettings) {
+    this.executorSettings = requireNonNull(executorSettings);
+  }
 
   @Override
   public Multimap<String, PreemptionVictim> getSlavesToActiveTasks() {
-    synchronized (victims) {
-      return ImmutableSetMultimap.copyOf(victims);
+    ImmutableSetMultimap.Builder<String, PreemptionVictim> builder = ImmutableSetMultimap.builder();
+    for (Map.Entry<String, AgentVictims> entry : agents.entrySet()) {
+      builder.putAll(entry.getKey(), entry.getValue().victims);
     }
+    return builder.build();
+  }
+
+  @Override
+  public VictimIndex getVictimIndex() {
+    return index;
   }
 
   @Subscribe
   public void taskChangedState(TaskStateChange stateChange) {
-    synchronized (victims) {
-      String slaveId = stateChange.getTask().getAssignedTask().getSlaveId();
-      PreemptionVictim victim = PreemptionVictim.fromTask(stateChange.getTask().getAssignedTask());
-      if (Tasks.SLAVE_ASSIGNED_STATES.contains(stateChange.getNewState())) {
-        victims.put(slaveId, victim);
+    String slaveId = stateChange.getTask().getAssignedTask().getSlaveId();
+    if (slaveId == null) {
+      // Tasks that were never assigned to an agent are not tracked.
+      return;
+    }
+
+    PreemptionVictim victim = PreemptionVictim.fromTask(stateChange.getTask().getAssignedTask());
+    if (Tasks.SLAVE_ASSIGNED_STATES.contains(stateChange.getNewState())) {
+      agents.compute(
+          slaveId,
+          (id, current) -> AgentVictims.with(current, victim, executorSettings));
+    } else {
+      agents.computeIfPresent(slaveId, (id, current) -> current.without(victim, executorSettings));
+    }
+  }
+
+  /**
+   * Immutable victims of a single agent, along with their aggregated resources.
+   */
+  private static final class AgentVictims {
+    private final ImmutableSet<PreemptionVictim> victims;
+    private final ImmutableMap<VictimClass, ResourceBag> resources;
+
+    private AgentVictims(
+        ImmutableSet<PreemptionVictim> victims,
+        ImmutableMap<VictimClass, ResourceBag> resources) {
+
+      this.victims = victims;
+      this.resources = resources;
+    }
+
+    static AgentVictims with(
+        AgentVictims current,
+        PreemptionVictim victim,
+        ExecutorSettings executorSettings) {
+
+      if (current != null && current.victims.contains(victim)) {
+        return current;
+      }
+
+      Map<VictimClass, ResourceBag> resources = current == null
+          ? Maps.newHashMap()
+          : Maps.newHashMap(current.resources);
+      resources.merge(
+          VictimClass.from(victim.getConfig()),
+          victim.getResourceBag(executorSettings),
+          ResourceBag::add);
+      return new AgentVictims(
+          ImmutableSet.<PreemptionVictim>builder()
+              .addAll(current == null ? ImmutableSet.of() : current.victims)
+              .add(victim)
+              .build(),
+          ImmutableMap.copyOf(resources));
+    }
+
+    /**
+     * Removes a victim, returning {@code null} if no victims remain so that the agent is dropped
+     * from the index.
+     */
+    AgentVictims without(PreemptionVictim victim, ExecutorSettings executorSettings) {
+      if (!victims.contains(victim)) {
+        return this;
+      }
+
+      ImmutableSet<PreemptionVictim> remaining =
+          ImmutableSet.copyOf(Sets.filter(victims, v -> !v.equals(victim)));
+      if (remaining.isEmpty()) {
+        return null;
+      }
+
+      // Re-aggregate the affected class rather than subtracting, to avoid accumulating floating
+      // point error over the lifetime of an agent.
+      VictimClass victimClass = VictimClass.from(victim.getConfig());
+      boolean classRemains = false;
+      ResourceBag classResources = ResourceBag.EMPTY;
+      for (PreemptionVictim v : remaining) {
+        if (VictimClass.from(v.getConfig()).equals(victimClass)) {
+          classRemains = true;
+          classResources = classResources.add(v.getResourceBag(executorSettings));
+        }
+      }
+
+      Map<VictimClass, ResourceBag> updated = Maps.newHashMap(resources);
+      if (classRemains) {
+        updated.put(victimClass, classResources);
       } else {
-        victims.remove(slaveId, victim);
+        updated.remove(victimClass);
       }
+      return new AgentVictims(remaining, ImmutableMap.copyOf(updated));
+    }
+  }
+
+  private class Index implements VictimIndex {
+    private final Set<String> agentIds = Collections.unmodifiableSet(agents.keySet());
+
+    @Override
+    public boolean isEmpty() {
+      return agents.isEmpty();
+    }
+
+    @Override
+    public Set<String> getAgentIds() {
+      return agentIds;
+    }
+
+    @Override
+    public Set<PreemptionVictim> getVictims(String agentId) {
+      AgentVictims agent = agents.get(agentId);
+      return agent == null ? ImmutableSet.of() : agent.victims;
+    }
+
+    @Override
+    public Map<VictimClass, ResourceBag> getPreemptibleResources(String agentId) {
+      AgentVictims agent = agents.get(agentId);
+      return agent == null ? ImmutableMap.of() : agent.resources;
     }
   }
 }
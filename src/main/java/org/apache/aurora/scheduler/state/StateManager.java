@@ -13,6 +13,7 @@
  */
 package org.apache.aurora.scheduler.state;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -53,6 +54,23 @@ public interface StateManager {
       ScheduleStatus newState,
       Optional<String> auditMessage);
 
+  /**
+   * Attempts to alter several tasks to {@code newState}, as {@link #changeState} does without a
+   * {@code casState}. State changes of the tasks are published together as a single
+   * {@link org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges} event.
+   *
+   * @param storeProvider Storage provider.
+   * @param taskIds IDs of the tasks to transition.
+   * @param newState State to move the tasks to.
+   * @param auditMessage Message to include with the transitions.
+   * @return {@link StateChangeResult} of each task, by task ID.
+   */
+  Map<String, StateChangeResult> changeStates(
+      MutableStoreProvider storeProvider,
+      Set<String> taskIds,
+      ScheduleStatus newState,
+      Optional<String> auditMessage);
+
   /**
    * Assigns a task to a specific slave.
    * This will modify the task record to reflect the host assignment and return the updated record.
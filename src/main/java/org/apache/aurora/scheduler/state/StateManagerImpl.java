@@ -16,8 +16,10 @@ package org.apache.aurora.scheduler.state;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -29,6 +31,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
@@ -45,6 +48,7 @@ import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator;
 import org.apache.aurora.scheduler.state.SideEffect.Action;
@@ -128,14 +132,17 @@ public class StateManagerImpl implements StateManager {
 
     storeProvider.getUnsafeTaskStore().saveTasks(scheduledTasks);
 
+    List<PubsubEvent> events = Lists.newArrayList();
     for (IScheduledTask scheduledTask : scheduledTasks) {
       updateTaskAndExternalState(
           storeProvider.getUnsafeTaskStore(),
           Tasks.id(scheduledTask),
           Optional.of(scheduledTask),
           Optional.of(PENDING),
-          Optional.empty());
+          Optional.empty(),
+          events::add);
     }
+    postBatched(events);
   }
 
   @Override
@@ -151,7 +158,58 @@ public class StateManagerImpl implements StateManager {
         casState,
         taskId,
         newState,
-        auditMessage);
+        auditMessage,
+        eventSink::post);
+  }
+
+  @Override
+  public Map<String, StateChangeResult> changeStates(
+      MutableStoreProvider storeProvider,
+      Set<String> taskIds,
+      ScheduleStatus newState,
+      Optional<String> auditMessage) {
+
+    List<PubsubEvent> events = Lists.newArrayList();
+    ImmutableMap.Builder<String, StateChangeResult> results = ImmutableMap.builder();
+    for (String taskId : taskIds) {
+      results.put(taskId, updateTaskAndExternalState(
+          storeProvider.getUnsafeTaskStore(),
+          Optional.empty(),
+          taskId,
+          newState,
+          auditMessage,
+          events::add));
+    }
+    postBatched(events);
+    return results.build();
+  }
+
+  /**
+   * Posts events in order, combining consecutive task state changes into a single
+   * {@link TaskStateChanges} event.
+   *
+   * @param events Events to post.
+   */
+  private void postBatched(List<PubsubEvent> events) {
+    List<TaskStateChange> changes = Lists.newArrayList();
+    for (PubsubEvent event : events) {
+      if (event instanceof TaskStateChange) {
+        changes.add((TaskStateChange) event);
+      } else {
+        postChanges(changes);
+        changes.clear();
+        eventSink.post(event);
+      }
+    }
+    postChanges(changes);
+  }
+
+  private void postChanges(List<TaskStateChange> changes) {
+    if (changes.size() == 1) {
+      eventSink.post(changes.get(0));
+    } else if (changes.size() > 1) {
+      eventSink.post(new TaskStateChanges(changes));
+    }
   }
 
   @Override
@@ -182,7 +240,8 @@ public class StateManagerImpl implements StateManager {
         Optional.empty(),
         taskId,
         ASSIGNED,
-        Optional.empty());
+        Optional.empty(),
+        eventSink::post);
 
     Preconditions.checkState(
         changeResult == SUCCESS,
@@ -209,7 +268,8 @@ public class StateManagerImpl implements StateManager {
       Optional<ScheduleStatus> casState,
       String taskId,
       ScheduleStatus targetState,
-      Optional<String> transitionMessage) {
+      Optional<String> transitionMessage,
+      Consumer<PubsubEvent> eventConsumer) {
 
     Optional<IScheduledTask> task = taskStore.fetchTask(taskId);
 
@@ -225,7 +285,8 @@ public class StateManagerImpl implements StateManager {
         taskId,
         task,
         Optional.of(targetState),
-        transitionMessage);
+        transitionMessage,
+        eventConsumer);
   }
 
   private static final List<Action> ACTIONS_IN_ORDER = ImmutableList.of(
@@ -258,7 +319,9 @@ public class StateManagerImpl implements StateManager {
       // As a result, it would be easy to accidentally clobber mutations.
       Optional<IScheduledTask> task,
       Optional<ScheduleStatus> targetState,
-      Optional<String> transitionMessage) {
+      Optional<String> transitionMessage,
+      // Receives events of the transition once it is complete.
+      Consumer<PubsubEvent> eventConsumer) {
 
     if (task.isPresent()) {
       Preconditions.checkArgument(taskId.equals(task.get().getAssignedTask().getTaskId()));
@@ -312,7 +375,8 @@ public class StateManagerImpl implements StateManager {
               Optional.empty(),
               taskId,
               ScheduleStatus.LOST,
-              Optional.of("Action performed on partitioned task, marking as LOST."));
+              Optional.of("Action performed on partitioned task, marking as LOST."),
+              eventConsumer);
           break;
 
         case RESCHEDULE:
@@ -346,7 +410,8 @@ public class StateManagerImpl implements StateManager {
               Tasks.id(newTask),
               Optional.of(newTask),
               Optional.of(newState),
-              Optional.of(auditMessage));
+              Optional.of(auditMessage),
+              eventConsumer);
           break;
 
         case KILL:
@@ -376,7 +441,7 @@ public class StateManagerImpl implements StateManager {
     // side-effects that are performed after the outer-most transaction completes (meaning state
     // has been durably persisted).
     for (PubsubEvent event : events) {
-      eventSink.post(event);
+      eventConsumer.accept(event);
     }
 
     return result.getResult();
@@ -0,0 +1,132 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.state;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import com.google.common.base.MoreObjects;
+
+import org.apache.aurora.scheduler.preemptor.PreemptionVictim;
+import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A read-only view of preemption victims, indexed by the agents they are assigned to.
+ * <p>
+ * The view is live: it reflects task state changes as they are applied, and is consistent per
+ * agent but not across agents.
+ */
+public interface VictimIndex {
+
+  /**
+   * Checks whether there are no victims on any agent.
+   *
+   * @return {@code true} if there are no victims.
+   */
+  boolean isEmpty();
+
+  /**
+   * Gets the IDs of agents with at least one victim.
+   *
+   * @return A read-only view of agent IDs.
+   */
+  Set<String> getAgentIds();
+
+  /**
+   * Gets the victims assigned to an agent.
+   *
+   * @param agentId Agent to get victims for.
+   * @return Victims on the agent, empty if there are none.
+   */
+  Set<PreemptionVictim> getVictims(String agentId);
+
+  /**
+   * Gets the aggregated resources of the victims on an agent, grouped by victim class.
+   *
+   * @param agentId Agent to get resources for.
+   * @return Total resources (including executor overhead) of victims on the agent, by class.
+   */
+  Map<VictimClass, ResourceBag> getPreemptibleResources(String agentId);
+
+  /**
+   * The attributes that determine whether a victim may be preempted by a pending task: its role,
+   * tier and priority.
+   */
+  final class VictimClass {
+    private final String role;
+    private final Optional<String> tier;
+    private final int priority;
+
+    public VictimClass(String role, Optional<String> tier, int priority) {
+      this.role = requireNonNull(role);
+      this.tier = requireNonNull(tier);
+      this.priority = priority;
+    }
+
+    public static VictimClass from(ITaskConfig task) {
+      return new VictimClass(
+          task.getJob().getRole(),
+          Optional.ofNullable(task.getTier()),
+          task.getPriority());
+    }
+
+    public String getRole() {
+      return role;
+    }
+
+    /**
+     * Gets the tier name of the victims, absent for victims in the default tier.
+     *
+     * @return Tier name.
+     */
+    public Optional<String> getTier() {
+      return tier;
+    }
+
+    public int getPriority() {
+      return priority;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof VictimClass)) {
+        return false;
+      }
+
+      VictimClass other = (VictimClass) o;
+      return Objects.equals(role, other.role)
+          && Objects.equals(tier, other.tier)
+          && priority == other.priority;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(role, tier, priority);
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("role", role)
+          .add("tier", tier)
+          .add("priority", priority)
+          .toString();
+    }
+  }
+}
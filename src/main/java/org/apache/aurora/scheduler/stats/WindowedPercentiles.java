@@ -0,0 +1,120 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.stats;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.collect.EvictingQueue;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Longs;
+
+import org.apache.aurora.common.stats.StatsProvider;
+
+import static java.util.Objects.requireNonNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Tracks percentiles of the most recently recorded values, and exports them through a
+ * {@link StatsProvider}.
+ * <p>
+ * Percentiles are computed when the exported stats are read, over a bounded window of the most
+ * recent values. The values computed by the most recent read are retained, and are available
+ * through {@link #getSampled(double)} without computing them again.
+ */
+public class WindowedPercentiles {
+
+  /**
+   * Default number of recent values retained for computing percentiles.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+  private final EvictingQueue<Long> window;
+  private final Map<Double, Double> sampled;
+
+  /**
+   * Creates a percentile tracker and exports a stat for each of the requested percentiles, named
+   * {@code <name>_<percentile>_percentile}.
+   *
+   * @param statsProvider Stats provider to export percentiles through.
+   * @param name Name of the value whose percentiles are tracked.
+   * @param windowSize Number of recent values to compute percentiles over.
+   * @param percentiles Percentiles to track, in the range [0, 100].
+   */
+  public WindowedPercentiles(
+      StatsProvider statsProvider,
+      String name,
+      int windowSize,
+      double... percentiles) {
+
+    requireNonNull(statsProvider);
+    requireNonNull(name);
+    checkArgument(windowSize > 0, "Window size must be positive.");
+    checkArgument(percentiles.length > 0, "Must specify at least one percentile.");
+
+    this.window = EvictingQueue.create(windowSize);
+    this.sampled = Maps.newConcurrentMap();
+    for (double percentile : percentiles) {
+      checkArgument(percentile >= 0 && percentile <= 100, "Invalid percentile " + percentile);
+      sampled.put(percentile, 0d);
+      statsProvider.makeGauge(
+          String.format("%s_%s_percentile", name, percentile).replace('.', '_'),
+          () -> sample(percentile));
+    }
+  }
+
+  /**
+   * Records a value.
+   *
+   * @param value Value to record.
+   */
+  public void record(long value) {
+    synchronized (window) {
+      window.add(value);
+    }
+  }
+
+  /**
+   * Gets the value of a percentile as of the most recent read of its exported stat.
+   *
+   * @param percentile Tracked percentile.
+   * @return Most recently sampled value, or zero if the percentile was not sampled yet.
+   */
+  public double getSampled(double percentile) {
+    Double value = sampled.get(percentile);
+    checkArgument(value != null, "Percentile " + percentile + " is not tracked.");
+    return value;
+  }
+
+  private double sample(double percentile) {
+    long[] values;
+    synchronized (window) {
+      values = Longs.toArray(window);
+    }
+
+    double value = 0;
+    if (values.length > 0) {
+      Arrays.sort(values);
+      double index = (values.length - 1) * percentile / 100;
+      int lower = (int) index;
+      double residue = index - lower;
+      value = lower == values.length - 1
+          ? values[lower]
+          : values[lower] * (1 - residue) + values[lower + 1] * residue;
+    }
+    sampled.put(percentile, value);
+    return value;
+  }
+}
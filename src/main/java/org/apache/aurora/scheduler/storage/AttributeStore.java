@@ -121,8 +121,22 @@ public interface AttributeStore {
      * @return attributes from {@code offer} and the existing (or default) maintenance mode.
      */
     public static IHostAttributes mergeOffer(AttributeStore store, Protos.Offer offer) {
+      return mergeOffer(store.getHostAttributes(offer.getHostname()), offer);
+    }
+
+    /**
+     * Merges the attributes from an offer with previously fetched attributes of its host.
+     *
+     * @param stored Existing attributes of the offer's host, if any.
+     * @param offer Offer to merge.
+     * @return attributes from {@code offer} and the existing (or default) maintenance mode.
+     */
+    public static IHostAttributes mergeOffer(
+        Optional<IHostAttributes> stored,
+        Protos.Offer offer) {
+
       IHostAttributes fromOffer = Conversions.getAttributes(offer);
-      MaintenanceMode mode = store.getHostAttributes(fromOffer.getHost())
+      MaintenanceMode mode = stored
           .map(IHostAttributes::getMode)
           .orElse(MaintenanceMode.NONE);
       return IHostAttributes.build(fromOffer.newBuilder().setMode(mode));
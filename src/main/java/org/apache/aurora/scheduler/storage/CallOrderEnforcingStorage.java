@@ -17,11 +17,14 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.inject.Qualifier;
 import javax.inject.Singleton;
 
+import com.google.common.collect.Lists;
 import com.google.inject.Module;
 import com.google.inject.PrivateModule;
 
@@ -30,10 +33,10 @@ import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult;
 import org.apache.aurora.scheduler.storage.Storage.MutateWork.NoResult.Quiet;
 import org.apache.aurora.scheduler.storage.Storage.NonVolatileStorage;
-import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 
 import static java.util.Objects.requireNonNull;
 
@@ -50,6 +53,12 @@ public class CallOrderEnforcingStorage implements NonVolatileStorage {
   @Qualifier
   private @interface EnforceOrderOn { }
 
+  /**
+   * Maximum number of tasks replayed in a single event on startup. Each event is handled by
+   * subscribers in one go, so the replay is chunked to keep any one delivery short.
+   */
+  private static final int REPLAY_BATCH_SIZE = 100;
+
   private final NonVolatileStorage wrapped;
   private final EventSink eventSink;
 
@@ -105,10 +114,14 @@ public class CallOrderEnforcingStorage implements NonVolatileStorage {
     wrapped.start(initializationLogic);
     stateMachine.transition(State.READY);
     wrapped.write((NoResult.Quiet) storeProvider -> {
-      Iterable<IScheduledTask> tasks = Tasks.LATEST_ACTIVITY.sortedCopy(
-          storeProvider.getTaskStore().fetchTasks(Query.unscoped()));
-      for (IScheduledTask task : tasks) {
-        eventSink.post(TaskStateChange.initialized(task));
+      List<TaskStateChange> changes = Tasks.LATEST_ACTIVITY
+          .sortedCopy(storeProvider.getTaskStore().fetchTasks(Query.unscoped()))
+          .stream()
+          .map(TaskStateChange::initialized)
+          .collect(Collectors.toList());
+      // Replay tasks in bulk events, subscribers may opt in to handling them in bulk.
+      for (List<TaskStateChange> batch : Lists.partition(changes, REPLAY_BATCH_SIZE)) {
+        eventSink.post(new TaskStateChanges(batch));
       }
     });
   }
@@ -44,6 +44,10 @@ public interface TaskStore {
   /**
    * Fetches a read-only view of tasks matching a query and filters. Intended for use with a
    * {@link Query.Builder}.
+   * <p>
+   * If the query sets a continuation token, offset or limit, the matching tasks are ordered by task
+   * ID, and only tasks with IDs after the continuation token are returned, skipping the first
+   * {@code offset} of them and returning at most {@code limit}.
    *
    * @param query Builder of the query to identify tasks with.
    * @return A read-only view of matching tasks.
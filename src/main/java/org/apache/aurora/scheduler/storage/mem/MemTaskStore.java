@@ -41,6 +41,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.collect.Ordering;
+import com.google.common.primitives.Ints;
 
 import org.apache.aurora.common.inject.TimedInterceptor.Timed;
 import org.apache.aurora.common.quantity.Amount;
@@ -54,6 +56,7 @@ import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.storage.TaskStore;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,6 +79,8 @@ class MemTaskStore implements TaskStore.Mutable {
 
   private final long slowQueryThresholdNanos;
 
+  private static final Ordering<IScheduledTask> BY_ID = Ordering.natural().onResultOf(Tasks::id);
+
   private static final Function<Query.Builder, Optional<Set<IJobKey>>> QUERY_TO_JOB_KEY =
       JobKeys::from;
   private static final Function<Query.Builder, Optional<Set<String>>> QUERY_TO_SLAVE_HOST =
@@ -134,7 +139,7 @@ class MemTaskStore implements TaskStore.Mutable {
     requireNonNull(query);
 
     long start = System.nanoTime();
-    Collection<IScheduledTask> result = matches(query);
+    Collection<IScheduledTask> result = page(query.get(), matches(query));
     long durationNanos = System.nanoTime() - start;
     boolean infoLevel = durationNanos >= slowQueryThresholdNanos;
     long time = Amount.of(durationNanos, Time.NANOSECONDS).as(Time.MILLISECONDS);
@@ -262,6 +267,33 @@ class MemTaskStore implements TaskStore.Mutable {
     }
   }
 
+  /**
+   * Applies the continuation token, offset and limit of a query to its matches. Paged results are
+   * ordered by task ID, so that consecutive pages neither skip nor repeat tasks.
+   */
+  private static Collection<IScheduledTask> page(
+      ITaskQuery query,
+      Collection<IScheduledTask> matches) {
+
+    if (!query.isSetContinuationToken() && query.getOffset() <= 0 && query.getLimit() <= 0) {
+      return matches;
+    }
+
+    Iterable<IScheduledTask> remaining = matches;
+    if (query.isSetContinuationToken()) {
+      String after = query.getContinuationToken();
+      remaining = Iterables.filter(remaining, task -> Tasks.id(task).compareTo(after) > 0);
+    }
+
+    int offset = Math.max(0, query.getOffset());
+    // Selecting the first tasks of a limited query avoids sorting all matches.
+    List<IScheduledTask> ordered = query.getLimit() > 0
+        ? BY_ID.leastOf(remaining, Ints.saturatedCast((long) offset + query.getLimit()))
+        : BY_ID.sortedCopy(remaining);
+    return Collections.unmodifiableList(
+        ordered.subList(Math.min(offset, ordered.size()), ordered.size()));
+  }
+
   private static class Task {
     private final IScheduledTask storedTask;
 
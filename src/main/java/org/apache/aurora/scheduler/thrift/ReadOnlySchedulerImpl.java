@@ -13,6 +13,10 @@
  */
 package org.apache.aurora.scheduler.thrift;
 
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -24,6 +28,7 @@ import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.inject.Qualifier;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
@@ -33,9 +38,9 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
@@ -70,6 +75,7 @@ import org.apache.aurora.gen.RoleSummaryResult;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduleStatusResult;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.ScheduledTaskField;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.gen.TaskQuery;
 import org.apache.aurora.gen.TierConfig;
@@ -115,6 +121,16 @@ import static org.apache.aurora.scheduler.thrift.Responses.invalidRequest;
 import static org.apache.aurora.scheduler.thrift.Responses.ok;
 
 class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
+
+  /**
+   * Binding annotation for the maximum number of tasks returned by a task query, or zero for no
+   * maximum.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
+  @Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.METHOD})
+  @Qualifier
+  @interface MaxTaskQueryResults { }
+
   private static final Function<Entry<ITaskConfig, Collection<Integer>>, ConfigGroup> TO_GROUP =
       input -> new ConfigGroup()
           .setConfig(input.getKey().newBuilder())
@@ -126,6 +142,7 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
   private final CronPredictor cronPredictor;
   private final QuotaManager quotaManager;
   private final TierManager tierManager;
+  private final int maxTaskQueryResults;
 
   @Inject
   ReadOnlySchedulerImpl(
@@ -134,7 +151,8 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
       NearestFit nearestFit,
       CronPredictor cronPredictor,
       QuotaManager quotaManager,
-      TierManager tierManager) {
+      TierManager tierManager,
+      @MaxTaskQueryResults int maxTaskQueryResults) {
 
     this.configurationManager = requireNonNull(configurationManager);
     this.storage = requireNonNull(storage);
@@ -142,6 +160,7 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
     this.cronPredictor = requireNonNull(cronPredictor);
     this.quotaManager = requireNonNull(quotaManager);
     this.tierManager = requireNonNull(tierManager);
+    this.maxTaskQueryResults = maxTaskQueryResults;
   }
 
   @Override
@@ -162,20 +181,17 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
   // TODO(William Farner): Provide status information about cron jobs here.
   @Override
   public Response getTasksStatus(TaskQuery query) {
-    return ok(Result.scheduleStatusResult(
-        new ScheduleStatusResult().setTasks(getTasks(query))));
+    return ok(Result.scheduleStatusResult(getTaskPage(query)));
   }
 
   @Override
   public Response getTasksWithoutConfigs(TaskQuery query) {
-    List<ScheduledTask> tasks = Lists.transform(
-        getTasks(query),
-        task -> {
-          task.getAssignedTask().getTask().unsetExecutorConfig();
-          return task;
-        });
-
-    return ok(Result.scheduleStatusResult(new ScheduleStatusResult().setTasks(tasks)));
+    ScheduleStatusResult result = getTaskPage(query);
+    for (ScheduledTask task : result.getTasks()) {
+      task.getAssignedTask().getTask().unsetExecutorConfig();
+    }
+
+    return ok(Result.scheduleStatusResult(result));
   }
 
   @Override
@@ -424,15 +440,55 @@ class ReadOnlySchedulerImpl implements ReadOnlyScheduler.Iface {
   private List<ScheduledTask> getTasks(TaskQuery query) {
     requireNonNull(query);
 
-    Iterable<IScheduledTask> tasks = Storage.Util.fetchTasks(storage, Query.arbitrary(query));
-    if (query.getOffset() > 0) {
-      tasks = Iterables.skip(tasks, query.getOffset());
+    return IScheduledTask.toBuildersList(
+        Storage.Util.fetchTasks(storage, Query.arbitrary(query)));
+  }
+
+  /**
+   * Fetches a page of the tasks matching a query, limited by both the query and the maximum
+   * number of tasks per query. A continuation token is returned if further tasks match.
+   */
+  private ScheduleStatusResult getTaskPage(TaskQuery query) {
+    requireNonNull(query);
+
+    int limit = query.getLimit() > 0 ? query.getLimit() : Integer.MAX_VALUE;
+    if (maxTaskQueryResults > 0) {
+      limit = Math.min(limit, maxTaskQueryResults);
     }
-    if (query.getLimit() > 0) {
-      tasks = Iterables.limit(tasks, query.getLimit());
+    Query.Builder builder = Query.arbitrary(query);
+    if (limit < Integer.MAX_VALUE) {
+      // Fetch one more task than is returned, to tell whether there is a next page.
+      builder = builder.limit(limit + 1);
     }
 
-    return IScheduledTask.toBuildersList(tasks);
+    List<IScheduledTask> tasks =
+        ImmutableList.copyOf(Storage.Util.fetchTasks(storage, builder));
+    ScheduleStatusResult result = new ScheduleStatusResult();
+    if (tasks.size() > limit) {
+      tasks = tasks.subList(0, limit);
+      result.setContinuationToken(Tasks.id(Iterables.getLast(tasks)));
+    }
+
+    Set<ScheduledTaskField> omitted = query.isSetOmittedFields()
+        ? query.getOmittedFields()
+        : ImmutableSet.of();
+    return result.setTasks(tasks.stream()
+        .map(task -> project(task, omitted))
+        .collect(Collectors.toList()));
+  }
+
+  private static ScheduledTask project(IScheduledTask task, Set<ScheduledTaskField> omitted) {
+    ScheduledTask builder = task.newBuilder();
+    if (omitted.contains(ScheduledTaskField.TASK_EVENTS)) {
+      builder.unsetTaskEvents();
+    }
+    if (omitted.contains(ScheduledTaskField.ASSIGNED_PORTS)) {
+      builder.getAssignedTask().unsetAssignedPorts();
+    }
+    if (omitted.contains(ScheduledTaskField.RESOURCES)) {
+      builder.getAssignedTask().getTask().unsetResources();
+    }
+    return builder;
   }
 
   private Query.Builder maybeRoleScoped(Optional<String> ownerRole) {
@@ -480,20 +480,21 @@ class SchedulerThriftInterface implements AnnotatedAuroraAdmin {
         return error(JOB_UPDATING_ERROR, e);
       }
 
-      Iterable<IScheduledTask> tasks = storeProvider.getTaskStore().fetchTasks(query);
+      Set<String> taskIds = Tasks.ids(storeProvider.getTaskStore().fetchTasks(query));
 
       LOG.info("Killing tasks matching " + query);
 
-      int tasksKilled = 0;
-      for (String taskId : Tasks.ids(tasks)) {
-        if (StateChangeResult.SUCCESS == stateManager.changeState(
+      long tasksKilled = 0;
+      if (!taskIds.isEmpty()) {
+        tasksKilled = stateManager.changeStates(
             storeProvider,
-            taskId,
-            Optional.empty(),
+            taskIds,
             ScheduleStatus.KILLING,
-            auditMessages.killedByRemoteUser(Optional.ofNullable(message)))) {
-          ++tasksKilled;
-        }
+            auditMessages.killedByRemoteUser(Optional.ofNullable(message)))
+            .values()
+            .stream()
+            .filter(result -> result == StateChangeResult.SUCCESS)
+            .count();
       }
       killTasksCounter.addAndGet(tasksKilled);
 
@@ -1010,11 +1011,6 @@ class SchedulerThriftInterface implements AnnotatedAuroraAdmin {
 
     Iterable<IScheduledTask> tasks = storage.read(storeProvider ->
         storeProvider.getTaskStore().fetchTasks(Query.arbitrary(query)));
-    // For some reason fetchTasks ignores the offset/limit options of a TaskQuery. So we have to
-    // manually apply the limit here. To be fixed in AURORA-1892.
-    if (query.isSetLimit()) {
-      tasks = Iterables.limit(tasks, query.getLimit());
-    }
 
     Iterable<String> taskIds = Iterables.transform(
         tasks,
@@ -13,10 +13,15 @@
  */
 package org.apache.aurora.scheduler.thrift;
 
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
 import com.google.inject.AbstractModule;
 
 import org.apache.aurora.gen.AuroraAdmin;
 import org.apache.aurora.gen.ReadOnlyScheduler;
+import org.apache.aurora.scheduler.config.CliOptions;
+import org.apache.aurora.scheduler.config.validators.NotNegativeNumber;
+import org.apache.aurora.scheduler.thrift.ReadOnlySchedulerImpl.MaxTaskQueryResults;
 import org.apache.aurora.scheduler.thrift.aop.AnnotatedAuroraAdmin;
 
 /**
@@ -24,9 +29,25 @@ import org.apache.aurora.scheduler.thrift.aop.AnnotatedAuroraAdmin;
  */
 public class ThriftModule extends AbstractModule {
 
+  @Parameters(separators = "=")
+  public static class Options {
+    @Parameter(names = "-max_task_query_results",
+        validateValueWith = NotNegativeNumber.class,
+        description = "Maximum number of tasks returned by a single task query. Clients fetch "
+            + "further tasks using the continuation token of the response. A value of zero does "
+            + "not limit the number of tasks.")
+    public int maxTaskQueryResults = 0;
+  }
+
+  private final CliOptions options;
+
+  public ThriftModule(CliOptions options) {
+    this.options = options;
+  }
+
   @Override
   protected void configure() {
-    install(new ReadOnly());
+    install(new ReadOnly(options.thrift));
     bind(AuroraAdmin.Iface.class).to(SchedulerThriftInterface.class);
     bind(AnnotatedAuroraAdmin.class).to(SchedulerThriftInterface.class);
 
@@ -39,8 +60,17 @@ public class ThriftModule extends AbstractModule {
    * Binding module for only the read-only scheduler interface.
    */
   public static class ReadOnly extends AbstractModule {
+    private final Options options;
+
+    public ReadOnly(Options options) {
+      this.options = options;
+    }
+
     @Override
     protected void configure() {
+      bind(Integer.class)
+          .annotatedWith(MaxTaskQueryResults.class)
+          .toInstance(options.maxTaskQueryResults);
       bind(ReadOnlyScheduler.Iface.class).to(ReadOnlySchedulerImpl.class);
     }
   }
@@ -55,6 +55,8 @@ import org.apache.aurora.scheduler.SchedulerModule.TaskEventBatchWorker;
 import org.apache.aurora.scheduler.base.InstanceKeys;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.events.EventSink;
+import org.apache.aurora.scheduler.events.PubsubEvent.JobUpdateStatusChanged;
 import org.apache.aurora.scheduler.state.StateManager;
 import org.apache.aurora.scheduler.storage.JobUpdateStore;
 import org.apache.aurora.scheduler.storage.Storage;
@@ -127,6 +129,7 @@ class JobUpdateControllerImpl implements JobUpdateController {
   private final TaskEventBatchWorker taskEventBatchWorker;
   private final UpdateAgentReserver updateAgentReserver;
   private final SlaKillController slaKillController;
+  private final EventSink eventSink;
 
   // Currently-active updaters. An active updater is one that is rolling forward or back. Paused
   // and completed updates are represented only in storage, not here.
@@ -147,7 +150,8 @@ class JobUpdateControllerImpl implements JobUpdateController {
       Lifecycle lifecycle,
       TaskEventBatchWorker taskEventBatchWorker,
       StatsProvider statsProvider,
-      SlaKillController slaKillController) {
+      SlaKillController slaKillController,
+      EventSink eventSink) {
 
     this.updateFactory = requireNonNull(updateFactory);
     this.storage = requireNonNull(storage);
@@ -159,6 +163,7 @@ class JobUpdateControllerImpl implements JobUpdateController {
     this.pulseHandler = new PulseHandler(clock);
     this.updateAgentReserver = requireNonNull(updateAgentReserver);
     this.slaKillController = requireNonNull(slaKillController);
+    this.eventSink = requireNonNull(eventSink);
 
     this.jobUpdateEventStats = CacheBuilder.newBuilder()
         .build(new CacheLoader<JobUpdateStatus, AtomicLong>() {
@@ -521,10 +526,11 @@ class JobUpdateControllerImpl implements JobUpdateController {
 
     LOG.info("Update {} is now in state {}", key, status);
     if (record) {
-      updateStore.saveJobUpdateEvent(
-          key,
-          IJobUpdateEvent.build(proposedEvent.setTimestampMs(clock.nowMillis()).setStatus(status)));
+      IJobUpdateEvent event =
+          IJobUpdateEvent.build(proposedEvent.setTimestampMs(clock.nowMillis()).setStatus(status));
+      updateStore.saveJobUpdateEvent(key, event);
       jobUpdateEventStats.getUnchecked(status).incrementAndGet();
+      eventSink.post(new JobUpdateStatusChanged(key, event));
     }
 
     if (JobUpdateStore.TERMINAL_STATES.contains(status)) {
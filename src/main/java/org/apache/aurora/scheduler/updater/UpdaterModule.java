@@ -33,6 +33,7 @@ import org.apache.aurora.common.util.BackoffStrategy;
 import org.apache.aurora.common.util.TruncatedBinaryBackoff;
 import org.apache.aurora.scheduler.BatchWorker;
 import org.apache.aurora.scheduler.BatchWorker.NoResult;
+import org.apache.aurora.scheduler.SchedulerModule;
 import org.apache.aurora.scheduler.SchedulerServicesModule;
 import org.apache.aurora.scheduler.base.AsyncUtil;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
@@ -150,7 +151,11 @@ public class UpdaterModule extends AbstractModule {
 
     @Inject
     UpdateActionBatchWorker(CliOptions options, Storage storage, StatsProvider statsProvider) {
-      super(storage, statsProvider, options.updater.slaAwareActionMaxBatchSize);
+      super(
+          storage,
+          statsProvider,
+          options.updater.slaAwareActionMaxBatchSize,
+          SchedulerModule.batchLockHoldTarget(options));
     }
 
     @Override
@@ -13,13 +13,17 @@
  */
 package org.apache.aurora.scheduler;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.Service;
+import com.google.common.util.concurrent.Uninterruptibles;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.BackoffStrategy;
 import org.apache.aurora.scheduler.BatchWorker.Result;
@@ -30,17 +34,19 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class BatchWorkerTest extends EasyMockTest {
   private static final String SERVICE_NAME = "TestWorker";
   private static final String BATCH_STAT = SERVICE_NAME + "_batches_processed";
+  private StorageTestUtil storageUtil;
   private FakeStatsProvider statsProvider;
   private BatchWorker<Boolean> batchWorker;
 
   @Before
   public void setUp() {
-    StorageTestUtil storageUtil = new StorageTestUtil(this);
+    storageUtil = new StorageTestUtil(this);
     storageUtil.expectOperations();
     statsProvider = new FakeStatsProvider();
     batchWorker = new BatchWorker<Boolean>(storageUtil.storage, statsProvider, 2) {
@@ -51,6 +57,53 @@ public class BatchWorkerTest extends EasyMockTest {
     };
   }
 
+  private BatchWorker<Boolean> adaptiveWorker(Amount<Long, Time> lockHoldTarget) {
+    return new BatchWorker<Boolean>(
+        storageUtil.storage,
+        statsProvider,
+        10,
+        Optional.of(lockHoldTarget)) {
+
+      @Override
+      protected String serviceName() {
+        return SERVICE_NAME;
+      }
+    };
+  }
+
+  private static void runBatches(BatchWorker<Boolean> worker) throws Exception {
+    worker.startAsync().awaitRunning();
+    // Batches are processed sequentially, so the limit is adapted to the first batch by the time
+    // the second one completes.
+    for (int i = 0; i < 2; i++) {
+      assertTrue(worker.execute(store -> {
+        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.MILLISECONDS);
+        return true;
+      }).get());
+    }
+  }
+
+  @Test
+  public void testAdaptiveBatchSizeShrinks() throws Exception {
+    control.replay();
+
+    BatchWorker<Boolean> worker = adaptiveWorker(Amount.of(1L, Time.NANOSECONDS));
+    runBatches(worker);
+    assertEquals(1, worker.getBatchSizeLimit());
+    assertEquals(
+        1L,
+        statsProvider.getLongValue(SERVICE_NAME + "_batch_size_99_0_percentile"));
+  }
+
+  @Test
+  public void testAdaptiveBatchSizeCappedAtMax() throws Exception {
+    control.replay();
+
+    BatchWorker<Boolean> worker = adaptiveWorker(Amount.of(1L, Time.HOURS));
+    runBatches(worker);
+    assertEquals(10, worker.getBatchSizeLimit());
+  }
+
   @Test
   public void testExecute() throws Exception {
     control.replay();
@@ -20,6 +20,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.scheduler.TaskStatusHandlerImpl.QueuedStatus;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.state.StateChangeResult;
 import org.apache.aurora.scheduler.state.StateManager;
@@ -36,8 +37,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.gen.ScheduleStatus.FAILED;
+import static org.apache.aurora.gen.ScheduleStatus.FINISHED;
 import static org.apache.aurora.gen.ScheduleStatus.KILLED;
 import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.TaskStatusHandlerImpl.COALESCED_STAT_NAME;
 import static org.apache.aurora.scheduler.TaskStatusHandlerImpl.statName;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
@@ -47,11 +50,12 @@ import static org.junit.Assert.assertTrue;
 public class TaskStatusHandlerImplTest extends EasyMockTest {
 
   private static final String TASK_ID_A = "task_id_a";
+  private static final String TASK_ID_B = "task_id_b";
 
   private StateManager stateManager;
   private StorageTestUtil storageUtil;
   private Driver driver;
-  private BlockingQueue<TaskStatus> queue;
+  private BlockingQueue<QueuedStatus> queue;
   private FakeStatsProvider stats;
 
   private TaskStatusHandlerImpl statusHandler;
@@ -110,6 +114,7 @@ public class TaskStatusHandlerImplTest extends EasyMockTest {
     statusHandler.statusUpdate(status);
     assertTrue(latch.await(5L, TimeUnit.SECONDS));
     assertEquals(1L, stats.getValue(statName(status, StateChangeResult.SUCCESS)));
+    assertEquals(1L, stats.getLongValue("status_updates_batch_size_50_0_percentile"));
   }
 
   @Test
@@ -247,6 +252,117 @@ public class TaskStatusHandlerImplTest extends EasyMockTest {
     assertTrue(latch.await(5L, TimeUnit.SECONDS));
   }
 
+  @Test
+  public void testCoalescesUpdatesForSameTask() throws Exception {
+    // Stop the handler so that all updates end up in a single batch.
+    statusHandler.stopAsync();
+    statusHandler.awaitTerminated();
+
+    TaskStatus running = TaskStatus.newBuilder()
+        .setState(TaskState.TASK_RUNNING)
+        .setTaskId(TaskID.newBuilder().setValue(TASK_ID_A))
+        .build();
+    TaskStatus finished = running.toBuilder().setState(TaskState.TASK_FINISHED).build();
+    TaskStatus lateRunning = running.toBuilder().setMessage("late").build();
+    TaskStatus other = running.toBuilder().setTaskId(TaskID.newBuilder().setValue(TASK_ID_B))
+        .build();
+
+    storageUtil.expectWrite();
+
+    // A terminal update is not superseded by a later non-terminal update.
+    expect(stateManager.changeState(
+        storageUtil.mutableStoreProvider,
+        TASK_ID_A,
+        Optional.empty(),
+        FINISHED,
+        Optional.empty()))
+        .andReturn(StateChangeResult.SUCCESS);
+    expect(stateManager.changeState(
+        storageUtil.mutableStoreProvider,
+        TASK_ID_B,
+        Optional.empty(),
+        RUNNING,
+        Optional.empty()))
+        .andReturn(StateChangeResult.SUCCESS);
+
+    // All received updates are acknowledged.
+    CountDownLatch latch = new CountDownLatch(4);
+    driver.acknowledgeStatusUpdate(running);
+    waitAndAnswer(latch);
+    driver.acknowledgeStatusUpdate(finished);
+    waitAndAnswer(latch);
+    driver.acknowledgeStatusUpdate(lateRunning);
+    waitAndAnswer(latch);
+    driver.acknowledgeStatusUpdate(other);
+    waitAndAnswer(latch);
+
+    control.replay();
+
+    statusHandler = new TaskStatusHandlerImpl(
+        storageUtil.storage,
+        stateManager,
+        stats,
+        driver,
+        queue,
+        1000,
+        new CachedCounters(stats));
+    statusHandler.statusUpdate(running);
+    statusHandler.statusUpdate(finished);
+    statusHandler.statusUpdate(lateRunning);
+    statusHandler.statusUpdate(other);
+    statusHandler.startAsync();
+
+    assertTrue(latch.await(5L, TimeUnit.SECONDS));
+    assertEquals(2L, stats.getValue(COALESCED_STAT_NAME));
+  }
+
+  @Test
+  public void testKeepsFirstTerminalUpdate() throws Exception {
+    // Stop the handler so that all updates end up in a single batch.
+    statusHandler.stopAsync();
+    statusHandler.awaitTerminated();
+
+    TaskStatus failed = TaskStatus.newBuilder()
+        .setState(TaskState.TASK_FAILED)
+        .setTaskId(TaskID.newBuilder().setValue(TASK_ID_A))
+        .build();
+    TaskStatus lost = failed.toBuilder().setState(TaskState.TASK_LOST).build();
+
+    storageUtil.expectWrite();
+
+    // A terminal update is not superseded by a later terminal update either.
+    expect(stateManager.changeState(
+        storageUtil.mutableStoreProvider,
+        TASK_ID_A,
+        Optional.empty(),
+        FAILED,
+        Optional.empty()))
+        .andReturn(StateChangeResult.SUCCESS);
+
+    CountDownLatch latch = new CountDownLatch(2);
+    driver.acknowledgeStatusUpdate(failed);
+    waitAndAnswer(latch);
+    driver.acknowledgeStatusUpdate(lost);
+    waitAndAnswer(latch);
+
+    control.replay();
+
+    statusHandler = new TaskStatusHandlerImpl(
+        storageUtil.storage,
+        stateManager,
+        stats,
+        driver,
+        queue,
+        1000,
+        new CachedCounters(stats));
+    statusHandler.statusUpdate(failed);
+    statusHandler.statusUpdate(lost);
+    statusHandler.startAsync();
+
+    assertTrue(latch.await(5L, TimeUnit.SECONDS));
+    assertEquals(1L, stats.getValue(COALESCED_STAT_NAME));
+  }
+
   @Test
   public void testThreadFailure() throws Exception {
     // Re-create the objects from @Before, since we need to inject a mock queue.
@@ -256,7 +372,7 @@ public class TaskStatusHandlerImplTest extends EasyMockTest {
     stateManager = createMock(StateManager.class);
     storageUtil = new StorageTestUtil(this);
     driver = createMock(Driver.class);
-    queue = createMock(new Clazz<BlockingQueue<TaskStatus>>() { });
+    queue = createMock(new Clazz<BlockingQueue<QueuedStatus>>() { });
 
     statusHandler = new TaskStatusHandlerImpl(
         storageUtil.storage,
@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 
@@ -31,6 +32,7 @@ import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.VetoGroup;
@@ -51,6 +53,7 @@ import static org.apache.aurora.gen.ScheduleStatus.INIT;
 import static org.apache.aurora.gen.ScheduleStatus.LOST;
 import static org.apache.aurora.gen.ScheduleStatus.PENDING;
 import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.gen.ScheduleStatus.THROTTLED;
 import static org.apache.aurora.scheduler.TaskVars.VETO_GROUPS_TO_COUNTERS;
 import static org.apache.aurora.scheduler.TaskVars.VETO_TYPE_TO_COUNTERS;
 import static org.apache.aurora.scheduler.TaskVars.dedicatedRoleStatName;
@@ -215,6 +218,29 @@ public class TaskVarsTest extends EasyMockTest {
     assertAllZero();
   }
 
+  @Test
+  public void testBulkStateChanges() {
+    expectStatusCountersInitialized();
+
+    replayAndBuild();
+    schedulerActivated();
+
+    IScheduledTask pendingA = makeTask(JOB_A, PENDING);
+    IScheduledTask pendingB = makeTask(JOB_B, PENDING);
+    vars.taskChangedStates(new TaskStateChanges(ImmutableList.of(
+        TaskStateChange.transition(pendingA, INIT),
+        TaskStateChange.transition(pendingA, INIT),
+        TaskStateChange.transition(pendingB, INIT))));
+    assertEquals(3, getValue(PENDING));
+
+    IScheduledTask throttled = makeTask(JOB_A, THROTTLED);
+    vars.taskChangedStates(new TaskStateChanges(ImmutableList.of(
+        TaskStateChange.transition(throttled, PENDING),
+        TaskStateChange.transition(throttled, PENDING))));
+    assertEquals(1, getValue(PENDING));
+    assertEquals(2, getValue(THROTTLED));
+  }
+
   @Test
   public void testStaticVetoGroup() {
     expectStatusCountersInitialized();
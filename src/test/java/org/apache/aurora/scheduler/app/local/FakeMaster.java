@@ -29,12 +29,12 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
-import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
 import org.apache.aurora.scheduler.app.local.simulator.events.Started;
+import org.apache.aurora.scheduler.events.EventDispatcher;
 import org.apache.aurora.scheduler.mesos.DriverFactory;
 import org.apache.mesos.Protos.ExecutorID;
 import org.apache.mesos.Protos.Filters;
@@ -73,11 +73,11 @@ public class FakeMaster implements SchedulerDriver, DriverFactory {
   private final CountDownLatch stopped = new CountDownLatch(1);
 
   private final SettableFuture<Scheduler> schedulerFuture = SettableFuture.create();
-  private final EventBus eventBus;
+  private final EventDispatcher dispatcher;
 
   @Inject
-  FakeMaster(EventBus eventBus) {
-    this.eventBus = requireNonNull(eventBus);
+  FakeMaster(EventDispatcher dispatcher) {
+    this.dispatcher = requireNonNull(dispatcher);
   }
 
   public void addResources(Iterable<Offer> offers) {
@@ -120,7 +120,7 @@ public class FakeMaster implements SchedulerDriver, DriverFactory {
         FrameworkID.newBuilder().setValue("local").build(),
         MasterInfo.getDefaultInstance());
 
-    eventBus.post(new Started());
+    dispatcher.post(new Started());
 
     executor.scheduleAtFixedRate(
         () -> {
@@ -18,12 +18,12 @@ import java.util.UUID;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
-import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.AbstractModule;
 import com.google.inject.multibindings.Multibinder;
 
 import org.apache.aurora.scheduler.SchedulerServicesModule;
+import org.apache.aurora.scheduler.events.EventDispatcher;
 import org.apache.mesos.Protos;
 import org.apache.mesos.Protos.Offer;
 
@@ -62,18 +62,18 @@ public class ClusterSimulatorModule extends AbstractModule {
   }
 
   static class Register extends AbstractIdleService {
-    private final EventBus eventBus;
+    private final EventDispatcher dispatcher;
     private final FakeSlaves slaves;
 
     @Inject
-    Register(EventBus eventBus, FakeSlaves slaves) {
-      this.eventBus = requireNonNull(eventBus);
+    Register(EventDispatcher dispatcher, FakeSlaves slaves) {
+      this.dispatcher = requireNonNull(dispatcher);
       this.slaves = requireNonNull(slaves);
     }
 
     @Override
     protected void startUp() throws Exception {
-      eventBus.register(slaves);
+      dispatcher.register(slaves);
     }
 
     @Override
@@ -45,6 +45,7 @@ import org.apache.aurora.scheduler.app.MoreModules;
 import org.apache.aurora.scheduler.app.SchedulerMain.Options.DriverKind;
 import org.apache.aurora.scheduler.config.types.DataAmount;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.events.EventDispatcher.Backpressure;
 import org.apache.aurora.scheduler.http.api.security.HttpSecurityModule.Options.HttpAuthenticationMechanism;
 import org.apache.aurora.scheduler.http.api.security.ShiroIniConverterTest;
 import org.apache.aurora.scheduler.offers.OfferOrder;
@@ -116,11 +117,14 @@ public class CommandLineTest {
     expected.reconciliation.reconciliationScheduleSpread = TEST_TIME;
     expected.reconciliation.reconciliationBatchSize = 42;
     expected.reconciliation.reconciliationBatchInterval = TEST_TIME;
+    expected.reconciliation.reconciliationExplicitShards = 42;
     expected.offer.holdOffersForever = true;
     expected.offer.minOfferHoldTime = TEST_TIME;
     expected.offer.offerHoldJitterWindow = TEST_TIME;
     expected.offer.offerStaticBanCacheMaxSize = 42L;
     expected.offer.offerFilterDuration = TEST_TIME;
+    expected.offer.offerMaxFilterDuration = TEST_TIME;
+    expected.offer.offerDeclineBatchWindow = TEST_TIME;
     expected.offer.unavailabilityThreshold = TEST_TIME;
     expected.offer.offerOrder = ImmutableList.of(OfferOrder.CPU, OfferOrder.DISK);
     expected.offer.offerSetModule = NoopModule.class;
@@ -161,6 +165,9 @@ public class CommandLineTest {
     expected.scheduling.schedulingMaxBatchSize = 42;
     expected.scheduling.maxTasksPerScheduleAttempt = 42;
     expected.async.asyncWorkerThreads = 42;
+    expected.events.eventSubscriberQueueCapacity = 42;
+    expected.events.eventSubscriberBackpressure = Backpressure.DROP;
+    expected.events.eventDispatchPartitions = 42;
     expected.zk.inProcess = true;
     expected.zk.zkEndpoints = ImmutableList.of(InetSocketAddress.createUnresolved("testing", 42));
     expected.zk.chrootPath = "testing";
@@ -178,6 +185,7 @@ public class CommandLineTest {
     expected.backup.backupInterval = TEST_TIME;
     expected.backup.maxSavedBackups = 42;
     expected.backup.backupDir = new File("testing");
+    expected.thrift.maxTaskQueryResults = 42;
     expected.aop.methodInterceptorModules = ImmutableList.of(NoopModule.class);
     expected.pruning.historyPruneThreshold = TEST_TIME;
     expected.pruning.historyMaxPerJobThreshold = 42;
@@ -197,6 +205,10 @@ public class CommandLineTest {
     expected.jetty.hostnameOverride = "testing";
     expected.jetty.httpPort = 42;
     expected.jetty.listenIp = "testing";
+    expected.jetty.eventFeedBufferSize = 42;
+    expected.jetty.eventFeedMaxStreams = 42;
+    expected.jetty.eventFeedHeartbeatInterval = TEST_TIME;
+    expected.jetty.eventFeedMaxStreamDuration = TEST_TIME;
     expected.httpSecurity.shiroRealmModule = ImmutableList.of(NoopModule.class);
     expected.httpSecurity.shiroAfterAuthFilter = AnonymousFilter.class;
     expected.httpSecurity.httpAuthenticationMechanism = HttpAuthenticationMechanism.NEGOTIATE;
@@ -226,6 +238,7 @@ public class CommandLineTest {
     expected.preemptor.preemptionSlotSearchInitialDelay = TEST_TIME;
     expected.preemptor.preemptionSlotSearchInterval = TEST_TIME;
     expected.preemptor.reservationMaxBatchSize = 42;
+    expected.preemptor.slotSearchParallelism = 42;
     expected.preemptor.slotFinderModules = ImmutableList.of(NoopModule.class);
     expected.mesosLog.quorumSize = 42;
     expected.mesosLog.logPath = new File("testing");
@@ -242,10 +255,18 @@ public class CommandLineTest {
     expected.sla.slaNonProdMetrics = ImmutableList.of(MetricCategory.JOB_UPTIMES);
     expected.sla.slaRefreshInterval = TEST_TIME;
     expected.webhook.webhookConfigFile = tempFile;
+    expected.webhook.webhookQueueCapacity = 42;
+    expected.webhook.webhookBatchSize = 42;
+    expected.webhook.webhookBatchWindow = TEST_TIME;
+    expected.webhook.webhookMaxRequestsInFlight = 42;
+    expected.webhook.webhookMaxRetries = 42;
+    expected.webhook.webhookRetryBackoff = TEST_TIME;
     expected.scheduler.maxRegistrationDelay = TEST_TIME;
     expected.scheduler.maxLeadingDuration = TEST_TIME;
     expected.scheduler.maxStatusUpdateBatchSize = 42;
     expected.scheduler.maxTaskEventBatchSize = 42;
+    expected.scheduler.enableAdaptiveBatchSizing = true;
+    expected.scheduler.batchLockHoldTarget = TEST_TIME;
     expected.tiers.tierConfigFile = tempFile;
     expected.asyncStats.taskStatInterval = TEST_TIME;
     expected.asyncStats.slotStatInterval = TEST_TIME;
@@ -271,10 +292,13 @@ public class CommandLineTest {
         "-reconciliation_schedule_spread=42days",
         "-reconciliation_explicit_batch_size=42",
         "-reconciliation_explicit_batch_interval=42days",
+        "-reconciliation_explicit_shards=42",
         "-hold_offers_forever=true",
         "-min_offer_hold_time=42days",
         "-offer_hold_jitter_window=42days",
         "-offer_filter_duration=42days",
+        "-offer_max_filter_duration=42days",
+        "-offer_decline_batch_window=42days",
         "-unavailability_threshold=42days",
         "-offer_order=CPU,DISK",
         "-offer_set_module=org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
@@ -315,6 +339,9 @@ public class CommandLineTest {
         "-scheduling_max_batch_size=42",
         "-max_tasks_per_schedule_attempt=42",
         "-async_worker_threads=42",
+        "-event_subscriber_queue_capacity=42",
+        "-event_subscriber_backpressure=DROP",
+        "-event_dispatch_partitions=42",
         "-zk_in_proc=true",
         "-zk_endpoints=testing:42",
         "-zk_chroot_path=testing",
@@ -332,6 +359,7 @@ public class CommandLineTest {
         "-backup_interval=42days",
         "-max_saved_backups=42",
         "-backup_dir=testing",
+        "-max_task_query_results=42",
         "-thrift_method_interceptor_modules="
             + "org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-history_prune_threshold=42days",
@@ -351,6 +379,10 @@ public class CommandLineTest {
         "-hostname=testing",
         "-http_port=42",
         "-ip=testing",
+        "-event_feed_buffer_size=42",
+        "-event_feed_max_streams=42",
+        "-event_feed_heartbeat_interval=42days",
+        "-event_feed_max_stream_duration=42days",
         "-shiro_realm_modules=org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-shiro_after_auth_filter=org.apache.shiro.web.filter.authc.AnonymousFilter",
         "-http_authentication_mechanism=NEGOTIATE",
@@ -367,6 +399,7 @@ public class CommandLineTest {
         "-preemption_slot_search_initial_delay=42days",
         "-preemption_slot_search_interval=42days",
         "-preemption_reservation_max_batch_size=42",
+        "-preemption_slot_search_parallelism=42",
         "-preemption_slot_finder_modules="
             + "org.apache.aurora.scheduler.config.CommandLineTest$NoopModule",
         "-native_log_quorum_size=42",
@@ -380,10 +413,18 @@ public class CommandLineTest {
         "-sla_prod_metrics=JOB_UPTIMES",
         "-sla_non_prod_metrics=JOB_UPTIMES",
         "-webhook_config=" + tempFile.getAbsolutePath(),
+        "-webhook_queue_capacity=42",
+        "-webhook_batch_size=42",
+        "-webhook_batch_window=42days",
+        "-webhook_max_requests_in_flight=42",
+        "-webhook_max_retries=42",
+        "-webhook_retry_backoff=42days",
         "-max_registration_delay=42days",
         "-max_leading_duration=42days",
         "-max_status_update_batch_size=42",
         "-max_task_event_batch_size=42",
+        "-enable_adaptive_batch_sizing=true",
+        "-batch_lock_hold_target=42days",
         "-tier_config=" + tempFile.getAbsolutePath(),
         "-async_task_stat_update_interval=42days",
         "-async_slot_stat_update_interval=42days",
@@ -31,6 +31,7 @@ import org.apache.aurora.gen.MesosContainer;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.config.CliOptions;
 import org.apache.aurora.scheduler.configuration.ConfigurationManager;
 import org.apache.aurora.scheduler.cron.CronJobManager;
 import org.apache.aurora.scheduler.cron.CrontabEntry;
@@ -95,6 +96,7 @@ public class CronIT extends EasyMockTest {
           protected void configure() {
             bind(ConfigurationManager.class).toInstance(TaskTestUtil.CONFIGURATION_MANAGER);
             bind(Clock.class).toInstance(Clock.SYSTEM_CLOCK);
+            bind(CliOptions.class).toInstance(new CliOptions());
             bind(StateManager.class).toInstance(stateManager);
             bind(Storage.class).toInstance(storage);
             bind(StatsProvider.class).toInstance(createMock(StatsProvider.class));
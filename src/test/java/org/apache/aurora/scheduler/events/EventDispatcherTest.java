@@ -0,0 +1,341 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.events;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeTicker;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.EventDispatcher.Backpressure;
+import org.apache.aurora.scheduler.events.EventDispatcher.DispatchSettings;
+import org.apache.aurora.scheduler.events.EventDispatcher.LossTolerant;
+import org.apache.aurora.scheduler.events.EventDispatcher.Partitioned;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
+import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventDispatcherTest {
+
+  private static final IScheduledTask TASK_A =
+      TaskTestUtil.makeTask("a", JobKeys.from("role", "env", "a"));
+  private static final IScheduledTask TASK_B =
+      TaskTestUtil.makeTask("b", JobKeys.from("role", "env", "b"));
+
+  private FakeStatsProvider statsProvider;
+  private ManualExecutor executor;
+  private FakeTicker ticker;
+  private List<Throwable> exceptions;
+
+  @Before
+  public void setUp() {
+    statsProvider = new FakeStatsProvider();
+    executor = new ManualExecutor();
+    ticker = new FakeTicker();
+    exceptions = Lists.newArrayList();
+  }
+
+  private EventDispatcher createDispatcher(int capacity, Backpressure backpressure) {
+    return new EventDispatcher(
+        "test",
+        executor,
+        new DispatchSettings(capacity, backpressure, 4),
+        statsProvider,
+        (Throwable exception, Object event, Method method) -> exceptions.add(exception),
+        ticker);
+  }
+
+  @Test
+  public void testDeliversInOrder() {
+    EventDispatcher dispatcher = createDispatcher(100, Backpressure.BLOCK);
+    Recorder recorder = new Recorder();
+    dispatcher.register(recorder);
+
+    dispatcher.post("a");
+    dispatcher.post("b");
+    dispatcher.post(1);
+    assertEquals(3L, statsProvider.getLongValue("test_Recorder_queue_depth"));
+
+    // A single drain task is scheduled for the subscriber.
+    assertEquals(1, executor.size());
+    ticker.advance(Amount.of(1L, Time.MILLISECONDS));
+    assertEquals(1000000L, statsProvider.getLongValue("test_Recorder_lag_nanos"));
+    executor.runAll();
+
+    assertEquals(ImmutableList.of("a", "b", 1), recorder.events);
+    assertEquals(0L, statsProvider.getLongValue("test_Recorder_queue_depth"));
+    assertEquals(3L, statsProvider.getLongValue("test_Recorder_events_delivered"));
+  }
+
+  @Test
+  public void testSlowSubscriberIsolated() {
+    EventDispatcher dispatcher = createDispatcher(100, Backpressure.BLOCK);
+    Recorder first = new Recorder();
+    Recorder second = new Recorder();
+    dispatcher.register(first);
+    dispatcher.register(second);
+
+    dispatcher.post("a");
+
+    // Each subscriber is drained by its own task.
+    assertEquals(2, executor.size());
+    executor.runNext();
+    assertEquals(ImmutableList.of("a"), first.events);
+    assertEquals(ImmutableList.of(), second.events);
+    executor.runAll();
+    assertEquals(ImmutableList.of("a"), second.events);
+  }
+
+  @Test
+  public void testPartitionedSubscriber() {
+    EventDispatcher dispatcher = createDispatcher(100, Backpressure.BLOCK);
+    PartitionedRecorder recorder = new PartitionedRecorder();
+    dispatcher.register(recorder);
+
+    TaskStateChange initialA = TaskStateChange.initialized(TASK_A);
+    TaskStateChange initialB = TaskStateChange.initialized(TASK_B);
+    TaskStateChange transitionA = TaskStateChange.transition(TASK_A, ScheduleStatus.INIT);
+    dispatcher.post(initialA);
+    dispatcher.post(initialB);
+    dispatcher.post(transitionA);
+    executor.runAll();
+
+    // Events for different jobs may be reordered, but events for the same job may not.
+    assertEquals(3, recorder.events.size());
+    assertEquals(
+        ImmutableList.of(initialA, transitionA),
+        recorder.events.stream()
+            .filter(event -> Tasks.getJob(event.getTask()).equals(Tasks.getJob(TASK_A)))
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testBulkStateChanges() {
+    EventDispatcher dispatcher = createDispatcher(2, Backpressure.DROP);
+    BulkRecorder bulk = new BulkRecorder();
+    PartitionedRecorder partitioned = new PartitionedRecorder();
+    dispatcher.register(bulk);
+    dispatcher.register(partitioned);
+
+    TaskStateChange initialA = TaskStateChange.initialized(TASK_A);
+    TaskStateChange initialB = TaskStateChange.initialized(TASK_B);
+    TaskStateChange transitionA = TaskStateChange.transition(TASK_A, ScheduleStatus.INIT);
+    TaskStateChanges changes =
+        new TaskStateChanges(ImmutableList.of(initialA, initialB, transitionA));
+    dispatcher.post(changes);
+    executor.runAll();
+
+    // Subscribers that opt in receive the event as a whole, others receive each change. Either
+    // way the event takes a single queue slot per job.
+    assertEquals(ImmutableList.of(changes), bulk.events);
+    assertEquals(ImmutableList.of(), bulk.singleEvents);
+    assertEquals(
+        ImmutableSet.of(initialA, initialB, transitionA),
+        ImmutableSet.copyOf(partitioned.events));
+    assertEquals(
+        ImmutableList.of(initialA, transitionA),
+        partitioned.events.stream()
+            .filter(event -> Tasks.getJob(event.getTask()).equals(Tasks.getJob(TASK_A)))
+            .collect(Collectors.toList()));
+    assertEquals(0L, statsProvider.getLongValue("test_BulkRecorder_events_dropped"));
+    assertEquals(0L, statsProvider.getLongValue("test_PartitionedRecorder_events_dropped"));
+  }
+
+  @Test
+  public void testDropWhenFull() {
+    EventDispatcher dispatcher = createDispatcher(1, Backpressure.DROP);
+    LossTolerantRecorder recorder = new LossTolerantRecorder();
+    dispatcher.register(recorder);
+
+    dispatcher.post("a");
+    dispatcher.post("b");
+    executor.runAll();
+    dispatcher.post("c");
+    executor.runAll();
+
+    assertEquals(ImmutableList.of("a", "c"), recorder.events);
+    assertEquals(1L, statsProvider.getLongValue("test_LossTolerantRecorder_events_dropped"));
+  }
+
+  @Test
+  public void testNeverDropForLosslessSubscriber() {
+    EventDispatcher dispatcher = createDispatcher(1, Backpressure.DROP);
+    Recorder recorder = new Recorder();
+    dispatcher.register(recorder);
+
+    dispatcher.post("a");
+    dispatcher.post("b");
+    assertEquals(2L, statsProvider.getLongValue("test_Recorder_queue_depth"));
+    executor.runAll();
+
+    assertEquals(ImmutableList.of("a", "b"), recorder.events);
+    assertEquals(0L, statsProvider.getLongValue("test_Recorder_events_dropped"));
+  }
+
+  @Test
+  public void testDeadEvent() {
+    EventDispatcher dispatcher = createDispatcher(100, Backpressure.BLOCK);
+    DeadEventRecorder recorder = new DeadEventRecorder();
+    dispatcher.register(recorder);
+
+    dispatcher.post("a");
+    executor.runAll();
+
+    assertEquals(ImmutableList.of("a"), recorder.events);
+  }
+
+  @Test
+  public void testSubscriberException() {
+    EventDispatcher dispatcher = createDispatcher(100, Backpressure.BLOCK);
+    Recorder recorder = new Recorder();
+    dispatcher.register(new ThrowingSubscriber());
+    dispatcher.register(recorder);
+
+    dispatcher.post("a");
+    dispatcher.post("b");
+    executor.runAll();
+
+    assertEquals(2, exceptions.size());
+    assertEquals(ImmutableList.of("a", "b"), recorder.events);
+  }
+
+  @Test
+  public void testInheritedSubscriberMethods() {
+    EventDispatcher dispatcher = createDispatcher(100, Backpressure.BLOCK);
+    Recorder recorder = new Recorder() { };
+    dispatcher.register(recorder);
+
+    dispatcher.post("a");
+    executor.runAll();
+
+    assertEquals(ImmutableList.of("a"), recorder.events);
+  }
+
+  @Test
+  public void testPartitionKey() {
+    assertEquals(
+        Optional.of(JobKeys.from("role", "env", "a")),
+        EventDispatcher.partitionKey(TaskStateChange.initialized(TASK_A)));
+    assertEquals(
+        Optional.of(JobKeys.from("role", "env", "a")),
+        EventDispatcher.partitionKey(new TasksDeleted(ImmutableSet.of(TASK_A))));
+    assertEquals(
+        Optional.empty(),
+        EventDispatcher.partitionKey(new TasksDeleted(ImmutableSet.of(TASK_A, TASK_B))));
+    assertEquals(Optional.empty(), EventDispatcher.partitionKey("a"));
+  }
+
+  static class Recorder {
+    final List<Object> events = Lists.newArrayList();
+
+    @Subscribe
+    public void receiveString(String event) {
+      events.add(event);
+    }
+
+    @Subscribe
+    public void receiveInteger(Integer event) {
+      events.add(event);
+    }
+  }
+
+  @LossTolerant
+  static class LossTolerantRecorder extends Recorder { }
+
+  @Partitioned
+  static class PartitionedRecorder {
+    final List<TaskStateChange> events = Lists.newArrayList();
+
+    @Subscribe
+    public void receive(TaskStateChange event) {
+      events.add(event);
+    }
+  }
+
+  static class BulkRecorder {
+    final List<TaskStateChanges> events = Lists.newArrayList();
+    final List<TaskStateChange> singleEvents = Lists.newArrayList();
+
+    @Subscribe
+    public void receive(TaskStateChanges event) {
+      events.add(event);
+    }
+
+    @Subscribe
+    public void receive(TaskStateChange event) {
+      singleEvents.add(event);
+    }
+  }
+
+  static class DeadEventRecorder {
+    final List<Object> events = Lists.newArrayList();
+
+    @Subscribe
+    public void receive(DeadEvent event) {
+      events.add(event.getEvent());
+    }
+  }
+
+  static class ThrowingSubscriber {
+    @Subscribe
+    public void receive(String event) {
+      throw new IllegalStateException(event);
+    }
+  }
+
+  private static class ManualExecutor implements Executor {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    int size() {
+      return tasks.size();
+    }
+
+    void runNext() {
+      tasks.poll().run();
+    }
+
+    void runAll() {
+      while (!tasks.isEmpty()) {
+        runNext();
+      }
+    }
+  }
+}
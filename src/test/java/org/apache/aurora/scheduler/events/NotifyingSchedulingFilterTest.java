@@ -30,8 +30,10 @@ import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.Veto;
 import org.apache.aurora.scheduler.metadata.NearestFit;
 import org.apache.aurora.scheduler.resources.ResourceManager;
+import org.apache.aurora.scheduler.scheduling.SchedulingTracer;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -68,7 +70,11 @@ public class NotifyingSchedulingFilterTest extends EasyMockTest {
     nearestFit = createMock(NearestFit.class);
     taskVars = createMock(TaskVars.class);
 
-    filter = new NotifyingSchedulingFilter(delegate, nearestFit, taskVars);
+    filter = new NotifyingSchedulingFilter(
+        delegate,
+        nearestFit,
+        taskVars,
+        new SchedulingTracer(new FakeStatsProvider()));
   }
 
   @Test
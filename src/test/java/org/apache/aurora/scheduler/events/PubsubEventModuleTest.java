@@ -16,7 +16,6 @@ package org.apache.aurora.scheduler.events;
 import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.concurrent.Executor;
 
-import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
@@ -63,9 +62,9 @@ public class PubsubEventModuleTest extends EasyMockTest {
     control.replay();
 
     Injector injector = getInjector();
-    injector.getInstance(EventBus.class).post("hello");
+    injector.getInstance(EventDispatcher.class).post("hello");
     assertEquals(1, statsProvider.getLongValue(PubsubEventModule.EVENT_BUS_DEAD_EVENTS));
-    injector.getInstance(Key.get(EventBus.class, PubsubEventModule.RegisteredEvents.class))
+    injector.getInstance(Key.get(EventDispatcher.class, PubsubEventModule.RegisteredEvents.class))
         .post("hello2");
     assertEquals(2, statsProvider.getLongValue(PubsubEventModule.EVENT_BUS_DEAD_EVENTS));
   }
@@ -88,9 +87,9 @@ public class PubsubEventModuleTest extends EasyMockTest {
     injector.getInstance(Key.get(GuavaUtils.ServiceManagerIface.class, AppStartup.class))
         .startAsync().awaitHealthy();
     assertEquals(0, statsProvider.getLongValue(PubsubEventModule.EXCEPTIONS_STAT));
-    injector.getInstance(EventBus.class).post("hello");
+    injector.getInstance(EventDispatcher.class).post("hello");
     assertEquals(1, statsProvider.getLongValue(PubsubEventModule.EXCEPTIONS_STAT));
-    injector.getInstance(Key.get(EventBus.class, PubsubEventModule.RegisteredEvents.class))
+    injector.getInstance(Key.get(EventDispatcher.class, PubsubEventModule.RegisteredEvents.class))
         .post("hello2");
     assertEquals(2, statsProvider.getLongValue(PubsubEventModule.EXCEPTIONS_STAT));
     assertEquals(0, statsProvider.getLongValue(PubsubEventModule.EVENT_BUS_DEAD_EVENTS));
@@ -15,21 +15,34 @@ package org.apache.aurora.scheduler.events;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.Webhook.DeliverySettings;
 import org.apache.aurora.scheduler.events.WebhookInfo.WebhookInfoBuilder;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
@@ -51,6 +64,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class WebhookTest {
   private static final String STATIC_URL = "http://localhost:8080/";
@@ -92,9 +106,15 @@ public class WebhookTest {
           .setTimeout(TIMEOUT)
           .addWhitelistedStatus("*");
 
+  private static final Amount<Long, Time> RETRY_BACKOFF = Amount.of(1L, Time.MILLISECONDS);
+  // Delivers events one at a time, without retries.
+  private static final DeliverySettings NO_BATCHING =
+      new DeliverySettings(100, 1, Amount.of(0L, Time.MILLISECONDS), 1, 0, RETRY_BACKOFF);
+
   private Server jettyServer;
   private AsyncHttpClient httpClient;
   private FakeStatsProvider statsProvider;
+  private ScheduledExecutorService retryExecutor;
 
   /**
    * Wraps an {@link AsyncHandler} to allow the caller to wait for
@@ -187,22 +207,27 @@ public class WebhookTest {
         .build();
     httpClient = new WebhookAsyncHttpClientWrapper(testConfig);
     statsProvider = new FakeStatsProvider();
+    retryExecutor = Executors.newSingleThreadScheduledExecutor();
     jettyServer = new Server(0); // Start Jetty server with ephemeral port
   }
 
   @After
   public void tearDown() throws Exception {
+    retryExecutor.shutdownNow();
     jettyServer.stop();
   }
 
   @Test
   public void testTaskChangedStateNoOldState() throws Exception {
     WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
-    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    Webhook webhook = createWebhook(webhookInfo, NO_BATCHING);
 
     // Should be a noop as oldState is MIA so this test would have throw an exception.
     // If it does not, then we are good.
     webhook.taskChangedState(CHANGE);
+    webhook.flush();
+
+    assertEquals(0, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
   }
 
   @Test
@@ -210,14 +235,17 @@ public class WebhookTest {
     jettyServer.setHandler(createHandlerThatExpectsContent(CHANGE_JSON));
     jettyServer.start();
     WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
-    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    Webhook webhook = createWebhook(webhookInfo, NO_BATCHING);
 
     webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.flush();
 
     assertEquals(1, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
     assertEquals(1, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
     assertEquals(0, statsProvider.getLongValue(Webhook.ERRORS_STAT_NAME));
     assertEquals(0, statsProvider.getLongValue(Webhook.USER_ERRORS_STAT_NAME));
+    assertTrue(statsProvider.getLongValue(
+        Webhook.DELIVERY_LATENCY_STAT_NAME + "_99_0_percentile") >= 0);
   }
 
   @Test
@@ -226,9 +254,10 @@ public class WebhookTest {
     jettyServer.setHandler(createHandlerThatExpectsContent(CHANGE_JSON));
     jettyServer.start();
     WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
-    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    Webhook webhook = createWebhook(webhookInfo, NO_BATCHING);
 
     webhook.taskChangedState(CHANGE_LOST);
+    webhook.flush();
 
     assertEquals(1, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
     assertEquals(0, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
@@ -242,9 +271,10 @@ public class WebhookTest {
     WebhookInfo webhookInfo = buildWebhookInfo(
         WEBHOOK_INFO_BUILDER,
         "http://bad.host.com");
-    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    Webhook webhook = createWebhook(webhookInfo, NO_BATCHING);
 
     webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.flush();
 
     assertEquals(1, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
     assertEquals(0, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
@@ -258,9 +288,10 @@ public class WebhookTest {
     jettyServer.setHandler(createHandlerThatExpectsContent(CHANGE_LOST_JSON));
     jettyServer.start();
     WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_WITH_WHITELIST_BUILDER);
-    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    Webhook webhook = createWebhook(webhookInfo, NO_BATCHING);
 
     webhook.taskChangedState(CHANGE_LOST);
+    webhook.flush();
 
     assertEquals(1, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
     assertEquals(1, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
@@ -274,9 +305,115 @@ public class WebhookTest {
     jettyServer.setHandler(createHandlerThatExpectsContent(CHANGE_JSON));
     jettyServer.start();
     WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_WITH_WHITELIST_BUILDER);
-    Webhook webhook = new Webhook(httpClient, webhookInfo, statsProvider);
+    Webhook webhook = createWebhook(webhookInfo, NO_BATCHING);
+
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.flush();
+
+    assertEquals(0, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
+  }
+
+  @Test
+  public void testBatchedDelivery() throws Exception {
+    RecordingHandler handler = new RecordingHandler();
+    jettyServer.setHandler(handler);
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
+    Webhook webhook = createWebhook(
+        webhookInfo,
+        new DeliverySettings(100, 2, Amount.of(0L, Time.MILLISECONDS), 1, 0, RETRY_BACKOFF));
+
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.taskChangedState(CHANGE_LOST);
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    assertEquals(3L, statsProvider.getLongValue(Webhook.QUEUE_SIZE_STAT_NAME));
+    webhook.flush();
+
+    // Batches are always sent as arrays, even when only a single event is left over.
+    assertEquals(
+        ImmutableList.of(
+            "[" + CHANGE_JSON + "," + CHANGE_LOST_JSON + "]",
+            "[" + CHANGE_JSON + "]"),
+        handler.bodies);
+    assertEquals(0L, statsProvider.getLongValue(Webhook.QUEUE_SIZE_STAT_NAME));
+    assertEquals(3, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
+    assertEquals(3, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
+    assertEquals(2, statsProvider.getLongValue(Webhook.REQUESTS_STAT_NAME));
+  }
+
+  @Test
+  public void testDropWhenQueueFull() throws Exception {
+    RecordingHandler handler = new RecordingHandler();
+    jettyServer.setHandler(handler);
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
+    Webhook webhook = createWebhook(
+        webhookInfo,
+        new DeliverySettings(1, 1, Amount.of(0L, Time.MILLISECONDS), 1, 0, RETRY_BACKOFF));
+
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.taskChangedState(CHANGE_LOST);
+    webhook.flush();
+
+    assertEquals(ImmutableList.of(CHANGE_JSON), handler.bodies);
+    assertEquals(1, statsProvider.getLongValue(Webhook.DROPPED_STAT_NAME));
+    assertEquals(1, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
+  }
+
+  @Test
+  public void testRetryServerError() throws Exception {
+    RecordingHandler handler = new RecordingHandler(
+        HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+        HttpServletResponse.SC_OK);
+    jettyServer.setHandler(handler);
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
+    Webhook webhook = createWebhook(
+        webhookInfo,
+        new DeliverySettings(100, 1, Amount.of(0L, Time.MILLISECONDS), 1, 1, RETRY_BACKOFF));
+
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.flush();
+
+    assertEquals(ImmutableList.of(CHANGE_JSON, CHANGE_JSON), handler.bodies);
+    assertEquals(1, statsProvider.getLongValue(Webhook.ATTEMPTS_STAT_NAME));
+    assertEquals(1, statsProvider.getLongValue(Webhook.RETRIES_STAT_NAME));
+    assertEquals(1, statsProvider.getLongValue(Webhook.SUCCESS_STAT_NAME));
+    assertEquals(0, statsProvider.getLongValue(Webhook.USER_ERRORS_STAT_NAME));
+  }
+
+  @Test
+  public void testNoRetryClientError() throws Exception {
+    RecordingHandler handler = new RecordingHandler(HttpServletResponse.SC_BAD_REQUEST);
+    jettyServer.setHandler(handler);
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
+    Webhook webhook = createWebhook(
+        webhookInfo,
+        new DeliverySettings(100, 1, Amount.of(0L, Time.MILLISECONDS), 1, 3, RETRY_BACKOFF));
 
     webhook.taskChangedState(CHANGE_OLD_STATE);
+    webhook.flush();
+
+    assertEquals(ImmutableList.of(CHANGE_JSON), handler.bodies);
+    assertEquals(0, statsProvider.getLongValue(Webhook.RETRIES_STAT_NAME));
+    assertEquals(1, statsProvider.getLongValue(Webhook.USER_ERRORS_STAT_NAME));
+  }
+
+  @Test
+  public void testDeliveryThread() throws Exception {
+    RecordingHandler handler = new RecordingHandler();
+    jettyServer.setHandler(handler);
+    jettyServer.start();
+    WebhookInfo webhookInfo = buildWebhookInfoWithJettyPort(WEBHOOK_INFO_BUILDER);
+    Webhook webhook = createWebhook(webhookInfo, NO_BATCHING);
+    webhook.startAsync().awaitRunning();
+
+    webhook.taskChangedState(CHANGE_OLD_STATE);
+    assertTrue(handler.received.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+    webhook.stopAsync().awaitTerminated();
+    assertEquals(ImmutableList.of(CHANGE_JSON), handler.bodies);
   }
 
   private static final String TEST_CONFIG = "{\n"
@@ -375,6 +512,38 @@ public class WebhookTest {
     assertFalse(webhookInfoWithWildcardWhitelist.getWhitelistedStatuses().isPresent());
   }
 
+  private Webhook createWebhook(WebhookInfo webhookInfo, DeliverySettings settings) {
+    return new Webhook(httpClient, webhookInfo, settings, statsProvider, retryExecutor);
+  }
+
+  /**
+   * A Jetty handler that records request bodies and responds with the given status codes in
+   * order, then with 200.
+   */
+  private class RecordingHandler extends AbstractHandler {
+    private final List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    RecordingHandler(Integer... statuses) {
+      this.statuses.addAll(Arrays.asList(statuses));
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException, ServletException {
+      bodies.add(request.getReader().lines().collect(Collectors.joining()));
+      Integer status = Optional.ofNullable(statuses.poll()).orElse(HttpServletResponse.SC_OK);
+      if (validateRequest(request)) {
+        response.setStatus(status);
+      } else {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      }
+      baseRequest.setHandled(true);
+      received.countDown();
+    }
+  }
+
   /** Create a Jetty handler that expects a request with a given content body. */
   private AbstractHandler createHandlerThatExpectsContent(String expected) {
     return new AbstractHandler() {
@@ -167,6 +167,25 @@ public class AttributeAggregateTest extends EasyMockTest {
     assertEquals(expected, aggregate.getAggregates());
   }
 
+  @Test
+  public void testRevertAttributeAggregate() {
+    expectGetAttributes("a1", attribute("host", "a1"), attribute("rack", "a"));
+
+    control.replay();
+
+    AttributeAggregate aggregate = aggregate(task("1", "a1"));
+    Multiset<Pair<String, String>> expected = ImmutableMultiset.copyOf(aggregate.getAggregates());
+
+    IHostAttributes sameRack = IHostAttributes.build(new HostAttributes()
+        .setHost("a2")
+        .setAttributes(ImmutableSet.of(attribute("host", "a2"), attribute("rack", "a"))));
+    aggregate.updateAttributeAggregate(sameRack);
+    assertEquals(2L, aggregate.getNumTasksWithAttribute("rack", "a"));
+
+    aggregate.revertAttributeAggregate(sameRack);
+    assertEquals(expected, aggregate.getAggregates());
+  }
+
   private AttributeAggregate aggregate(IScheduledTask... activeTasks) {
     return AttributeAggregate.create(
         Suppliers.ofInstance(ImmutableSet.copyOf(activeTasks)),
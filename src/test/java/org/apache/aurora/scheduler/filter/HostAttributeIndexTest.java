@@ -0,0 +1,80 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.filter;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.gen.Attribute;
+import org.apache.aurora.gen.HostAttributes;
+import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
+import org.junit.Test;
+
+import static org.apache.aurora.scheduler.configuration.ConfigurationManager.DEDICATED_ATTRIBUTE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HostAttributeIndexTest {
+
+  private static IHostAttributes hostAttributes(Attribute... attributes) {
+    return IHostAttributes.build(
+        new HostAttributes().setHost("hostA").setAttributes(ImmutableSet.copyOf(attributes)));
+  }
+
+  @Test
+  public void testNoAttributes() {
+    HostAttributeIndex index = HostAttributeIndex.from(hostAttributes());
+
+    assertFalse(index.hasName(AttributeIds.nameId("rack")));
+    assertFalse(index.hasValue(AttributeIds.valueId("rack", "rackA")));
+    assertEquals(0, index.getValues(AttributeIds.nameId("rack")).length);
+    assertFalse(index.isDedicated());
+  }
+
+  @Test
+  public void testValuesAreScopedByName() {
+    HostAttributeIndex index = HostAttributeIndex.from(hostAttributes(
+        new Attribute("rack", ImmutableSet.of("a")),
+        new Attribute("zone", ImmutableSet.of("b"))));
+
+    assertTrue(index.hasName(AttributeIds.nameId("rack")));
+    assertTrue(index.hasValue(AttributeIds.valueId("rack", "a")));
+    assertFalse(index.hasValue(AttributeIds.valueId("rack", "b")));
+    assertTrue(index.hasValue(AttributeIds.valueId("zone", "b")));
+    assertFalse(index.hasValue(AttributeIds.valueId("zone", "a")));
+  }
+
+  @Test
+  public void testSameNameAttributesMerged() {
+    HostAttributeIndex index = HostAttributeIndex.from(hostAttributes(
+        new Attribute("rack", ImmutableSet.of("a")),
+        new Attribute("rack", ImmutableSet.of("b"))));
+
+    assertArrayEquals(
+        new String[] {"a", "b"},
+        ImmutableSet.copyOf(index.getValues(AttributeIds.nameId("rack")))
+            .stream()
+            .sorted()
+            .toArray());
+  }
+
+  @Test
+  public void testDedicated() {
+    HostAttributeIndex index = HostAttributeIndex.from(hostAttributes(
+        new Attribute(DEDICATED_ATTRIBUTE, ImmutableSet.of("role/job"))));
+
+    assertTrue(index.isDedicated());
+  }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.Response;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.gen.JobUpdateEvent;
+import org.apache.aurora.gen.JobUpdateKey;
+import org.apache.aurora.gen.JobUpdateStatus;
+import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.JobUpdateStatusChanged;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.storage.entities.IJobKey;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateEvent;
+import org.apache.aurora.scheduler.storage.entities.IJobUpdateKey;
+import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EventsTest {
+
+  private static final IJobKey JOB_A = JobKeys.from("a", "env", "job");
+  private static final IJobKey JOB_B = JobKeys.from("b", "env", "job");
+  private static final IScheduledTask TASK_A = TaskTestUtil.makeTask("task-a", JOB_A);
+  private static final IScheduledTask TASK_B = TaskTestUtil.makeTask("task-b", JOB_B);
+  private static final Amount<Long, Time> HEARTBEAT = Amount.of(1L, Time.MILLISECONDS);
+  private static final Amount<Long, Time> STREAM_DURATION = Amount.of(20L, Time.MILLISECONDS);
+
+  private FakeStatsProvider statsProvider;
+  private EventFeed feed;
+  private Events events;
+
+  @Before
+  public void setUp() {
+    statsProvider = new FakeStatsProvider();
+    setUpFeed(100, 1);
+  }
+
+  private void setUpFeed(int bufferSize, int maxStreams) {
+    feed = new EventFeed(
+        new EventFeed.Settings(bufferSize, maxStreams, HEARTBEAT, STREAM_DURATION),
+        statsProvider);
+    events = new Events(feed);
+  }
+
+  private String stream(Optional<String> resumeFrom, Set<String> roles) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    events.stream(out, resumeFrom, roles);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private String id(long sequence) {
+    return feed.getEpoch() + "-" + sequence;
+  }
+
+  @Test
+  public void testStreamsEvents() throws Exception {
+    feed.taskChangedState(TaskStateChange.initialized(TASK_A));
+    feed.taskChangedState(TaskStateChange.transition(TASK_A, ScheduleStatus.INIT));
+    feed.jobUpdateStatusChanged(new JobUpdateStatusChanged(
+        IJobUpdateKey.build(new JobUpdateKey(JOB_A.newBuilder(), "update")),
+        IJobUpdateEvent.build(new JobUpdateEvent()
+            .setStatus(JobUpdateStatus.ROLLING_FORWARD)
+            .setTimestampMs(5L))));
+
+    String output = stream(Optional.of(id(0)), ImmutableSet.of());
+
+    // Tasks loaded at startup are not streamed.
+    assertTrue(output.startsWith("id: " + id(1) + "\nevent: " + EventFeed.TASK_STATE_CHANGE));
+    assertTrue(output.contains("\"taskId\":\"task-a\""));
+    assertTrue(output.contains("\"oldState\":\"INIT\""));
+    assertTrue(output.contains(
+        "id: " + id(2) + "\nevent: " + EventFeed.JOB_UPDATE_STATUS_CHANGE + "\n"));
+    assertTrue(output.contains("\"status\":\"ROLLING_FORWARD\""));
+    assertFalse(output.contains(Events.RESET));
+    assertEquals(2L, statsProvider.getLongValue("event_feed_events"));
+  }
+
+  @Test
+  public void testStreamsNewEventsOnly() throws Exception {
+    feed.taskChangedState(TaskStateChange.transition(TASK_A, ScheduleStatus.INIT));
+
+    String output = stream(Optional.empty(), ImmutableSet.of());
+
+    // With nothing to resume from, only events after the stream opened are sent.
+    assertFalse(output.contains("task-a"));
+    assertTrue(output.contains(":\n\n"));
+  }
+
+  @Test
+  public void testRoleFilter() throws Exception {
+    feed.taskChangedState(TaskStateChange.transition(TASK_A, ScheduleStatus.INIT));
+    feed.taskChangedState(TaskStateChange.transition(TASK_B, ScheduleStatus.INIT));
+
+    String output = stream(Optional.of(id(0)), ImmutableSet.of("b"));
+
+    assertFalse(output.contains("task-a"));
+    assertTrue(output.contains("id: " + id(2) + "\n"));
+  }
+
+  @Test
+  public void testResetUnknownId() throws Exception {
+    feed.taskChangedState(TaskStateChange.transition(TASK_A, ScheduleStatus.INIT));
+
+    String output = stream(Optional.of("previous-scheduler-5"), ImmutableSet.of());
+
+    assertTrue(output.startsWith("id: " + id(1) + "\nevent: " + Events.RESET + "\n"));
+    assertFalse(output.contains("task-a"));
+  }
+
+  @Test
+  public void testResetEvictedEvents() throws Exception {
+    setUpFeed(1, 1);
+    feed.taskChangedState(TaskStateChange.transition(TASK_A, ScheduleStatus.INIT));
+    feed.taskChangedState(TaskStateChange.transition(TASK_B, ScheduleStatus.INIT));
+
+    String output = stream(Optional.of(id(0)), ImmutableSet.of());
+
+    assertTrue(output.startsWith("event: " + Events.RESET + "\n"));
+    assertFalse(output.contains("task-a"));
+    assertTrue(output.contains("task-b"));
+    assertEquals(1L, statsProvider.getLongValue("event_feed_streams_truncated"));
+  }
+
+  @Test
+  public void testTooManyStreams() {
+    setUpFeed(100, 0);
+
+    Response response = events.getEvents(null, null, null);
+
+    assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus());
+  }
+}
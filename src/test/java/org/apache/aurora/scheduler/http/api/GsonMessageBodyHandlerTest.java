@@ -0,0 +1,106 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.http.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.core.MediaType;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonParseException;
+
+import org.apache.aurora.gen.Resource;
+import org.apache.aurora.gen.Response;
+import org.apache.aurora.gen.Result;
+import org.apache.aurora.gen.ScheduleStatusResult;
+import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.storage.entities.IResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ResponseCode.OK;
+import static org.junit.Assert.assertEquals;
+
+public class GsonMessageBodyHandlerTest {
+
+  private GsonMessageBodyHandler handler;
+
+  @Before
+  public void setUp() {
+    handler = new GsonMessageBodyHandler();
+  }
+
+  private String write(Object o) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    handler.writeTo(
+        o,
+        o.getClass(),
+        o.getClass(),
+        null,
+        MediaType.APPLICATION_JSON_TYPE,
+        null,
+        out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T read(String json, Class<T> type) throws IOException {
+    return (T) handler.readFrom(
+        (Class<Object>) (Class<?>) type,
+        type,
+        null,
+        MediaType.APPLICATION_JSON_TYPE,
+        null,
+        new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testWriteUnion() throws Exception {
+    assertEquals("{\"numCpus\":2.0}", write(Resource.numCpus(2.0)));
+    assertEquals("{\"ramMb\":128}", write(Resource.ramMb(128)));
+  }
+
+  @Test
+  public void testReadUnion() throws Exception {
+    assertEquals(Resource.numCpus(2.0), read("{\"numCpus\": 2.0}", Resource.class));
+    assertEquals(Resource.namedPort("http"), read("{\"namedPort\": \"http\"}", Resource.class));
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    ScheduledTask task = TaskTestUtil.makeTask("a", TaskTestUtil.JOB).newBuilder();
+    Response response = new Response()
+        .setResponseCode(OK)
+        .setResult(Result.scheduleStatusResult(new ScheduleStatusResult()
+            .setTasks(ImmutableList.of(task))));
+
+    assertEquals(
+        IResponse.build(response),
+        IResponse.build(read(write(response), Response.class)));
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void testReadUnionMultipleMembers() throws Exception {
+    read("{\"numCpus\": 2.0, \"ramMb\": 128}", Resource.class);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void testReadUnionNoMembers() throws Exception {
+    read("{}", Resource.class);
+  }
+}
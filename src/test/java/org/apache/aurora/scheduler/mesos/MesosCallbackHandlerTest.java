@@ -30,6 +30,7 @@ import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.testing.FakeClock;
+import org.apache.aurora.gen.Attribute;
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.scheduler.TaskStatusHandler;
 import org.apache.aurora.scheduler.base.Conversions;
@@ -248,8 +249,10 @@ public class MesosCallbackHandlerTest extends EasyMockTest {
   }
 
   private void expectOfferAttributesSaved(HostOffer offer) {
+    // Attributes are compared before taking the write lock, and merged again after.
     expect(storageUtil.attributeStore.getHostAttributes(offer.getOffer().getHostname()))
-        .andReturn(Optional.empty());
+        .andReturn(Optional.empty())
+        .times(2);
     IHostAttributes defaultMode = IHostAttributes.build(
         Conversions.getAttributes(offer.getOffer()).newBuilder().setMode(NONE));
     expect(storageUtil.attributeStore.saveHostAttributes(defaultMode)).andReturn(true);
@@ -279,16 +282,20 @@ public class MesosCallbackHandlerTest extends EasyMockTest {
 
     handler.handleOffers(ImmutableList.of(HOST_OFFER.getOffer(), HOST_OFFER_2.getOffer()));
     assertEquals(2L, statsProvider.getLongValue("scheduler_resource_offers"));
+    assertEquals(2L, statsProvider.getLongValue("scheduler_offer_attributes_saved"));
   }
 
   @Test
   public void testModePreservedWhenOfferAdded() {
     storageUtil.expectOperations();
 
-    IHostAttributes draining =
-        IHostAttributes.build(HOST_OFFER.getAttributes().newBuilder().setMode(DRAINING));
+    // The stored attributes differ from the offer, so that they are saved.
+    IHostAttributes draining = IHostAttributes.build(HOST_OFFER.getAttributes().newBuilder()
+        .setMode(DRAINING)
+        .setAttributes(ImmutableSet.of(new Attribute("rack", ImmutableSet.of("a")))));
     expect(storageUtil.attributeStore.getHostAttributes(AGENT_HOST))
-        .andReturn(Optional.of(draining));
+        .andReturn(Optional.of(draining))
+        .times(2);
 
     IHostAttributes saved = IHostAttributes.build(
         Conversions.getAttributes(HOST_OFFER.getOffer()).newBuilder().setMode(DRAINING));
@@ -303,6 +310,44 @@ public class MesosCallbackHandlerTest extends EasyMockTest {
     assertEquals(1L, statsProvider.getLongValue("scheduler_resource_offers"));
   }
 
+  @Test
+  public void testUnchangedAttributesNotSaved() {
+    // Only a read is expected, the write lock is not needed when attributes are unchanged.
+    storageUtil.expectStoreAccesses();
+    storageUtil.expectRead().times(2);
+    // Attributes are read again after the offer was added, to catch maintenance changes.
+    expect(storageUtil.attributeStore.getHostAttributes(AGENT_HOST))
+        .andReturn(Optional.of(HOST_OFFER.getAttributes()))
+        .times(2);
+    offerManager.add(HOST_OFFER);
+
+    control.replay();
+
+    handler.handleOffers(ImmutableList.of(HOST_OFFER.getOffer()));
+    assertEquals(1L, statsProvider.getLongValue("scheduler_resource_offers"));
+    assertEquals(0L, statsProvider.getLongValue("scheduler_offer_attributes_saved"));
+  }
+
+  @Test
+  public void testUnchangedAttributesModeChangedConcurrently() {
+    storageUtil.expectStoreAccesses();
+    storageUtil.expectRead().times(2);
+    expect(storageUtil.attributeStore.getHostAttributes(AGENT_HOST))
+        .andReturn(Optional.of(HOST_OFFER.getAttributes()));
+    offerManager.add(HOST_OFFER);
+
+    // The host was put into maintenance before the offer was added, the offer picks up the mode.
+    expect(storageUtil.attributeStore.getHostAttributes(AGENT_HOST))
+        .andReturn(Optional.of(DRAINING_HOST_OFFER.getAttributes()));
+    offerManager.hostAttributesChanged(
+        new PubsubEvent.HostAttributesChanged(DRAINING_HOST_OFFER.getAttributes()));
+
+    control.replay();
+
+    handler.handleOffers(ImmutableList.of(HOST_OFFER.getOffer()));
+    assertEquals(0L, statsProvider.getLongValue("scheduler_offer_attributes_saved"));
+  }
+
   @Test
   public void testDisconnection() {
     eventSink.post(new PubsubEvent.DriverDisconnected());
@@ -478,6 +478,43 @@ public class MesosTaskFactoryImplTest extends EasyMockTest {
     checkDiscoveryInfo(task, ImmutableMap.of("http", 80), TASK.getTask().getJob());
   }
 
+  @Test
+  public void testInstancesShareTemplate() {
+    config = new ExecutorSettings(
+        ImmutableMap.<String, ExecutorConfig>builder().put(THERMOS_CONFIG.getExecutor().getName(),
+            THERMOS_CONFIG).build(),
+        true /* populate discovery info */);
+    taskFactory = new MesosTaskFactoryImpl(config, SERVER_INFO);
+    IAssignedTask otherInstance = IAssignedTask.build(TASK.newBuilder()
+        .setInstanceId(3)
+        .setTaskId("other-task-id")
+        .setAssignedPorts(ImmutableMap.of("http", 81)));
+    Offer otherOffer = OFFER_THERMOS_EXECUTOR.toBuilder()
+        .setAgentId(AgentID.newBuilder().setValue("other-slave-id"))
+        .clearResources()
+        .addAllResources(mesosScalarFromBag(bagFromResources(
+            TASK_CONFIG.getResources()).add(THERMOS_EXECUTOR.getExecutorOverhead(TASK_CONFIG))))
+        .addResources(mesosRange(PORTS, 81))
+        .build();
+
+    control.replay();
+
+    TaskInfo first = taskFactory.createFrom(TASK, OFFER_THERMOS_EXECUTOR, false);
+    TaskInfo second = taskFactory.createFrom(otherInstance, otherOffer, false);
+
+    // Fields set for one launch must not leak into the next.
+    assertEquals(
+        new MesosTaskFactoryImpl(config, SERVER_INFO).createFrom(otherInstance, otherOffer, false),
+        second);
+    assertEquals("other-task-id", second.getTaskId().getValue());
+    assertEquals("other-slave-id", second.getAgentId().getValue());
+    assertEquals(
+        populateDynamicFields(DEFAULT_EXECUTOR, otherInstance),
+        makeComparable(second.getExecutor()));
+    checkDiscoveryInfo(second, ImmutableMap.of("http", 81), TASK.getTask().getJob());
+    checkDiscoveryInfo(first, ImmutableMap.of("http", 80), TASK.getTask().getJob());
+  }
+
   @Test
   public void testDockerImageWithMesosContainer() throws Exception {
     String imageName = "some-image-name";
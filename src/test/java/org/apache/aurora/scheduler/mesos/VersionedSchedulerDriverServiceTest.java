@@ -157,6 +157,31 @@ public class VersionedSchedulerDriverServiceTest extends EasyMockTest {
     assertEquals(decline.getDecline().getFilters(), FILTER);
   }
 
+  @Test
+  public void testDeclineMultiple() {
+    expectStart();
+    expect(storage.schedulerStore.fetchFrameworkId()).andReturn(Optional.of(FRAMEWORK_ID));
+
+    Capture<Call> declineCapture = createCapture();
+    mesos.send(capture(declineCapture));
+    expectLastCall().once();
+
+    control.replay();
+    driverService.startAsync().awaitRunning();
+    driverService.registered(new PubsubEvent.DriverRegistered());
+
+    Protos.OfferID otherOffer = Protos.OfferID.newBuilder().setValue("other-offer-id").build();
+    driverService.declineOffers(ImmutableList.of(OFFER_ID, otherOffer), FILTER);
+
+    assertTrue(declineCapture.hasCaptured());
+    Call decline = declineCapture.getValue();
+    assertEquals(decline.getType(), Call.Type.DECLINE);
+    assertEquals(
+        decline.getDecline().getOfferIdsList(),
+        ImmutableList.of(OFFER_ID, otherOffer));
+    assertEquals(decline.getDecline().getFilters(), FILTER);
+  }
+
   @Test
   public void testAccept() {
     expectStart();
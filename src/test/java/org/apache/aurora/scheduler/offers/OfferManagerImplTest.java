@@ -20,19 +20,26 @@ import java.util.concurrent.ScheduledExecutorService;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 import org.apache.aurora.common.collections.Pair;
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.common.util.testing.FakeTicker;
+import org.apache.aurora.gen.Attribute;
+import org.apache.aurora.gen.Constraint;
 import org.apache.aurora.gen.HostAttributes;
 import org.apache.aurora.gen.MaintenanceMode;
+import org.apache.aurora.gen.TaskConstraint;
+import org.apache.aurora.gen.ValueConstraint;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
+import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.events.PubsubEvent.DriverDisconnected;
 import org.apache.aurora.scheduler.events.PubsubEvent.HostAttributesChanged;
+import org.apache.aurora.scheduler.events.PubsubEvent.OfferAvailable;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.ResourceRequest;
 import org.apache.aurora.scheduler.filter.SchedulingFilter.UnusedResource;
@@ -41,6 +48,7 @@ import org.apache.aurora.scheduler.offers.Deferment.Noop;
 import org.apache.aurora.scheduler.resources.ResourceType;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
+import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
 import org.apache.mesos.v1.Protos;
@@ -117,17 +125,23 @@ public class OfferManagerImplTest extends EasyMockTest {
       .setRefuseSeconds(OFFER_FILTER_SECONDS)
       .build();
   private static final FakeTicker FAKE_TICKER = new FakeTicker();
+  private static final Amount<Long, Time> NO_BATCHING = Amount.of(0L, Time.MILLISECONDS);
 
   private Driver driver;
+  private ScheduledExecutorService declineExecutor;
   private OfferManagerImpl offerManager;
   private FakeStatsProvider statsProvider;
   private SchedulingFilter schedulingFilter;
+  private List<PubsubEvent> events;
 
   @Before
   public void setUp() {
     driver = createMock(Driver.class);
+    declineExecutor = createMock(ScheduledExecutorService.class);
     OfferSettings offerSettings = new OfferSettings(
         Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+        Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+        NO_BATCHING,
         new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
         RETURN_DELAY,
         Long.MAX_VALUE,
@@ -135,12 +149,15 @@ public class OfferManagerImplTest extends EasyMockTest {
     );
     statsProvider = new FakeStatsProvider();
     schedulingFilter = createMock(SchedulingFilter.class);
+    events = Lists.newArrayList();
 
     offerManager = new OfferManagerImpl(driver,
         offerSettings,
         statsProvider,
         new Noop(),
-        schedulingFilter);
+        createDecliner(offerSettings),
+        schedulingFilter,
+        events::add);
   }
 
   @Test
@@ -211,7 +228,7 @@ public class OfferManagerImplTest extends EasyMockTest {
 
   @Test
   public void testAddSameSlaveOffer() {
-    driver.declineOffer(OFFER_A_ID, OFFER_FILTER);
+    driver.declineOffers(ImmutableList.of(OFFER_A_ID), OFFER_FILTER);
     expectLastCall().times(2);
 
     control.replay();
@@ -317,6 +334,28 @@ public class OfferManagerImplTest extends EasyMockTest {
     offerManager.launchTask(OFFER_A_ID, TASK_INFO);
   }
 
+  @Test
+  public void testLaunchTasksSingleAccept() throws Exception {
+    TaskInfo secondTaskInfo = TASK_INFO.toBuilder()
+        .setTaskId(Protos.TaskID.newBuilder().setValue("second"))
+        .build();
+    driver.acceptOffers(
+        OFFER_A_ID,
+        ImmutableList.of(Operation.newBuilder()
+            .setType(Operation.Type.LAUNCH)
+            .setLaunch(Operation.Launch.newBuilder()
+                .addTaskInfos(TASK_INFO)
+                .addTaskInfos(secondTaskInfo))
+            .build()),
+        OFFER_FILTER);
+
+    control.replay();
+
+    offerManager.add(OFFER_A);
+    offerManager.launchTasks(OFFER_A_ID, ImmutableList.of(TASK_INFO, secondTaskInfo));
+    assertEquals(0, statsProvider.getLongValue(OUTSTANDING_OFFERS));
+  }
+
   @Test
   public void testLaunchTaskOfferRaceThrows() {
     control.replay();
@@ -328,6 +367,18 @@ public class OfferManagerImplTest extends EasyMockTest {
     }
   }
 
+  @Test
+  public void testReleaseClaimedDeclines() throws Exception {
+    driver.declineOffers(ImmutableList.of(OFFER_A_ID), OFFER_FILTER);
+
+    control.replay();
+
+    offerManager.add(OFFER_A);
+    offerManager.claim(OFFER_A_ID);
+    offerManager.releaseClaimed(OFFER_A_ID);
+    assertEquals(0, statsProvider.getLongValue(OUTSTANDING_OFFERS));
+  }
+
   @Test
   public void testFlushOffers() {
     control.replay();
@@ -386,11 +437,20 @@ public class OfferManagerImplTest extends EasyMockTest {
     OfferSettings settings =
         new OfferSettings(
             Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+            Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+            NO_BATCHING,
             new OfferSetImpl(OfferOrderBuilder.create(order)),
             RETURN_DELAY,
             Long.MAX_VALUE,
             FAKE_TICKER);
-    return new OfferManagerImpl(driver, settings, statsProvider, new Noop(), schedulingFilter);
+    return new OfferManagerImpl(
+        driver,
+        settings,
+        statsProvider,
+        new Noop(),
+        createDecliner(settings),
+        schedulingFilter,
+        events::add);
   }
 
   @Test
@@ -561,6 +621,8 @@ public class OfferManagerImplTest extends EasyMockTest {
   public void testDelayedOfferReturn() {
     OfferSettings settings = new OfferSettings(
         Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+        Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+        NO_BATCHING,
         new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
         RETURN_DELAY,
         Long.MAX_VALUE,
@@ -573,9 +635,11 @@ public class OfferManagerImplTest extends EasyMockTest {
         settings,
         statsProvider,
         new Deferment.DelayedDeferment(() -> RETURN_DELAY, executorMock),
-        schedulingFilter);
+        createDecliner(settings),
+        schedulingFilter,
+        events::add);
 
-    driver.declineOffer(OFFER_A_ID, OFFER_FILTER);
+    driver.declineOffers(ImmutableList.of(OFFER_A_ID), OFFER_FILTER);
 
     control.replay();
 
@@ -598,8 +662,8 @@ public class OfferManagerImplTest extends EasyMockTest {
         OFFER_A.getOffer().toBuilder().setId(OfferID.newBuilder().setValue("sameAgent2")).build(),
         HOST_ATTRIBUTES_A);
 
-    driver.declineOffer(OFFER_A_ID, OFFER_FILTER);
-    driver.declineOffer(sameAgent.getOffer().getId(), OFFER_FILTER);
+    driver.declineOffers(ImmutableList.of(OFFER_A_ID), OFFER_FILTER);
+    driver.declineOffers(ImmutableList.of(sameAgent.getOffer().getId()), OFFER_FILTER);
 
     control.replay();
 
@@ -611,6 +675,135 @@ public class OfferManagerImplTest extends EasyMockTest {
     assertEquals(ImmutableSet.of(sameAgent2), offerManager.getAll());
   }
 
+  @Test
+  public void testOfferAvailablePublished() {
+    HostOffer sameAgent = new HostOffer(
+        OFFER_A.getOffer().toBuilder().setId(OfferID.newBuilder().setValue("sameAgent")).build(),
+        HOST_ATTRIBUTES_A);
+
+    driver.declineOffers(ImmutableList.of(OFFER_A_ID), OFFER_FILTER);
+    driver.declineOffers(ImmutableList.of(sameAgent.getOffer().getId()), OFFER_FILTER);
+
+    control.replay();
+
+    offerManager.add(OFFER_A);
+    assertEquals(ImmutableList.of(new OfferAvailable(OFFER_A.getOffer())), events);
+
+    // Offers returned for compaction are not announced.
+    offerManager.add(sameAgent);
+    assertEquals(ImmutableList.of(new OfferAvailable(OFFER_A.getOffer())), events);
+  }
+
+  @Test
+  public void testDeclinesBatched() {
+    OfferSettings settings = new OfferSettings(
+        Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+        Amount.of(OFFER_FILTER_SECONDS, Time.SECONDS),
+        Amount.of(1L, Time.SECONDS),
+        new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
+        RETURN_DELAY,
+        Long.MAX_VALUE,
+        FAKE_TICKER);
+    FakeScheduledExecutor clock =
+        FakeScheduledExecutor.fromScheduledExecutorService(declineExecutor);
+    addTearDown(clock::assertEmpty);
+    offerManager = new OfferManagerImpl(
+        driver,
+        settings,
+        statsProvider,
+        new Noop(),
+        createDecliner(settings),
+        schedulingFilter,
+        events::add);
+
+    HostOffer sameAgent = new HostOffer(
+        OFFER_A.getOffer().toBuilder().setId(OfferID.newBuilder().setValue("sameAgent")).build(),
+        HOST_ATTRIBUTES_A);
+    driver.declineOffers(
+        ImmutableList.of(OFFER_A_ID, sameAgent.getOffer().getId()),
+        OFFER_FILTER);
+
+    control.replay();
+
+    offerManager.add(OFFER_A);
+    offerManager.add(sameAgent);
+    assertEquals(0, statsProvider.getLongValue(OfferDecliner.OFFER_DECLINE_CALLS));
+
+    clock.advance(Amount.of(1L, Time.SECONDS));
+    assertEquals(1, statsProvider.getLongValue(OfferDecliner.OFFER_DECLINE_CALLS));
+    assertEquals(2, statsProvider.getLongValue(OfferDecliner.OFFERS_DECLINED));
+  }
+
+  @Test
+  public void testFilterDurationGrowsWithoutDemand() {
+    FakeTicker ticker = new FakeTicker();
+    OfferSettings settings = new OfferSettings(
+        Amount.of(5L, Time.SECONDS),
+        ONE_HOUR,
+        NO_BATCHING,
+        new OfferSetImpl(OfferOrderBuilder.create(ImmutableList.of(OfferOrder.RANDOM))),
+        RETURN_DELAY,
+        Long.MAX_VALUE,
+        ticker);
+    ScheduledExecutorService executorMock = createMock(ScheduledExecutorService.class);
+    FakeScheduledExecutor clock = FakeScheduledExecutor.fromScheduledExecutorService(executorMock);
+    addTearDown(clock::assertEmpty);
+    offerManager = new OfferManagerImpl(
+        driver,
+        settings,
+        statsProvider,
+        new Deferment.DelayedDeferment(() -> RETURN_DELAY, executorMock),
+        createDecliner(settings),
+        schedulingFilter,
+        events::add);
+
+    // Offers able to satisfy the resources requested by TASK, and an offer without disk or ports.
+    HostOffer fullA = new HostOffer(
+        offer("agent-a", mesosScalar(CPUS, 1), mesosScalar(RAM_MB, 1024),
+            mesosScalar(DISK_MB, 1024), mesosRange(PORTS, PORT)),
+        HOST_ATTRIBUTES_A);
+    HostOffer fullB = new HostOffer(
+        offer("agent-b", mesosScalar(CPUS, 1), mesosScalar(RAM_MB, 1024),
+            mesosScalar(DISK_MB, 1024), mesosRange(PORTS, PORT)),
+        OFFER_B.getAttributes());
+    HostOffer partial = OFFER_C;
+
+    expectFilterNone();
+    driver.declineOffers(ImmutableList.of(fullA.getOffer().getId()), refuseFilter(60));
+    driver.declineOffers(ImmutableList.of(fullB.getOffer().getId()), refuseFilter(60));
+    driver.declineOffers(ImmutableList.of(partial.getOffer().getId()), refuseFilter(660));
+    driver.declineOffers(
+        ImmutableList.of(fullA.getOffer().getId()),
+        refuseFilter(ONE_HOUR.as(Time.SECONDS)));
+
+    control.replay();
+
+    offerManager.add(fullA);
+    ticker.advance(Amount.of(10L, Time.MINUTES));
+    offerManager.getAllMatching(GROUP_KEY, EMPTY_REQUEST);
+    offerManager.add(fullB);
+    offerManager.add(partial);
+    ticker.advance(Amount.of(1L, Time.MINUTES));
+    clock.advance(RETURN_DELAY);
+
+    // Without any demand, the filter duration is capped.
+    offerManager.add(fullA);
+    ticker.advance(Amount.of(2L, Time.HOURS));
+    clock.advance(RETURN_DELAY);
+  }
+
+  private static Filters refuseFilter(long seconds) {
+    return Filters.newBuilder().setRefuseSeconds(seconds).build();
+  }
+
+  private OfferDecliner createDecliner(OfferSettings settings) {
+    return new OfferDecliner(
+        driver,
+        settings,
+        declineExecutor,
+        statsProvider);
+  }
+
   private void expectFilterNone() {
     // Most tests will use a permissive scheduling filter
     expect(schedulingFilter.filter(anyObject(), anyObject()))
@@ -753,4 +946,70 @@ public class OfferManagerImplTest extends EasyMockTest {
     assertEquals(ImmutableSet.of(Pair.of(OFFER_A.getOffer().getId(), GROUP_KEY)),
         offerManager.getStaticBans());
   }
+
+  private static HostOffer setAttribute(HostOffer offer, String name, String value) {
+    return new HostOffer(
+        offer.getOffer(),
+        IHostAttributes.build(offer.getAttributes().newBuilder()
+            .setAttributes(ImmutableSet.of(new Attribute(name, ImmutableSet.of(value))))));
+  }
+
+  private static ResourceRequest valueConstraintRequest(String name, boolean negated) {
+    ITaskConfig task = ITaskConfig.build(TASK.getAssignedTask().getTask().newBuilder()
+        .setConstraints(ImmutableSet.of(new Constraint(
+            name,
+            TaskConstraint.value(new ValueConstraint(negated, ImmutableSet.of("rackA")))))));
+    return TaskTestUtil.toResourceRequest(task);
+  }
+
+  @Test
+  public void testGetAllMatchingValueConstraintUsesIndex() {
+    HostOffer offerA = setAttribute(OFFER_A, "rack", "rackA");
+    HostOffer offerB = setAttribute(OFFER_B, "rack", "rackB");
+    ResourceRequest request = valueConstraintRequest("rack", false);
+    expect(schedulingFilter.filter(new UnusedResource(offerA, false), request))
+        .andReturn(ImmutableSet.of());
+
+    control.replay();
+    offerManager.add(offerA);
+    offerManager.add(offerB);
+    offerManager.add(OFFER_C);
+    assertEquals(ImmutableSet.of(offerA),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, request)));
+    // Only the offer satisfying the value constraint is evaluated for vetoes.
+    assertEquals(1, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+
+    assertTrue(offerManager.cancel(offerA.getOffer().getId()));
+    assertEquals(ImmutableSet.of(),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, request)));
+    assertEquals(1, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+  }
+
+  @Test
+  public void testGetAllMatchingValueConstraintSkipsRemovedOffers() {
+    HostOffer offerA = setAttribute(OFFER_A, "rack", "rackA");
+    ResourceRequest request = valueConstraintRequest("rack", false);
+
+    control.replay();
+    offerManager.add(offerA);
+    Iterable<HostOffer> matching = offerManager.getAllMatching(GROUP_KEY, request);
+    assertTrue(offerManager.cancel(offerA.getOffer().getId()));
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(matching));
+    assertEquals(0, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+  }
+
+  @Test
+  public void testGetAllMatchingNegatedValueConstraintSkipsIndex() {
+    expectFilterNone();
+    HostOffer offerA = setAttribute(OFFER_A, "rack", "rackA");
+    HostOffer offerB = setAttribute(OFFER_B, "rack", "rackB");
+    ResourceRequest request = valueConstraintRequest("rack", true);
+
+    control.replay();
+    offerManager.add(offerA);
+    offerManager.add(offerB);
+    assertEquals(ImmutableSet.of(offerA, offerB),
+        ImmutableSet.copyOf(offerManager.getAllMatching(GROUP_KEY, request)));
+    assertEquals(2, statsProvider.getLongValue(VETO_EVALUATED_OFFERS));
+  }
 }
@@ -0,0 +1,162 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.offers;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.apache.aurora.common.collections.Pair;
+import org.apache.aurora.common.quantity.Amount;
+import org.apache.aurora.common.quantity.Time;
+import org.apache.aurora.common.util.testing.FakeTicker;
+import org.apache.aurora.scheduler.base.JobKeys;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.mesos.v1.Protos;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StaticBansTest {
+  private static final Amount<Long, Time> HOLD_TIME = Amount.of(1L, Time.MINUTES);
+  private static final TaskGroupKey GROUP_A =
+      TaskGroupKey.from(TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+  private static final TaskGroupKey GROUP_B =
+      TaskGroupKey.from(TaskTestUtil.makeConfig(JobKeys.from("role", "devel", "other")));
+
+  private FakeTicker ticker;
+  private StaticBans bans;
+
+  @Before
+  public void setUp() {
+    ticker = new FakeTicker();
+    bans = new StaticBans(HOLD_TIME, Long.MAX_VALUE, ticker);
+  }
+
+  private static Protos.OfferID offerId(int i) {
+    return Protos.OfferID.newBuilder().setValue("offer-" + i).build();
+  }
+
+  @Test
+  public void testBanScopedToGroup() {
+    bans.addOffer(offerId(1));
+    bans.addOffer(offerId(2));
+    bans.ban(offerId(1), GROUP_A);
+
+    assertTrue(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(2)));
+    assertFalse(bans.forGroup(GROUP_B).isBanned(offerId(1)));
+    assertEquals(1, bans.size());
+    assertEquals(ImmutableSet.of(Pair.of(offerId(1), GROUP_A)), bans.asSet());
+  }
+
+  @Test
+  public void testBanIgnoredForUnknownOffer() {
+    bans.ban(offerId(1), GROUP_A);
+
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+    assertEquals(0, bans.size());
+  }
+
+  @Test
+  public void testBanExpires() {
+    bans.addOffer(offerId(1));
+    bans.ban(offerId(1), GROUP_A);
+    ticker.advance(Amount.of(30L, Time.SECONDS));
+    bans.ban(offerId(1), GROUP_B);
+    assertEquals(2, bans.size());
+
+    // Bans of an offer expire together, relative to the first ban.
+    ticker.advance(Amount.of(30L, Time.SECONDS));
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+    assertFalse(bans.forGroup(GROUP_B).isBanned(offerId(1)));
+    assertEquals(0, bans.size());
+
+    // The offer may be banned again after expiry.
+    bans.ban(offerId(1), GROUP_A);
+    assertTrue(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+  }
+
+  @Test
+  public void testSlotReuseClearsBans() {
+    bans.addOffer(offerId(1));
+    bans.ban(offerId(1), GROUP_A);
+    bans.removeOffer(offerId(1));
+    assertEquals(0, bans.size());
+
+    // The new offer takes over the slot of the removed one, and must not inherit its bans.
+    bans.addOffer(offerId(2));
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(2)));
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+  }
+
+  @Test
+  public void testGrowsBeyondInitialSlots() {
+    int offers = 5000;
+    for (int i = 0; i < offers; i++) {
+      bans.addOffer(offerId(i));
+    }
+    bans.ban(offerId(offers - 1), GROUP_A);
+    bans.ban(offerId(0), GROUP_A);
+
+    StaticBans.BanCheck check = bans.forGroup(GROUP_A);
+    assertTrue(check.isBanned(offerId(0)));
+    assertTrue(check.isBanned(offerId(offers - 1)));
+    assertFalse(check.isBanned(offerId(offers / 2)));
+    assertEquals(2, bans.size());
+  }
+
+  @Test
+  public void testMaxSize() {
+    bans = new StaticBans(HOLD_TIME, 1, ticker);
+    bans.addOffer(offerId(1));
+    bans.addOffer(offerId(2));
+    bans.ban(offerId(1), GROUP_A);
+    ticker.advance(Amount.of(1L, Time.SECONDS));
+    bans.ban(offerId(2), GROUP_A);
+
+    // The oldest ban is evicted to make room for the new one.
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+    assertTrue(bans.forGroup(GROUP_A).isBanned(offerId(2)));
+    assertEquals(1, bans.size());
+    assertEquals(1, bans.evictions());
+  }
+
+  @Test
+  public void testClear() {
+    bans.addOffer(offerId(1));
+    bans.ban(offerId(1), GROUP_A);
+    bans.clear();
+
+    assertEquals(0, bans.size());
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+    bans.addOffer(offerId(1));
+    assertFalse(bans.forGroup(GROUP_A).isBanned(offerId(1)));
+  }
+
+  @Test
+  public void testHitRate() {
+    assertEquals(1.0, bans.hitRate(), 0.0);
+    bans.addOffer(offerId(1));
+    bans.addOffer(offerId(2));
+    bans.ban(offerId(1), GROUP_A);
+
+    StaticBans.BanCheck check = bans.forGroup(GROUP_A);
+    check.isBanned(offerId(1));
+    check.isBanned(offerId(2));
+    assertEquals(0.5, bans.hitRate(), 0.0);
+  }
+}
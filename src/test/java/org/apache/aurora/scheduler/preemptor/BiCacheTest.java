@@ -134,4 +134,42 @@ public class BiCacheTest {
     biCache.put(KEY_1, 2);
     assertEquals(ImmutableMap.of(KEY_1, 1), map);
   }
+
+  @Test
+  public void testViewIsLive() {
+    Map<String, Integer> view = biCache.view();
+    biCache.put(KEY_1, 1);
+    assertEquals(ImmutableMap.of(KEY_1, 1), view);
+
+    biCache.put(KEY_1, 2);
+    assertEquals(Integer.valueOf(2), view.get(KEY_1));
+
+    clock.advance(HOLD_DURATION);
+    assertEquals(null, view.get(KEY_1));
+    assertEquals(ImmutableMap.of(), view);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testViewIsReadOnly() {
+    biCache.view().put(KEY_1, 1);
+  }
+
+  @Test
+  public void testExpiredEntriesPurgedWithoutAccess() {
+    biCache.put(KEY_1, 1);
+    clock.advance(Amount.of(30L, Time.SECONDS));
+    biCache.put(KEY_2, 2);
+    assertEquals(2L, statsProvider.getLongValue(CACHE_SIZE_STAT_NAME));
+
+    // Writes advance the timer wheel, purging expired entries that were never read again.
+    clock.advance(Amount.of(45L, Time.SECONDS));
+    biCache.put(KEY_2, 3);
+    assertEquals(1L, statsProvider.getLongValue(CACHE_SIZE_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(CACHE_EXPIRATION_REMOVAL_STAT_NAME));
+
+    clock.advance(HOLD_DURATION);
+    assertEquals(ImmutableSet.of(), biCache.getByValue(3));
+    assertEquals(0L, statsProvider.getLongValue(CACHE_SIZE_STAT_NAME));
+    assertEquals(2L, statsProvider.getLongValue(CACHE_EXPIRATION_REMOVAL_STAT_NAME));
+  }
 }
@@ -13,16 +13,23 @@
  */
 package org.apache.aurora.scheduler.preemptor;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 
 import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.JobKey;
+import org.apache.aurora.gen.Resource;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.resources.ResourceBag;
 import org.apache.aurora.scheduler.state.ClusterStateImpl;
+import org.apache.aurora.scheduler.state.VictimIndex;
+import org.apache.aurora.scheduler.state.VictimIndex.VictimClass;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.junit.Before;
@@ -37,6 +44,8 @@ import static org.apache.aurora.gen.ScheduleStatus.PENDING;
 import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
 import static org.apache.aurora.gen.ScheduleStatus.THROTTLED;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class ClusterStateImplTest {
 
@@ -44,7 +53,7 @@ public class ClusterStateImplTest {
 
   @Before
   public void setUp() {
-    state = new ClusterStateImpl();
+    state = new ClusterStateImpl(TaskTestUtil.EXECUTOR_SETTINGS);
   }
 
   @Test(expected = UnsupportedOperationException.class)
@@ -109,6 +118,55 @@ public class ClusterStateImplTest {
     assertVictims(b, d, f);
   }
 
+  @Test
+  public void testVictimIndex() {
+    IAssignedTask a = makeTask("a", "s1");
+    IAssignedTask b = makeTask("b", "s1");
+    IAssignedTask c = makeTask("c", "s2");
+    VictimIndex index = state.getVictimIndex();
+    assertTrue(index.isEmpty());
+
+    changeState(a, RUNNING);
+    changeState(b, RUNNING);
+    changeState(c, RUNNING);
+    assertFalse(index.isEmpty());
+    assertEquals(ImmutableSet.of("s1", "s2"), index.getAgentIds());
+    assertEquals(
+        ImmutableSet.of(PreemptionVictim.fromTask(a), PreemptionVictim.fromTask(b)),
+        index.getVictims("s1"));
+
+    changeState(c, FINISHED);
+    assertEquals(ImmutableSet.of("s1"), index.getAgentIds());
+    assertEquals(ImmutableSet.of(), index.getVictims("s2"));
+    assertEquals(ImmutableMap.of(), index.getPreemptibleResources("s2"));
+  }
+
+  @Test
+  public void testPreemptibleResources() {
+    IAssignedTask a = makeTask("a", "s1", 1);
+    IAssignedTask b = makeTask("b", "s1", 1);
+    IAssignedTask c = makeTask("c", "s1", 2);
+    VictimClass low = VictimClass.from(a.getTask());
+    VictimClass high = VictimClass.from(c.getTask());
+    ResourceBag bag = PreemptionVictim.fromTask(a).getResourceBag(TaskTestUtil.EXECUTOR_SETTINGS);
+    VictimIndex index = state.getVictimIndex();
+
+    changeState(a, RUNNING);
+    changeState(b, RUNNING);
+    changeState(c, RUNNING);
+    // Repeated transitions of an assigned task must not be counted twice.
+    changeState(c, KILLING);
+    assertEquals(
+        ImmutableMap.of(low, bag.scale(2), high, bag),
+        index.getPreemptibleResources("s1"));
+
+    changeState(a, FINISHED);
+    assertEquals(ImmutableMap.of(low, bag, high, bag), index.getPreemptibleResources("s1"));
+
+    changeState(c, KILLED);
+    assertEquals(ImmutableMap.of(low, bag), index.getPreemptibleResources("s1"));
+  }
+
   private void assertVictims(IAssignedTask... tasks) {
     ImmutableMultimap.Builder<String, PreemptionVictim> victims = ImmutableSetMultimap.builder();
     for (IAssignedTask task : tasks) {
@@ -125,6 +183,14 @@ public class ClusterStateImplTest {
         .setTask(new TaskConfig().setJob(new JobKey("role", "env", "job"))));
   }
 
+  private IAssignedTask makeTask(String taskId, String slaveId, int priority) {
+    return IAssignedTask.build(makeTask(taskId, slaveId).newBuilder()
+        .setTask(new TaskConfig()
+            .setJob(new JobKey("role", "env", "job"))
+            .setPriority(priority)
+            .setResources(ImmutableSet.of(Resource.numCpus(1.0), Resource.ramMb(128)))));
+  }
+
   private void changeState(IAssignedTask assignedTask, ScheduleStatus status) {
     IScheduledTask task = IScheduledTask.build(new ScheduledTask()
         .setStatus(status)
@@ -15,14 +15,15 @@ package org.apache.aurora.scheduler.preemptor;
 
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.Executors;
 
 import javax.annotation.Nullable;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
@@ -37,10 +38,14 @@ import org.apache.aurora.gen.TaskEvent;
 import org.apache.aurora.scheduler.base.JobKeys;
 import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.state.ClusterState;
+import org.apache.aurora.scheduler.state.ClusterStateImpl;
+import org.apache.aurora.scheduler.state.VictimIndex;
 import org.apache.aurora.scheduler.stats.CachedCounters;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
@@ -53,6 +58,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.gen.ScheduleStatus.PENDING;
+import static org.apache.aurora.gen.ScheduleStatus.RUNNING;
+import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.SLOT_SEARCH_PRUNED_NAME;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.TASK_PROCESSOR_RUN_NAME;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.UNMATCHED_TASKS;
 import static org.apache.aurora.scheduler.preemptor.PreemptorMetrics.attemptsByJobStatName;
@@ -105,7 +112,14 @@ public class PendingTaskProcessorTest extends EasyMockTest {
         new BiCache.BiCacheSettings(EXPIRATION, CACHE_NAME),
         clock);
 
-    slotFinder = new PendingTaskProcessor(
+    slotFinder = createSlotFinder(1, MoreExecutors.newDirectExecutorService());
+  }
+
+  private PendingTaskProcessor createSlotFinder(
+      int parallelism,
+      ListeningExecutorService searchExecutor) {
+
+    return new PendingTaskProcessor(
         storageUtil.storage,
         offerManager,
         preemptionVictimFilter,
@@ -114,7 +128,9 @@ public class PendingTaskProcessorTest extends EasyMockTest {
         slotCache,
         clusterState,
         clock,
-        RESERVATION_BATCH_SIZE);
+        RESERVATION_BATCH_SIZE,
+        parallelism,
+        searchExecutor);
   }
 
   @Test
@@ -228,6 +244,60 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     assertEquals(2L, statsProvider.getLongValue(CACHE_SIZE_STAT_NAME));
   }
 
+  @Test
+  public void testParallelSearchReservesEachAgentOnce() throws Exception {
+    IScheduledTask task1 = makeTask(JOB_A, "1");
+    IScheduledTask task2 = makeTask(JOB_A, "2");
+    IScheduledTask task3 = makeTask(JOB_A, "3");
+
+    expectGetPendingTasks(task1, task2, task3);
+    expectGetClusterState(TASK_A, TASK_B);
+    expectOffers(makeOffer(SLAVE_ID_1), makeOffer(SLAVE_ID_2));
+    expectSlotSearch(task1.getAssignedTask().getTask(), TASK_A);
+
+    control.replay();
+
+    clock.advance(PREEMPTION_DELAY);
+
+    ListeningExecutorService searchExecutor =
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+    addTearDown(searchExecutor::shutdownNow);
+    createSlotFinder(4, searchExecutor).run();
+    assertEquals(
+        Optional.of(group(task1)),
+        slotCache.get(createPreemptionProposal(TASK_A, SLAVE_ID_1)));
+    assertEquals(
+        Optional.of(group(task1)),
+        slotCache.get(createPreemptionProposal(TASK_A, SLAVE_ID_2)));
+    assertEquals(3L, statsProvider.getLongValue(attemptsStatName(true)));
+    assertEquals(2L, statsProvider.getLongValue(slotSearchStatName(true, true)));
+    assertEquals(0L, statsProvider.getLongValue(slotSearchStatName(false, true)));
+    assertEquals(1L, statsProvider.getLongValue(UNMATCHED_TASKS));
+    assertEquals(2L, statsProvider.getLongValue(CACHE_SIZE_STAT_NAME));
+  }
+
+  @Test
+  public void testPrunedAgentsNotFiltered() throws Exception {
+    expectGetPendingTasks(TASK_A);
+    expectGetClusterState(TASK_A, TASK_B);
+    expectOffers(makeOffer(SLAVE_ID_1), makeOffer(SLAVE_ID_2));
+    expect(preemptionVictimFilter.mayFit(
+        eq(TASK_A.getAssignedTask().getTask()),
+        anyObject(),
+        anyObject()))
+        .andReturn(false)
+        .times(2);
+
+    control.replay();
+
+    clock.advance(PREEMPTION_DELAY);
+
+    slotFinder.run();
+    assertEquals(2L, statsProvider.getLongValue(SLOT_SEARCH_PRUNED_NAME));
+    assertEquals(2L, statsProvider.getLongValue(slotSearchStatName(false, true)));
+    assertEquals(1L, statsProvider.getLongValue(UNMATCHED_TASKS));
+  }
+
   @Test
   public void testNoVictims() throws Exception {
     expectGetClusterState();
@@ -294,11 +364,14 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     PendingTaskProcessor.getPreemptionSequence(ImmutableMultiset.of(), 0);
   }
 
-  private Multimap<String, PreemptionVictim> getVictims(IScheduledTask... tasks) {
-    return Multimaps.transformValues(
-        Multimaps.index(Arrays.asList(tasks), task -> task.getAssignedTask().getSlaveId()),
-        task -> PreemptionVictim.fromTask(task.getAssignedTask())
-    );
+  private VictimIndex getVictims(IScheduledTask... tasks) {
+    ClusterStateImpl state = new ClusterStateImpl(TaskTestUtil.EXECUTOR_SETTINGS);
+    for (IScheduledTask task : tasks) {
+      state.taskChangedState(TaskStateChange.transition(
+          IScheduledTask.build(task.newBuilder().setStatus(RUNNING)),
+          PENDING));
+    }
+    return state.getVictimIndex();
   }
 
   private HostOffer makeOffer(String slaveId) {
@@ -313,14 +386,21 @@ public class PendingTaskProcessorTest extends EasyMockTest {
   }
 
   private void expectOffers(HostOffer... offers) {
-    expect(offerManager.getAll()).andReturn(ImmutableSet.copyOf(offers));
+    for (HostOffer offer : offers) {
+      expect(offerManager.get(offer.getOffer().getAgentId()))
+          .andReturn(Optional.of(offer))
+          .anyTimes();
+    }
   }
 
   private void expectGetClusterState(IScheduledTask... returnedTasks) {
-    expect(clusterState.getSlavesToActiveTasks()).andReturn(getVictims(returnedTasks));
+    expect(clusterState.getVictimIndex()).andReturn(getVictims(returnedTasks));
   }
 
   private void expectSlotSearch(ITaskConfig config, IScheduledTask... victims) {
+    expect(preemptionVictimFilter.mayFit(eq(config), anyObject(), anyObject()))
+        .andReturn(true)
+        .anyTimes();
     expect(preemptionVictimFilter.filterPreemptionVictims(
         eq(config),
         anyObject(),
@@ -330,7 +410,9 @@ public class PendingTaskProcessorTest extends EasyMockTest {
     expectLastCall().andReturn(
         victims.length == 0
             ? Optional.empty()
-            : Optional.of(ImmutableSet.copyOf(getVictims(victims).values())))
+            : Optional.of(Arrays.stream(victims)
+                .map(task -> PreemptionVictim.fromTask(task.getAssignedTask()))
+                .collect(ImmutableSet.toImmutableSet())))
         .anyTimes();
   }
 
@@ -47,8 +47,10 @@ import org.apache.aurora.scheduler.mesos.TaskExecutors;
 import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.preemptor.PreemptionVictimFilter.PreemptionVictimFilterImpl;
 import org.apache.aurora.scheduler.resources.ResourceBag;
+import org.apache.aurora.scheduler.resources.ResourceManager;
 import org.apache.aurora.scheduler.resources.ResourceTestUtil;
 import org.apache.aurora.scheduler.resources.ResourceType;
+import org.apache.aurora.scheduler.state.VictimIndex.VictimClass;
 import org.apache.aurora.scheduler.stats.CachedCounters;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
@@ -82,6 +84,8 @@ import static org.apache.mesos.v1.Protos.Offer;
 import static org.apache.mesos.v1.Protos.Resource;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class PreemptionVictimFilterTest extends EasyMockTest {
   private static final String USER_A = "user_a";
@@ -119,16 +123,27 @@ public class PreemptionVictimFilterTest extends EasyMockTest {
     ResourceType.initializeEmptyCliArgsForTest();
   }
 
+  private PreemptionVictimFilterImpl newFilter() {
+    return new PreemptionVictimFilterImpl(
+        schedulingFilter,
+        TaskExecutors.NO_OVERHEAD_EXECUTOR,
+        preemptorMetrics,
+        TaskTestUtil.TIER_MANAGER);
+  }
+
   private Optional<ImmutableSet<PreemptionVictim>> runFilter(
       ScheduledTask pendingTask,
       Optional<HostOffer> offer,
       ScheduledTask... victims) {
 
-    PreemptionVictimFilterImpl filter = new PreemptionVictimFilterImpl(
-        schedulingFilter,
-        TaskExecutors.NO_OVERHEAD_EXECUTOR,
-        preemptorMetrics,
-        TaskTestUtil.TIER_MANAGER);
+    return runFilter(newFilter(), pendingTask, offer, victims);
+  }
+
+  private Optional<ImmutableSet<PreemptionVictim>> runFilter(
+      PreemptionVictimFilterImpl filter,
+      ScheduledTask pendingTask,
+      Optional<HostOffer> offer,
+      ScheduledTask... victims) {
 
     return filter.filterPreemptionVictims(
         ITaskConfig.build(pendingTask.getAssignedTask().getTask()),
@@ -511,6 +526,83 @@ public class PreemptionVictimFilterTest extends EasyMockTest {
     assertNoVictims(runFilter(task, NO_OFFER, a1));
   }
 
+  @Test
+  public void testStaticVetoCached() {
+    schedulingFilter = createMock(SchedulingFilter.class);
+    ScheduledTask task = makeProductionTask(USER_A, JOB_A, TASK_ID_A);
+
+    ScheduledTask a1 = makeTask(USER_A, JOB_A, TASK_ID_A + "_a1");
+    setResource(a1, CPUS, 1.0);
+    assignToHost(a1);
+
+    setUpHost();
+    // The scheduling filter is only consulted once, the veto is remembered for the host.
+    expectFiltering(Optional.of(Veto.constraintMismatch("ban")));
+
+    control.replay();
+
+    PreemptionVictimFilterImpl filter = newFilter();
+    assertNoVictims(runFilter(filter, task, NO_OFFER, a1));
+    assertNoVictims(runFilter(filter, task, NO_OFFER, a1));
+  }
+
+  @Test
+  public void testMayFit() {
+    schedulingFilter = createMock(SchedulingFilter.class);
+    control.replay();
+
+    ScheduledTask pending = makeProductionTask(USER_A, JOB_A, TASK_ID_A);
+    setResource(pending, CPUS, 2.0);
+    setResource(pending, RAM_MB, 1024.0);
+    ITaskConfig pendingConfig = ITaskConfig.build(pending.getAssignedTask().getTask());
+
+    ScheduledTask victim = makeTask(USER_B, JOB_B, TASK_ID_B);
+    setResource(victim, CPUS, 1.0);
+    setResource(victim, RAM_MB, 512.0);
+    ITaskConfig victimConfig = ITaskConfig.build(victim.getAssignedTask().getTask());
+    ResourceBag victimBag =
+        ResourceManager.bagFromTask(victimConfig, TaskExecutors.NO_OVERHEAD_EXECUTOR);
+
+    PreemptionVictimFilterImpl filter = newFilter();
+    assertTrue(filter.mayFit(
+        pendingConfig,
+        ImmutableMap.of(VictimClass.from(victimConfig), victimBag.scale(2)),
+        NO_OFFER));
+    assertFalse(filter.mayFit(
+        pendingConfig,
+        ImmutableMap.of(VictimClass.from(victimConfig), victimBag),
+        NO_OFFER));
+    assertTrue(filter.mayFit(
+        pendingConfig,
+        ImmutableMap.of(VictimClass.from(victimConfig), victimBag),
+        makeOffer(OFFER, 1, Amount.of(512L, Data.MB), Amount.of(1L, Data.MB), 1, false)));
+  }
+
+  @Test
+  public void testMayFitIgnoresNonPreemptibleClasses() {
+    schedulingFilter = createMock(SchedulingFilter.class);
+    control.replay();
+
+    ScheduledTask pending = makeTask(USER_A, JOB_A, TASK_ID_A, 100);
+    setResource(pending, CPUS, 1.0);
+    ITaskConfig pendingConfig = ITaskConfig.build(pending.getAssignedTask().getTask());
+
+    // A non-production task may only preempt lower priority tasks of the same role.
+    ScheduledTask otherRole = makeTask(USER_B, JOB_B, TASK_ID_B);
+    setResource(otherRole, CPUS, 4.0);
+    ScheduledTask production = makeProductionTask(USER_A, JOB_A, TASK_ID_C);
+    setResource(production, CPUS, 4.0);
+
+    assertFalse(newFilter().mayFit(
+        pendingConfig,
+        ImmutableMap.of(
+            VictimClass.from(ITaskConfig.build(otherRole.getAssignedTask().getTask())),
+            bag(4, 0, 0),
+            VictimClass.from(ITaskConfig.build(production.getAssignedTask().getTask())),
+            bag(4, 0, 0)),
+        NO_OFFER));
+  }
+
   @Test
   public void testOrder() {
     control.replay();
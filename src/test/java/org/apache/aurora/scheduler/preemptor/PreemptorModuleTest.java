@@ -23,7 +23,9 @@ import com.google.inject.Module;
 
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.gen.AssignedTask;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.config.CliOptions;
+import org.apache.aurora.scheduler.configuration.executor.ExecutorSettings;
 import org.apache.aurora.scheduler.filter.AttributeAggregate;
 import org.apache.aurora.scheduler.filter.SchedulingFilter;
 import org.apache.aurora.scheduler.scheduling.TaskAssigner;
@@ -61,6 +63,7 @@ public class PreemptorModuleTest extends EasyMockTest {
             bindMock(TaskAssigner.class);
             bindMock(Thread.UncaughtExceptionHandler.class);
             bind(Storage.class).toInstance(storageUtil.storage);
+            bind(ExecutorSettings.class).toInstance(TaskTestUtil.EXECUTOR_SETTINGS);
           }
         });
   }
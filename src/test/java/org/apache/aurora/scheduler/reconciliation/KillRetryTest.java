@@ -19,7 +19,6 @@ import java.util.concurrent.ScheduledExecutorService;
 
 import javax.inject.Singleton;
 
-import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
@@ -36,6 +35,7 @@ import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.scheduler.app.LifecycleModule;
 import org.apache.aurora.scheduler.async.AsyncModule.AsyncExecutor;
 import org.apache.aurora.scheduler.base.Query;
+import org.apache.aurora.scheduler.events.EventDispatcher;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
 import org.apache.aurora.scheduler.events.PubsubEventModule;
 import org.apache.aurora.scheduler.mesos.Driver;
@@ -59,7 +59,7 @@ public class KillRetryTest extends EasyMockTest {
   private StorageTestUtil storageUtil;
   private BackoffStrategy backoffStrategy;
   private FakeScheduledExecutor clock;
-  private EventBus eventBus;
+  private EventDispatcher dispatcher;
   private FakeStatsProvider statsProvider;
 
   @Before
@@ -94,7 +94,7 @@ public class KillRetryTest extends EasyMockTest {
           }
         }
     );
-    eventBus = injector.getInstance(EventBus.class);
+    dispatcher = injector.getInstance(EventDispatcher.class);
     PubsubTestUtil.startPubsub(injector);
   }
 
@@ -105,7 +105,7 @@ public class KillRetryTest extends EasyMockTest {
   }
 
   private void moveToKilling(String taskId) {
-    eventBus.post(TaskStateChange.transition(makeTask(taskId, KILLING), RUNNING));
+    dispatcher.post(TaskStateChange.transition(makeTask(taskId, KILLING), RUNNING));
   }
 
   private static Query.Builder killingQuery(String taskId) {
@@ -13,19 +13,18 @@
  */
 package org.apache.aurora.scheduler.reconciliation;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ImmutableSet;
 
 import org.apache.aurora.common.quantity.Amount;
 import org.apache.aurora.common.quantity.Time;
-import org.apache.aurora.common.stats.StatsProvider;
 import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.common.util.testing.FakeClock;
 import org.apache.aurora.gen.AssignedTask;
 import org.apache.aurora.gen.ScheduleStatus;
 import org.apache.aurora.gen.ScheduledTask;
@@ -38,17 +37,21 @@ import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.entities.ITaskConfig;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
 import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
-import org.apache.mesos.v1.Protos;
-import org.easymock.EasyMock;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
 
 import static org.apache.aurora.common.quantity.Time.MINUTES;
 import static org.apache.aurora.common.quantity.Time.SECONDS;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.EXPLICIT_COVERAGE_LAG_STAT_NAME;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.EXPLICIT_STAT_NAME;
+import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.EXPLICIT_TASKS_STAT_NAME;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.IMPLICIT_STAT_NAME;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.TASK_TO_PROTO;
 import static org.apache.aurora.scheduler.reconciliation.TaskReconciler.TaskReconcilerSettings;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
@@ -60,58 +63,54 @@ public class TaskReconcilerTest extends EasyMockTest {
   private static final Amount<Long, Time> SPREAD = Amount.of(30L, MINUTES);
   private static final Amount<Long, Time> BATCH_DELAY = Amount.of(3L, SECONDS);
   private static final int BATCH_SIZE = 1;
+  private static final int SHARDS = 2;
+  private static final Amount<Long, Time> SHARD_INTERVAL = Amount.of(30L, MINUTES);
   private static final TaskReconcilerSettings SETTINGS = new TaskReconcilerSettings(
       INITIAL_DELAY,
       EXPLICIT_SCHEDULE,
       IMPLICT_SCHEDULE,
       SPREAD,
       BATCH_DELAY,
-      BATCH_SIZE);
+      BATCH_SIZE,
+      SHARDS);
 
   private StorageTestUtil storageUtil;
-  private StatsProvider statsProvider;
+  private FakeStatsProvider statsProvider;
   private Driver driver;
   private ScheduledExecutorService executorService;
-  private AtomicLong explicitRuns;
-  private AtomicLong implicitRuns;
 
   @Before
   public void setUp() {
     storageUtil = new StorageTestUtil(this);
-    statsProvider = createMock(StatsProvider.class);
+    statsProvider = new FakeStatsProvider();
     driver = createMock(Driver.class);
     executorService = createMock(ScheduledExecutorService.class);
-    explicitRuns = new AtomicLong();
-    implicitRuns = new AtomicLong();
   }
 
   @Test
   public void testExecution() {
-    expect(statsProvider.makeCounter(EXPLICIT_STAT_NAME)).andReturn(explicitRuns);
-    expect(statsProvider.makeCounter(IMPLICIT_STAT_NAME)).andReturn(implicitRuns);
     FakeScheduledExecutor clock =
         FakeScheduledExecutor.scheduleAtFixedRateExecutor(executorService, 2, 5);
 
-    IScheduledTask task1 = makeTask("id1", TaskTestUtil.makeConfig(TaskTestUtil.JOB));
-    IScheduledTask task2 = makeTask("id2", TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+    // Agents with consecutive names hash to different shards.
+    IScheduledTask taskA = makeTask("id1", "agent-a", 100L);
+    IScheduledTask taskB = makeTask("id2", "agent-b", 100L);
+    IScheduledTask firstShard = TaskReconciler.shardOf(taskA, SHARDS) == 0 ? taskA : taskB;
+    IScheduledTask secondShard = firstShard == taskA ? taskB : taskA;
     storageUtil.expectOperations();
     storageUtil.expectTaskFetch(
         Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES),
-        task1,
-        task2).times(7);
+        taskA,
+        taskB).times(2);
 
-    List<List<Protos.TaskStatus>> batches = Lists.partition(ImmutableList.of(
-        TASK_TO_PROTO.apply(task1),
-        TASK_TO_PROTO.apply(task2)), BATCH_SIZE);
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(firstShard)));
+    expectLastCall().times(2);
 
-    driver.reconcileTasks(batches.get(0));
-    expectLastCall().times(7);
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(secondShard)));
+    expectLastCall().times(2);
 
-    driver.reconcileTasks(batches.get(1));
-    expectLastCall().times(7);
-
-    driver.reconcileTasks(EasyMock.anyObject());
-    expectLastCall().times(3);
+    driver.reconcileTasks(ImmutableSet.of());
+    expectLastCall().times(2);
 
     control.replay();
 
@@ -120,34 +119,109 @@ public class TaskReconcilerTest extends EasyMockTest {
         storageUtil.storage,
         driver,
         executorService,
+        clock,
         statsProvider);
 
     reconciler.startAsync().awaitRunning();
 
     clock.advance(INITIAL_DELAY);
-    assertEquals(1L, explicitRuns.get());
-    assertEquals(0L, implicitRuns.get());
-
-    clock.advance(SPREAD);
-    assertEquals(1L, explicitRuns.get());
-    assertEquals(1L, implicitRuns.get());
+    assertEquals(0L, statsProvider.getLongValue(EXPLICIT_STAT_NAME));
+    assertEquals(0L, statsProvider.getLongValue(IMPLICIT_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(EXPLICIT_TASKS_STAT_NAME));
+    assertEquals(
+        INITIAL_DELAY.as(Time.MILLISECONDS).longValue(),
+        statsProvider.getLongValue(EXPLICIT_COVERAGE_LAG_STAT_NAME));
 
-    clock.advance(EXPLICIT_SCHEDULE);
-    assertEquals(2L, explicitRuns.get());
-    assertEquals(1L, implicitRuns.get());
+    // A sweep over all shards completes in the explicit interval.
+    clock.advance(SHARD_INTERVAL);
+    assertEquals(1L, statsProvider.getLongValue(EXPLICIT_STAT_NAME));
+    assertEquals(1L, statsProvider.getLongValue(IMPLICIT_STAT_NAME));
+    assertEquals(2L, statsProvider.getLongValue(EXPLICIT_TASKS_STAT_NAME));
+    assertEquals(
+        SHARD_INTERVAL.as(Time.MILLISECONDS).longValue(),
+        statsProvider.getLongValue(EXPLICIT_COVERAGE_LAG_STAT_NAME));
 
-    clock.advance(IMPLICT_SCHEDULE);
-    assertEquals(5L, explicitRuns.get());
-    assertEquals(2L, implicitRuns.get());
+    reconciler.triggerExplicitReconciliation(Optional.empty());
+    assertEquals(2L, statsProvider.getLongValue(EXPLICIT_STAT_NAME));
+    assertEquals(4L, statsProvider.getLongValue(EXPLICIT_TASKS_STAT_NAME));
+    assertEquals(0L, statsProvider.getLongValue(EXPLICIT_COVERAGE_LAG_STAT_NAME));
 
-    reconciler.triggerExplicitReconciliation(Optional.of(BATCH_SIZE));
-    assertEquals(6L, explicitRuns.get());
     reconciler.triggerImplicitReconciliation();
-    assertEquals(3L, implicitRuns.get());
+    assertEquals(2L, statsProvider.getLongValue(IMPLICIT_STAT_NAME));
+  }
+
+  @Test
+  public void testOldestStatusReconciledFirst() {
+    FakeScheduledExecutor clock =
+        FakeScheduledExecutor.scheduleAtFixedRateExecutor(executorService, 2, 0);
+
+    IScheduledTask recent = makeTask("id1", "agent-a", 200L);
+    IScheduledTask old = makeTask("id2", "agent-a", 100L);
+    storageUtil.expectOperations();
+    storageUtil.expectTaskFetch(
+        Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES),
+        recent,
+        old);
+
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(old), TASK_TO_PROTO.apply(recent)));
+
+    control.replay();
 
+    TaskReconciler reconciler = new TaskReconciler(
+        SETTINGS,
+        storageUtil.storage,
+        driver,
+        executorService,
+        clock,
+        statsProvider);
+    reconciler.startAsync().awaitRunning();
+
+    reconciler.triggerExplicitReconciliation(Optional.of(2));
+  }
+
+  @Test
+  public void testReconciledOnceBatchesSent() {
+    FakeClock clock = new FakeClock();
+    IScheduledTask taskA = makeTask("id1", "agent-a", 100L);
+    IScheduledTask taskB = makeTask("id2", "agent-a", 200L);
+    storageUtil.expectOperations();
+    storageUtil.expectTaskFetch(
+        Query.unscoped().byStatus(Tasks.SLAVE_ASSIGNED_STATES),
+        taskA,
+        taskB);
+
+    Capture<Runnable> first = createCapture();
+    Capture<Runnable> second = createCapture();
+    expect(executorService.schedule(capture(first), eq(0L), eq(TimeUnit.SECONDS)))
+        .andReturn(null);
+    expect(executorService.schedule(
+        capture(second),
+        eq(BATCH_DELAY.as(SECONDS)),
+        eq(TimeUnit.SECONDS)))
+        .andReturn(null);
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(taskA)));
+    driver.reconcileTasks(ImmutableList.of(TASK_TO_PROTO.apply(taskB)));
+
+    control.replay();
+
+    TaskReconciler reconciler = new TaskReconciler(
+        SETTINGS,
+        storageUtil.storage,
+        driver,
+        executorService,
+        clock,
+        statsProvider);
+
+    clock.advance(INITIAL_DELAY);
     reconciler.triggerExplicitReconciliation(Optional.empty());
-    assertEquals(7L, explicitRuns.get());
-    assertEquals(3L, implicitRuns.get());
+    first.getValue().run();
+    // Shards are not reconciled until their last batch was sent.
+    assertEquals(
+        INITIAL_DELAY.as(Time.MILLISECONDS).longValue(),
+        statsProvider.getLongValue(EXPLICIT_COVERAGE_LAG_STAT_NAME));
+
+    second.getValue().run();
+    assertEquals(0L, statsProvider.getLongValue(EXPLICIT_COVERAGE_LAG_STAT_NAME));
   }
 
   @Test(expected = IllegalArgumentException.class)
@@ -160,7 +234,8 @@ public class TaskReconcilerTest extends EasyMockTest {
         IMPLICT_SCHEDULE,
         Amount.of(Long.MAX_VALUE, MINUTES),
         BATCH_DELAY,
-        BATCH_SIZE);
+        BATCH_SIZE,
+        SHARDS);
   }
 
   @Test(expected = IllegalArgumentException.class)
@@ -173,17 +248,33 @@ public class TaskReconcilerTest extends EasyMockTest {
         IMPLICT_SCHEDULE,
         SPREAD,
         BATCH_DELAY,
-        BATCH_SIZE);
+        BATCH_SIZE,
+        SHARDS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooManyShards() throws Exception {
+    control.replay();
+
+    new TaskReconcilerSettings(
+        INITIAL_DELAY,
+        Amount.of(1L, SECONDS),
+        IMPLICT_SCHEDULE,
+        SPREAD,
+        BATCH_DELAY,
+        BATCH_SIZE,
+        10000);
   }
 
-  private static IScheduledTask makeTask(String id, ITaskConfig config) {
+  private static IScheduledTask makeTask(String id, String agentId, long lastEventTimestamp) {
+    ITaskConfig config = TaskTestUtil.makeConfig(TaskTestUtil.JOB);
     return IScheduledTask.build(new ScheduledTask()
         .setStatus(ScheduleStatus.ASSIGNED)
         .setTaskEvents(ImmutableList.of(
-            new TaskEvent(100L, ScheduleStatus.ASSIGNED)
+            new TaskEvent(lastEventTimestamp - 1, ScheduleStatus.PENDING)
                 .setMessage("message")
                 .setScheduler("scheduler"),
-            new TaskEvent(101L, ScheduleStatus.ASSIGNED)
+            new TaskEvent(lastEventTimestamp, ScheduleStatus.ASSIGNED)
                 .setMessage("message")
                 .setScheduler("scheduler2")))
         .setAncestorId("ancestor")
@@ -191,7 +282,7 @@ public class TaskReconcilerTest extends EasyMockTest {
         .setAssignedTask(new AssignedTask()
             .setInstanceId(2)
             .setTaskId(id)
-            .setSlaveId("slave-id")
+            .setSlaveId(agentId)
             .setAssignedPorts(ImmutableMap.of("http", 1000))
             .setTask(config.newBuilder())));
   }
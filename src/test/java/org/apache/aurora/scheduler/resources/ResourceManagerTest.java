@@ -198,4 +198,31 @@ public class ResourceManagerTest {
   public void testAggregateFromBag() {
     assertEquals(aggregate(1.0, 1024, 4096), ResourceManager.aggregateFromBag(ResourceBag.SMALL));
   }
+
+  @Test
+  public void testSubtractTaskResources() {
+    Offer offer = ResourceTestUtil.offer(
+        mesosScalar(CPUS, 4.0),
+        mesosScalar(CPUS, 2.0, true),
+        mesosScalar(RAM_MB, 1024),
+        mesosRange(PORTS, 80, 81, 82));
+    Protos.TaskInfo task = Protos.TaskInfo.newBuilder()
+        .setName("task")
+        .setTaskId(Protos.TaskID.newBuilder().setValue("task-id"))
+        .setAgentId(offer.getAgentId())
+        .addResources(mesosScalar(CPUS, 1.0, true))
+        .addResources(mesosScalar(RAM_MB, 1024))
+        .addResources(mesosRange(PORTS, 81))
+        .setExecutor(Protos.ExecutorInfo.newBuilder()
+            .setExecutorId(Protos.ExecutorID.newBuilder().setValue("executor-id"))
+            .addResources(mesosScalar(CPUS, 0.5)))
+        .build();
+
+    assertEquals(
+        ResourceTestUtil.offer(
+            mesosScalar(CPUS, 3.5),
+            mesosScalar(CPUS, 1.0, true),
+            mesosRange(PORTS, 80, 82)),
+        ResourceManager.subtractTaskResources(offer, task));
+  }
 }
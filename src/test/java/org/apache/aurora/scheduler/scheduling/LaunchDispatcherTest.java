@@ -0,0 +1,151 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.aurora.common.testing.easymock.EasyMockTest;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.offers.OfferManager.LaunchException;
+import org.apache.aurora.scheduler.state.StateChangeResult;
+import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.apache.mesos.v1.Protos;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.aurora.gen.ScheduleStatus.ASSIGNED;
+import static org.apache.aurora.gen.ScheduleStatus.LOST;
+import static org.apache.aurora.scheduler.scheduling.LaunchDispatcher.LAUNCH_DISPATCHER_FAILURES;
+import static org.apache.aurora.scheduler.scheduling.LaunchDispatcher.LAUNCH_DISPATCHER_LAUNCHES;
+import static org.apache.aurora.scheduler.scheduling.TaskAssignerImpl.LAUNCH_FAILED_MSG;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.Assert.assertEquals;
+
+public class LaunchDispatcherTest extends EasyMockTest {
+
+  private static final Protos.OfferID OFFER_ID =
+      Protos.OfferID.newBuilder().setValue("offer-id").build();
+  private static final Protos.TaskInfo TASK_INFO = Protos.TaskInfo.newBuilder()
+      .setName("task")
+      .setTaskId(Protos.TaskID.newBuilder().setValue("task-id"))
+      .setAgentId(Protos.AgentID.newBuilder().setValue("agent-id"))
+      .build();
+  private static final List<Protos.TaskInfo> TASKS = ImmutableList.of(TASK_INFO);
+
+  private StorageTestUtil storageUtil;
+  private OfferManager offerManager;
+  private StateManager stateManager;
+  private FakeStatsProvider statsProvider;
+  private LaunchDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    storageUtil = new StorageTestUtil(this);
+    offerManager = createMock(OfferManager.class);
+    stateManager = createMock(StateManager.class);
+    statsProvider = new FakeStatsProvider();
+    dispatcher = new LaunchDispatcher(
+        offerManager,
+        storageUtil.storage,
+        stateManager,
+        statsProvider);
+  }
+
+  private void drain() {
+    // Launches left in the queue are dispatched on shutdown.
+    dispatcher.startAsync().awaitRunning();
+    dispatcher.stopAsync().awaitTerminated();
+  }
+
+  @Test
+  public void testLaunchOutsideScope() throws Exception {
+    offerManager.launchTasks(OFFER_ID, TASKS);
+
+    control.replay();
+
+    dispatcher.launch(OFFER_ID, TASKS);
+  }
+
+  @Test
+  public void testLaunchDeferredUntilCommit() throws Exception {
+    offerManager.claim(OFFER_ID);
+    offerManager.acceptClaimed(OFFER_ID, TASKS);
+
+    control.replay();
+
+    dispatcher.deferLaunches();
+    dispatcher.launch(OFFER_ID, TASKS);
+    dispatcher.commitLaunches();
+    drain();
+
+    assertEquals(1L, statsProvider.getLongValue(LAUNCH_DISPATCHER_LAUNCHES));
+  }
+
+  @Test
+  public void testLaunchDroppedOnAbort() throws Exception {
+    offerManager.claim(OFFER_ID);
+    // The claimed offer is released rather than leaked.
+    offerManager.releaseClaimed(OFFER_ID);
+
+    control.replay();
+
+    dispatcher.deferLaunches();
+    dispatcher.launch(OFFER_ID, TASKS);
+    dispatcher.abortLaunches();
+    drain();
+
+    assertEquals(0L, statsProvider.getLongValue(LAUNCH_DISPATCHER_LAUNCHES));
+  }
+
+  @Test(expected = LaunchException.class)
+  public void testClaimFailsSynchronously() throws Exception {
+    offerManager.claim(OFFER_ID);
+    expectLastCall().andThrow(new LaunchException("expected"));
+
+    control.replay();
+
+    dispatcher.deferLaunches();
+    dispatcher.launch(OFFER_ID, TASKS);
+  }
+
+  @Test
+  public void testFailedLaunchMovesTasksToLost() throws Exception {
+    storageUtil.expectOperations();
+    offerManager.claim(OFFER_ID);
+    offerManager.acceptClaimed(OFFER_ID, TASKS);
+    expectLastCall().andThrow(new LaunchException("expected"));
+    expect(stateManager.changeState(
+        storageUtil.mutableStoreProvider,
+        TASK_INFO.getTaskId().getValue(),
+        Optional.of(ASSIGNED),
+        LOST,
+        LAUNCH_FAILED_MSG))
+        .andReturn(StateChangeResult.SUCCESS);
+
+    control.replay();
+
+    dispatcher.deferLaunches();
+    dispatcher.launch(OFFER_ID, TASKS);
+    dispatcher.commitLaunches();
+    drain();
+
+    assertEquals(1L, statsProvider.getLongValue(LAUNCH_DISPATCHER_FAILURES));
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.scheduling;
+
+import java.util.Optional;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+
+import org.apache.aurora.common.util.testing.FakeTicker;
+import org.apache.aurora.scheduler.base.TaskGroupKey;
+import org.apache.aurora.scheduler.base.TaskTestUtil;
+import org.apache.aurora.scheduler.scheduling.SchedulingTracer.Phase;
+import org.apache.aurora.scheduler.scheduling.SchedulingTracer.RoundTrace;
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SchedulingTracerTest {
+
+  private static final TaskGroupKey GROUP_KEY =
+      TaskGroupKey.from(TaskTestUtil.makeConfig(TaskTestUtil.JOB));
+
+  private FakeTicker ticker;
+  private FakeStatsProvider statsProvider;
+  private SchedulingTracer tracer;
+
+  @Before
+  public void setUp() {
+    ticker = new FakeTicker();
+    statsProvider = new FakeStatsProvider();
+    tracer = new SchedulingTracer(ticker, statsProvider);
+  }
+
+  private static ImmutableMap<Phase, Long> phases(long... nanos) {
+    ImmutableMap.Builder<Phase, Long> builder = ImmutableMap.builder();
+    for (Phase phase : Phase.values()) {
+      builder.put(phase, nanos[phase.ordinal()]);
+    }
+    return builder.build();
+  }
+
+  @Test
+  public void testPhasesRecorded() {
+    tracer.startRound();
+    tracer.startPhase(Phase.TASK_FETCH);
+    ticker.waitNanos(10);
+    tracer.startPhase(Phase.AGGREGATE_BUILD);
+    ticker.waitNanos(20);
+    tracer.startPhase(Phase.OFFER_ITERATION);
+    ticker.waitNanos(30);
+    tracer.recordVetoEvaluation(25);
+    tracer.startPhase(Phase.ASSIGNMENT);
+    ticker.waitNanos(40);
+    tracer.startPhase(Phase.LAUNCH);
+    ticker.waitNanos(50);
+    tracer.finishRound(Optional.of(GROUP_KEY));
+
+    assertEquals(
+        new RoundTrace(GROUP_KEY.toString(), 150, phases(10, 20, 5, 25, 40, 50, 0)),
+        Iterables.getOnlyElement(tracer.getSlowRounds()));
+  }
+
+  @Test
+  public void testVetoOutsideOfferIterationIgnored() {
+    tracer.startRound();
+    tracer.startPhase(Phase.ASSIGNMENT);
+    tracer.recordVetoEvaluation(25);
+    ticker.waitNanos(10);
+    tracer.finishRound(Optional.empty());
+
+    assertEquals(
+        new RoundTrace("unknown", 10, phases(0, 0, 0, 0, 10, 0, 0)),
+        Iterables.getOnlyElement(tracer.getSlowRounds()));
+  }
+
+  @Test
+  public void testNoRoundInProgress() {
+    tracer.startPhase(Phase.TASK_FETCH);
+    tracer.recordVetoEvaluation(25);
+    tracer.finishRound(Optional.of(GROUP_KEY));
+
+    assertEquals(0, tracer.getSlowRounds().size());
+  }
+
+  @Test
+  public void testSlowRoundsBounded() {
+    for (int i = 0; i < SchedulingTracer.SLOW_ROUNDS_BUFFER_SIZE + 1; i++) {
+      tracer.startRound();
+      tracer.finishRound(Optional.of(GROUP_KEY));
+    }
+
+    assertEquals(SchedulingTracer.SLOW_ROUNDS_BUFFER_SIZE, tracer.getSlowRounds().size());
+  }
+
+  @Test
+  public void testFastRoundsNotRetained() {
+    tracer.startRound();
+    ticker.waitNanos(100);
+    tracer.finishRound(Optional.of(GROUP_KEY));
+    assertEquals(100L, statsProvider.getLongValue("scheduling_round_nanos_99_0_percentile"));
+    assertEquals(0L, statsProvider.getLongValue("scheduling_round_launch_nanos_99_0_percentile"));
+
+    tracer.startRound();
+    ticker.waitNanos(10);
+    tracer.finishRound(Optional.of(GROUP_KEY));
+
+    assertEquals(1, tracer.getSlowRounds().size());
+  }
+}
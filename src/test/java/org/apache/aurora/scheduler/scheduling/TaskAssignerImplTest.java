@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -36,6 +37,7 @@ import org.apache.aurora.scheduler.offers.HostOffer;
 import org.apache.aurora.scheduler.offers.OfferManager;
 import org.apache.aurora.scheduler.state.StateChangeResult;
 import org.apache.aurora.scheduler.state.StateManager;
+import org.apache.aurora.scheduler.storage.Storage;
 import org.apache.aurora.scheduler.storage.entities.IAssignedTask;
 import org.apache.aurora.scheduler.storage.entities.IHostAttributes;
 import org.apache.aurora.scheduler.storage.entities.IInstanceKey;
@@ -57,6 +59,7 @@ import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosRange;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.mesosScalar;
 import static org.apache.aurora.scheduler.resources.ResourceTestUtil.offer;
 import static org.apache.aurora.scheduler.resources.ResourceType.CPUS;
+import static org.apache.aurora.scheduler.resources.ResourceType.DISK_MB;
 import static org.apache.aurora.scheduler.resources.ResourceType.PORTS;
 import static org.apache.aurora.scheduler.resources.ResourceType.RAM_MB;
 import static org.apache.aurora.scheduler.scheduling.TaskAssignerImpl.ASSIGNER_LAUNCH_FAILURES;
@@ -68,6 +71,7 @@ import static org.easymock.EasyMock.anyString;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
@@ -125,7 +129,13 @@ public class TaskAssignerImplTest extends EasyMockTest {
         taskFactory,
         offerManager,
         updateAgentReserver,
-        statsProvider);
+        statsProvider,
+        new SchedulingTracer(statsProvider),
+        new LaunchDispatcher(
+            offerManager,
+            createMock(Storage.class),
+            stateManager,
+            statsProvider));
     aggregate = empty();
     resourceRequest = ResourceRequest.fromTask(
         TASK.getTask(),
@@ -155,7 +165,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
 
     expect(offerManager.getAllMatching(GROUP_KEY, resourceRequest))
         .andReturn(ImmutableSet.of(OFFER, OFFER_2)).atLeastOnce();
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
     expectLastCall().andThrow(new OfferManager.LaunchException("expected"));
     expectAssignTask(MESOS_OFFER);
     expect(stateManager.changeState(
@@ -184,6 +194,8 @@ public class TaskAssignerImplTest extends EasyMockTest {
                 makeTask("id3", JOB).getAssignedTask()),
             NO_RESERVATION));
     assertEquals(1L, statsProvider.getLongValue(ASSIGNER_LAUNCH_FAILURES));
+    // Tasks that were matched but not launched are no longer counted in the job's aggregate.
+    assertEquals(empty(), aggregate);
   }
 
   @Test
@@ -216,7 +228,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expectAssignTask(OFFER_2.getOffer());
     expect(taskFactory.createFrom(TASK, OFFER_2.getOffer(), false))
         .andReturn(TASK_INFO);
-    offerManager.launchTask(OFFER_2.getOffer().getId(), TASK_INFO);
+    offerManager.launchTasks(OFFER_2.getOffer().getId(), ImmutableList.of(TASK_INFO));
 
     control.replay();
 
@@ -249,7 +261,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(offerManager.getMatching(MESOS_OFFER.getAgentId(), resourceRequest))
         .andReturn(Optional.of(OFFER));
     expectAssignTask(MESOS_OFFER);
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
 
     expect(taskFactory.createFrom(TASK, MESOS_OFFER, false))
         .andReturn(TASK_INFO);
@@ -268,6 +280,34 @@ public class TaskAssignerImplTest extends EasyMockTest {
     assertNotEquals(empty(), aggregate);
   }
 
+  @Test
+  public void testReservationKeptWhenReservedOfferIsFull() throws Exception {
+    IAssignedTask secondTask = makeTask("another-task", JOB, 9999).getAssignedTask();
+    expect(updateAgentReserver.getAgent(INSTANCE_KEY)).andReturn(Optional.of(SLAVE_ID));
+    expect(updateAgentReserver.getAgent(InstanceKeys.from(JOB, 9999)))
+        .andReturn(Optional.of(SLAVE_ID));
+    expect(offerManager.getMatching(MESOS_OFFER.getAgentId(), resourceRequest))
+        .andReturn(Optional.of(OFFER))
+        .times(2);
+    expectAssignTask(MESOS_OFFER);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
+    expect(taskFactory.createFrom(TASK, MESOS_OFFER, false)).andReturn(TASK_INFO);
+
+    // Only the reservation of the launched task is released, the other instance keeps the agent.
+    updateAgentReserver.release(SLAVE_ID, INSTANCE_KEY);
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(TASK.getTaskId()),
+        assigner.maybeAssign(
+            storeProvider,
+            resourceRequest,
+            GROUP_KEY,
+            ImmutableSet.of(TASK, secondTask),
+            NO_RESERVATION));
+  }
+
   @Test
   public void testAssignReservedAgentWhenOfferNotReady() {
     expect(updateAgentReserver.getAgent(INSTANCE_KEY)).andReturn(Optional.of(SLAVE_ID));
@@ -295,7 +335,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(offerManager.getMatching(MESOS_OFFER.getAgentId(), resourceRequest))
         .andReturn(Optional.of(OFFER));
     expectAssignTask(MESOS_OFFER);
-    offerManager.launchTask(MESOS_OFFER.getId(), TASK_INFO);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
     expect(taskFactory.createFrom(TASK, MESOS_OFFER, false))
         .andReturn(TASK_INFO);
 
@@ -312,7 +352,7 @@ public class TaskAssignerImplTest extends EasyMockTest {
     expect(updateAgentReserver.isReserved(OFFER_2.getOffer().getAgentId().getValue()))
         .andReturn(false);
     expectAssignTask(MESOS_OFFER_2, secondTask);
-    offerManager.launchTask(MESOS_OFFER_2.getId(), secondTaskInfo);
+    offerManager.launchTasks(MESOS_OFFER_2.getId(), ImmutableList.of(secondTaskInfo));
     expect(taskFactory.createFrom(secondTask, MESOS_OFFER_2, false)).andReturn(secondTaskInfo);
 
     control.replay();
@@ -328,6 +368,89 @@ public class TaskAssignerImplTest extends EasyMockTest {
     assertNotEquals(empty(), aggregate);
   }
 
+  @Test
+  public void testMultipleTasksLaunchedOnOneOffer() throws Exception {
+    Offer mesosOffer = offer(
+        mesosScalar(CPUS, 2),
+        mesosScalar(RAM_MB, 2048),
+        mesosScalar(DISK_MB, 2048),
+        mesosRange(PORTS, PORT, PORT + 1));
+    HostOffer hostOffer = new HostOffer(mesosOffer, OFFER.getAttributes());
+    IAssignedTask secondTask = makeTask("another-task", JOB, 9999).getAssignedTask();
+    TaskInfo taskInfo = TASK_INFO.toBuilder()
+        .addResources(mesosScalar(CPUS, 1))
+        .addResources(mesosScalar(RAM_MB, 1024))
+        .addResources(mesosScalar(DISK_MB, 1024))
+        .addResources(mesosRange(PORTS, PORT))
+        .build();
+    TaskInfo secondTaskInfo = TaskInfo.newBuilder()
+        .setName("another-task")
+        .setTaskId(TaskID.newBuilder().setValue(secondTask.getTaskId()))
+        .setAgentId(mesosOffer.getAgentId())
+        .build();
+
+    expect(updateAgentReserver.getAgent(anyObject())).andReturn(Optional.empty()).times(2);
+    expect(updateAgentReserver.isReserved(anyString())).andReturn(false).times(2);
+    expect(offerManager.getAllMatching(GROUP_KEY, resourceRequest))
+        .andReturn(ImmutableSet.of(hostOffer))
+        .times(2);
+    expectAssignTask(mesosOffer);
+    expect(taskFactory.createFrom(TASK, mesosOffer, false)).andReturn(taskInfo);
+
+    // The second task is allocated from what is left of the offer.
+    Offer remainingOffer = offer(
+        mesosScalar(CPUS, 1),
+        mesosScalar(RAM_MB, 1024),
+        mesosScalar(DISK_MB, 1024),
+        mesosRange(PORTS, PORT + 1));
+    expectAssignTask(remainingOffer, secondTask);
+    expect(taskFactory.createFrom(eq(secondTask), anyObject(), eq(false)))
+        .andAnswer(() -> {
+          Offer offer = (Offer) getCurrentArguments()[1];
+          assertEquals(
+              ImmutableSet.copyOf(remainingOffer.getResourcesList()),
+              ImmutableSet.copyOf(offer.getResourcesList()));
+          return secondTaskInfo;
+        });
+    offerManager.launchTasks(mesosOffer.getId(), ImmutableList.of(taskInfo, secondTaskInfo));
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(TASK.getTaskId(), secondTask.getTaskId()),
+        assigner.maybeAssign(
+            storeProvider,
+            resourceRequest,
+            GROUP_KEY,
+            ImmutableSet.of(TASK, secondTask),
+            NO_RESERVATION));
+  }
+
+  @Test
+  public void testOfferNotOvercommitted() throws Exception {
+    IAssignedTask secondTask = makeTask("another-task", JOB, 9999).getAssignedTask();
+
+    expect(updateAgentReserver.getAgent(anyObject())).andReturn(Optional.empty()).times(2);
+    expect(updateAgentReserver.isReserved(anyString())).andReturn(false);
+    expect(offerManager.getAllMatching(GROUP_KEY, resourceRequest))
+        .andReturn(ImmutableSet.of(OFFER))
+        .times(2);
+    expectAssignTask(MESOS_OFFER);
+    expect(taskFactory.createFrom(TASK, MESOS_OFFER, false)).andReturn(TASK_INFO);
+    offerManager.launchTasks(MESOS_OFFER.getId(), ImmutableList.of(TASK_INFO));
+
+    control.replay();
+
+    assertEquals(
+        ImmutableSet.of(TASK.getTaskId()),
+        assigner.maybeAssign(
+            storeProvider,
+            resourceRequest,
+            GROUP_KEY,
+            ImmutableSet.of(TASK, secondTask),
+            NO_RESERVATION));
+  }
+
   private void expectAssignTask(Offer offer) {
     expectAssignTask(offer, TASK);
   }
@@ -13,10 +13,13 @@
  */
 package org.apache.aurora.scheduler.scheduling;
 
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.aurora.common.quantity.Amount;
@@ -30,7 +33,11 @@ import org.apache.aurora.gen.ScheduledTask;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.PubsubEvent;
+import org.apache.aurora.scheduler.events.PubsubEvent.OfferAvailable;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
+import org.apache.aurora.scheduler.offers.OfferManager;
+import org.apache.aurora.scheduler.preemptor.Preemptor;
 import org.apache.aurora.scheduler.scheduling.TaskGroups.TaskGroupBatchWorker;
 import org.apache.aurora.scheduler.scheduling.TaskGroups.TaskGroupsSettings;
 import org.apache.aurora.scheduler.storage.entities.IJobKey;
@@ -38,6 +45,8 @@ import org.apache.aurora.scheduler.storage.entities.IScheduledTask;
 import org.apache.aurora.scheduler.storage.testing.StorageTestUtil;
 import org.apache.aurora.scheduler.testing.FakeScheduledExecutor;
 import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.apache.mesos.v1.Protos;
+import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -55,6 +64,13 @@ public class TaskGroupsTest extends EasyMockTest {
   private static final IJobKey JOB_A = IJobKey.build(new JobKey("role", "test", "jobA"));
   private static final String TASK_A_ID = "a";
   private static final Set<String> SCHEDULED_RESULT = ImmutableSet.of(TASK_A_ID);
+  private static final Amount<Long, Time> PARKED_BACKOFF = Amount.of(1L, Time.MINUTES);
+  private static final Protos.Offer OFFER = Protos.Offer.newBuilder()
+      .setId(Protos.OfferID.newBuilder().setValue("offer"))
+      .setFrameworkId(Protos.FrameworkID.newBuilder().setValue("framework"))
+      .setAgentId(Protos.AgentID.newBuilder().setValue("agent"))
+      .setHostname("host")
+      .build();
 
   private BackoffStrategy backoffStrategy;
   private TaskScheduler taskScheduler;
@@ -65,6 +81,8 @@ public class TaskGroupsTest extends EasyMockTest {
   private TaskGroupBatchWorker batchWorker;
   private StorageTestUtil storageUtil;
   private FakeStatsProvider statsProvider;
+  private OfferManager offerManager;
+  private Preemptor preemptor;
 
   @Before
   public void setUp() throws Exception {
@@ -78,18 +96,23 @@ public class TaskGroupsTest extends EasyMockTest {
     rescheduleCalculator = createMock(RescheduleCalculator.class);
     batchWorker = createMock(TaskGroupBatchWorker.class);
     statsProvider = new FakeStatsProvider();
+    offerManager = createMock(OfferManager.class);
+    preemptor = createMock(Preemptor.class);
     taskGroups = new TaskGroups(
         executor,
         new TaskGroupsSettings(FIRST_SCHEDULE_DELAY, backoffStrategy, rateLimiter, 2),
         taskScheduler,
         rescheduleCalculator,
         batchWorker,
-        statsProvider);
+        statsProvider,
+        clock,
+        offerManager,
+        preemptor);
   }
 
   @Test
   public void testEvaluatedAfterFirstSchedulePenalty() throws Exception {
-    expect(rateLimiter.acquire()).andReturn(0D);
+    expect(rateLimiter.tryAcquire()).andReturn(true);
     expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of(TASK_A_ID))))
         .andReturn(SCHEDULED_RESULT);
     expectBatchExecute(batchWorker, storageUtil.storage, control, SCHEDULED_RESULT)
@@ -105,7 +128,7 @@ public class TaskGroupsTest extends EasyMockTest {
   @Test
   public void testTaskDeletedBeforeEvaluating() throws Exception {
     final IScheduledTask task = makeTask(TASK_A_ID);
-    expect(rateLimiter.acquire()).andReturn(0.5D);
+    expect(rateLimiter.tryAcquire()).andReturn(false).andReturn(true);
     expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of(TASK_A_ID))))
         .andAnswer(() -> {
           // Test a corner case where a task is deleted while it is being evaluated by the task
@@ -124,12 +147,14 @@ public class TaskGroupsTest extends EasyMockTest {
 
     taskGroups.taskChangedState(TaskStateChange.transition(makeTask(Tasks.id(task)), INIT));
     clock.advance(FIRST_SCHEDULE_DELAY);
+    // The attempt was rate limited, and is retried after the first schedule delay.
+    clock.advance(FIRST_SCHEDULE_DELAY);
     assertEquals(1L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
   }
 
   @Test
   public void testEvaluatedOnStartup() throws Exception {
-    expect(rateLimiter.acquire()).andReturn(0.000000001D);
+    expect(rateLimiter.tryAcquire()).andReturn(false).andReturn(true);
     expect(rescheduleCalculator.getStartupScheduleDelayMs(makeTask(TASK_A_ID))).andReturn(1L);
     expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of(TASK_A_ID))))
         .andReturn(ImmutableSet.of(TASK_A_ID));
@@ -146,7 +171,7 @@ public class TaskGroupsTest extends EasyMockTest {
 
   @Test
   public void testMultipleTasksAndResistStarvation() throws Exception {
-    expect(rateLimiter.acquire()).andReturn(0.001D).times(2);
+    expect(rateLimiter.tryAcquire()).andReturn(true).times(2);
     expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("a0", "a1"))))
         .andReturn(ImmutableSet.of("a0", "a1"));
     expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("b0"))))
@@ -168,7 +193,175 @@ public class TaskGroupsTest extends EasyMockTest {
         makeTask(IJobKey.build(JOB_A.newBuilder().setName("jobB")), "b0", 0), INIT));
 
     clock.advance(FIRST_SCHEDULE_DELAY);
-    assertEquals(2L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
+    assertEquals(0L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
+  }
+
+  @Test
+  public void testBulkStateChanges() throws Exception {
+    expect(rateLimiter.tryAcquire()).andReturn(true);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("a0", "a1"))))
+        .andReturn(ImmutableSet.of("a0", "a1"));
+    expectBatchExecute(
+        batchWorker,
+        storageUtil.storage,
+        control,
+        ImmutableSet.of("a0", "a1")).anyTimes();
+
+    control.replay();
+
+    taskGroups.taskChangedStates(new TaskStateChanges(ImmutableList.of(
+        TaskStateChange.transition(makeTask(JOB_A, "a0", 0), INIT),
+        TaskStateChange.transition(makeTask(JOB_A, "a1", 1), INIT))));
+
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    assertEquals(0L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
+  }
+
+  @Test
+  public void testRateLimitedGroupsRequeued() throws Exception {
+    expect(rateLimiter.tryAcquire()).andReturn(true).andReturn(false).andReturn(true);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("a0"))))
+        .andReturn(ImmutableSet.of("a0"));
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("b0"))))
+        .andReturn(ImmutableSet.of("b0"));
+    expectBatchExecute(batchWorker, storageUtil.storage, control, ImmutableSet.of("a0"));
+    expectBatchExecute(batchWorker, storageUtil.storage, control, ImmutableSet.of("b0"));
+
+    control.replay();
+
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(JOB_A, "a0", 0), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(IJobKey.build(JOB_A.newBuilder().setName("jobB")), "b0", 0), INIT));
+
+    // The second group is rate limited, and waits in the delay queue rather than blocking.
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    assertEquals(1L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_BLOCKS));
+    assertEquals(1, ImmutableSet.copyOf(taskGroups.getGroups()).size());
+
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(taskGroups.getGroups()));
+    clock.assertEmpty();
+  }
+
+  @Test
+  public void testFairOrderingAcrossRoles() throws Exception {
+    List<String> attempts = Lists.newArrayList();
+    expect(rateLimiter.tryAcquire()).andReturn(true).times(5);
+    expect(taskScheduler.schedule(anyObject(), anyObject())).andAnswer(() -> {
+      @SuppressWarnings("unchecked")
+      Set<String> taskIds = (Set<String>) EasyMock.getCurrentArguments()[1];
+      attempts.addAll(taskIds);
+      return taskIds;
+    }).times(5);
+    expectBatchExecute(
+        batchWorker,
+        storageUtil.storage,
+        control,
+        ImmutableSet.of("a0", "b0", "c0", "p0", "q0")).anyTimes();
+
+    control.replay();
+
+    // Three non-production groups of one role, then two production groups of another role.
+    for (String id : ImmutableList.of("a0", "b0", "c0")) {
+      taskGroups.taskChangedState(TaskStateChange.transition(
+          makeTask(IJobKey.build(new JobKey("role", "test", id)), id, 0),
+          INIT));
+    }
+    for (String id : ImmutableList.of("p0", "q0")) {
+      taskGroups.taskChangedState(TaskStateChange.transition(
+          makeProductionTask(IJobKey.build(new JobKey("other", "test", id)), id),
+          INIT));
+    }
+
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    // Each attempt advances the virtual time of its share by the inverse of the share weight:
+    // non-production attempts finish at 1, 2 and 3, production attempts at 0.5 and 1. Ties are
+    // attempted in the order the groups were queued.
+    assertEquals(ImmutableList.of("p0", "a0", "q0", "b0", "c0"), attempts);
+    clock.assertEmpty();
+  }
+
+  @Test
+  public void testParkedGroupWokenByOffer() throws Exception {
+    expect(rateLimiter.tryAcquire()).andReturn(true).times(2);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of(TASK_A_ID))))
+        .andReturn(ImmutableSet.of())
+        .andReturn(SCHEDULED_RESULT);
+    expectBatchExecute(batchWorker, storageUtil.storage, control, ImmutableSet.of());
+    expectBatchExecute(batchWorker, storageUtil.storage, control, SCHEDULED_RESULT);
+    expect(backoffStrategy.calculateBackoffMs(FIRST_SCHEDULE_DELAY.as(Time.MILLISECONDS)))
+        .andReturn(PARKED_BACKOFF.as(Time.MILLISECONDS));
+
+    control.replay();
+
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(TASK_A_ID), INIT));
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    assertEquals(1L, statsProvider.getLongValue(TaskGroups.PARKED_GROUPS));
+
+    // The new offer is retried right away rather than after the backoff.
+    taskGroups.offerAvailable(new OfferAvailable(OFFER));
+    assertEquals(1L, statsProvider.getLongValue(TaskGroups.GROUPS_WOKEN_BY_OFFERS));
+    assertEquals(0L, statsProvider.getLongValue(TaskGroups.PARKED_GROUPS));
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(taskGroups.getGroups()));
+
+    // The entry for the original backoff is skipped once it expires.
+    clock.advance(PARKED_BACKOFF);
+    assertEquals(1L, statsProvider.getLongValue(TaskGroups.GROUPS_WOKEN_BY_OFFERS));
+    assertEquals(ImmutableSet.of(), ImmutableSet.copyOf(taskGroups.getGroups()));
+    clock.assertEmpty();
+  }
+
+  @Test
+  public void testParkedGroupNotRetriedWithoutOffers() throws Exception {
+    expect(rateLimiter.tryAcquire()).andReturn(true);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of(TASK_A_ID))))
+        .andReturn(ImmutableSet.of());
+    expectBatchExecute(batchWorker, storageUtil.storage, control, ImmutableSet.of());
+    expect(backoffStrategy.calculateBackoffMs(FIRST_SCHEDULE_DELAY.as(Time.MILLISECONDS)))
+        .andReturn(PARKED_BACKOFF.as(Time.MILLISECONDS));
+    expect(backoffStrategy.calculateBackoffMs(PARKED_BACKOFF.as(Time.MILLISECONDS)))
+        .andReturn(PARKED_BACKOFF.as(Time.MILLISECONDS));
+    expect(preemptor.hasPreemptionSlot(anyObject())).andReturn(false);
+    expect(offerManager.getAll()).andReturn(ImmutableSet.of());
+
+    control.replay();
+
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(TASK_A_ID), INIT));
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    clock.advance(PARKED_BACKOFF);
+    assertEquals(1L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_PARKED));
+    assertEquals(1L, statsProvider.getLongValue(TaskGroups.PARKED_GROUPS));
+  }
+
+  @Test
+  public void testParkedGroupsShareOfferSnapshot() throws Exception {
+    expect(rateLimiter.tryAcquire()).andReturn(true).times(2);
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("a0"))))
+        .andReturn(ImmutableSet.of());
+    expect(taskScheduler.schedule(anyObject(), eq(ImmutableSet.of("b0"))))
+        .andReturn(ImmutableSet.of());
+    expectBatchExecute(batchWorker, storageUtil.storage, control, ImmutableSet.of()).times(2);
+    expect(backoffStrategy.calculateBackoffMs(FIRST_SCHEDULE_DELAY.as(Time.MILLISECONDS)))
+        .andReturn(PARKED_BACKOFF.as(Time.MILLISECONDS))
+        .times(2);
+    expect(backoffStrategy.calculateBackoffMs(PARKED_BACKOFF.as(Time.MILLISECONDS)))
+        .andReturn(PARKED_BACKOFF.as(Time.MILLISECONDS))
+        .times(2);
+    expect(preemptor.hasPreemptionSlot(anyObject())).andReturn(false).times(2);
+    // Both groups are checked against the same snapshot of offers.
+    expect(offerManager.getAll()).andReturn(ImmutableSet.of());
+
+    control.replay();
+
+    taskGroups.taskChangedState(TaskStateChange.transition(makeTask(JOB_A, "a0", 0), INIT));
+    taskGroups.taskChangedState(TaskStateChange.transition(
+        makeTask(IJobKey.build(JOB_A.newBuilder().setName("jobB")), "b0", 0), INIT));
+    clock.advance(FIRST_SCHEDULE_DELAY);
+    assertEquals(2L, statsProvider.getLongValue(TaskGroups.PARKED_GROUPS));
+
+    clock.advance(PARKED_BACKOFF);
+    assertEquals(2L, statsProvider.getLongValue(TaskGroups.SCHEDULE_ATTEMPTS_PARKED));
+    assertEquals(2L, statsProvider.getLongValue(TaskGroups.PARKED_GROUPS));
   }
 
   @Test
@@ -184,6 +377,12 @@ public class TaskGroupsTest extends EasyMockTest {
     return makeTask(JOB_A, id, 0);
   }
 
+  private static IScheduledTask makeProductionTask(IJobKey jobKey, String id) {
+    ScheduledTask task = makeTask(jobKey, id, 0).newBuilder();
+    task.getAssignedTask().getTask().setProduction(true);
+    return IScheduledTask.build(task);
+  }
+
   private static IScheduledTask makeTask(IJobKey jobKey, String id, int instanceId) {
     return IScheduledTask.build(new ScheduledTask()
         .setStatus(ScheduleStatus.PENDING)
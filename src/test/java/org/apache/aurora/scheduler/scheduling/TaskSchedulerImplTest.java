@@ -147,7 +147,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
   public void testSchedule() {
     storageUtil.expectOperations();
 
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     expectTaskStillPendingQuery(TASK_A);
     expectActiveJobFetch(TASK_A);
     expectAssigned(TASK_A, NO_RESERVATION).andReturn(SCHEDULED_RESULT);
@@ -178,7 +178,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
     storageUtil.expectOperations();
 
     String taskB = "b";
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     storageUtil.expectTaskFetch(
         Query.taskScoped(Tasks.id(TASK_A), taskB).byStatus(PENDING),
         ImmutableSet.of(TASK_A));
@@ -217,7 +217,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
     expectTaskStillPendingQuery(TASK_A);
     expectActiveJobFetch(TASK_A);
     expectAssigned(TASK_A, NO_RESERVATION).andReturn(NOT_SCHEDULED_RESULT);
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     expectNoReservation(TASK_A);
     expectPreemptorCall(TASK_A, Optional.empty());
 
@@ -225,7 +225,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
     expectTaskStillPendingQuery(TASK_A);
     expectActiveJobFetch(TASK_A);
     expectAssigned(TASK_A, NO_RESERVATION).andReturn(NOT_SCHEDULED_RESULT);
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     expectNoReservation(TASK_A);
     expectPreemptorCall(TASK_A, Optional.of(SLAVE_ID));
     expectAddReservation(TASK_A, SLAVE_ID);
@@ -233,7 +233,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
     // Use previously created reservation.
     expectTaskStillPendingQuery(TASK_A);
     expectActiveJobFetch(TASK_A);
-    expectAsMap(ImmutableMap.of(SLAVE_ID, GROUP_KEY));
+    expectReservationView(ImmutableMap.of(SLAVE_ID, GROUP_KEY));
     expectAssigned(TASK_A, ImmutableMap.of(SLAVE_ID, GROUP_KEY)).andReturn(SCHEDULED_RESULT);
 
     control.replay();
@@ -255,7 +255,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
 
     expectTaskStillPendingQuery(TASK_A);
     expectActiveJobFetch(TASK_A);
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     expectAssigned(TASK_A, NO_RESERVATION).andReturn(NOT_SCHEDULED_RESULT);
     expectGetReservation(TASK_A, SLAVE_ID);
 
@@ -272,7 +272,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
 
     expectTaskStillPendingQuery(TASK_A);
     expectActiveJobFetch(TASK_A);
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     expectAssigned(TASK_A, NO_RESERVATION).andReturn(NOT_SCHEDULED_RESULT);
     expectGetReservation(TASK_A, SLAVE_ID);
 
@@ -318,7 +318,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
     memStorage.write((NoResult.Quiet)
         store -> store.getUnsafeTaskStore().saveTasks(ImmutableSet.of(taskA, taskB)));
 
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     expect(assigner.maybeAssign(
         EasyMock.anyObject(),
         eq(ResourceRequest.fromTask(
@@ -340,7 +340,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
   public void testScheduleThrows() {
     storageUtil.expectOperations();
 
-    expectAsMap(NO_RESERVATION);
+    expectReservationView(NO_RESERVATION);
     expectTaskStillPendingQuery(TASK_A);
     expectActiveJobFetch(TASK_A);
     expectAssigned(TASK_A, NO_RESERVATION).andThrow(new IllegalArgumentException("expected"));
@@ -380,7 +380,7 @@ public class TaskSchedulerImplTest extends EasyMockTest {
         .andReturn(ImmutableSet.of());
   }
 
-  private void expectAsMap(Map<String, TaskGroupKey> map) {
-    expect(reservations.asMap()).andReturn(map);
+  private void expectReservationView(Map<String, TaskGroupKey> map) {
+    expect(reservations.view()).andReturn(map);
   }
 }
@@ -44,6 +44,7 @@ import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent;
 import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChange;
+import org.apache.aurora.scheduler.events.PubsubEvent.TaskStateChanges;
 import org.apache.aurora.scheduler.events.PubsubEvent.TasksDeleted;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.resources.ResourceManager;
@@ -587,6 +588,71 @@ public class StateManagerImplTest extends EasyMockTest {
     assertEquals(HOST_A.getSlaveId(), change.getTask().getAssignedTask().getSlaveId());
   }
 
+  @Test
+  public void testAddTasksPostsBulkEvent() {
+    expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 0)).andReturn("a");
+    expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 1)).andReturn("b");
+    Capture<TaskStateChanges> changes = createCapture();
+    eventSink.post(capture(changes));
+
+    control.replay();
+
+    storage.write((NoResult.Quiet) storeProvider -> stateManager.insertPendingTasks(
+        storeProvider,
+        NON_SERVICE_CONFIG,
+        ImmutableSet.of(0, 1)));
+
+    assertEquals(
+        ImmutableSet.of("a", "b"),
+        changes.getValue().getChanges().stream()
+            .map(TaskStateChange::getTaskId)
+            .collect(Collectors.toSet()));
+    for (TaskStateChange change : changes.getValue().getChanges()) {
+      assertEquals(Optional.of(INIT), change.getOldState());
+      assertEquals(PENDING, change.getNewState());
+    }
+  }
+
+  @Test
+  public void testChangeStatesPostsBulkEvent() {
+    expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 0)).andReturn("a");
+    expect(taskIdGenerator.generate(NON_SERVICE_CONFIG, 1)).andReturn("b");
+    expectStateTransitions("a", INIT, PENDING, ASSIGNED, RUNNING);
+    expectStateTransitions("b", INIT, PENDING, ASSIGNED, RUNNING);
+    driver.killTask("a");
+    driver.killTask("b");
+    Capture<TaskStateChanges> changes = createCapture();
+    eventSink.post(capture(changes));
+
+    control.replay();
+
+    for (int instanceId : ImmutableList.of(0, 1)) {
+      insertTask(NON_SERVICE_CONFIG, instanceId);
+    }
+    for (String taskId : ImmutableList.of("a", "b")) {
+      assignTask(taskId, HOST_A);
+      changeState(taskId, RUNNING);
+    }
+
+    Map<String, StateChangeResult> results = storage.write(storeProvider ->
+        stateManager.changeStates(
+            storeProvider,
+            ImmutableSet.of("a", "b"),
+            KILLING,
+            Optional.empty()));
+
+    assertEquals(ImmutableMap.of("a", SUCCESS, "b", SUCCESS), results);
+    assertEquals(
+        ImmutableList.of("a", "b"),
+        changes.getValue().getChanges().stream()
+            .map(TaskStateChange::getTaskId)
+            .collect(Collectors.toList()));
+    for (TaskStateChange change : changes.getValue().getChanges()) {
+      assertEquals(Optional.of(RUNNING), change.getOldState());
+      assertEquals(KILLING, change.getNewState());
+    }
+  }
+
   private void expectStateTransitions(
       String taskId,
       ScheduleStatus initial,
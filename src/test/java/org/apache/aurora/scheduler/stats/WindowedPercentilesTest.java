@@ -0,0 +1,69 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.aurora.scheduler.stats;
+
+import org.apache.aurora.scheduler.testing.FakeStatsProvider;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class WindowedPercentilesTest {
+
+  private static final String NAME = "latency";
+  private static final String P50 = "latency_50_0_percentile";
+  private static final String P90 = "latency_90_0_percentile";
+
+  private FakeStatsProvider statsProvider;
+  private WindowedPercentiles percentiles;
+
+  @Before
+  public void setUp() {
+    statsProvider = new FakeStatsProvider();
+    percentiles = new WindowedPercentiles(statsProvider, NAME, 10, 50, 90);
+  }
+
+  @Test
+  public void testEmpty() {
+    assertEquals(0d, statsProvider.getValue(P50).doubleValue(), 0);
+    assertEquals(0d, percentiles.getSampled(50), 0);
+  }
+
+  @Test
+  public void testPercentiles() {
+    for (long i = 1; i <= 10; i++) {
+      percentiles.record(i);
+    }
+
+    assertEquals(0d, percentiles.getSampled(50), 0);
+    assertEquals(5.5d, statsProvider.getValue(P50).doubleValue(), 0.001);
+    assertEquals(9.1d, statsProvider.getValue(P90).doubleValue(), 0.001);
+    assertEquals(5.5d, percentiles.getSampled(50), 0.001);
+    assertEquals(9.1d, percentiles.getSampled(90), 0.001);
+  }
+
+  @Test
+  public void testWindowBounded() {
+    for (long i = 1; i <= 20; i++) {
+      percentiles.record(i);
+    }
+
+    assertEquals(15.5d, statsProvider.getValue(P50).doubleValue(), 0.001);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUntrackedPercentile() {
+    percentiles.getSampled(99);
+  }
+}
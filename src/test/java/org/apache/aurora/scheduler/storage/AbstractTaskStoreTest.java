@@ -346,6 +346,30 @@ public abstract class AbstractTaskStoreTest extends TearDownTestCase {
         TASK_B);
   }
 
+  @Test
+  public void testQueryPaging() {
+    saveTasks(TASK_D, TASK_B, TASK_A, TASK_C);
+
+    assertEquals(
+        ImmutableList.of(TASK_A, TASK_B),
+        ImmutableList.copyOf(fetchTasks(Query.unscoped().limit(2))));
+    assertEquals(
+        ImmutableList.of(TASK_B, TASK_C),
+        ImmutableList.copyOf(fetchTasks(
+            Query.arbitrary(new TaskQuery().setOffset(1).setLimit(2)))));
+    assertEquals(
+        ImmutableList.of(TASK_C, TASK_D),
+        ImmutableList.copyOf(fetchTasks(
+            Query.arbitrary(new TaskQuery().setContinuationToken(Tasks.id(TASK_B))))));
+    assertEquals(
+        ImmutableList.of(TASK_D),
+        ImmutableList.copyOf(fetchTasks(
+            Query.arbitrary(new TaskQuery().setContinuationToken(Tasks.id(TASK_B)).setOffset(1)))));
+    assertEquals(
+        ImmutableList.of(),
+        ImmutableList.copyOf(fetchTasks(Query.arbitrary(new TaskQuery().setOffset(4)))));
+  }
+
   @Test
   public void testMutate() {
     saveTasks(TASK_A, TASK_B, TASK_C, TASK_D);
@@ -15,7 +15,6 @@ package org.apache.aurora.scheduler.testing;
 
 import java.util.concurrent.CompletableFuture;
 
-import org.apache.aurora.common.testing.easymock.EasyMockTest;
 import org.apache.aurora.scheduler.BatchWorker;
 import org.apache.aurora.scheduler.BatchWorker.Work;
 import org.apache.aurora.scheduler.storage.Storage;
@@ -38,14 +37,10 @@ public final class BatchWorkerUtil {
       IMocksControl control,
       T resultValue) throws Exception {
 
-    final CompletableFuture<T> result = new EasyMockTest.Clazz<CompletableFuture<T>>() { }
-        .createMock(control);
-    expect(result.get()).andReturn(resultValue).anyTimes();
-
     final Capture<Work<T>> capture = createCapture();
     return expect(batchWorker.execute(capture(capture))).andAnswer(() -> {
       storage.write((Storage.MutateWork.NoResult.Quiet) store -> capture.getValue().apply(store));
-      return result;
+      return CompletableFuture.completedFuture(resultValue);
     });
   }
 
@@ -61,7 +61,9 @@ import org.apache.aurora.gen.Result;
 import org.apache.aurora.gen.RoleSummary;
 import org.apache.aurora.gen.RoleSummaryResult;
 import org.apache.aurora.gen.ScheduleStatus;
+import org.apache.aurora.gen.ScheduleStatusResult;
 import org.apache.aurora.gen.ScheduledTask;
+import org.apache.aurora.gen.ScheduledTaskField;
 import org.apache.aurora.gen.TaskConfig;
 import org.apache.aurora.gen.TaskQuery;
 import org.apache.aurora.scheduler.TierManager;
@@ -144,13 +146,18 @@ public class ReadOnlySchedulerImplTest extends EasyMockTest {
     quotaManager = createMock(QuotaManager.class);
     tierManager = createMock(TierManager.class);
 
-    thrift = new ReadOnlySchedulerImpl(
+    thrift = createThrift(0);
+  }
+
+  private ReadOnlyScheduler.Iface createThrift(int maxTaskQueryResults) {
+    return new ReadOnlySchedulerImpl(
         TaskTestUtil.CONFIGURATION_MANAGER,
         storageUtil.storage,
         nearestFit,
         cronPredictor,
         quotaManager,
-        tierManager);
+        tierManager,
+        maxTaskQueryResults);
   }
 
   @Test
@@ -484,7 +491,7 @@ public class ReadOnlySchedulerImplTest extends EasyMockTest {
 
   @Test
   public void testGetTasksStatusPagination() throws Exception {
-    Iterable<IScheduledTask> tasks = makeDefaultScheduledTasks(10);
+    List<IScheduledTask> tasks = makeScheduledTasksWithIds(10);
 
     TaskQuery page1Query = setupPaginatedQuery(tasks, 0, 4);
     TaskQuery page2Query = setupPaginatedQuery(tasks, 4, 4);
@@ -492,29 +499,93 @@ public class ReadOnlySchedulerImplTest extends EasyMockTest {
 
     control.replay();
 
-    Response page1Response = assertOkResponse(thrift.getTasksStatus(page1Query));
-    Response page2Response = assertOkResponse(thrift.getTasksStatus(page2Query));
-    Response page3Response = assertOkResponse(thrift.getTasksStatus(page3Query));
-
-    Iterable<Integer> page1Ids = Lists.newArrayList(Iterables.transform(
-        page1Response.getResult().getScheduleStatusResult().getTasks(), TO_INSTANCE_ID));
-    Iterable<Integer> page2Ids = Lists.newArrayList(Iterables.transform(
-        page2Response.getResult().getScheduleStatusResult().getTasks(), TO_INSTANCE_ID));
-    Iterable<Integer> page3Ids = Lists.newArrayList(Iterables.transform(
-        page3Response.getResult().getScheduleStatusResult().getTasks(), TO_INSTANCE_ID));
+    ScheduleStatusResult page1 =
+        assertOkResponse(thrift.getTasksStatus(page1Query)).getResult().getScheduleStatusResult();
+    ScheduleStatusResult page2 =
+        assertOkResponse(thrift.getTasksStatus(page2Query)).getResult().getScheduleStatusResult();
+    ScheduleStatusResult page3 =
+        assertOkResponse(thrift.getTasksStatus(page3Query)).getResult().getScheduleStatusResult();
 
-    assertEquals(Lists.newArrayList(0, 1, 2, 3), page1Ids);
-    assertEquals(Lists.newArrayList(4, 5, 6, 7), page2Ids);
-    assertEquals(Lists.newArrayList(8, 9), page3Ids);
+    assertEquals(
+        Lists.newArrayList(0, 1, 2, 3),
+        Lists.newArrayList(Iterables.transform(page1.getTasks(), TO_INSTANCE_ID)));
+    assertEquals(
+        Lists.newArrayList(4, 5, 6, 7),
+        Lists.newArrayList(Iterables.transform(page2.getTasks(), TO_INSTANCE_ID)));
+    assertEquals(
+        Lists.newArrayList(8, 9),
+        Lists.newArrayList(Iterables.transform(page3.getTasks(), TO_INSTANCE_ID)));
+    assertEquals(Tasks.id(tasks.get(3)), page1.getContinuationToken());
+    assertEquals(Tasks.id(tasks.get(7)), page2.getContinuationToken());
+    assertFalse(page3.isSetContinuationToken());
   }
 
-  private TaskQuery setupPaginatedQuery(Iterable<IScheduledTask> tasks, int offset, int limit) {
+  private TaskQuery setupPaginatedQuery(List<IScheduledTask> tasks, int offset, int limit) {
+    // The task store applies the offset and limit, one more task is fetched to detect a next page.
     TaskQuery query = new TaskQuery().setOffset(offset).setLimit(limit);
-    Builder builder = Query.arbitrary(query);
-    storageUtil.expectTaskFetch(builder, ImmutableSet.copyOf(tasks));
+    storageUtil.expectTaskFetch(
+        Query.arbitrary(query).limit(limit + 1),
+        ImmutableSet.copyOf(tasks.subList(offset, Math.min(offset + limit + 1, tasks.size()))));
     return query;
   }
 
+  @Test
+  public void testGetTasksStatusMaxResults() throws Exception {
+    List<IScheduledTask> tasks = makeScheduledTasksWithIds(5);
+    TaskQuery query = new TaskQuery();
+    storageUtil.expectTaskFetch(
+        Query.arbitrary(query).limit(3),
+        ImmutableSet.copyOf(tasks.subList(0, 3)));
+    TaskQuery nextQuery = new TaskQuery().setContinuationToken(Tasks.id(tasks.get(1)));
+    storageUtil.expectTaskFetch(
+        Query.arbitrary(nextQuery).limit(3),
+        ImmutableSet.copyOf(tasks.subList(2, 5)));
+
+    control.replay();
+
+    ReadOnlyScheduler.Iface limitedThrift = createThrift(2);
+    ScheduleStatusResult page1 = assertOkResponse(limitedThrift.getTasksStatus(query))
+        .getResult().getScheduleStatusResult();
+    assertEquals(IScheduledTask.toBuildersList(tasks.subList(0, 2)), page1.getTasks());
+    assertEquals(Tasks.id(tasks.get(1)), page1.getContinuationToken());
+
+    ScheduleStatusResult page2 = assertOkResponse(limitedThrift.getTasksStatus(nextQuery))
+        .getResult().getScheduleStatusResult();
+    assertEquals(IScheduledTask.toBuildersList(tasks.subList(2, 4)), page2.getTasks());
+    assertEquals(Tasks.id(tasks.get(3)), page2.getContinuationToken());
+  }
+
+  @Test
+  public void testGetTasksStatusOmittedFields() throws Exception {
+    IScheduledTask task = TaskTestUtil.makeTask("id", JOB_KEY);
+    TaskQuery query = new TaskQuery().setOmittedFields(ImmutableSet.of(
+        ScheduledTaskField.TASK_EVENTS,
+        ScheduledTaskField.ASSIGNED_PORTS,
+        ScheduledTaskField.RESOURCES));
+    storageUtil.expectTaskFetch(Query.arbitrary(query), task);
+
+    control.replay();
+
+    ScheduledTask expected = task.newBuilder().setTaskEvents(null);
+    expected.getAssignedTask().setAssignedPorts(null);
+    expected.getAssignedTask().getTask().setResources(null);
+    Response response = assertOkResponse(thrift.getTasksStatus(query));
+    assertEquals(
+        ImmutableList.of(expected),
+        response.getResult().getScheduleStatusResult().getTasks());
+  }
+
+  private static List<IScheduledTask> makeScheduledTasksWithIds(int n) {
+    List<IScheduledTask> tasks = Lists.newArrayList();
+    for (IScheduledTask task : makeDefaultScheduledTasks(n)) {
+      ScheduledTask builder = task.newBuilder();
+      builder.getAssignedTask().setTaskId(
+          String.format("task-%02d", builder.getAssignedTask().getInstanceId()));
+      tasks.add(IScheduledTask.build(builder));
+    }
+    return tasks;
+  }
+
   private static final Function<ScheduledTask, Integer> TO_INSTANCE_ID =
       new Function<ScheduledTask, Integer>() {
         @Nullable
@@ -607,12 +607,11 @@ public class SchedulerThriftInterfaceTest extends EasyMockTest {
 
   private void expectTransitionsToKilling(Optional<String> message) {
     expect(auditMessages.killedByRemoteUser(message)).andReturn(Optional.of("test"));
-    expect(stateManager.changeState(
+    expect(stateManager.changeStates(
         storageUtil.mutableStoreProvider,
-        TASK_ID,
-        Optional.empty(),
+        ImmutableSet.of(TASK_ID),
         ScheduleStatus.KILLING,
-        Optional.of("test"))).andReturn(StateChangeResult.SUCCESS);
+        Optional.of("test"))).andReturn(ImmutableMap.of(TASK_ID, StateChangeResult.SUCCESS));
   }
 
   @Test
@@ -728,13 +727,12 @@ public class SchedulerThriftInterfaceTest extends EasyMockTest {
   @Test
   public void testPruneTasksAppliesQueryLimit() throws Exception {
     TaskQuery query = new TaskQuery().setLimit(3);
+    // The limit is applied by the task store.
     storageUtil.expectTaskFetch(
         Query.arbitrary(query.setStatuses(Tasks.TERMINAL_STATES)),
         buildScheduledTask("a/b/c", "task1"),
         buildScheduledTask("a/b/c", "task2"),
-        buildScheduledTask("a/b/c", "task3"),
-        buildScheduledTask("a/b/c", "task4"),
-        buildScheduledTask("a/b/c", "task5"));
+        buildScheduledTask("a/b/c", "task3"));
     stateManager.deleteTasks(
         storageUtil.mutableStoreProvider,
         ImmutableSet.of("task1", "task2", "task3"));
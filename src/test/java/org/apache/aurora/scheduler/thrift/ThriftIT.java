@@ -97,7 +97,7 @@ public class ThriftIT extends EasyMockTest {
     ResourceType.initializeEmptyCliArgsForTest();
     CliOptions options = new CliOptions();
     Injector injector = Guice.createInjector(
-        new ThriftModule(),
+        new ThriftModule(options),
         new AopModule(options),
         new AbstractModule() {
           private <T> T bindMock(Class<T> clazz) {
@@ -14,6 +14,7 @@
 package org.apache.aurora.scheduler.updater;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -26,12 +27,14 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
-import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -76,8 +79,12 @@ import org.apache.aurora.scheduler.base.Query;
 import org.apache.aurora.scheduler.base.TaskTestUtil;
 import org.apache.aurora.scheduler.base.Tasks;
 import org.apache.aurora.scheduler.config.types.TimeAmount;
+import org.apache.aurora.scheduler.events.EventDispatcher;
+import org.apache.aurora.scheduler.events.EventDispatcher.Backpressure;
+import org.apache.aurora.scheduler.events.EventDispatcher.DispatchSettings;
 import org.apache.aurora.scheduler.events.EventSink;
 import org.apache.aurora.scheduler.events.PubsubEvent;
+import org.apache.aurora.scheduler.events.PubsubEvent.JobUpdateStatusChanged;
 import org.apache.aurora.scheduler.mesos.Driver;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator;
 import org.apache.aurora.scheduler.scheduling.RescheduleCalculator.RescheduleCalculatorImpl;
@@ -166,7 +173,7 @@ public class JobUpdaterIT extends EasyMockTest {
   private FakeScheduledExecutor clock;
   private JobUpdateController updater;
   private Driver driver;
-  private EventBus eventBus;
+  private EventDispatcher dispatcher;
   private Storage storage;
   private StateManager stateManager;
   private JobUpdateEventSubscriber subscriber;
@@ -193,7 +200,15 @@ public class JobUpdaterIT extends EasyMockTest {
     clock = FakeScheduledExecutor.scheduleExecutor(executor);
     driver = createMock(Driver.class);
     shutdownCommand = createMock(Command.class);
-    eventBus = new EventBus();
+    // Deliver events on the posting thread, subscriber exceptions fail the posting call.
+    dispatcher = new EventDispatcher(
+        "test",
+        MoreExecutors.directExecutor(),
+        new DispatchSettings(Integer.MAX_VALUE, Backpressure.BLOCK, 1),
+        new FakeStatsProvider(),
+        (exception, event, method) -> {
+          throw new IllegalStateException("Failed to dispatch " + event, exception);
+        });
     TaskEventBatchWorker taskEventBatchWorker = createMock(TaskEventBatchWorker.class);
     UpdateActionBatchWorker updateActionBatchWorker = createMock(UpdateActionBatchWorker.class);
 
@@ -228,7 +243,7 @@ public class JobUpdaterIT extends EasyMockTest {
                         Amount.of(1L, Time.SECONDS), Amount.of(1L, Time.MINUTES)),
                     FLAPPING_THRESHOLD,
                     new TimeAmount(1, Time.MINUTES)));
-            bind(EventSink.class).toInstance(eventBus::post);
+            bind(EventSink.class).toInstance(dispatcher::post);
             bind(UUIDGenerator.class).to(UUIDGeneratorImpl.class);
             bind(Lifecycle.class).toInstance(new Lifecycle(shutdownCommand));
             bind(TaskEventBatchWorker.class).toInstance(taskEventBatchWorker);
@@ -244,7 +259,7 @@ public class JobUpdaterIT extends EasyMockTest {
     storage = injector.getInstance(Storage.class);
     storage.prepare();
     stateManager = injector.getInstance(StateManager.class);
-    eventBus.register(injector.getInstance(JobUpdateEventSubscriber.class));
+    dispatcher.register(injector.getInstance(JobUpdateEventSubscriber.class));
     subscriber = injector.getInstance(JobUpdateEventSubscriber.class);
     expectBatchExecute(taskEventBatchWorker, storage, control).anyTimes();
     expectBatchExecute(updateActionBatchWorker, storage, control).anyTimes();
@@ -1027,6 +1042,9 @@ public class JobUpdaterIT extends EasyMockTest {
 
     control.replay();
 
+    UpdateStatusRecorder recorder = new UpdateStatusRecorder();
+    dispatcher.register(recorder);
+
     IJobUpdate update = makeJobUpdate(makeInstanceConfig(0, 2, OLD_CONFIG));
     insertInitialTasks(update);
 
@@ -1047,6 +1065,7 @@ public class JobUpdaterIT extends EasyMockTest {
     assertState(ABORTED, actions.build());
     clock.advance(WATCH_TIMEOUT);
     assertJobState(JOB, ImmutableMap.of(0, NEW_CONFIG, 1, NEW_CONFIG, 2, OLD_CONFIG));
+    assertEquals(ImmutableList.of(ROLLING_FORWARD, ABORTED), recorder.statuses);
   }
 
   @Test
@@ -1868,4 +1887,13 @@ public class JobUpdaterIT extends EasyMockTest {
         .setInstances(ImmutableSet.of(new Range(start, end)))
         .setTask(config.newBuilder()));
   }
+
+  static class UpdateStatusRecorder {
+    final List<JobUpdateStatus> statuses = Lists.newArrayList();
+
+    @Subscribe
+    public void updateStatusChanged(JobUpdateStatusChanged event) {
+      statuses.add(event.getEvent().getStatus());
+    }
+  }
 }